@@ -0,0 +1,15 @@
+package state.street.car.booking.carBooking.allocation;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "carbooking.allocation")
+public class AllocationProperties {
+
+    /**
+     * Days either side of a requested period that are loaded to size the free gaps around it;
+     * a gap reaching the edge of this window counts as ending there
+     */
+    private int windowDays = 30;
+}
@@ -0,0 +1,13 @@
+package state.street.car.booking.carBooking.allocation;
+
+import java.time.LocalDateTime;
+
+/**
+ * A day booking reduced to what car allocation needs
+ */
+public record BookedInterval(Long bookingId, Long carId, LocalDateTime start, int duration) {
+
+    public LocalDateTime end() {
+        return start.plusDays(duration);
+    }
+}
@@ -0,0 +1,9 @@
+package state.street.car.booking.carBooking.allocation;
+
+import java.time.LocalDateTime;
+
+/**
+ * Time a car is taken by something other than a day booking
+ */
+public record BusyPeriod(Long carId, LocalDateTime start, LocalDateTime end) {
+}
@@ -0,0 +1,128 @@
+package state.street.car.booking.carBooking.allocation;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The day bookings of a set of cars over a window, one calendar per car ordered by start. Finds
+ * the free gap around a period on each car with two lookups, and measures how the window's free
+ * time is split into gaps. A booking touching a period conflicts with it, as in the booking
+ * conflict check, so a gap is the open time between two bookings.
+ */
+public class FleetCalendar {
+
+    private static final double MINUTES_PER_DAY = 24 * 60;
+
+    /**
+     * How the window's free time is split. fragmentation is the share of free time outside each
+     * car's longest gap: 0 when every car's free time is one piece, near 1 when it is in crumbs.
+     */
+    public record Fragmentation(int cars, int gaps, double freeDays, double fragmentation) {
+    }
+
+    private record Candidate(Long carId, Duration gap, int tieBreak) {
+    }
+
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final Map<Long, NavigableMap<LocalDateTime, LocalDateTime>> calendars = new TreeMap<>();
+
+    public FleetCalendar(LocalDateTime from, LocalDateTime to, Collection<Long> carIds) {
+        this.from = from;
+        this.to = to;
+        carIds.forEach(carId -> calendars.put(carId, new TreeMap<>()));
+    }
+
+    /**
+     * Adds a booking of a car in the calendar; bookings of other cars are ignored
+     */
+    public void add(Long carId, LocalDateTime start, LocalDateTime end) {
+        NavigableMap<LocalDateTime, LocalDateTime> calendar = calendars.get(carId);
+        if (calendar != null) {
+            calendar.merge(start, end, (current, added) -> current.isAfter(added) ? current : added);
+        }
+    }
+
+    public void add(BookedInterval booking) {
+        add(booking.carId(), booking.start(), booking.end());
+    }
+
+    public void remove(Long carId, LocalDateTime start) {
+        NavigableMap<LocalDateTime, LocalDateTime> calendar = calendars.get(carId);
+        if (calendar != null) {
+            calendar.remove(start);
+        }
+    }
+
+    /**
+     * Cars free for [start, end), tightest surrounding gap first. Cars with equal gaps come in a
+     * random order, so concurrent requests for the same period spread over them.
+     */
+    public List<Long> bestFit(LocalDateTime start, LocalDateTime end) {
+        List<Candidate> candidates = new ArrayList<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        calendars.forEach((carId, calendar) -> {
+            Map.Entry<LocalDateTime, LocalDateTime> before = calendar.floorEntry(start);
+            if (before != null && !before.getValue().isBefore(start)) {
+                return;
+            }
+            Map.Entry<LocalDateTime, LocalDateTime> after = calendar.higherEntry(start);
+            if (after != null && !after.getKey().isAfter(end)) {
+                return;
+            }
+            LocalDateTime gapStart = before == null ? min(from, start) : before.getValue();
+            LocalDateTime gapEnd = after == null ? max(to, end) : after.getKey();
+            candidates.add(new Candidate(carId, Duration.between(gapStart, gapEnd), random.nextInt()));
+        });
+        candidates.sort(Comparator.comparing(Candidate::gap).thenComparingInt(Candidate::tieBreak));
+        return candidates.stream().map(Candidate::carId).toList();
+    }
+
+    public Fragmentation fragmentation() {
+        long freeMinutes = 0;
+        long longestMinutes = 0;
+        int gaps = 0;
+        for (NavigableMap<LocalDateTime, LocalDateTime> calendar : calendars.values()) {
+            LocalDateTime cursor = from;
+            long longest = 0;
+            for (Map.Entry<LocalDateTime, LocalDateTime> booking : calendar.entrySet()) {
+                if (!booking.getKey().isAfter(cursor)) {
+                    cursor = max(cursor, booking.getValue());
+                    continue;
+                }
+                long gap = Duration.between(cursor, min(booking.getKey(), to)).toMinutes();
+                if (gap > 0) {
+                    freeMinutes += gap;
+                    longest = Math.max(longest, gap);
+                    gaps++;
+                }
+                cursor = max(cursor, booking.getValue());
+            }
+            if (cursor.isBefore(to)) {
+                long gap = Duration.between(cursor, to).toMinutes();
+                freeMinutes += gap;
+                longest = Math.max(longest, gap);
+                gaps++;
+            }
+            longestMinutes += longest;
+        }
+        double fragmentation = freeMinutes == 0 ? 0 : 1 - (double) longestMinutes / freeMinutes;
+        return new Fragmentation(calendars.size(), gaps, freeMinutes / MINUTES_PER_DAY, fragmentation);
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
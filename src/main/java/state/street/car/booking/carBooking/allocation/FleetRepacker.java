@@ -0,0 +1,130 @@
+package state.street.car.booking.carBooking.allocation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Reassigns movable bookings among a set of cars so they are packed onto as few cars, and as
+ * tightly, as possible, leaving the free time in long stretches. A sweep in start order, as for
+ * colouring an interval graph: each movable booking goes to the car that became free most
+ * recently before it starts (best fit) and stays clear of the car's fixed bookings, preferring
+ * its own car on a tie. Cars are held in a set ordered by when they become free, so each booking
+ * costs a lookup rather than a pass over the fleet.
+ * <p>
+ * Times are epoch seconds and a booking touching another conflicts with it, as in the booking
+ * conflict check. If the fixed bookings leave no car for some movable one, nothing is moved.
+ */
+public final class FleetRepacker {
+
+    public record Item(long id, long carId, long start, long end) {
+    }
+
+    public record Move(long bookingId, long fromCarId, long toCarId) {
+    }
+
+    public record Plan(List<Move> moves, boolean complete) {
+    }
+
+    private record Free(long from, int car) {
+    }
+
+    private static final Comparator<Free> BY_FREE_FROM = Comparator.comparingLong(Free::from).thenComparingInt(Free::car);
+
+    private FleetRepacker() {
+    }
+
+    /**
+     * @param carIds the cars bookings may move between
+     * @param fixed  bookings and other busy periods that keep their car
+     * @param movable bookings that may move to any of the cars
+     */
+    public static Plan plan(List<Long> carIds, List<Item> fixed, List<Item> movable) {
+        Map<Long, Integer> index = new HashMap<>();
+        for (int car = 0; car < carIds.size(); car++) {
+            index.put(carIds.get(car), car);
+        }
+        // Fixed bookings per car by start, for the look-ahead
+        List<TreeMap<Long, Long>> fixedByCar = new ArrayList<>(carIds.size());
+        for (int car = 0; car < carIds.size(); car++) {
+            fixedByCar.add(new TreeMap<>());
+        }
+        List<Item> sweep = new ArrayList<>(fixed.size() + movable.size());
+        for (Item item : fixed) {
+            Integer car = index.get(item.carId());
+            if (car != null) {
+                fixedByCar.get(car).merge(item.start(), item.end(), Math::max);
+                sweep.add(item);
+            }
+        }
+        int fixedCount = sweep.size();
+        sweep.addAll(movable);
+        Integer[] order = new Integer[sweep.size()];
+        Arrays.setAll(order, i -> i);
+        // Fixed before movable on the same start, so the car is seen as taken
+        Arrays.sort(order, Comparator.<Integer>comparingLong(i -> sweep.get(i).start())
+                .thenComparingInt(i -> i < fixedCount ? 0 : 1)
+                .thenComparingLong(i -> sweep.get(i).id()));
+
+        long[] freeFrom = new long[carIds.size()];
+        Arrays.fill(freeFrom, Long.MIN_VALUE);
+        NavigableSet<Free> byFreeFrom = new TreeSet<>(BY_FREE_FROM);
+        for (int car = 0; car < carIds.size(); car++) {
+            byFreeFrom.add(new Free(Long.MIN_VALUE, car));
+        }
+
+        List<Move> moves = new ArrayList<>();
+        for (Integer position : order) {
+            Item item = sweep.get(position);
+            if (position < fixedCount) {
+                int car = index.get(item.carId());
+                occupy(byFreeFrom, freeFrom, car, Math.max(freeFrom[car], item.end()));
+                continue;
+            }
+            Integer own = index.get(item.carId());
+            int car = chooseCar(byFreeFrom, freeFrom, fixedByCar, own, item);
+            if (car < 0) {
+                return new Plan(List.of(), false);
+            }
+            occupy(byFreeFrom, freeFrom, car, item.end());
+            long target = carIds.get(car);
+            if (target != item.carId()) {
+                moves.add(new Move(item.id(), item.carId(), target));
+            }
+        }
+        return new Plan(moves, true);
+    }
+
+    private static int chooseCar(NavigableSet<Free> byFreeFrom, long[] freeFrom, List<TreeMap<Long, Long>> fixedByCar,
+                                 Integer own, Item item) {
+        // Cars free strictly before the start, the most recently freed first
+        for (Free candidate : byFreeFrom.headSet(new Free(item.start(), -1), false).descendingSet()) {
+            if (!clearOfFixed(fixedByCar.get(candidate.car()), item)) {
+                continue;
+            }
+            if (own != null && own != candidate.car() && freeFrom[own] == candidate.from()
+                    && clearOfFixed(fixedByCar.get(own), item)) {
+                return own;
+            }
+            return candidate.car();
+        }
+        return -1;
+    }
+
+    private static boolean clearOfFixed(TreeMap<Long, Long> fixed, Item item) {
+        Long next = fixed.ceilingKey(item.start());
+        return next == null || next > item.end();
+    }
+
+    private static void occupy(NavigableSet<Free> byFreeFrom, long[] freeFrom, int car, long until) {
+        byFreeFrom.remove(new Free(freeFrom[car], car));
+        freeFrom[car] = until;
+        byFreeFrom.add(new Free(until, car));
+    }
+}
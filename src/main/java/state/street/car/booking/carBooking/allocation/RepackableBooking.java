@@ -0,0 +1,21 @@
+package state.street.car.booking.carBooking.allocation;
+
+import java.time.LocalDateTime;
+
+/**
+ * A day booking as the re-packing job sees it
+ */
+public record RepackableBooking(Long bookingId, Long userId, Long carId, LocalDateTime start, Integer duration,
+                                Long seriesId, Boolean allowReassignment) {
+
+    public LocalDateTime end() {
+        return start.plusDays(duration);
+    }
+
+    /**
+     * Occurrences stay on their series' car; bookings under way stay where they are
+     */
+    public boolean isMovable(LocalDateTime now) {
+        return Boolean.TRUE.equals(allowReassignment) && seriesId == null && start.isAfter(now);
+    }
+}
@@ -0,0 +1,19 @@
+package state.street.car.booking.carBooking.allocation;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "carbooking.repacking")
+public class RepackingProperties {
+
+    /**
+     * Car changes sent to the database per JDBC batch when a plan is applied
+     */
+    private int batchSize = 1_000;
+
+    /**
+     * Moves listed per car type in a report; the counts always cover all of them
+     */
+    private int reportedMoves = 20;
+}
@@ -0,0 +1,97 @@
+package state.street.car.booking.carBooking.cluster;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import state.street.car.booking.carBooking.entity.ChangeLogEntry;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records which cars and bookings (by the day or by the hour) a transaction changed, for the other nodes' caches. Just before
+ * the transaction commits, each changed key gets one change_log row on the shard the transaction
+ * writes to. The rows' ids are the feed's order; nothing else is updated, so concurrent writers
+ * never wait on each other here. Does nothing unless carbooking.coherence.enabled is set.
+ */
+@Component
+public class ChangeFeed {
+
+    private static final String APPEND = "INSERT INTO change_log (entity_type, entity_key, node_id, changed_at) "
+            + "VALUES (?, ?, ?, LOCALTIMESTAMP)";
+
+    private final CoherenceProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final String nodeId;
+
+    public ChangeFeed(CoherenceProperties properties, JdbcTemplate jdbcTemplate, LeaseManager leaseManager) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.nodeId = leaseManager.getNodeId();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void carChanged(Long carId) {
+        record(ChangeLogEntry.EntityType.CAR, carId);
+    }
+
+    public void bookingChanged(Long bookingId) {
+        record(ChangeLogEntry.EntityType.BOOKING, bookingId);
+    }
+
+    public void hourlyBookingChanged(Long hourlyBookingId) {
+        record(ChangeLogEntry.EntityType.HOURLY_BOOKING, hourlyBookingId);
+    }
+
+    private void record(ChangeLogEntry.EntityType type, Long key) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write(Map.of(type, Set.of(key)));
+            return;
+        }
+        PendingChanges pending = null;
+        // Only the current transaction's synchronizations are listed, not those of suspended ones
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingChanges changes && changes.feed() == this) {
+                pending = changes;
+            }
+        }
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.keys.computeIfAbsent(type, ignored -> new LinkedHashSet<>()).add(key);
+    }
+
+    private void write(Map<ChangeLogEntry.EntityType, Set<Long>> changes) {
+        List<Object[]> rows = new ArrayList<>();
+        changes.forEach((type, keys) -> keys.forEach(key -> rows.add(new Object[]{type.name(), key, nodeId})));
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(APPEND, rows);
+        }
+    }
+
+    private class PendingChanges implements TransactionSynchronization {
+
+        private final Map<ChangeLogEntry.EntityType, Set<Long>> keys = new EnumMap<>(ChangeLogEntry.EntityType.class);
+
+        ChangeFeed feed() {
+            return ChangeFeed.this;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            write(keys);
+        }
+    }
+}
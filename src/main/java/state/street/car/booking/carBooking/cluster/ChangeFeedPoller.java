@@ -0,0 +1,287 @@
+package state.street.car.booking.carBooking.cluster;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import state.street.car.booking.carBooking.datasource.ShardRouter;
+import state.street.car.booking.carBooking.entity.ChangeLogEntry;
+import state.street.car.booking.carBooking.service.DatabaseRestoredEvent;
+
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Applies other nodes' changes to the local caches. Each poll reads the change_log rows above
+ * the last id applied on every shard, usually none, and hands the keys changed by other nodes to
+ * every RemoteChangeListener. A change committed elsewhere is therefore evicted here within one
+ * poll interval plus the poll itself.
+ * <p>
+ * Ids are taken when a transaction writes its rows, just before it flushes and commits, so a
+ * lower id can become visible after a higher one. An id skipped over is looked for in the scan
+ * above the applied id until gap-timeout-millis has passed, and after that on its own, since a
+ * long transaction may still commit it. It is given up, and every type evicted, once the row
+ * applied just before it has been pruned, when it can no longer be told apart from a pruned
+ * change, or once it is older than the retention. Every type is also evicted when more ids are
+ * skipped at once than can be tracked.
+ * <p>
+ * If polling keeps failing for longer than max-staleness-millis every type is evicted on each
+ * attempt, so no cache serves data older than that bound.
+ */
+@Component
+@Slf4j
+public class ChangeFeedPoller {
+
+    private static final String CHANGES = "SELECT id, entity_type, entity_key, node_id FROM change_log WHERE id > ? ORDER BY id";
+    private static final String LATE_CHANGES = "SELECT id, entity_type, entity_key, node_id FROM change_log WHERE id IN (%s)";
+    // The newest row stays, so a node finding the row after its position gone knows it was pruned
+    private static final String PRUNE = "DELETE FROM change_log WHERE changed_at < DATEADD('MILLISECOND', ?, LOCALTIMESTAMP) "
+            + "AND id < (SELECT MAX(id) FROM change_log)";
+    // Ids looked for at once; a longer run skipped at once evicts every type
+    private static final int MAX_MISSING_IDS = 1_000;
+
+    private final CoherenceProperties properties;
+    private final ChangeFeed changeFeed;
+    private final List<RemoteChangeListener> listeners;
+    private final ShardRouter shardRouter;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Integer, Cursor> cursors = new ConcurrentHashMap<>();
+    private final AtomicLong polls = new AtomicLong();
+    private final AtomicLong keysEvicted = new AtomicLong();
+    private final AtomicLong typesEvicted = new AtomicLong();
+    private volatile long lastSuccessNanos = System.nanoTime();
+    private volatile long lastPruneNanos = System.nanoTime();
+    private volatile ScheduledExecutorService executor;
+
+    public ChangeFeedPoller(CoherenceProperties properties,
+                            ChangeFeed changeFeed,
+                            List<RemoteChangeListener> listeners,
+                            ShardRouter shardRouter,
+                            JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.changeFeed = changeFeed;
+        this.listeners = listeners;
+        this.shardRouter = shardRouter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::pollQuietly, 0, properties.getPollIntervalMillis(), TimeUnit.MILLISECONDS);
+        log.info("Change feed poller started on node {} with {} listener(s)", changeFeed.getNodeId(), listeners.size());
+    }
+
+    /**
+     * Applies every change committed on other nodes since the last poll; returns the number of keys evicted
+     */
+    public synchronized int poll() {
+        // Not read-only: with a replica, read-only transactions would see the feed late
+        List<Integer> evicted = transactionTemplate.execute(status -> shardRouter.fanOut(false, this::pollShard));
+        lastSuccessNanos = System.nanoTime();
+        if (System.nanoTime() - lastPruneNanos > TimeUnit.MILLISECONDS.toNanos(properties.getRetentionMillis() / 10)) {
+            transactionTemplate.executeWithoutResult(status -> shardRouter.fanOut(false,
+                    shard -> jdbcTemplate.update(PRUNE, -properties.getRetentionMillis())));
+            lastPruneNanos = System.nanoTime();
+        }
+        polls.incrementAndGet();
+        return evicted.stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * Starts every shard again from its newest change_log row: the restored identity may hand out
+     * ids at or below those already applied, and the caches were emptied with the old tables
+     */
+    @EventListener(DatabaseRestoredEvent.class)
+    public synchronized void restored() {
+        cursors.clear();
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", properties.isEnabled());
+        status.put("node", changeFeed.getNodeId());
+        status.put("polls", polls.get());
+        status.put("keysEvicted", keysEvicted.get());
+        status.put("typesEvicted", typesEvicted.get());
+        status.put("millisSinceLastPoll", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastSuccessNanos));
+        Map<Integer, Long> applied = new TreeMap<>();
+        cursors.forEach((shard, cursor) -> applied.put(shard, cursor.applied));
+        status.put("appliedIds", applied);
+        return status;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private int pollShard(int shard) {
+        Cursor cursor = cursors.get(shard);
+        if (cursor == null) {
+            // Changes made before this node started are not in its caches
+            Long newest = jdbcTemplate.queryForObject("SELECT MAX(id) FROM change_log", Long.class);
+            cursors.put(shard, new Cursor(newest == null ? 0 : newest));
+            return 0;
+        }
+        Map<ChangeLogEntry.EntityType, Set<Long>> keys = new EnumMap<>(ChangeLogEntry.EntityType.class);
+        collect(jdbcTemplate.queryForList(CHANGES, cursor.from()), cursor, keys);
+        cursor.stopScanningFor(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(properties.getGapTimeoutMillis()));
+        if (!cursor.late.isEmpty()) {
+            String ids = String.join(",", cursor.late.keySet().stream().map(String::valueOf).toList());
+            collect(jdbcTemplate.queryForList(LATE_CHANGES.formatted(ids)), cursor, keys);
+        }
+
+        int evicted = 0;
+        for (Map.Entry<ChangeLogEntry.EntityType, Set<Long>> changed : keys.entrySet()) {
+            listeners.forEach(listener -> listener.changed(changed.getKey(), changed.getValue()));
+            evicted += changed.getValue().size();
+        }
+        keysEvicted.addAndGet(evicted);
+
+        Long given = cursor.late.isEmpty() ? null : giveUpLate(cursor);
+        if (given != null) {
+            log.warn("Change feed of shard {} lost id {}, pruned or rolled back; evicting every cached type", shard, given);
+            evictAll();
+        } else if (cursor.overflowed) {
+            log.warn("More than {} change_log ids of shard {} were skipped at once; evicting every cached type",
+                    MAX_MISSING_IDS, shard);
+            cursor.overflowed = false;
+            evictAll();
+        }
+        return evicted;
+    }
+
+    private void collect(List<Map<String, Object>> changes, Cursor cursor, Map<ChangeLogEntry.EntityType, Set<Long>> keys) {
+        for (Map<String, Object> change : changes) {
+            if (cursor.accept(((Number) change.get("id")).longValue())
+                    && !changeFeed.getNodeId().equals(change.get("node_id"))) {
+                keys.computeIfAbsent(ChangeLogEntry.EntityType.valueOf(String.valueOf(change.get("entity_type"))),
+                                ignored -> new LinkedHashSet<>())
+                        .add(((Number) change.get("entity_key")).longValue());
+            }
+        }
+    }
+
+    /**
+     * Drops the late ids that can no longer appear, returning the lowest of them, if any. Rows are
+     * pruned oldest first, so once the row applied before an id is gone the id may have gone with
+     * it; a transaction still open, whose row would be below every row left, keeps that row.
+     */
+    private Long giveUpLate(Cursor cursor) {
+        Long oldest = jdbcTemplate.queryForObject("SELECT MIN(id) FROM change_log", Long.class);
+        long expired = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(properties.getRetentionMillis());
+        Long lowest = null;
+        for (Iterator<Map.Entry<Long, Cursor.Skip>> ids = cursor.late.entrySet().iterator(); ids.hasNext(); ) {
+            Map.Entry<Long, Cursor.Skip> id = ids.next();
+            long after = id.getValue().after();
+            if ((after > 0 && (oldest == null || oldest > after)) || id.getValue().nanos() - expired < 0) {
+                lowest = lowest == null ? id.getKey() : lowest;
+                ids.remove();
+            }
+        }
+        return lowest;
+    }
+
+    private void evictAll() {
+        for (ChangeLogEntry.EntityType type : ChangeLogEntry.EntityType.values()) {
+            listeners.forEach(listener -> listener.allChanged(type));
+        }
+        typesEvicted.addAndGet(ChangeLogEntry.EntityType.values().length);
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            log.error("Could not poll the change feed", e);
+            if (System.nanoTime() - lastSuccessNanos > TimeUnit.MILLISECONDS.toNanos(properties.getMaxStalenessMillis())) {
+                evictAll();
+            }
+        }
+    }
+
+    /**
+     * How far one shard's feed has been applied: every id up to {@code applied} except those
+     * still missing or late, each with the id applied before it and when it was first skipped over
+     */
+    private static final class Cursor {
+
+        private record Skip(long after, long nanos) {
+        }
+
+        private long applied;
+        private final TreeMap<Long, Skip> missing = new TreeMap<>();
+        private final TreeMap<Long, Skip> late = new TreeMap<>();
+        private boolean overflowed;
+
+        Cursor(long applied) {
+            this.applied = applied;
+        }
+
+        long from() {
+            return missing.isEmpty() ? applied : missing.firstKey() - 1;
+        }
+
+        /**
+         * Records the id as applied; false if it already was
+         */
+        boolean accept(long id) {
+            if (id <= applied) {
+                return missing.remove(id) != null || late.remove(id) != null;
+            }
+            Skip skip = new Skip(applied, System.nanoTime());
+            long room = Math.max(0, MAX_MISSING_IDS - missing.size() - late.size());
+            for (long skipped = applied + 1; skipped < id; skipped++) {
+                if (skipped - applied > room) {
+                    overflowed = true;
+                    break;
+                }
+                missing.put(skipped, skip);
+            }
+            applied = id;
+            return true;
+        }
+
+        /**
+         * Moves ids skipped over before the given time from the scan to the one-by-one lookup
+         */
+        void stopScanningFor(long skippedBefore) {
+            for (Iterator<Map.Entry<Long, Skip>> ids = missing.entrySet().iterator(); ids.hasNext(); ) {
+                Map.Entry<Long, Skip> id = ids.next();
+                if (id.getValue().nanos() - skippedBefore < 0) {
+                    late.put(id.getKey(), id.getValue());
+                    ids.remove();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package state.street.car.booking.carBooking.cluster;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "carbooking.coherence")
+public class CoherenceProperties {
+
+    /**
+     * Record car and booking changes in the database change feed and poll it for other nodes' changes
+     */
+    private boolean enabled = false;
+
+    /**
+     * How often the change feed is polled; another node's change is evicted here within about this long
+     */
+    private long pollIntervalMillis = 200;
+
+    /**
+     * How long changed keys are kept; a node further behind than this evicts whole entity types
+     */
+    private long retentionMillis = 10L * 60 * 1000;
+
+    /**
+     * How long a change_log id skipped over is looked for in the scan of newer ids; it is written
+     * just before its transaction commits, so only a commit still in progress or a rollback leaves
+     * one. After that it is looked up on its own until it appears or the feed is pruned past it.
+     */
+    private long gapTimeoutMillis = 5_000;
+
+    /**
+     * Once polling has failed for this long, local caches are dropped on every attempt until it recovers
+     */
+    private long maxStalenessMillis = 5_000;
+}
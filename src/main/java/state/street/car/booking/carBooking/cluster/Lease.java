@@ -0,0 +1,7 @@
+package state.street.car.booking.carBooking.cluster;
+
+/**
+ * A held lease. The fencing token is checked in the transaction that commits the leased work.
+ */
+public record Lease(String name, String owner, long fencingToken) {
+}
@@ -0,0 +1,274 @@
+package state.street.car.booking.carBooking.cluster;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Database leases that let one node of a cluster run a scheduled task. Every change is one
+ * conditional update against the database clock, so node clocks do not matter. Each acquisition
+ * increments the lease's fencing token, and the leased work checks its token in the transaction
+ * that commits it: a node that lost the lease while paused cannot commit over its successor.
+ * <p>
+ * With carbooking.lease.enabled unset every task simply runs on this node.
+ */
+@Component
+@Slf4j
+public class LeaseManager {
+
+    private static final String ENSURE = "INSERT INTO scheduler_leases (name, fencing_token, expires_at) "
+            + "SELECT ?, 0, LOCALTIMESTAMP WHERE NOT EXISTS (SELECT 1 FROM scheduler_leases WHERE name = ?)";
+    private static final String ACQUIRE = "UPDATE scheduler_leases SET owner = ?, fencing_token = fencing_token + 1, "
+            + "expires_at = DATEADD('MILLISECOND', ?, LOCALTIMESTAMP) "
+            + "WHERE name = ? AND (owner IS NULL OR expires_at < LOCALTIMESTAMP)";
+    private static final String RENEW = "UPDATE scheduler_leases SET expires_at = DATEADD('MILLISECOND', ?, LOCALTIMESTAMP) "
+            + "WHERE name = ? AND owner = ? AND fencing_token = ?";
+    private static final String RELEASE = "UPDATE scheduler_leases SET owner = NULL, expires_at = LOCALTIMESTAMP, "
+            + "completed_run = COALESCE(?, completed_run) WHERE name = ? AND owner = ? AND fencing_token = ?";
+
+    private final LeaseProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate requiresNew;
+    private final String nodeId;
+    private final ScheduledExecutorService executor;
+    private final Set<String> ensured = ConcurrentHashMap.newKeySet();
+
+    public LeaseManager(LeaseProperties properties, JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.nodeId = properties.getNodeId() != null ? properties.getNodeId()
+                : ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        if (properties.isEnabled()) {
+            // Lease changes commit on their own, never with the caller's work
+            this.requiresNew = new TransactionTemplate(transactionManager);
+            this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            this.executor = Executors.newScheduledThreadPool(2, runnable -> {
+                Thread thread = new Thread(runnable, "lease");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.requiresNew = null;
+            this.executor = null;
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Takes the lease if it is free or has expired
+     */
+    public Optional<Lease> tryAcquire(String name) {
+        if (!properties.isEnabled()) {
+            return Optional.of(new Lease(name, nodeId, 0));
+        }
+        ensureRow(name);
+        return Optional.ofNullable(requiresNew.execute(status -> {
+            if (jdbcTemplate.update(ACQUIRE, nodeId, properties.getTtlMillis(), name) == 0) {
+                return null;
+            }
+            Long token = jdbcTemplate.queryForObject("SELECT fencing_token FROM scheduler_leases WHERE name = ?",
+                    Long.class, name);
+            return new Lease(name, nodeId, token);
+        }));
+    }
+
+    /**
+     * Extends the lease; false once another node has taken it over
+     */
+    public boolean renew(Lease lease) {
+        if (!properties.isEnabled()) {
+            return true;
+        }
+        return Boolean.TRUE.equals(requiresNew.execute(status -> jdbcTemplate.update(RENEW,
+                properties.getTtlMillis(), lease.name(), lease.owner(), lease.fencingToken()) == 1));
+    }
+
+    /**
+     * Frees the lease, recording {@code completedRun} (if not null) as finished
+     */
+    public void release(Lease lease, String completedRun) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        requiresNew.executeWithoutResult(status -> jdbcTemplate.update(RELEASE, completedRun, lease.name(),
+                lease.owner(), lease.fencingToken()));
+    }
+
+    /**
+     * Fails the caller's transaction unless the lease is still held under this token. The check
+     * also locks the lease row, so nobody can take the lease over until that transaction ends.
+     */
+    public void checkFence(Lease lease) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (jdbcTemplate.update(RENEW, properties.getTtlMillis(), lease.name(), lease.owner(), lease.fencingToken()) == 0) {
+            throw new IllegalStateException("Lease " + lease.name() + " with fencing token " + lease.fencingToken()
+                    + " was taken over by another node");
+        }
+    }
+
+    /**
+     * Runs the task if this node can take the lease now, renewing it while the task runs
+     */
+    public <T> Optional<T> runExclusively(String name, Function<Lease, T> task) {
+        Optional<Lease> lease = tryAcquire(name);
+        if (lease.isEmpty()) {
+            return Optional.empty();
+        }
+        T result;
+        try {
+            result = withHeartbeat(lease.get(), task);
+        } finally {
+            release(lease.get(), null);
+        }
+        return Optional.ofNullable(result);
+    }
+
+    /**
+     * Runs one occurrence of a scheduled task on exactly one node. Nodes that find the lease
+     * held keep watching it in the background; if the holder dies or fails before recording
+     * {@code runKey} as completed, the first of them to take the expired lease runs the task.
+     */
+    public void runOnce(String name, String runKey, Consumer<Lease> task) {
+        if (!properties.isEnabled()) {
+            task.accept(new Lease(name, nodeId, 0));
+            return;
+        }
+        if (!tryRun(name, runKey, task)) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getTakeoverWindowMillis());
+            watch(name, runKey, task, deadline);
+        }
+    }
+
+    public Map<String, Object> status(String name) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", properties.isEnabled());
+        status.put("node", nodeId);
+        if (properties.isEnabled()) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                    "SELECT owner, fencing_token, expires_at, completed_run FROM scheduler_leases WHERE name = ?", name);
+            if (!rows.isEmpty()) {
+                rows.get(0).forEach((column, value) -> status.put(column.toLowerCase(), value));
+            }
+        }
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Takes the lease and runs the task unless the run has already completed elsewhere;
+     * false while another node holds the lease
+     */
+    private boolean tryRun(String name, String runKey, Consumer<Lease> task) {
+        if (isCompleted(name, runKey)) {
+            return true;
+        }
+        Optional<Lease> lease = tryAcquire(name);
+        if (lease.isEmpty()) {
+            return false;
+        }
+        boolean completed = false;
+        try {
+            // The previous holder may have finished between the check and the acquisition
+            if (!isCompleted(name, runKey)) {
+                withHeartbeat(lease.get(), held -> {
+                    task.accept(held);
+                    return null;
+                });
+            }
+            completed = true;
+        } finally {
+            release(lease.get(), completed ? runKey : null);
+        }
+        return true;
+    }
+
+    private void watch(String name, String runKey, Consumer<Lease> task, long deadline) {
+        executor.schedule(() -> {
+            try {
+                if (tryRun(name, runKey, task)) {
+                    return;
+                }
+            } catch (RuntimeException e) {
+                log.error("Run {} of {} failed on this node after taking it over", runKey, name, e);
+                return;
+            }
+            if (System.nanoTime() < deadline) {
+                watch(name, runKey, task, deadline);
+            } else {
+                log.warn("Stopped watching run {} of {}: still not completed", runKey, name);
+            }
+        }, properties.getTtlMillis() / 2, TimeUnit.MILLISECONDS);
+    }
+
+    private <T> T withHeartbeat(Lease lease, Function<Lease, T> task) {
+        if (executor == null) {
+            return task.apply(lease);
+        }
+        long interval = Math.max(1, properties.getTtlMillis() / 3);
+        ScheduledFuture<?> heartbeat = executor.scheduleWithFixedDelay(() -> {
+            try {
+                if (!renew(lease)) {
+                    log.warn("Lost lease {} (fencing token {}); its work will not commit", lease.name(), lease.fencingToken());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not renew lease {}", lease.name(), e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+        try {
+            return task.apply(lease);
+        } finally {
+            heartbeat.cancel(false);
+        }
+    }
+
+    private boolean isCompleted(String name, String runKey) {
+        List<String> completed = jdbcTemplate.queryForList(
+                "SELECT completed_run FROM scheduler_leases WHERE name = ?", String.class, name);
+        return !completed.isEmpty() && Objects.equals(completed.get(0), runKey);
+    }
+
+    private void ensureRow(String name) {
+        if (ensured.contains(name)) {
+            return;
+        }
+        try {
+            requiresNew.executeWithoutResult(status -> jdbcTemplate.update(ENSURE, name, name));
+        } catch (DataIntegrityViolationException e) {
+            // Another node inserted it first
+        }
+        ensured.add(name);
+    }
+}
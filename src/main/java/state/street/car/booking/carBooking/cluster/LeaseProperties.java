@@ -0,0 +1,29 @@
+package state.street.car.booking.carBooking.cluster;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "carbooking.lease")
+public class LeaseProperties {
+
+    /**
+     * Take a database lease before running scheduled tasks; needed once several nodes share the database
+     */
+    private boolean enabled = false;
+
+    /**
+     * Name this node holds leases under; a unique one is generated when unset
+     */
+    private String nodeId;
+
+    /**
+     * How long a lease lasts without renewal; the holder renews it every third of this
+     */
+    private long ttlMillis = 30_000;
+
+    /**
+     * How long other nodes keep watching a scheduled run, ready to take it over if its node dies
+     */
+    private long takeoverWindowMillis = 60L * 60 * 1000;
+}
@@ -0,0 +1,64 @@
+package state.street.car.booking.carBooking.cluster;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.stereotype.Component;
+import state.street.car.booking.carBooking.entity.Car;
+import state.street.car.booking.carBooking.entity.ChangeLogEntry;
+import state.street.car.booking.carBooking.service.DataVersionTracker;
+
+import java.util.Set;
+
+/**
+ * Evicts other nodes' changes from this node's caches: the changed cars from the car region,
+ * cached queries over the cars table, and the version counters behind ETags, the car list
+ * response cache and quotes.
+ */
+@Component
+@RequiredArgsConstructor
+public class LocalCacheInvalidator implements RemoteChangeListener {
+
+    private static final String[] CAR_QUERY_SPACES = {"cars"};
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final DataVersionTracker dataVersionTracker;
+
+    @Override
+    public void changed(ChangeLogEntry.EntityType type, Set<Long> keys) {
+        switch (type) {
+            case CAR -> {
+                keys.forEach(carId -> entityManagerFactory.getCache().evict(Car.class, carId));
+                invalidateCarQueries();
+                dataVersionTracker.carsChanged();
+            }
+            case BOOKING, HOURLY_BOOKING -> dataVersionTracker.bookingsChanged();
+        }
+    }
+
+    @Override
+    public void allChanged(ChangeLogEntry.EntityType type) {
+        switch (type) {
+            case CAR -> {
+                entityManagerFactory.getCache().evict(Car.class);
+                invalidateCarQueries();
+                dataVersionTracker.carsChanged();
+            }
+            case BOOKING, HOURLY_BOOKING -> dataVersionTracker.bookingsChanged();
+        }
+    }
+
+    /**
+     * Marks the cars table as updated now, as a local write would, so only cached queries
+     * reading it are discarded
+     */
+    private void invalidateCarQueries() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        try (Session session = sessionFactory.openSession()) {
+            sessionFactory.getCache().getTimestampsCache()
+                    .invalidate(CAR_QUERY_SPACES, session.unwrap(SharedSessionContractImplementor.class));
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package state.street.car.booking.carBooking.cluster;
+
+import state.street.car.booking.carBooking.entity.ChangeLogEntry;
+
+import java.util.Set;
+
+/**
+ * Local cache that must forget entities changed on other nodes. Every listener bean is called
+ * from the change feed poller thread, in feed order per shard, inside the poll's transaction
+ * on the shard the changes were recorded on.
+ */
+public interface RemoteChangeListener {
+
+    /**
+     * The given keys were changed, created or deleted by another node
+     */
+    void changed(ChangeLogEntry.EntityType type, Set<Long> keys);
+
+    /**
+     * The changed keys are no longer known, e.g. after falling behind the feed's retention
+     */
+    void allChanged(ChangeLogEntry.EntityType type);
+}
@@ -0,0 +1,19 @@
+package state.street.car.booking.carBooking.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "carbooking.analytics")
+public class AnalyticsProperties {
+
+    /**
+     * Days of utilisation history kept; older aggregates are pruned by the booking cleanup
+     */
+    private int retentionDays = 400;
+
+    /**
+     * Longest range the utilisation endpoint answers in one call
+     */
+    private int maxRangeDays = 731;
+}
@@ -1,7 +1,10 @@
 package state.street.car.booking.carBooking.config;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 import state.street.car.booking.carBooking.entity.Car;
@@ -11,21 +14,52 @@ import state.street.car.booking.carBooking.enums.CarType;
 import state.street.car.booking.carBooking.repository.CarRepository;
 import state.street.car.booking.carBooking.repository.RoleRepository;
 import state.street.car.booking.carBooking.repository.UserRepository;
+import state.street.car.booking.carBooking.service.DatabaseSnapshotService;
 
+import java.lang.management.ManagementFactory;
 import java.math.BigDecimal;
+import java.nio.file.Paths;
 import java.util.Set;
 
 @Component
 @RequiredArgsConstructor
+@Slf4j
 public class DataSeeder implements CommandLineRunner {
     
     private final CarRepository carRepository;
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ScaleSeedProperties scaleSeedProperties;
+    private final ScaleDataGenerator scaleDataGenerator;
+    private final PersistenceProperties persistenceProperties;
+    private final DatabaseSnapshotService databaseSnapshotService;
     
     @Override
     public void run(String... args) throws Exception {
+        // A persistent database keeps its data across restarts
+        if (roleRepository.count() > 0) {
+            log.info("Database already contains data, skipping seeding");
+            return;
+        }
+
+        long start = System.nanoTime();
+        if (persistenceProperties.getRestoreOnStartup() != null) {
+            databaseSnapshotService.restore(Paths.get(persistenceProperties.getRestoreOnStartup()));
+            log.info("Startup data path: snapshot restore took {} ms", (System.nanoTime() - start) / 1_000_000);
+            return;
+        }
+
+        seed();
+        log.info("Startup data path: seeding took {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void logStartupTime() {
+        log.info("Application ready {} ms after JVM start", ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+
+    private void seed() {
         Role adminRole = new Role("ROLE_ADMIN");
         Role userRole = new Role("ROLE_USER");
         
@@ -67,6 +101,10 @@ public class DataSeeder implements CommandLineRunner {
         carRepository.save(new Car("SUV-009", CarType.SUV, new BigDecimal("85.00"), 8));
         carRepository.save(new Car("SUV-010", CarType.SUV, new BigDecimal("90.00"), 8));
         
+        if (scaleSeedProperties.isEnabled()) {
+            scaleDataGenerator.generate();
+        }
+
         System.out.println("Database seeded successfully!");
         System.out.println("Admin credentials: admin/admin123");
         System.out.println("Manager credentials: manager/manager123");
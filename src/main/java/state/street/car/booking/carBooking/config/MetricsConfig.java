@@ -0,0 +1,33 @@
+package state.street.car.booking.carBooking.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import state.street.car.booking.carBooking.metrics.ServiceMetricsInterceptor;
+import state.street.car.booking.carBooking.service.BookingService;
+import state.street.car.booking.carBooking.service.CarService;
+
+import java.lang.reflect.Method;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public Advisor serviceMetricsAdvisor(MeterRegistry registry) {
+        ServiceMetricsInterceptor interceptor = new ServiceMetricsInterceptor(registry, BookingService.class, CarService.class);
+
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return interceptor.isTimed(method);
+            }
+        }, interceptor);
+        // Run outside the transaction advice so commit time is included
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+}
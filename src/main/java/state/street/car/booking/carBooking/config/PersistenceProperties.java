@@ -0,0 +1,24 @@
+package state.street.car.booking.carBooking.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "carbooking.persistence")
+public class PersistenceProperties {
+
+    /**
+     * Directory that admin snapshots are written to and restored from
+     */
+    private String snapshotDir = "./data/snapshots";
+
+    /**
+     * Snapshot file to load on startup instead of running the seeder, used only when the database is empty
+     */
+    private String restoreOnStartup;
+
+    /**
+     * How long a restore waits for other sessions' open transactions to end before giving up
+     */
+    private long restoreLockTimeoutMillis = 30_000;
+}
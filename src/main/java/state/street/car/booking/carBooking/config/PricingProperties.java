@@ -0,0 +1,65 @@
+package state.street.car.booking.carBooking.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import state.street.car.booking.carBooking.enums.CarType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tariffs applied on top of each car's cost per day, one per CarType.
+ * Types without a tariff are priced at the plain daily rate.
+ */
+@Data
+@ConfigurationProperties(prefix = "carbooking.pricing")
+public class PricingProperties {
+
+    private Map<CarType, Tariff> tariffs = new EnumMap<>(CarType.class);
+
+    @Data
+    public static class Tariff {
+
+        /**
+         * Applied to Saturdays and Sundays, on top of any season multiplier
+         */
+        private BigDecimal weekendMultiplier = BigDecimal.ONE;
+
+        /**
+         * Later seasons win where ranges overlap
+         */
+        private List<Season> seasons = new ArrayList<>();
+
+        /**
+         * The discount with the highest minDays not above the rental length applies
+         */
+        private List<Discount> discounts = new ArrayList<>();
+    }
+
+    @Data
+    public static class Season {
+
+        /**
+         * First day, as MM-dd
+         */
+        private String from;
+
+        /**
+         * Last day (inclusive), as MM-dd; may be before 'from' for a season spanning new year
+         */
+        private String to;
+
+        private BigDecimal multiplier = BigDecimal.ONE;
+    }
+
+    @Data
+    public static class Discount {
+
+        private int minDays;
+
+        private BigDecimal percent = BigDecimal.ZERO;
+    }
+}
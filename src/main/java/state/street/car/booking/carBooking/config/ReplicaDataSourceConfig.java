@@ -0,0 +1,74 @@
+package state.street.car.booking.carBooking.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import state.street.car.booking.carBooking.datasource.ReadWriteRoutingDataSource;
+import state.street.car.booking.carBooking.datasource.ReplicaProperties;
+import state.street.car.booking.carBooking.datasource.ReplicaSynchronizer;
+import state.street.car.booking.carBooking.service.CacheStatisticsService;
+import state.street.car.booking.carBooking.service.DataVersionTracker;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Primary plus read replica behind one routing DataSource. Replaces Boot's single DataSource
+ * when carbooking.datasource.replica.enabled is set.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "carbooking.datasource.replica", name = "enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(ReplicaProperties replica) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(replica.getUrl())
+                .username(replica.getUsername())
+                .password(replica.getPassword())
+                .build();
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                                                 @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource();
+        routing.setTargetDataSources(Map.of(
+                ReadWriteRoutingDataSource.Route.PRIMARY, primaryDataSource,
+                ReadWriteRoutingDataSource.Route.REPLICA, replicaDataSource));
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        return routing;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+
+    @Bean
+    public ReplicaSynchronizer replicaSynchronizer(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                                   @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                                   ReadWriteRoutingDataSource readWriteRoutingDataSource,
+                                                   DataVersionTracker dataVersionTracker,
+                                                   CacheStatisticsService cacheStatisticsService) {
+        return new ReplicaSynchronizer(primaryDataSource, replicaDataSource, readWriteRoutingDataSource, dataVersionTracker,
+                cacheStatisticsService);
+    }
+}
@@ -0,0 +1,25 @@
+package state.street.car.booking.carBooking.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "carbooking.reporting")
+public class ReportingProperties {
+
+    /**
+     * Worker threads of the report fork/join pool; each holds a database connection while
+     * scanning, so keep this below the connection pool size
+     */
+    private int parallelism = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Date-range slices are split in half until they span at most this many days
+     */
+    private int sliceDays = 31;
+
+    /**
+     * Number of car shards (car id modulo shards) when splitting by car
+     */
+    private int carShards = 16;
+}
@@ -0,0 +1,251 @@
+package state.street.car.booking.carBooking.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import state.street.car.booking.carBooking.datasource.ShardRouter;
+import state.street.car.booking.carBooking.enums.CarType;
+import state.street.car.booking.carBooking.service.CacheStatisticsService;
+import state.street.car.booking.carBooking.service.DataVersionTracker;
+import state.street.car.booking.carBooking.service.UtilisationService;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Bulk-loads a synthetic fleet, user base and booking ledger with batched JDBC inserts.
+ * Work is split into fixed chunks whose random stream depends only on the seed and the chunk
+ * index, so the generated rows are the same whatever the thread count or scheduling.
+ * Bookings of one car are laid out back to back with random gaps, so they never overlap.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ScaleDataGenerator {
+
+    static final String CAR_PREFIX = "GEN-";
+    static final String USER_PREFIX = "gen-user-";
+
+    private static final int CARS_PER_CHUNK = 500;
+    private static final int USERS_PER_CHUNK = 10_000;
+    private static final int MAX_GAP_HOURS = 72;
+    private static final int MAX_DURATION_DAYS = 7;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final ScaleSeedProperties properties;
+    private final DataVersionTracker dataVersionTracker;
+    private final CacheStatisticsService cacheStatisticsService;
+    private final UtilisationService utilisationService;
+    private final ShardRouter shardRouter;
+
+    public void generate() {
+        log.info("Generating synthetic data: {} cars, {} users, {} bookings (seed {}, {} threads)",
+                properties.getCars(), properties.getUsers(), properties.getBookings(), properties.getSeed(),
+                properties.getThreads());
+
+        ExecutorService executor = Executors.newFixedThreadPool(properties.getThreads());
+        try {
+            timed("cars", properties.getCars(), () -> runChunks(executor, properties.getCars(), CARS_PER_CHUNK, this::insertCars));
+            // One shared hash: BCrypt-encoding every generated password would dominate the load time
+            String password = passwordEncoder.encode("user123");
+            timed("users", properties.getUsers(), () -> runChunks(executor, properties.getUsers(), USERS_PER_CHUNK,
+                    (chunk, from, to) -> insertUsers(from, to, password)));
+
+            // Bookings on other shards reference the new cars and users
+            shardRouter.syncReferenceData();
+
+            // Identity ids depend on which thread inserted first; the generated names do not
+            long[] carIds = loadIds("SELECT id FROM cars WHERE registration_number LIKE '" + CAR_PREFIX + "%' ORDER BY registration_number");
+            long[] userIds = loadIds("SELECT id FROM users WHERE username LIKE '" + USER_PREFIX + "%' ORDER BY username");
+            timed("bookings", properties.getBookings(), () -> runChunks(executor, carIds.length, CARS_PER_CHUNK,
+                    (chunk, from, to) -> insertBookings(chunk, from, to, carIds, userIds)));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        timed("utilisation totals from bookings", properties.getBookings(), utilisationService::rebuild);
+
+        // Rows were written behind Hibernate's back
+        cacheStatisticsService.evictAll();
+        dataVersionTracker.carsChanged();
+        dataVersionTracker.bookingsChanged();
+    }
+
+    private void insertCars(int chunk, int from, int to) {
+        SplittableRandom random = randomFor(1, chunk);
+        CarType[] types = CarType.values();
+        batch("INSERT INTO cars (registration_number, type, cost_per_day, capacity) VALUES (?, ?, ?, ?)", to - from,
+                (ps, i) -> {
+                    CarType type = types[random.nextInt(types.length)];
+                    ps.setString(1, numbered(CAR_PREFIX, from + i, properties.getCars(), 6));
+                    ps.setString(2, type.name());
+                    ps.setBigDecimal(3, BigDecimal.valueOf(basePrice(type) + random.nextInt(40)));
+                    ps.setInt(4, baseCapacity(type) + random.nextInt(3));
+                });
+    }
+
+    private void insertUsers(int from, int to, String password) {
+        batch("INSERT INTO users (username, password, email) VALUES (?, ?, ?)", to - from, (ps, i) -> {
+            String username = numbered(USER_PREFIX, from + i, properties.getUsers(), 7);
+            ps.setString(1, username);
+            ps.setString(2, password);
+            ps.setString(3, username + "@example.com");
+        });
+        Long userRoleId = jdbcTemplate.queryForObject("SELECT id FROM roles WHERE name = 'ROLE_USER'", Long.class);
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id) SELECT id, ? FROM users WHERE username BETWEEN ? AND ?",
+                userRoleId, numbered(USER_PREFIX, from, properties.getUsers(), 7),
+                numbered(USER_PREFIX, to - 1, properties.getUsers(), 7));
+    }
+
+    private void insertBookings(int chunk, int fromCar, int toCar, long[] carIds, long[] userIds) {
+        SplittableRandom random = randomFor(3, chunk);
+        long total = properties.getBookings();
+        // Spread the remainder over the first cars so the total is exact
+        long perCar = total / carIds.length;
+        long remainder = total % carIds.length;
+
+        // Roughly half of each car's ledger lies in the past
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+        long averageSlotHours = (MAX_GAP_HOURS + 1) / 2 + (MAX_DURATION_DAYS + 1) * 12L;
+
+        List<List<Object[]>> rowsByShard = new ArrayList<>();
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            rowsByShard.add(new ArrayList<>(properties.getBatchSize()));
+        }
+        for (int car = fromCar; car < toCar; car++) {
+            int shard = shardRouter.shardForCar(carIds[car]);
+            List<Object[]> rows = rowsByShard.get(shard);
+            long count = perCar + (car < remainder ? 1 : 0);
+            LocalDateTime next = today.minusHours(count * averageSlotHours / 2);
+            for (long n = 0; n < count; n++) {
+                // At least an hour apart: touching bookings conflict
+                LocalDateTime start = next.plusHours(1 + random.nextInt(MAX_GAP_HOURS));
+                int duration = 1 + random.nextInt(MAX_DURATION_DAYS);
+                rows.add(new Object[]{carIds[car], userIds[random.nextInt(userIds.length)],
+                        Timestamp.valueOf(start), duration, Timestamp.valueOf(start.minusDays(1 + random.nextInt(30)))});
+                next = start.plusDays(duration);
+
+                if (rows.size() == properties.getBatchSize()) {
+                    flushBookings(shard, rows);
+                }
+            }
+        }
+        for (int shard = 0; shard < rowsByShard.size(); shard++) {
+            flushBookings(shard, rowsByShard.get(shard));
+        }
+    }
+
+    private void flushBookings(int shard, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        shardRouter.onShard(shard, false, () -> jdbcTemplate.batchUpdate(
+                "INSERT INTO bookings (car_id, user_id, booking_date, duration, created_at) VALUES (?, ?, ?, ?, ?)", rows));
+        rows.clear();
+    }
+
+    private void batch(String sql, int rows, RowWriter writer) {
+        for (int offset = 0; offset < rows; offset += properties.getBatchSize()) {
+            int from = offset;
+            int size = Math.min(properties.getBatchSize(), rows - offset);
+            jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    writer.write(ps, from + i);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+        }
+    }
+
+    private void runChunks(ExecutorService executor, int items, int chunkSize, ChunkTask task) {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int chunk = 0, from = 0; from < items; chunk++, from += chunkSize) {
+            int chunkIndex = chunk;
+            int chunkFrom = from;
+            int chunkTo = Math.min(items, from + chunkSize);
+            futures.add(executor.submit(() -> task.run(chunkIndex, chunkFrom, chunkTo)));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Synthetic data generation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Synthetic data generation failed", e.getCause());
+        }
+    }
+
+    private void timed(String table, long rows, Runnable load) {
+        long start = System.nanoTime();
+        load.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        log.info("Loaded {} {} in {} s ({} rows/s)", rows, table, String.format("%.1f", seconds),
+                String.format("%.0f", rows / Math.max(seconds, 1e-9)));
+    }
+
+    private long[] loadIds(String sql) {
+        return jdbcTemplate.queryForList(sql, Long.class).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private SplittableRandom randomFor(int stream, int chunk) {
+        return new SplittableRandom(properties.getSeed() * 1_000_003L + stream * 65_537L + chunk);
+    }
+
+    /**
+     * Prefix plus the index zero-padded to one width for the whole run, wide enough for the
+     * largest index, so names stay unique in format and sort in index order
+     */
+    static String numbered(String prefix, int index, int count, int minimumWidth) {
+        int width = Math.max(minimumWidth, Integer.toString(Math.max(0, count - 1)).length());
+        String digits = Integer.toString(index);
+        return prefix + "0".repeat(width - digits.length()) + digits;
+    }
+
+    private static int basePrice(CarType type) {
+        return switch (type) {
+            case SEDAN -> 45;
+            case SUV -> 65;
+            case VAN -> 75;
+        };
+    }
+
+    private static int baseCapacity(CarType type) {
+        return switch (type) {
+            case SEDAN -> 4;
+            case SUV -> 5;
+            case VAN -> 8;
+        };
+    }
+
+    @FunctionalInterface
+    private interface ChunkTask {
+        void run(int chunk, int from, int to);
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(PreparedStatement ps, int index) throws SQLException;
+    }
+}
@@ -0,0 +1,35 @@
+package state.street.car.booking.carBooking.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "carbooking.seed.scale")
+public class ScaleSeedProperties {
+
+    /**
+     * Generate a production-sized synthetic data set on startup, on top of the demo data
+     */
+    private boolean enabled = false;
+
+    private int cars = 50_000;
+
+    private int users = 500_000;
+
+    private long bookings = 20_000_000;
+
+    /**
+     * Random seed; the same seed and sizes always produce the same rows
+     */
+    private long seed = 42;
+
+    /**
+     * Generator threads, each inserting through its own connection
+     */
+    private int threads = Math.min(8, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Rows per JDBC batch
+     */
+    private int batchSize = 5_000;
+}
@@ -0,0 +1,72 @@
+package state.street.car.booking.carBooking.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import state.street.car.booking.carBooking.datasource.ShardRouter;
+import state.street.car.booking.carBooking.datasource.ShardRoutingDataSource;
+import state.street.car.booking.carBooking.datasource.ShardSynchronizer;
+import state.street.car.booking.carBooking.datasource.ShardingProperties;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shard 0 (spring.datasource) plus the configured booking shards behind one routing
+ * DataSource. Replaces Boot's single DataSource when carbooking.datasource.sharding.enabled
+ * is set; cannot be combined with the read replica.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "carbooking.datasource.sharding", name = "enabled", havingValue = "true")
+public class ShardingDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource homeShardDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(@Qualifier("homeShardDataSource") DataSource homeShardDataSource,
+                                                         ShardingProperties sharding) {
+        Map<Object, Object> shards = new HashMap<>();
+        shards.put(0, homeShardDataSource);
+        List<String> urls = sharding.getUrls();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource shard = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(i))
+                    .username(sharding.getUsername())
+                    .password(sharding.getPassword())
+                    .build();
+            shard.setPoolName("shard-" + (i + 1));
+            shards.put(i + 1, shard);
+        }
+        ShardRoutingDataSource routing = new ShardRoutingDataSource();
+        routing.setTargetDataSources(shards);
+        routing.setDefaultTargetDataSource(homeShardDataSource);
+        return routing;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    @Bean
+    public ShardSynchronizer shardSynchronizer(ShardRoutingDataSource shardRoutingDataSource, ShardRouter shardRouter) {
+        ShardSynchronizer synchronizer = new ShardSynchronizer(shardRoutingDataSource.getShards());
+        shardRouter.setSynchronizer(synchronizer);
+        return synchronizer;
+    }
+}
@@ -0,0 +1,21 @@
+package state.street.car.booking.carBooking.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import state.street.car.booking.carBooking.metrics.SqlStatementCounter;
+import state.street.car.booking.carBooking.metrics.SqlTimingSessionListener;
+
+@Configuration
+@ConditionalOnProperty(prefix = "carbooking.sql-monitor", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SqlMonitoringConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlMonitoringHibernateCustomizer() {
+        return properties -> {
+            properties.put("hibernate.session_factory.statement_inspector", new SqlStatementCounter());
+            properties.put("hibernate.session.events.auto", SqlTimingSessionListener.class.getName());
+        };
+    }
+}
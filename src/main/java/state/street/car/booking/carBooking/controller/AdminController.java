@@ -0,0 +1,230 @@
+package state.street.car.booking.carBooking.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import state.street.car.booking.carBooking.cluster.ChangeFeedPoller;
+import state.street.car.booking.carBooking.allocation.FleetCalendar;
+import state.street.car.booking.carBooking.cluster.LeaseManager;
+import state.street.car.booking.carBooking.dto.RepackingReportDTO;
+import state.street.car.booking.carBooking.dto.UtilisationDTO;
+import state.street.car.booking.carBooking.enums.CarType;
+import state.street.car.booking.carBooking.hourly.HourSlotIndex;
+import state.street.car.booking.carBooking.ledger.BookingEvent;
+import state.street.car.booking.carBooking.ledger.BookingLedger;
+import state.street.car.booking.carBooking.ledger.WriteBehindBookingWriter;
+import state.street.car.booking.carBooking.outbox.OutboxRelay;
+import state.street.car.booking.carBooking.service.BookingReportService;
+import state.street.car.booking.carBooking.service.CacheStatisticsService;
+import state.street.car.booking.carBooking.service.CarAllocationService;
+import state.street.car.booking.carBooking.service.DatabaseSnapshotService;
+import state.street.car.booking.carBooking.service.RepackingService;
+import state.street.car.booking.carBooking.service.UtilisationService;
+import state.street.car.booking.carBooking.service.WaitlistService;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+@PreAuthorize("hasAuthority('ROLE_ADMIN')")
+public class AdminController {
+
+    private final CacheStatisticsService cacheStatisticsService;
+    private final DatabaseSnapshotService databaseSnapshotService;
+    private final UtilisationService utilisationService;
+    private final BookingReportService bookingReportService;
+    private final BookingLedger bookingLedger;
+    private final WriteBehindBookingWriter writeBehindBookingWriter;
+    private final OutboxRelay outboxRelay;
+    private final LeaseManager leaseManager;
+    private final ChangeFeedPoller changeFeedPoller;
+    private final HourSlotIndex hourSlotIndex;
+    private final WaitlistService waitlistService;
+    private final CarAllocationService carAllocationService;
+    private final RepackingService repackingService;
+
+    /**
+     * Hit/miss/put/eviction counts per second-level and query cache region
+     */
+    @GetMapping("/cache-stats")
+    public ResponseEntity<Map<String, Map<String, Object>>> getCacheStatistics() {
+        return ResponseEntity.ok(cacheStatisticsService.getRegionStatistics());
+    }
+
+    /**
+     * Writes a compressed, consistent dump of the whole database to the snapshot directory
+     */
+    @PostMapping("/snapshots")
+    public ResponseEntity<Map<String, Object>> createSnapshot() {
+        return ResponseEntity.status(HttpStatus.CREATED).body(databaseSnapshotService.createSnapshot());
+    }
+
+    @GetMapping("/snapshots")
+    public ResponseEntity<List<Map<String, Object>>> listSnapshots() {
+        return ResponseEntity.ok(databaseSnapshotService.listSnapshots());
+    }
+
+    /**
+     * Replaces all data with the given snapshot
+     */
+    @PostMapping("/snapshots/{name}/restore")
+    public ResponseEntity<Map<String, Object>> restoreSnapshot(@PathVariable String name) {
+        return ResponseEntity.ok(databaseSnapshotService.restoreSnapshot(name));
+    }
+
+    /**
+     * Booked car-days against fleet capacity per CarType, per day or per ISO week, read from
+     * the running totals rather than the bookings table
+     */
+    @GetMapping("/analytics/utilisation")
+    public ResponseEntity<List<UtilisationDTO>> getUtilisation(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") UtilisationService.Granularity granularity) {
+        return ResponseEntity.ok(utilisationService.getUtilisation(from, to, granularity));
+    }
+
+    /**
+     * Recomputes today's and future totals from the bookings and reports (optionally fixes) differences
+     */
+    @PostMapping("/analytics/utilisation/verify")
+    public ResponseEntity<Map<String, Object>> verifyUtilisation(@RequestParam(defaultValue = "false") boolean repair) {
+        return ResponseEntity.ok(utilisationService.verify(repair));
+    }
+
+    /**
+     * Revenue, bookings and average lead time per month and CarType over live and archived
+     * bookings, as a CSV download
+     */
+    @GetMapping("/reports/bookings")
+    public ResponseEntity<String> downloadBookingReport(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DATE") BookingReportService.Split split) {
+        String csv = bookingReportService.toCsv(bookingReportService.generate(from, to, split));
+        ContentDisposition attachment = ContentDisposition.attachment()
+                .filename("booking-report-" + from + "-" + to + ".csv")
+                .build();
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, attachment.toString())
+                .body(csv);
+    }
+
+    /**
+     * Event log position, last snapshot and size of the in-memory booking views
+     */
+    @GetMapping("/ledger")
+    public ResponseEntity<Map<String, Object>> getLedgerStatus() {
+        return ResponseEntity.ok(bookingLedger.status());
+    }
+
+    /**
+     * Snapshots the booking views so startup only replays later events
+     */
+    @PostMapping("/ledger/snapshots")
+    public ResponseEntity<Map<String, Object>> createLedgerSnapshot() {
+        return ResponseEntity.status(HttpStatus.CREATED).body(bookingLedger.snapshot());
+    }
+
+    /**
+     * Compares the booking views with the bookings table and reports (optionally fixes) differences
+     */
+    @PostMapping("/ledger/verify")
+    public ResponseEntity<Map<String, Object>> verifyLedger(@RequestParam(defaultValue = "false") boolean repair) {
+        return ResponseEntity.ok(bookingLedger.verify(repair));
+    }
+
+    @GetMapping("/ledger/events")
+    public ResponseEntity<List<BookingEvent>> getLedgerEvents(@RequestParam(defaultValue = "1") long from,
+                                                              @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(bookingLedger.events(from, Math.min(limit, 1000)));
+    }
+
+    /**
+     * Bookings accepted by write-behind that are not in the database yet, and the log position
+     */
+    @GetMapping("/write-behind")
+    public ResponseEntity<Map<String, Object>> getWriteBehindStatus() {
+        return ResponseEntity.ok(writeBehindBookingWriter.status());
+    }
+
+    /**
+     * Undelivered outbox events across all shards, events delivered since startup and the sinks
+     */
+    @GetMapping("/outbox")
+    public ResponseEntity<Map<String, Object>> getOutboxStatus() {
+        return ResponseEntity.ok(outboxRelay.status());
+    }
+
+    /**
+     * Holder, fencing token, expiry and last completed run of a scheduler lease, e.g. booking-cleanup
+     */
+    @GetMapping("/leases/{name}")
+    public ResponseEntity<Map<String, Object>> getLeaseStatus(@PathVariable String name) {
+        return ResponseEntity.ok(leaseManager.status(name));
+    }
+
+    /**
+     * This node's change feed position per shard and entity type, and how much it has evicted
+     */
+    @GetMapping("/coherence")
+    public ResponseEntity<Map<String, Object>> getCoherenceStatus() {
+        return ResponseEntity.ok(changeFeedPoller.status());
+    }
+
+    /**
+     * Cars and bookings held in this node's hour slot index
+     */
+    @GetMapping("/hourly-slots")
+    public ResponseEntity<Map<String, Object>> getHourSlotIndexStatus() {
+        return ResponseEntity.ok(hourSlotIndex.status());
+    }
+
+    /**
+     * Requests waiting in this node's waitlist queues
+     */
+    @GetMapping("/waitlist")
+    public ResponseEntity<Map<String, Object>> getWaitlistStatus() {
+        return ResponseEntity.ok(waitlistService.status());
+    }
+
+    /**
+     * How the free time of a car type's fleet between two dates is split into gaps
+     */
+    @GetMapping("/fragmentation")
+    public ResponseEntity<FleetCalendar.Fragmentation> getFragmentation(
+            @RequestParam CarType type,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(carAllocationService.fragmentation(type, from.atStartOfDay(), to.atStartOfDay()));
+    }
+
+    /**
+     * Plans moving reassignable future bookings between cars of a type (all types if none is
+     * given) to defragment the calendar, and reports the moves without making them
+     */
+    @PostMapping("/repacking/dry-run")
+    public ResponseEntity<RepackingReportDTO> dryRunRepacking(@RequestParam(required = false) CarType type) {
+        return ResponseEntity.ok(repackingService.dryRun(type));
+    }
+
+    /**
+     * Applies the plan of a dry run, identified by its token; 409 if the bookings changed since
+     */
+    @PostMapping("/repacking/apply")
+    public ResponseEntity<RepackingReportDTO> applyRepacking(
+            @RequestParam(required = false) CarType type,
+            @RequestParam String token) {
+        return ResponseEntity.ok(repackingService.apply(type, token));
+    }
+}
@@ -7,10 +7,24 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import state.street.car.booking.carBooking.dto.BookingDTO;
 import state.street.car.booking.carBooking.dto.BookingRequest;
+import state.street.car.booking.carBooking.dto.BookingSeriesDTO;
+import state.street.car.booking.carBooking.dto.HourlyBookingDTO;
+import state.street.car.booking.carBooking.dto.HourlyBookingRequest;
+import state.street.car.booking.carBooking.dto.RecurringBookingRequest;
+import state.street.car.booking.carBooking.dto.TypeBookingDTO;
+import state.street.car.booking.carBooking.dto.TypeBookingRequest;
+import state.street.car.booking.carBooking.dto.WaitlistEntryDTO;
+import state.street.car.booking.carBooking.dto.WaitlistRequest;
 import state.street.car.booking.carBooking.scheduler.BookingCleanupScheduler;
 import state.street.car.booking.carBooking.service.BookingService;
+import state.street.car.booking.carBooking.service.CarAllocationService;
+import state.street.car.booking.carBooking.service.DataVersionTracker;
+import state.street.car.booking.carBooking.service.HourlyBookingService;
+import state.street.car.booking.carBooking.service.RecurringBookingService;
+import state.street.car.booking.carBooking.service.WaitlistService;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -24,12 +38,23 @@ public class BookingController {
 
     private final BookingService bookingService;
     private final BookingCleanupScheduler cleanupScheduler;
+    private final DataVersionTracker dataVersionTracker;
+    private final HourlyBookingService hourlyBookingService;
+    private final RecurringBookingService recurringBookingService;
+    private final WaitlistService waitlistService;
+    private final CarAllocationService carAllocationService;
     
     @GetMapping
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     public ResponseEntity<List<BookingDTO>> getAllBookings(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            WebRequest webRequest) {
+
+        String eTag = dataVersionTracker.carsAndBookingsETag();
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
 
         List<BookingDTO> bookings;
 
@@ -39,7 +64,7 @@ public class BookingController {
             bookings = bookingService.getAllBookings();
         }
 
-        return ResponseEntity.ok(bookings);
+        return ResponseEntity.ok().eTag(eTag).body(bookings);
     }
     
     @GetMapping("/{id}")
@@ -49,10 +74,15 @@ public class BookingController {
     }
     
     @GetMapping("/my-bookings")
-    public ResponseEntity<List<BookingDTO>> getMyBookings(Authentication authentication) {
+    public ResponseEntity<List<BookingDTO>> getMyBookings(Authentication authentication, WebRequest webRequest) {
         String username = authentication.getName();
+        String eTag = dataVersionTracker.userBookingsETag(username);
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
         List<BookingDTO> bookings = bookingService.getBookingsByUsername(username);
-        return ResponseEntity.ok(bookings);
+        return ResponseEntity.ok().eTag(eTag).body(bookings);
     }
     
     @PostMapping
@@ -65,6 +95,18 @@ public class BookingController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdBooking);
     }
     
+    /**
+     * Books whichever car of the type fits the period most tightly
+     */
+    @PostMapping("/by-type")
+    @PreAuthorize("hasAnyAuthority('ROLE_USER', 'ROLE_ADMIN')")
+    public ResponseEntity<TypeBookingDTO> createBookingForType(
+            @RequestBody TypeBookingRequest request,
+            Authentication authentication) {
+        TypeBookingDTO created = carAllocationService.createBookingForType(request, authentication.getName());
+        return ResponseEntity.status(HttpStatus.CREATED).body(created);
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     public ResponseEntity<BookingDTO> updateBooking(
@@ -74,6 +116,19 @@ public class BookingController {
         return ResponseEntity.ok(updatedBooking);
     }
     
+    /**
+     * Whether the re-packing job may move the booking to another car of the same type
+     */
+    @PutMapping("/{id}/reassignment")
+    @PreAuthorize("hasAnyAuthority('ROLE_USER', 'ROLE_ADMIN')")
+    public ResponseEntity<Void> setAllowReassignment(
+            @PathVariable Long id,
+            @RequestParam boolean allowed,
+            Authentication authentication) {
+        bookingService.setAllowReassignment(id, allowed, authentication.getName());
+        return ResponseEntity.noContent().build();
+    }
+
     @DeleteMapping("/{id}")
     @PreAuthorize("hasAnyAuthority('ROLE_USER', 'ROLE_ADMIN')")
     public ResponseEntity<Void> deleteBooking(
@@ -84,6 +139,88 @@ public class BookingController {
         return ResponseEntity.noContent().build();
     }
 
+    @PostMapping("/hourly")
+    @PreAuthorize("hasAnyAuthority('ROLE_USER', 'ROLE_ADMIN')")
+    public ResponseEntity<HourlyBookingDTO> createHourlyBooking(
+            @RequestBody HourlyBookingRequest request,
+            Authentication authentication) {
+        HourlyBookingDTO createdBooking = hourlyBookingService.createHourlyBooking(request, authentication.getName());
+        return ResponseEntity.status(HttpStatus.CREATED).body(createdBooking);
+    }
+
+    @GetMapping("/hourly/my-bookings")
+    public ResponseEntity<List<HourlyBookingDTO>> getMyHourlyBookings(Authentication authentication) {
+        return ResponseEntity.ok(hourlyBookingService.getHourlyBookingsByUsername(authentication.getName()));
+    }
+
+    @DeleteMapping("/hourly/{id}")
+    @PreAuthorize("hasAnyAuthority('ROLE_USER', 'ROLE_ADMIN')")
+    public ResponseEntity<Void> deleteHourlyBooking(
+            @PathVariable Long id,
+            Authentication authentication) {
+        hourlyBookingService.deleteHourlyBooking(id, authentication.getName());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Books every occurrence of a daily or weekly rule, or none if any of them conflicts
+     */
+    @PostMapping("/recurring")
+    @PreAuthorize("hasAnyAuthority('ROLE_USER', 'ROLE_ADMIN')")
+    public ResponseEntity<BookingSeriesDTO> createRecurringBooking(
+            @RequestBody RecurringBookingRequest request,
+            Authentication authentication) {
+        BookingSeriesDTO series = recurringBookingService.createSeries(request, authentication.getName());
+        return ResponseEntity.status(HttpStatus.CREATED).body(series);
+    }
+
+    @GetMapping("/series/{id}")
+    public ResponseEntity<BookingSeriesDTO> getBookingSeries(@PathVariable Long id) {
+        return ResponseEntity.ok(recurringBookingService.getSeries(id));
+    }
+
+    /**
+     * Cancels the occurrences of a series that have not started yet
+     */
+    @DeleteMapping("/series/{id}")
+    @PreAuthorize("hasAnyAuthority('ROLE_USER', 'ROLE_ADMIN')")
+    public ResponseEntity<Map<String, Object>> cancelBookingSeries(
+            @PathVariable Long id,
+            Authentication authentication) {
+        int cancelled = recurringBookingService.cancelSeries(id, authentication.getName());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("cancelledBookings", cancelled);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Queues for a car type or a car over a period that is booked; the entry comes back
+     * already assigned if a car was free
+     */
+    @PostMapping("/waitlist")
+    @PreAuthorize("hasAnyAuthority('ROLE_USER', 'ROLE_ADMIN')")
+    public ResponseEntity<WaitlistEntryDTO> joinWaitlist(
+            @RequestBody WaitlistRequest request,
+            Authentication authentication) {
+        WaitlistEntryDTO entry = waitlistService.join(request, authentication.getName());
+        return ResponseEntity.status(HttpStatus.CREATED).body(entry);
+    }
+
+    @GetMapping("/waitlist/my")
+    public ResponseEntity<List<WaitlistEntryDTO>> getMyWaitlistEntries(Authentication authentication) {
+        return ResponseEntity.ok(waitlistService.getMyEntries(authentication.getName()));
+    }
+
+    @DeleteMapping("/waitlist/{id}")
+    @PreAuthorize("hasAnyAuthority('ROLE_USER', 'ROLE_ADMIN')")
+    public ResponseEntity<Void> leaveWaitlist(
+            @PathVariable Long id,
+            Authentication authentication) {
+        waitlistService.leave(id, authentication.getName());
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * Admin endpoint to manually trigger cleanup of expired bookings
      */
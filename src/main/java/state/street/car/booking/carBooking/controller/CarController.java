@@ -2,16 +2,23 @@ package state.street.car.booking.carBooking.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import state.street.car.booking.carBooking.dto.CarDTO;
 import state.street.car.booking.carBooking.enums.CarType;
+import state.street.car.booking.carBooking.service.CarListResponseCache;
 import state.street.car.booking.carBooking.service.CarService;
+import state.street.car.booking.carBooking.service.DataVersionTracker;
+import state.street.car.booking.carBooking.service.HourlyBookingService;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/cars")
@@ -19,12 +26,22 @@ import java.util.List;
 public class CarController {
     
     private final CarService carService;
+    private final DataVersionTracker dataVersionTracker;
+    private final CarListResponseCache carListResponseCache;
+    private final HourlyBookingService hourlyBookingService;
     
     @GetMapping
     public ResponseEntity<List<CarDTO>> getAllCars(
             @RequestParam(required = false) CarType type,
             @RequestParam(required = true) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-            @RequestParam(required = true) Integer duration) {
+            @RequestParam(required = true) Integer duration,
+            WebRequest webRequest) {
+
+        // Availability depends on both the fleet and the booking ledger
+        String eTag = dataVersionTracker.carsAndBookingsETag();
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
 
         List<CarDTO> cars;
 
@@ -36,21 +53,50 @@ public class CarController {
             cars = carService.getAllCarsForPeriod(startDate, duration);
         }
 
-        return ResponseEntity.ok(cars);
+        return ResponseEntity.ok().eTag(eTag).body(cars);
+    }
+
+    /**
+     * Cars of the type free for every hour of the requested hours, answered from the hour slot index
+     */
+    @GetMapping("/available-hourly")
+    public ResponseEntity<List<CarDTO>> getAvailableHourlyCars(
+            @RequestParam CarType type,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam Integer hours) {
+        return ResponseEntity.ok(hourlyBookingService.getAvailableCars(type, startTime, hours));
     }
 
     @GetMapping("/simple")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
-    public ResponseEntity<List<CarDTO>> getAllCarsSimple(@RequestParam(required = false) CarType type) {
-        List<CarDTO> cars;
+    public ResponseEntity<byte[]> getAllCarsSimple(@RequestParam(required = false) CarType type,
+                                                   @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                                   WebRequest webRequest) {
+        // Each encoding is a different representation, so each gets its own ETag
+        boolean gzip = CarListResponseCache.acceptsGzip(acceptEncoding);
+        String eTag = gzip ? dataVersionTracker.carsETag("gzip") : dataVersionTracker.carsETag();
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
+        }
 
-        if (type != null) {
-            cars = carService.getCarsByTypeSimple(type);
-        } else {
-            cars = carService.getAllCarsSimple();
+        // Pre-encoded payload, written as-is without going through Jackson again
+        byte[] body = carListResponseCache.body(type, gzip);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
         }
+        return response.body(body);
+    }
 
-        return ResponseEntity.ok(cars);
+    @GetMapping("/simple/stats")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Map<String, Object>> getSimpleListCacheStats() {
+        return ResponseEntity.ok(carListResponseCache.getStats());
     }
     
     @GetMapping("/{id}")
@@ -0,0 +1,30 @@
+package state.street.car.booking.carBooking.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import state.street.car.booking.carBooking.dto.QuoteDTO;
+import state.street.car.booking.carBooking.dto.QuoteRequest;
+import state.street.car.booking.carBooking.service.QuoteService;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/quotes")
+@RequiredArgsConstructor
+public class QuoteController {
+
+    private final QuoteService quoteService;
+
+    /**
+     * Prices every requested car for every requested period, including weekend and season
+     * multipliers and long-rental discounts of the car's type
+     */
+    @PostMapping
+    public ResponseEntity<List<QuoteDTO>> quote(@RequestBody QuoteRequest request) {
+        return ResponseEntity.ok(quoteService.quote(request));
+    }
+}
@@ -0,0 +1,40 @@
+package state.street.car.booking.carBooking.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Lets a client opt out of replica reads for one request with {@code X-Read-Consistency: primary},
+ * e.g. right after a write it needs to read back. Has no effect when replica routing is off.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class ReadFromPrimaryFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Read-Consistency";
+    public static final String PRIMARY = "primary";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!PRIMARY.equalsIgnoreCase(request.getHeader(HEADER))) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        ReadWriteRoutingDataSource.requirePrimary();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadWriteRoutingDataSource.clearPrimaryRequirement();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package state.street.car.booking.carBooking.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the primary.
+ * Must sit behind a LazyConnectionDataSourceProxy: the transaction's read-only flag is only
+ * published after the transaction manager has asked for a connection.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private volatile boolean replicaAvailable;
+
+    /**
+     * Forces reads on the current thread to the primary, e.g. so a client sees its own writes
+     */
+    public static void requirePrimary() {
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+    }
+
+    public static void clearPrimaryRequirement() {
+        PRIMARY_REQUIRED.remove();
+    }
+
+    /**
+     * Called once the replica holds a full copy; until then all reads stay on the primary
+     */
+    void markReplicaAvailable() {
+        replicaAvailable = true;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicaAvailable
+                && PRIMARY_REQUIRED.get() == null
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+}
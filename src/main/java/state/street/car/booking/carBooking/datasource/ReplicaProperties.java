@@ -0,0 +1,25 @@
+package state.street.car.booking.carBooking.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "carbooking.datasource.replica")
+public class ReplicaProperties {
+
+    /**
+     * Route read-only transactions to a replica database kept in sync with the primary
+     */
+    private boolean enabled = false;
+
+    private String url = "jdbc:h2:mem:carbooking-replica";
+
+    private String username = "sa";
+
+    private String password = "";
+
+    /**
+     * Delay between the end of one replication pass and the start of the next
+     */
+    private long syncIntervalMs = 5_000;
+}
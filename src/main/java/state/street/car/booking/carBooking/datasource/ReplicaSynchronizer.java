@@ -0,0 +1,151 @@
+package state.street.car.booking.carBooking.datasource;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import state.street.car.booking.carBooking.service.CacheStatisticsService;
+import state.street.car.booking.carBooking.service.DataVersionTracker;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Periodically copies every table from the primary to the replica.
+ * The primary is read inside one repeatable-read transaction and the replica is replaced inside
+ * one transaction, so replica readers always see a consistent, if slightly stale, copy.
+ * <p>
+ * Read-only transactions fill the second-level and query caches from the replica, so entries
+ * cached between a primary commit and the next copy hold the old rows. Both caches are emptied
+ * after every copy and refill from the fresh one.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class ReplicaSynchronizer {
+
+    // Parents before children, so inserts satisfy the foreign keys
+    private static final List<String> TABLES = List.of("roles", "users", "user_roles", "cars", "booking_series", "bookings",
+            "hourly_bookings", "daily_utilisation", "booking_archive");
+    private static final int BATCH_SIZE = 5_000;
+
+    private final DataSource primaryDataSource;
+    private final DataSource replicaDataSource;
+    private final ReadWriteRoutingDataSource routingDataSource;
+    private final DataVersionTracker dataVersionTracker;
+    private final CacheStatisticsService cacheStatisticsService;
+
+    private boolean schemaCreated;
+    private long syncedCarVersion = -1;
+    private long syncedBookingVersion = -1;
+
+    /**
+     * First copy once seeding has finished; reads stay on the primary until it completes
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialSync() {
+        sync();
+        routingDataSource.markReplicaAvailable();
+    }
+
+    @Scheduled(fixedDelayString = "${carbooking.datasource.replica.sync-interval-ms:5000}",
+            initialDelayString = "${carbooking.datasource.replica.sync-interval-ms:5000}")
+    public synchronized void sync() {
+        long start = System.nanoTime();
+        // Read before copying: the copy contains at least everything up to these versions
+        long carVersion = dataVersionTracker.getCarVersion();
+        long bookingVersion = dataVersionTracker.getBookingVersion();
+
+        long rows = 0;
+        try (Connection source = primaryDataSource.getConnection();
+             Connection target = replicaDataSource.getConnection()) {
+            if (!schemaCreated) {
+                createSchema(source, target);
+                schemaCreated = true;
+            }
+
+            source.setAutoCommit(false);
+            source.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            target.setAutoCommit(false);
+            try {
+                try (Statement delete = target.createStatement()) {
+                    for (int i = TABLES.size() - 1; i >= 0; i--) {
+                        delete.executeUpdate("DELETE FROM " + TABLES.get(i));
+                    }
+                }
+                for (String table : TABLES) {
+                    rows += copyTable(table, source, target);
+                }
+                target.commit();
+            } catch (SQLException e) {
+                target.rollback();
+                throw e;
+            } finally {
+                source.commit();
+            }
+        } catch (SQLException e) {
+            log.error("Replica synchronisation failed, replica keeps its previous copy", e);
+            return;
+        }
+
+        cacheStatisticsService.evictAll();
+        invalidateStaleResponses(carVersion, bookingVersion);
+        log.debug("Replicated {} rows in {} ms", rows, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Responses built between a primary commit and this sync may carry the new version but replica
+     * data; bump the versions once the replica has caught up so those ETags and cached bodies expire.
+     */
+    private void invalidateStaleResponses(long carVersion, long bookingVersion) {
+        if (carVersion != syncedCarVersion) {
+            dataVersionTracker.carsChanged();
+            syncedCarVersion = dataVersionTracker.getCarVersion();
+        }
+        if (bookingVersion != syncedBookingVersion) {
+            dataVersionTracker.bookingsChanged();
+            syncedBookingVersion = dataVersionTracker.getBookingVersion();
+        }
+    }
+
+    private void createSchema(Connection source, Connection target) throws SQLException {
+        try (Statement script = source.createStatement();
+             ResultSet statements = script.executeQuery("SCRIPT NODATA NOSETTINGS");
+             Statement ddl = target.createStatement()) {
+            while (statements.next()) {
+                String sql = statements.getString(1);
+                if (!sql.startsWith("CREATE USER")) {
+                    ddl.execute(sql);
+                }
+            }
+        }
+    }
+
+    private long copyTable(String table, Connection source, Connection target) throws SQLException {
+        long copied = 0;
+        try (Statement select = source.createStatement();
+             ResultSet rows = select.executeQuery("SELECT * FROM " + table)) {
+            int columns = rows.getMetaData().getColumnCount();
+            String placeholders = String.join(", ", Collections.nCopies(columns, "?"));
+            try (PreparedStatement insert = target.prepareStatement("INSERT INTO " + table + " VALUES (" + placeholders + ")")) {
+                while (rows.next()) {
+                    for (int column = 1; column <= columns; column++) {
+                        insert.setObject(column, rows.getObject(column));
+                    }
+                    insert.addBatch();
+                    if (++copied % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+        }
+        return copied;
+    }
+}
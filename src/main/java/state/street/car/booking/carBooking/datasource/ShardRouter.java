@@ -0,0 +1,237 @@
+package state.street.car.booking.carBooking.datasource;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Decides which shard holds a car's bookings and runs work there.
+ * A car's bookings, utilisation totals and archive live on shard {@code carId mod N}; booking
+ * ids are generated so that {@code (id - 1) mod N} names the same shard. Users, roles and cars
+ * are kept on every shard, copied from shard 0.
+ * <p>
+ * Per-car work binds the caller's transaction to one shard; fleet-wide work fans out, one
+ * transaction per shard in parallel, and merges. With a single shard everything runs inline
+ * in the caller's transaction.
+ */
+@Component
+public class ShardRouter {
+
+    private final int shardCount;
+    private final PlatformTransactionManager transactionManager;
+    private final ExecutorService executor;
+
+    private volatile ShardSynchronizer synchronizer;
+
+    public ShardRouter(ShardingProperties shardingProperties, PlatformTransactionManager transactionManager) {
+        this.shardCount = shardingProperties.getShardCount();
+        this.transactionManager = transactionManager;
+        this.executor = shardCount > 1 ? Executors.newCachedThreadPool(shardThreads()) : null;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public int shardForCar(Long carId) {
+        return Math.floorMod(carId, shardCount);
+    }
+
+    public int shardForBooking(Long bookingId) {
+        return Math.floorMod(bookingId - 1, shardCount);
+    }
+
+    /**
+     * Routes the current transaction to the shard holding the car's bookings.
+     * Must be called before the transaction's first statement.
+     */
+    public void bindToCar(Long carId) {
+        bind(shardForCar(carId));
+    }
+
+    public void bindToBooking(Long bookingId) {
+        bind(shardForBooking(bookingId));
+    }
+
+    /**
+     * Runs work in its own transaction on one shard and waits for it
+     */
+    public <T> T onShard(int shard, boolean readOnly, Supplier<T> work) {
+        if (shardCount == 1) {
+            return work.get();
+        }
+        return await(executor.submit(() -> inTransaction(shard, readOnly, work)));
+    }
+
+    /**
+     * Runs work on every shard in parallel, one transaction each; results are in shard order
+     */
+    public <T> List<T> fanOut(boolean readOnly, IntFunction<T> work) {
+        if (shardCount == 1) {
+            return Collections.singletonList(work.apply(0));
+        }
+        List<Future<T>> futures = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int target = shard;
+            futures.add(executor.submit(() -> inTransaction(target, readOnly, () -> work.apply(target))));
+        }
+        List<T> results = new ArrayList<>(shardCount);
+        for (Future<T> future : futures) {
+            results.add(await(future));
+        }
+        return results;
+    }
+
+    /**
+     * Fans a read out and merges the per-shard lists in the given order. A single shard's
+     * list is returned as the query ordered it.
+     */
+    public <T> List<T> fanOutAndMerge(IntFunction<List<T>> read, Comparator<? super T> order) {
+        if (shardCount == 1) {
+            return read.apply(0);
+        }
+        List<T> merged = new ArrayList<>();
+        fanOut(true, read).forEach(merged::addAll);
+        merged.sort(order);
+        return merged;
+    }
+
+    /**
+     * Maps each item on the shard of its car, keeping the input order
+     */
+    @SuppressWarnings("unchecked")
+    public <T, R> List<R> mapOnCarShards(List<T> items, Function<T, Long> carId, Function<T, R> mapper) {
+        if (shardCount == 1) {
+            return items.stream().map(mapper).collect(Collectors.toList());
+        }
+        Object[] results = new Object[items.size()];
+        fanOut(true, shard -> {
+            for (int i = 0; i < items.size(); i++) {
+                if (shardForCar(carId.apply(items.get(i))) == shard) {
+                    results[i] = mapper.apply(items.get(i));
+                }
+            }
+            return null;
+        });
+        return (List<R>) new ArrayList<>(Arrays.asList(results));
+    }
+
+    /**
+     * Copies the cars table to the other shards once the current transaction commits
+     */
+    public void carsChanged() {
+        ShardSynchronizer current = synchronizer;
+        if (current == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    current.copyReferenceData(List.of("cars"));
+                }
+            });
+        } else {
+            current.copyReferenceData(List.of("cars"));
+        }
+    }
+
+    /**
+     * Copies users, roles and cars to the other shards now, e.g. after a bulk load on shard 0
+     */
+    public void syncReferenceData() {
+        if (synchronizer != null) {
+            synchronizer.copyReferenceData(ShardSynchronizer.REFERENCE_TABLES);
+        }
+    }
+
+    public void setSynchronizer(ShardSynchronizer synchronizer) {
+        this.synchronizer = synchronizer;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void bind(int shard) {
+        if (shardCount == 1) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Binding to a shard requires an active transaction");
+        }
+        Integer current = ShardRoutingDataSource.currentShard();
+        if (current != null) {
+            if (current != shard) {
+                throw new IllegalStateException("Transaction is bound to shard " + current + " and cannot use shard " + shard);
+            }
+            return;
+        }
+        ShardRoutingDataSource.bind(shard);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                ShardRoutingDataSource.unbind();
+            }
+        });
+    }
+
+    private <T> T inTransaction(int shard, boolean readOnly, Supplier<T> work) {
+        ShardRoutingDataSource.bind(shard);
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(readOnly);
+            return transaction.execute(status -> work.get());
+        } finally {
+            ShardRoutingDataSource.unbind();
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shard", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static ThreadFactory shardThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "shard-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package state.street.car.booking.carBooking.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends connections to the shard bound to the current thread, or to shard 0.
+ * Must sit behind a LazyConnectionDataSourceProxy so a transaction can be bound to its shard
+ * after it has begun but before its first statement.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    static Integer currentShard() {
+        return CURRENT_SHARD.get();
+    }
+
+    static void bind(int shard) {
+        CURRENT_SHARD.set(shard);
+    }
+
+    static void unbind() {
+        CURRENT_SHARD.remove();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = CURRENT_SHARD.get();
+        return shard != null ? shard : 0;
+    }
+
+    /**
+     * Physical shard DataSources, indexed by shard
+     */
+    public List<DataSource> getShards() {
+        List<DataSource> shards = new ArrayList<>();
+        for (int shard = 0; shard < getResolvedDataSources().size(); shard++) {
+            shards.add(getResolvedDataSources().get(shard));
+        }
+        return shards;
+    }
+
+    /**
+     * Closes the pools of the additional shards, which are not beans of their own
+     */
+    public void close() throws Exception {
+        for (DataSource shard : getShards()) {
+            if (shard instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
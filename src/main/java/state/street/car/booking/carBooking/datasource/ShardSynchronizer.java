@@ -0,0 +1,219 @@
+package state.street.car.booking.carBooking.datasource;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Prepares the shards and keeps their reference data in line with shard 0.
+ * Shards get shard 0's schema, and every shard's booking ids are generated in steps of the
+ * shard count so an id alone tells which shard holds the booking. Users, roles and cars are
+ * upserted from shard 0 and rows that no longer exist there are removed; a shard that cannot
+ * drop such a row keeps its previous reference data and the copy fails rather than drifting.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class ShardSynchronizer {
+
+    // Parents before children, so upserts satisfy the foreign keys
+    static final List<String> REFERENCE_TABLES = List.of("roles", "users", "user_roles", "cars");
+    private static final Map<String, List<String>> KEYS = Map.of(
+            "roles", List.of("id"),
+            "users", List.of("id"),
+            "user_roles", List.of("role_id", "user_id"),
+            "cars", List.of("id"));
+    private static final int BATCH_SIZE = 5_000;
+
+    private final List<DataSource> shards;
+
+    private boolean prepared;
+
+    /**
+     * Runs once the JPA schema exists on shard 0 and before the seeders
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public synchronized void prepareShards() {
+        if (prepared) {
+            return;
+        }
+        try (Connection home = shards.get(0).getConnection()) {
+            for (int shard = 0; shard < shards.size(); shard++) {
+                try (Connection target = shards.get(shard).getConnection()) {
+                    if (shard > 0 && !hasTable(target, "BOOKINGS")) {
+                        copySchema(home, target);
+                    }
+                    alignBookingIds(target, shard);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not prepare the booking shards", e);
+        }
+        prepared = true;
+        log.info("Prepared {} booking shard(s)", shards.size());
+    }
+
+    /**
+     * Seeding and snapshot restores write reference data to shard 0 only
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialSync() {
+        copyReferenceData(REFERENCE_TABLES);
+    }
+
+    public synchronized void copyReferenceData(List<String> tables) {
+        long start = System.nanoTime();
+        long rows = 0;
+        try (Connection home = shards.get(0).getConnection()) {
+            for (int shard = 1; shard < shards.size(); shard++) {
+                try (Connection target = shards.get(shard).getConnection()) {
+                    target.setAutoCommit(false);
+                    try {
+                        for (String table : tables) {
+                            rows += upsertTable(table, home, target);
+                        }
+                        List<String> kept = new ArrayList<>();
+                        for (int i = tables.size() - 1; i >= 0; i--) {
+                            kept.addAll(deleteMissing(tables.get(i), home, target));
+                        }
+                        if (!kept.isEmpty()) {
+                            target.rollback();
+                            throw new IllegalStateException("Shard " + shard + " could not remove " + kept
+                                    + ", which no longer exist on shard 0");
+                        }
+                        target.commit();
+                    } catch (SQLException e) {
+                        target.rollback();
+                        throw e;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Copying " + tables + " to the shards failed", e);
+        }
+        log.debug("Copied {} reference rows to {} shard(s) in {} ms", rows, shards.size() - 1,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static boolean hasTable(Connection connection, String table) throws SQLException {
+        try (ResultSet tables = connection.getMetaData().getTables(null, "PUBLIC", table, null)) {
+            return tables.next();
+        }
+    }
+
+    private static void copySchema(Connection source, Connection target) throws SQLException {
+        try (Statement script = source.createStatement();
+             ResultSet statements = script.executeQuery("SCRIPT NODATA NOSETTINGS");
+             Statement ddl = target.createStatement()) {
+            while (statements.next()) {
+                String sql = statements.getString(1);
+                if (!sql.startsWith("CREATE USER")) {
+                    ddl.execute(sql);
+                }
+            }
+        }
+    }
+
+    /**
+     * Restarts the booking identities at the next id belonging to this shard, stepping by the shard count
+     */
+    private void alignBookingIds(Connection connection, int shard) throws SQLException {
+        for (String table : List.of("bookings", "hourly_bookings", "booking_series")) {
+            long max;
+            try (Statement statement = connection.createStatement();
+                 ResultSet result = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+                result.next();
+                max = result.getLong(1);
+            }
+            long next = max + 1 + Math.floorMod(shard - max, shards.size());
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next
+                        + " SET INCREMENT BY " + shards.size());
+            }
+        }
+    }
+
+    private static long upsertTable(String table, Connection source, Connection target) throws SQLException {
+        long copied = 0;
+        try (Statement select = source.createStatement();
+             ResultSet rows = select.executeQuery("SELECT * FROM " + table)) {
+            int columns = rows.getMetaData().getColumnCount();
+            List<String> names = new ArrayList<>(columns);
+            for (int column = 1; column <= columns; column++) {
+                names.add(rows.getMetaData().getColumnName(column));
+            }
+            String sql = "MERGE INTO " + table + " (" + String.join(", ", names) + ") KEY (" + String.join(", ", KEYS.get(table))
+                    + ") VALUES (" + String.join(", ", Collections.nCopies(columns, "?")) + ")";
+            try (PreparedStatement merge = target.prepareStatement(sql)) {
+                while (rows.next()) {
+                    for (int column = 1; column <= columns; column++) {
+                        merge.setObject(column, rows.getObject(column));
+                    }
+                    merge.addBatch();
+                    if (++copied % BATCH_SIZE == 0) {
+                        merge.executeBatch();
+                    }
+                }
+                merge.executeBatch();
+            }
+        }
+        return copied;
+    }
+
+    /**
+     * Removes the rows shard 0 no longer has and returns those that could not be removed
+     */
+    private static List<String> deleteMissing(String table, Connection source, Connection target) throws SQLException {
+        List<String> keyColumns = KEYS.get(table);
+        Set<List<Object>> keep = new HashSet<>(readKeys(table, keyColumns, source));
+        List<String> conditions = keyColumns.stream().map(column -> column + " = ?").toList();
+        String sql = "DELETE FROM " + table + " WHERE " + String.join(" AND ", conditions);
+        List<String> kept = new ArrayList<>();
+        for (List<Object> key : readKeys(table, keyColumns, target)) {
+            if (keep.contains(key)) {
+                continue;
+            }
+            try (PreparedStatement delete = target.prepareStatement(sql)) {
+                for (int i = 0; i < key.size(); i++) {
+                    delete.setObject(i + 1, key.get(i));
+                }
+                delete.executeUpdate();
+            } catch (SQLException e) {
+                // Typically a car whose bookings still reference it on this shard
+                log.warn("Could not remove {} {}: {}", table, key, e.getMessage());
+                kept.add(table + " " + key);
+            }
+        }
+        return kept;
+    }
+
+    private static List<List<Object>> readKeys(String table, List<String> keyColumns, Connection connection)
+            throws SQLException {
+        List<List<Object>> keys = new ArrayList<>();
+        try (Statement select = connection.createStatement();
+             ResultSet rows = select.executeQuery("SELECT " + String.join(", ", keyColumns) + " FROM " + table)) {
+            while (rows.next()) {
+                List<Object> key = new ArrayList<>(keyColumns.size());
+                for (int i = 1; i <= keyColumns.size(); i++) {
+                    key.add(rows.getObject(i));
+                }
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,30 @@
+package state.street.car.booking.carBooking.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "carbooking.datasource.sharding")
+public class ShardingProperties {
+
+    /**
+     * Spread the booking ledger over several databases keyed by car id
+     */
+    private boolean enabled = false;
+
+    /**
+     * Additional shards; shard 0 is spring.datasource, which also owns users, roles and cars
+     */
+    private List<String> urls = new ArrayList<>();
+
+    private String username = "sa";
+
+    private String password = "";
+
+    public int getShardCount() {
+        return enabled ? 1 + urls.size() : 1;
+    }
+}
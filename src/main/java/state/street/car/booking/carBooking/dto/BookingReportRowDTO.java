@@ -0,0 +1,20 @@
+package state.street.car.booking.carBooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import state.street.car.booking.carBooking.enums.CarType;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingReportRowDTO {
+    private YearMonth month; // month the booking starts in
+    private CarType carType;
+    private Long bookings;
+    private BigDecimal revenue; // cost per day times duration, live and archived bookings
+    private BigDecimal averageLeadTimeHours; // from creation to booking start
+}
@@ -0,0 +1,29 @@
+package state.street.car.booking.carBooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import state.street.car.booking.carBooking.entity.BookingSeries;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingSeriesDTO {
+    private Long id;
+    private Long carId;
+    private Long userId;
+    private String carRegistrationNumber;
+    private String username;
+    private BookingSeries.Frequency frequency;
+    private Integer interval;
+    private LocalDateTime firstDate;
+    private Integer duration;
+    private Integer occurrences;
+    private LocalDateTime lastEndDate;
+    private LocalDateTime createdAt;
+    // The occurrences still booked
+    private List<BookingDTO> bookings;
+}
@@ -0,0 +1,22 @@
+package state.street.car.booking.carBooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HourlyBookingDTO {
+    private Long id;
+    private Long carId;
+    private Long userId;
+    private String carRegistrationNumber;
+    private String username;
+    private LocalDateTime startTime;
+    private Integer hours;
+    private LocalDateTime endTime;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,16 @@
+package state.street.car.booking.carBooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HourlyBookingRequest {
+    private Long carId;
+    private LocalDateTime startTime;
+    private Integer hours;
+}
@@ -0,0 +1,25 @@
+package state.street.car.booking.carBooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import state.street.car.booking.carBooking.enums.CarType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuoteDTO {
+    private Long carId;
+    private String carRegistrationNumber;
+    private CarType carType;
+    private LocalDateTime startDate;
+    private Integer duration;
+    private BigDecimal costPerDay;
+    private BigDecimal subtotal; // after weekend and season multipliers
+    private BigDecimal discountPercent;
+    private BigDecimal discount;
+    private BigDecimal total;
+}
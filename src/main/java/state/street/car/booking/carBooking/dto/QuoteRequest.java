@@ -0,0 +1,27 @@
+package state.street.car.booking.carBooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuoteRequest {
+    /**
+     * Cars to price; all cars when empty
+     */
+    private List<Long> carIds;
+    private List<Period> periods;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Period {
+        private LocalDateTime startDate;
+        private Integer duration;
+    }
+}
@@ -0,0 +1,22 @@
+package state.street.car.booking.carBooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import state.street.car.booking.carBooking.entity.BookingSeries;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecurringBookingRequest {
+    private Long carId;
+    private LocalDateTime bookingDate;
+    private Integer duration;
+    private BookingSeries.Frequency frequency;
+    private Integer interval;
+    // Exactly one of count and until
+    private Integer count;
+    private LocalDateTime until;
+}
@@ -0,0 +1,18 @@
+package state.street.car.booking.carBooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepackingReportDTO {
+    private boolean applied;
+    // Identifies the plan; applying requires the token of a dry run of the same plan
+    private String token;
+    private long planningMillis;
+    private List<TypeRepackingDTO> types;
+}
@@ -0,0 +1,16 @@
+package state.street.car.booking.carBooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import state.street.car.booking.carBooking.allocation.FleetCalendar;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TypeBookingDTO {
+    private BookingDTO booking;
+    // Cars of the type around the booked period, without and with the new booking
+    private FleetCalendar.Fragmentation fragmentationBefore;
+    private FleetCalendar.Fragmentation fragmentationAfter;
+}
@@ -0,0 +1,17 @@
+package state.street.car.booking.carBooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import state.street.car.booking.carBooking.enums.CarType;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TypeBookingRequest {
+    private CarType carType;
+    private LocalDateTime bookingDate;
+    private Integer duration;
+}
@@ -0,0 +1,26 @@
+package state.street.car.booking.carBooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import state.street.car.booking.carBooking.allocation.FleetCalendar;
+import state.street.car.booking.carBooking.allocation.FleetRepacker;
+import state.street.car.booking.carBooking.enums.CarType;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TypeRepackingDTO {
+    private CarType carType;
+    private int cars;
+    private int bookings;
+    private int movableBookings;
+    private int moves;
+    // False when the fixed bookings left no car for some movable one; nothing moves then
+    private boolean complete;
+    private FleetCalendar.Fragmentation fragmentationBefore;
+    private FleetCalendar.Fragmentation fragmentationAfter;
+    private List<FleetRepacker.Move> firstMoves;
+}
@@ -0,0 +1,20 @@
+package state.street.car.booking.carBooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import state.street.car.booking.carBooking.enums.CarType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UtilisationDTO {
+    private LocalDate periodStart; // the day, or the Monday of the week
+    private CarType carType;
+    private Long bookedCarDays;
+    private Long availableCarDays; // current fleet size of the type times days in the period
+    private BigDecimal utilisationPercent;
+}
@@ -0,0 +1,24 @@
+package state.street.car.booking.carBooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import state.street.car.booking.carBooking.entity.WaitlistEntry;
+import state.street.car.booking.carBooking.enums.CarType;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistEntryDTO {
+    private Long id;
+    private String username;
+    private CarType carType;
+    private Long carId;
+    private LocalDateTime bookingDate;
+    private Integer duration;
+    private LocalDateTime requestedAt;
+    private WaitlistEntry.Status status;
+    private Long bookingId;
+}
@@ -0,0 +1,19 @@
+package state.street.car.booking.carBooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import state.street.car.booking.carBooking.enums.CarType;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistRequest {
+    // Exactly one of carType and carId
+    private CarType carType;
+    private Long carId;
+    private LocalDateTime bookingDate;
+    private Integer duration;
+}
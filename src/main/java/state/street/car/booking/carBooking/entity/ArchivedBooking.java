@@ -0,0 +1,62 @@
+package state.street.car.booking.carBooking.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import state.street.car.booking.carBooking.enums.CarType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Expired booking moved out of the live table by the cleanup. Car details are copied at
+ * archive time so history stays reportable even if the car is later changed or removed.
+ * Bookings do not record a price, so costPerDay is the car's daily rate when the booking was
+ * archived, not necessarily the rate when it was made.
+ */
+@Entity
+@Table(name = "booking_archive", indexes = @Index(name = "idx_booking_archive_date", columnList = "bookingDate"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedBooking {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long carId;
+
+    @Column(nullable = false)
+    private String carRegistrationNumber;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private CarType carType;
+
+    @Column(nullable = false)
+    private BigDecimal costPerDay;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private LocalDateTime bookingDate;
+
+    @Column(nullable = false)
+    private Integer duration;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+
+    public static ArchivedBooking of(Booking booking, LocalDateTime archivedAt) {
+        Car car = booking.getCar();
+        return new ArchivedBooking(booking.getId(), car.getId(), car.getRegistrationNumber(), car.getType(),
+                car.getCostPerDay(), booking.getUser().getId(), booking.getBookingDate(), booking.getDuration(),
+                booking.getCreatedAt(), archivedAt);
+    }
+}
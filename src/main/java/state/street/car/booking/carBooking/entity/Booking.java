@@ -34,6 +34,14 @@ public class Booking {
     
     @Column(nullable = false)
     private LocalDateTime createdAt;
+
+    // The recurring series this booking is an occurrence of, if any
+    @Column(name = "series_id")
+    private Long seriesId;
+
+    // Whether the re-packing job may move the booking to another car of the same type; null means no
+    @Column(name = "allow_reassignment")
+    private Boolean allowReassignment;
     
     public Booking(Car car, User user, LocalDateTime bookingDate, Integer duration) {
         this.car = car;
@@ -0,0 +1,68 @@
+package state.street.car.booking.carBooking.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A recurring booking kept as its rule: one row however many occurrences it has. Each occurrence
+ * is also an ordinary booking pointing back here, so availability, pricing and the cleanup see
+ * them like any other. Lives on its car's shard with ids stepped like the bookings'.
+ */
+@Entity
+@Table(name = "booking_series")
+@Data
+@NoArgsConstructor
+public class BookingSeries {
+
+    public enum Frequency {
+        DAILY,
+        WEEKLY
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "car_id", nullable = false)
+    private Car car;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Frequency frequency;
+
+    // Every this many days or weeks
+    @Column(name = "repeat_interval", nullable = false)
+    private Integer interval;
+
+    @Column(nullable = false)
+    private LocalDateTime firstDate;
+
+    @Column(nullable = false)
+    private Integer duration; // in days, per occurrence
+
+    @Column(nullable = false)
+    private Integer occurrences;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public BookingSeries(Car car, User user, Frequency frequency, int interval, LocalDateTime firstDate,
+                         int duration, int occurrences) {
+        this.car = car;
+        this.user = user;
+        this.frequency = frequency;
+        this.interval = interval;
+        this.firstDate = firstDate;
+        this.duration = duration;
+        this.occurrences = occurrences;
+        this.createdAt = LocalDateTime.now();
+    }
+}
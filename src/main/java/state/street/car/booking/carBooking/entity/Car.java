@@ -4,12 +4,16 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import state.street.car.booking.carBooking.enums.CarType;
 
 import java.math.BigDecimal;
 
 @Entity
 @Table(name = "cars")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "car")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
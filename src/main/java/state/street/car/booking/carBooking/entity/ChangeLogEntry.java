@@ -0,0 +1,45 @@
+package state.street.car.booking.carBooking.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One key changed by a committed transaction, so other nodes can evict just that key. The id
+ * orders the feed: pollers read the rows above the last id they applied. Kept for the configured
+ * retention; a node that falls further behind drops every cached entity type instead.
+ */
+@Entity
+@Table(name = "change_log")
+@Data
+@NoArgsConstructor
+public class ChangeLogEntry {
+
+    public enum EntityType {
+        CAR,
+        BOOKING,
+        HOURLY_BOOKING
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private EntityType entityType;
+
+    @Column(nullable = false)
+    private Long entityKey;
+
+    /**
+     * Node that made the change; it has already evicted the key itself
+     */
+    @Column(nullable = false)
+    private String nodeId;
+
+    @Column(nullable = false)
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,43 @@
+package state.street.car.booking.carBooking.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import state.street.car.booking.carBooking.enums.CarType;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Booked car-days per CarType per calendar day, maintained incrementally by booking writes.
+ * A booking counts towards the {@code duration} calendar days starting on its booking date.
+ */
+@Entity
+@Table(name = "daily_utilisation")
+@IdClass(DailyUtilisation.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyUtilisation {
+
+    @Id
+    @Column(name = "usage_date")
+    private LocalDate usageDate;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "car_type")
+    private CarType carType;
+
+    @Column(nullable = false)
+    private Integer bookedCarDays;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate usageDate;
+        private CarType carType;
+    }
+}
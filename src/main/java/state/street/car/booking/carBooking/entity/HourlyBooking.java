@@ -0,0 +1,51 @@
+package state.street.car.booking.carBooking.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A booking of whole hours. Lives next to the day bookings on its car's shard; the end time is
+ * stored so overlap checks can use the (car, start) index without date arithmetic.
+ */
+@Entity
+@Table(name = "hourly_bookings", indexes = @Index(name = "idx_hourly_bookings_car_start", columnList = "car_id, startTime"))
+@Data
+@NoArgsConstructor
+public class HourlyBooking {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "car_id", nullable = false)
+    private Car car;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(nullable = false)
+    private LocalDateTime startTime;
+
+    @Column(nullable = false)
+    private Integer hours;
+
+    @Column(nullable = false)
+    private LocalDateTime endTime;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public HourlyBooking(Car car, User user, LocalDateTime startTime, int hours) {
+        this.car = car;
+        this.user = user;
+        this.startTime = startTime;
+        this.hours = hours;
+        this.endTime = startTime.plusHours(hours);
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,60 @@
+package state.street.car.booking.carBooking.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A booking or car change waiting to be delivered to the outbox sinks. Written in the same
+ * transaction as the change itself and deleted once every sink has taken it.
+ */
+@Entity
+@Table(name = "outbox_events")
+@Data
+@NoArgsConstructor
+public class OutboxEvent {
+
+    public enum Type {
+        BOOKING_CREATED,
+        BOOKING_UPDATED,
+        BOOKING_CANCELLED,
+        BOOKING_EXPIRED,
+        CAR_CREATED,
+        CAR_UPDATED,
+        CAR_DELETED,
+        HOURLY_BOOKING_CREATED,
+        HOURLY_BOOKING_CANCELLED,
+        HOURLY_BOOKING_EXPIRED;
+
+        public String aggregateType() {
+            return name().startsWith("HOURLY_BOOKING") ? "HOURLY_BOOKING"
+                    : name().startsWith("BOOKING") ? "BOOKING" : "CAR";
+        }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Type type;
+
+    @Column(nullable = false)
+    private Long aggregateId;
+
+    @Column(nullable = false, length = 1000)
+    private String payload;
+
+    @Column(nullable = false)
+    private LocalDateTime occurredAt;
+
+    public OutboxEvent(Type type, Long aggregateId, String payload) {
+        this.type = type;
+        this.aggregateId = aggregateId;
+        this.payload = payload;
+        this.occurredAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,40 @@
+package state.street.car.booking.carBooking.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cluster-wide lease on a scheduled task. Read and written by LeaseManager with plain SQL so
+ * every change is a single conditional update evaluated against the database clock.
+ */
+@Entity
+@Table(name = "scheduler_leases")
+@Data
+@NoArgsConstructor
+public class SchedulerLease {
+
+    @Id
+    private String name;
+
+    /**
+     * Node holding the lease, or null when free
+     */
+    private String owner;
+
+    /**
+     * Incremented on every acquisition; work done under an older token is rejected
+     */
+    @Column(nullable = false)
+    private Long fencingToken;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    /**
+     * Key of the last scheduled run that finished, so other nodes skip it
+     */
+    private String completedRun;
+}
@@ -0,0 +1,67 @@
+package state.street.car.booking.carBooking.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import state.street.car.booking.carBooking.enums.CarType;
+
+import java.time.LocalDateTime;
+
+/**
+ * A request to be booked into a car of a type, or one specific car, as soon as the period frees
+ * up. Kept on shard 0 with the other fleet-wide data; the waiting ones are also held in memory
+ * by WaitlistIndex.
+ */
+@Entity
+@Table(name = "waitlist_entries", indexes = @Index(name = "idx_waitlist_entries_status", columnList = "status"))
+@Data
+@NoArgsConstructor
+public class WaitlistEntry {
+
+    public enum Status {
+        WAITING,
+        ASSIGNED,
+        EXPIRED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private CarType carType;
+
+    // Set when the request is for this car only
+    private Long carId;
+
+    @Column(nullable = false)
+    private LocalDateTime bookingDate;
+
+    @Column(nullable = false)
+    private Integer duration; // in days
+
+    @Column(nullable = false)
+    private LocalDateTime requestedAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    // The booking made for the request once assigned
+    private Long bookingId;
+
+    public WaitlistEntry(User user, CarType carType, Long carId, LocalDateTime bookingDate, int duration) {
+        this.user = user;
+        this.carType = carType;
+        this.carId = carId;
+        this.bookingDate = bookingDate;
+        this.duration = duration;
+        this.requestedAt = LocalDateTime.now();
+        this.status = Status.WAITING;
+    }
+}
@@ -0,0 +1,7 @@
+package state.street.car.booking.carBooking.exception;
+
+public class LeaseUnavailableException extends RuntimeException {
+    public LeaseUnavailableException(String message) {
+        super(message);
+    }
+}
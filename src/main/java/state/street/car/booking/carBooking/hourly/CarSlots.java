@@ -0,0 +1,200 @@
+package state.street.car.booking.carBooking.hourly;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * One car's occupancy in hour slots (hours since the epoch, UTC). Two levels: a 24-bit mask of
+ * taken hours per day, and over those a bitmap with one bit per day that has any hour taken, kept
+ * in sparse pages of 64 days. A range check looks at the masks of its first and last day only and
+ * skips the days in between a page word at a time. The intervals themselves are kept too, to
+ * restore the bits after a removal and to find hour bookings near a day booking.
+ */
+final class CarSlots {
+
+    private static final int DAYS_PER_PAGE = 64;
+
+    // Range bounds are intervals without a key, which sort before every real one starting with them
+    private static final Comparator<HourSlotIndex.Interval> BY_START = Comparator
+            .comparingLong(HourSlotIndex.Interval::start)
+            .thenComparing(HourSlotIndex.Interval::key, Comparator.nullsFirst(
+                    Comparator.comparing(HourSlotIndex.Key::kind).thenComparingLong(HourSlotIndex.Key::id)));
+
+    private final NavigableMap<Long, Page> pages = new TreeMap<>();
+    private final Map<HourSlotIndex.Key, HourSlotIndex.Interval> byKey = new HashMap<>();
+    private final NavigableSet<HourSlotIndex.Interval> byStart = new TreeSet<>(BY_START);
+    private long longest;
+
+    synchronized boolean isFree(long start, long end) {
+        if (end <= start) {
+            return true;
+        }
+        long firstDay = Math.floorDiv(start, 24);
+        long lastDay = Math.floorDiv(end - 1, 24);
+        int from = (int) (start - firstDay * 24);
+        int to = (int) (end - lastDay * 24);
+        if (firstDay == lastDay) {
+            return (maskAt(firstDay) & mask(from, to)) == 0;
+        }
+        if ((maskAt(firstDay) & mask(from, 24)) != 0 || (maskAt(lastDay) & mask(0, to)) != 0) {
+            return false;
+        }
+        return lastDay - firstDay < 2 || !anyBusyDay(firstDay + 1, lastDay - 1);
+    }
+
+    /**
+     * Marks the interval unless any of its hours is taken
+     */
+    synchronized boolean tryAdd(HourSlotIndex.Interval interval) {
+        if (!isFree(interval.start(), interval.end())) {
+            return false;
+        }
+        add(interval);
+        return true;
+    }
+
+    synchronized void add(HourSlotIndex.Interval interval) {
+        remove(interval.key());
+        byKey.put(interval.key(), interval);
+        byStart.add(interval);
+        longest = Math.max(longest, interval.end() - interval.start());
+        mark(interval.start(), interval.end());
+    }
+
+    synchronized boolean remove(HourSlotIndex.Key key) {
+        HourSlotIndex.Interval removed = byKey.remove(key);
+        if (removed == null) {
+            return false;
+        }
+        byStart.remove(removed);
+        clear(removed.start(), removed.end());
+        // Overlapping intervals only exist in data older than the conflict checks; keep their hours
+        for (HourSlotIndex.Interval other : overlapping(removed.start(), removed.end())) {
+            mark(Math.max(other.start(), removed.start()), Math.min(other.end(), removed.end()));
+        }
+        return true;
+    }
+
+    /**
+     * Hour bookings, including those still being written, sharing any time with [startSecond,
+     * endSecond), in epoch seconds
+     */
+    synchronized boolean overlapsHourly(long startSecond, long endSecond) {
+        for (HourSlotIndex.Interval interval : overlapping(Math.floorDiv(startSecond, 3600), -Math.floorDiv(-endSecond, 3600))) {
+            if (interval.key().kind() != HourSlotIndex.Kind.DAY
+                    && interval.start() * 3600 < endSecond && interval.end() * 3600 > startSecond) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the intervals ending at or before the slot and returns their keys
+     */
+    synchronized List<HourSlotIndex.Key> pruneEndedBefore(long slot) {
+        List<HourSlotIndex.Key> ended = byStart.headSet(new HourSlotIndex.Interval(null, slot, slot), false)
+                .stream()
+                .filter(interval -> interval.end() <= slot)
+                .map(HourSlotIndex.Interval::key)
+                .toList();
+        ended.forEach(this::remove);
+        return ended;
+    }
+
+    synchronized int size() {
+        return byKey.size();
+    }
+
+    private List<HourSlotIndex.Interval> overlapping(long start, long end) {
+        return byStart.subSet(new HourSlotIndex.Interval(null, start - longest, Long.MIN_VALUE), true,
+                        new HourSlotIndex.Interval(null, end, Long.MIN_VALUE), false)
+                .stream()
+                .filter(interval -> interval.end() > start)
+                .toList();
+    }
+
+    /**
+     * Whether any day in [firstDay, lastDay] has a taken hour, one page word at a time
+     */
+    private boolean anyBusyDay(long firstDay, long lastDay) {
+        long firstPage = Math.floorDiv(firstDay, DAYS_PER_PAGE);
+        long lastPage = Math.floorDiv(lastDay, DAYS_PER_PAGE);
+        for (Map.Entry<Long, Page> entry : pages.subMap(firstPage, true, lastPage, true).entrySet()) {
+            long pageStart = entry.getKey() * DAYS_PER_PAGE;
+            int from = (int) Math.max(0, firstDay - pageStart);
+            int to = (int) Math.min(DAYS_PER_PAGE - 1, lastDay - pageStart);
+            long range = (-1L >>> (DAYS_PER_PAGE - 1 - to + from)) << from;
+            if ((entry.getValue().busyDays & range) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void mark(long start, long end) {
+        forEachDay(start, end, (day, dayMask) -> {
+            Page page = pages.computeIfAbsent(Math.floorDiv(day, DAYS_PER_PAGE), ignored -> new Page());
+            int index = (int) Math.floorMod(day, DAYS_PER_PAGE);
+            page.hourMasks[index] |= dayMask;
+            page.busyDays |= 1L << index;
+        });
+    }
+
+    private void clear(long start, long end) {
+        forEachDay(start, end, (day, dayMask) -> {
+            long pageNumber = Math.floorDiv(day, DAYS_PER_PAGE);
+            Page page = pages.get(pageNumber);
+            if (page == null) {
+                return;
+            }
+            int index = (int) Math.floorMod(day, DAYS_PER_PAGE);
+            page.hourMasks[index] &= ~dayMask;
+            if (page.hourMasks[index] == 0) {
+                page.busyDays &= ~(1L << index);
+                if (page.busyDays == 0) {
+                    pages.remove(pageNumber);
+                }
+            }
+        });
+    }
+
+    private static void forEachDay(long start, long end, DayVisitor visitor) {
+        long slot = start;
+        while (slot < end) {
+            long day = Math.floorDiv(slot, 24);
+            long dayEnd = (day + 1) * 24;
+            visitor.visit(day, mask((int) (slot - day * 24), (int) (Math.min(end, dayEnd) - day * 24)));
+            slot = dayEnd;
+        }
+    }
+
+    private int maskAt(long day) {
+        Page page = pages.get(Math.floorDiv(day, DAYS_PER_PAGE));
+        return page == null ? 0 : page.hourMasks[(int) Math.floorMod(day, DAYS_PER_PAGE)];
+    }
+
+    /**
+     * Hours [from, to) of one day as a bit mask
+     */
+    private static int mask(int from, int to) {
+        return ((1 << (to - from)) - 1) << from;
+    }
+
+    private static final class Page {
+
+        private long busyDays;
+        private final int[] hourMasks = new int[DAYS_PER_PAGE];
+    }
+
+    @FunctionalInterface
+    private interface DayVisitor {
+        void visit(long day, int dayMask);
+    }
+}
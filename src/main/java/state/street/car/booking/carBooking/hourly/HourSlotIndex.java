@@ -0,0 +1,353 @@
+package state.street.car.booking.carBooking.hourly;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import state.street.car.booking.carBooking.cluster.RemoteChangeListener;
+import state.street.car.booking.carBooking.datasource.ShardRouter;
+import state.street.car.booking.carBooking.entity.Booking;
+import state.street.car.booking.carBooking.entity.ChangeLogEntry;
+import state.street.car.booking.carBooking.service.DatabaseRestoredEvent;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Every car's future occupancy in hour slots, covering both day and hour bookings, so hourly
+ * conflict checks and free-car searches are answered from memory (see CarSlots). Built from the
+ * database once the application is ready; local changes are applied when they commit, and other
+ * nodes' changes arrive through the change feed when carbooking.coherence.enabled is set.
+ * <p>
+ * Hourly bookings reserve their hours here before they are written, so two requests on this
+ * node cannot both take the same hour; the reservation is dropped if the transaction rolls back.
+ * Does nothing unless carbooking.hourly.enabled is set.
+ */
+@Component
+@Slf4j
+public class HourSlotIndex implements RemoteChangeListener {
+
+    public enum Kind {
+        DAY,
+        HOURLY,
+        PENDING
+    }
+
+    public record Key(Kind kind, long id) {
+    }
+
+    /**
+     * Hours [start, end) in slots since the epoch
+     */
+    public record Interval(Key key, long start, long end) {
+    }
+
+    private static final String DAY_BOOKINGS = "SELECT id, car_id, booking_date, duration FROM bookings ";
+    private static final String HOURLY_BOOKINGS = "SELECT id, car_id, start_time, end_time FROM hourly_bookings ";
+
+    private final HourlyBookingProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+
+    // Swapped whole by a rebuild
+    private volatile Map<Long, CarSlots> cars = new ConcurrentHashMap<>();
+    private volatile Map<Key, Long> carOf = new ConcurrentHashMap<>();
+    private final AtomicLong pendingIds = new AtomicLong();
+
+    public HourSlotIndex(HourlyBookingProperties properties, JdbcTemplate jdbcTemplate, ShardRouter shardRouter,
+                         PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Loads every booking that has not ended yet from all shards
+     */
+    @EventListener({ApplicationReadyEvent.class, DatabaseRestoredEvent.class})
+    public void rebuild() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<List<Loaded>> loaded = transactionTemplate.execute(status -> shardRouter.fanOut(true, shard -> {
+            List<Loaded> rows = new ArrayList<>(jdbcTemplate.query(DAY_BOOKINGS
+                    + "WHERE DATEADD(DAY, duration, booking_date) > LOCALTIMESTAMP", HourSlotIndex::dayBooking));
+            rows.addAll(jdbcTemplate.query(HOURLY_BOOKINGS + "WHERE end_time > LOCALTIMESTAMP", HourSlotIndex::hourlyBooking));
+            return rows;
+        }));
+        Map<Long, CarSlots> rebuiltCars = new ConcurrentHashMap<>();
+        Map<Key, Long> rebuiltCarOf = new ConcurrentHashMap<>();
+        int count = 0;
+        for (List<Loaded> rows : loaded) {
+            for (Loaded row : rows) {
+                rebuiltCars.computeIfAbsent(row.carId(), ignored -> new CarSlots()).add(row.interval());
+                rebuiltCarOf.put(row.interval().key(), row.carId());
+                count++;
+            }
+        }
+        synchronized (this) {
+            cars = rebuiltCars;
+            carOf = rebuiltCarOf;
+        }
+        log.info("Hour slot index built for {} car(s) from {} booking(s) in {}ms", rebuiltCars.size(), count,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public boolean isFree(Long carId, LocalDateTime start, LocalDateTime end) {
+        if (!properties.isEnabled()) {
+            return true;
+        }
+        CarSlots slots = cars.get(carId);
+        return slots == null || slots.isFree(floorSlot(start), ceilSlot(end));
+    }
+
+    /**
+     * Takes the hours for an hourly booking being written, or returns null if any is taken. The
+     * reservation turns into the booking when the transaction commits and is dropped otherwise.
+     */
+    public Reservation reserve(Long carId, LocalDateTime start, LocalDateTime end) {
+        Key pending = new Key(Kind.PENDING, pendingIds.incrementAndGet());
+        Interval interval = new Interval(pending, floorSlot(start), ceilSlot(end));
+        if (!properties.isEnabled()) {
+            return new Reservation(carId, interval);
+        }
+        if (!cars.computeIfAbsent(carId, ignored -> new CarSlots()).tryAdd(interval)) {
+            return null;
+        }
+        carOf.put(pending, carId);
+        Reservation reservation = new Reservation(carId, interval);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    reservation.complete(status == STATUS_COMMITTED);
+                }
+            });
+        }
+        return reservation;
+    }
+
+    /**
+     * Whether an hour booking, or one still being written, shares any time with [start, end), e.g. a
+     * day booking being made
+     */
+    public boolean overlapsHourly(Long carId, LocalDateTime start, LocalDateTime end) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        CarSlots slots = cars.get(carId);
+        return slots != null && slots.overlapsHourly(start.toEpochSecond(ZoneOffset.UTC), end.toEpochSecond(ZoneOffset.UTC));
+    }
+
+    public void dayBookingSaved(Booking booking) {
+        if (properties.isEnabled()) {
+            Long carId = booking.getCar().getId();
+            Interval interval = new Interval(new Key(Kind.DAY, booking.getId()), floorSlot(booking.getBookingDate()),
+                    ceilSlot(booking.getBookingEndDate()));
+            afterCommit(() -> put(carId, interval));
+        }
+    }
+
+    public void dayBookingRemoved(Long bookingId) {
+        if (properties.isEnabled()) {
+            afterCommit(() -> remove(new Key(Kind.DAY, bookingId)));
+        }
+    }
+
+    public void hourlyBookingRemoved(Long hourlyBookingId) {
+        if (properties.isEnabled()) {
+            afterCommit(() -> remove(new Key(Kind.HOURLY, hourlyBookingId)));
+        }
+    }
+
+    @Scheduled(fixedDelay = 3_600_000)
+    public void pruneEnded() {
+        int pruned = pruneEnded(LocalDateTime.now());
+        if (pruned > 0) {
+            log.debug("Pruned {} ended booking(s) from the hour slot index", pruned);
+        }
+    }
+
+    /**
+     * Forgets every booking that ended before the given time
+     */
+    public int pruneEnded(LocalDateTime now) {
+        if (!properties.isEnabled()) {
+            return 0;
+        }
+        long slot = floorSlot(now);
+        int pruned = 0;
+        for (CarSlots slots : cars.values()) {
+            List<Key> ended = slots.pruneEndedBefore(slot);
+            ended.forEach(carOf::remove);
+            pruned += ended.size();
+        }
+        return pruned;
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", properties.isEnabled());
+        status.put("cars", cars.size());
+        status.put("bookings", cars.values().stream().mapToInt(CarSlots::size).sum());
+        return status;
+    }
+
+    /**
+     * Called from the poll transaction of the shard the changes were recorded on, so the changed
+     * rows are read from that shard
+     */
+    @Override
+    public void changed(ChangeLogEntry.EntityType type, Set<Long> keys) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Kind kind;
+        List<Loaded> current;
+        Map<String, Object> ids = Map.of("ids", keys);
+        NamedParameterJdbcTemplate named = new NamedParameterJdbcTemplate(jdbcTemplate);
+        switch (type) {
+            case BOOKING -> {
+                kind = Kind.DAY;
+                current = named.query(DAY_BOOKINGS + "WHERE id IN (:ids)", ids, HourSlotIndex::dayBooking);
+            }
+            case HOURLY_BOOKING -> {
+                kind = Kind.HOURLY;
+                current = named.query(HOURLY_BOOKINGS + "WHERE id IN (:ids)", ids, HourSlotIndex::hourlyBooking);
+            }
+            default -> {
+                return;
+            }
+        }
+        Set<Long> found = new HashSet<>();
+        for (Loaded row : current) {
+            put(row.carId(), row.interval());
+            found.add(row.interval().key().id());
+        }
+        keys.stream().filter(id -> !found.contains(id)).forEach(id -> remove(new Key(kind, id)));
+    }
+
+    @Override
+    public void allChanged(ChangeLogEntry.EntityType type) {
+        if (properties.isEnabled() && type != ChangeLogEntry.EntityType.CAR) {
+            // Not on the poller's shard transaction: the rebuild reads every shard
+            CompletableFuture.runAsync(this::rebuild);
+        }
+    }
+
+    private void put(Long carId, Interval interval) {
+        Long previousCar = carOf.get(interval.key());
+        if (previousCar != null && !previousCar.equals(carId)) {
+            remove(interval.key());
+        }
+        cars.computeIfAbsent(carId, ignored -> new CarSlots()).add(interval);
+        carOf.put(interval.key(), carId);
+    }
+
+    private void remove(Key key) {
+        Long carId = carOf.remove(key);
+        if (carId != null) {
+            CarSlots slots = cars.get(carId);
+            if (slots != null) {
+                slots.remove(key);
+            }
+        }
+    }
+
+    private static Loaded dayBooking(ResultSet row, int rowNum) throws SQLException {
+        LocalDateTime start = row.getTimestamp("booking_date").toLocalDateTime();
+        return new Loaded(row.getLong("car_id"), new Interval(new Key(Kind.DAY, row.getLong("id")),
+                floorSlot(start), ceilSlot(start.plusDays(row.getInt("duration")))));
+    }
+
+    private static Loaded hourlyBooking(ResultSet row, int rowNum) throws SQLException {
+        return new Loaded(row.getLong("car_id"), new Interval(new Key(Kind.HOURLY, row.getLong("id")),
+                floorSlot(row.getTimestamp("start_time").toLocalDateTime()),
+                ceilSlot(row.getTimestamp("end_time").toLocalDateTime())));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    static long floorSlot(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 3600);
+    }
+
+    static long ceilSlot(LocalDateTime time) {
+        return -Math.floorDiv(-time.toEpochSecond(ZoneOffset.UTC), 3600);
+    }
+
+    private record Loaded(Long carId, Interval interval) {
+    }
+
+    /**
+     * Hours held for an hourly booking until its transaction completes
+     */
+    public final class Reservation {
+
+        private final Long carId;
+        private final Interval pending;
+        private volatile Long bookingId;
+
+        private Reservation(Long carId, Interval pending) {
+            this.carId = carId;
+            this.pending = pending;
+        }
+
+        /**
+         * Names the booking the hours were written as; they become its once the transaction commits
+         */
+        public void confirm(Long hourlyBookingId) {
+            this.bookingId = hourlyBookingId;
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                complete(true);
+            }
+        }
+
+        private void complete(boolean committed) {
+            if (!properties.isEnabled()) {
+                return;
+            }
+            remove(pending.key());
+            if (committed && bookingId != null) {
+                put(carId, new Interval(new Key(Kind.HOURLY, bookingId), pending.start(), pending.end()));
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package state.street.car.booking.carBooking.hourly;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "carbooking.hourly")
+public class HourlyBookingProperties {
+
+    /**
+     * Accept bookings by the hour and keep every car's hour-slot occupancy in memory
+     */
+    private boolean enabled = false;
+
+    /**
+     * Shortest hourly booking
+     */
+    private int minimumHours = 1;
+
+    /**
+     * Hourly bookings are a multiple of this many hours
+     */
+    private int stepHours = 1;
+
+    /**
+     * Longest hourly booking; longer rentals are booked by the day
+     */
+    private int maximumHours = 72;
+}
@@ -0,0 +1,75 @@
+package state.street.car.booking.carBooking.ledger;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32C;
+
+/**
+ * One change to one booking, as stored in the event log. Every event carries the booking's
+ * full state after the change, so a replay never needs anything but the log.
+ * <p>
+ * Encoded as a fixed {@value #SIZE}-byte record: type, flags, duration, sequence, recording time,
+ * booking id, car id, user id, booking start (epoch seconds, UTC), then a CRC32C of the
+ * preceding bytes. A zero type byte marks the unwritten end of a segment; records written
+ * before the flags byte existed have it zero.
+ */
+public record BookingEvent(long sequence, Type type, LocalDateTime recordedAt, long bookingId, long carId,
+                           long userId, LocalDateTime bookingDate, int duration, boolean allowReassignment) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        CANCELLED,
+        EXPIRED
+    }
+
+    static final int SIZE = 64;
+    private static final int CHECKSUM_OFFSET = 56;
+    private static final byte ALLOW_REASSIGNMENT = 1;
+    private static final Type[] TYPES = Type.values();
+
+    public BookingEvent(long sequence, Type type, LocalDateTime recordedAt, long bookingId, long carId,
+                        long userId, LocalDateTime bookingDate, int duration) {
+        this(sequence, type, recordedAt, bookingId, carId, userId, bookingDate, duration, false);
+    }
+
+    void writeTo(ByteBuffer buffer, int offset) {
+        buffer.put(offset, (byte) (type.ordinal() + 1));
+        buffer.put(offset + 1, allowReassignment ? ALLOW_REASSIGNMENT : 0);
+        buffer.putInt(offset + 4, duration);
+        buffer.putLong(offset + 8, sequence);
+        buffer.putLong(offset + 16, recordedAt.toEpochSecond(ZoneOffset.UTC));
+        buffer.putLong(offset + 24, bookingId);
+        buffer.putLong(offset + 32, carId);
+        buffer.putLong(offset + 40, userId);
+        buffer.putLong(offset + 48, bookingDate.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(offset + CHECKSUM_OFFSET, checksum(buffer, offset));
+    }
+
+    /**
+     * The event at the offset, or null at the end of the written part (or at a torn last write)
+     */
+    static BookingEvent readFrom(ByteBuffer buffer, int offset) {
+        int type = buffer.get(offset);
+        if (type < 1 || type > TYPES.length || buffer.getInt(offset + CHECKSUM_OFFSET) != checksum(buffer, offset)) {
+            return null;
+        }
+        return new BookingEvent(
+                buffer.getLong(offset + 8),
+                TYPES[type - 1],
+                LocalDateTime.ofEpochSecond(buffer.getLong(offset + 16), 0, ZoneOffset.UTC),
+                buffer.getLong(offset + 24),
+                buffer.getLong(offset + 32),
+                buffer.getLong(offset + 40),
+                LocalDateTime.ofEpochSecond(buffer.getLong(offset + 48), 0, ZoneOffset.UTC),
+                buffer.getInt(offset + 4),
+                (buffer.get(offset + 1) & ALLOW_REASSIGNMENT) != 0);
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, CHECKSUM_OFFSET));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,193 @@
+package state.street.car.booking.carBooking.ledger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of booking events in fixed-size, memory-mapped segment files.
+ * Appends are plain stores into the mapped segment; a new segment named after its first
+ * sequence number is started when one fills up. On open, the last segment is scanned up
+ * to its first empty or corrupt record, which is where the next append goes.
+ */
+public class BookingEventLog implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "events-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean forceOnAppend;
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int position;
+    private long nextSequence;
+
+    private BookingEventLog(Path directory, long segmentSizeBytes, boolean forceOnAppend) {
+        this.directory = directory;
+        long events = Math.max(1, Math.min(segmentSizeBytes, Integer.MAX_VALUE) / BookingEvent.SIZE);
+        this.segmentSize = (int) (events * BookingEvent.SIZE);
+        this.forceOnAppend = forceOnAppend;
+    }
+
+    public static BookingEventLog open(Path directory, long segmentSizeBytes, boolean forceOnAppend) {
+        BookingEventLog log = new BookingEventLog(directory, segmentSizeBytes, forceOnAppend);
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments = log.segments();
+            if (segments.isEmpty()) {
+                log.startSegment(1);
+            } else {
+                log.reopen(segments.get(segments.size() - 1));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the booking event log in " + directory, e);
+        }
+        return log;
+    }
+
+    public BookingEvent append(BookingEvent.Type type, long bookingId, long carId, long userId,
+                               LocalDateTime bookingDate, int duration) {
+        return append(type, bookingId, carId, userId, bookingDate, duration, false);
+    }
+
+    public synchronized BookingEvent append(BookingEvent.Type type, long bookingId, long carId, long userId,
+                                            LocalDateTime bookingDate, int duration, boolean allowReassignment) {
+        if (position + BookingEvent.SIZE > segment.capacity()) {
+            try {
+                // force() only reaches the current segment, so the full one is synced before it is left
+                segment.force();
+                channel.close();
+                startSegment(nextSequence);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not start a new event log segment", e);
+            }
+        }
+        BookingEvent event = new BookingEvent(nextSequence, type, LocalDateTime.now(), bookingId, carId, userId,
+                bookingDate, duration, allowReassignment);
+        event.writeTo(segment, position);
+        if (forceOnAppend) {
+            segment.force(position, BookingEvent.SIZE);
+        }
+        position += BookingEvent.SIZE;
+        nextSequence++;
+        return event;
+    }
+
+    /**
+     * Sequence of the last appended event, 0 when the log is empty
+     */
+    public synchronized long lastSequence() {
+        return nextSequence - 1;
+    }
+
+    /**
+     * Feeds every event with a sequence number of at least {@code fromSequence} to the consumer, in order
+     */
+    public void replay(long fromSequence, Consumer<BookingEvent> consumer) {
+        long last = lastSequence();
+        List<Path> segments = segments();
+        for (int i = 0; i < segments.size(); i++) {
+            // Skip segments that end before the requested sequence
+            if (i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= fromSequence) {
+                continue;
+            }
+            try (FileChannel file = FileChannel.open(segments.get(i), StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+                long first = firstSequence(segments.get(i));
+                int start = (int) Math.max(0, (fromSequence - first) * BookingEvent.SIZE);
+                for (int offset = start; offset + BookingEvent.SIZE <= buffer.capacity(); offset += BookingEvent.SIZE) {
+                    BookingEvent event = BookingEvent.readFrom(buffer, offset);
+                    if (event == null || event.sequence() > last) {
+                        break;
+                    }
+                    consumer.accept(event);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read event log segment " + segments.get(i), e);
+            }
+        }
+    }
+
+    public List<Path> segments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list event log segments in " + directory, e);
+        }
+    }
+
+    /**
+     * Deletes the closed segments that only hold events before {@code sequence}
+     */
+    public synchronized void deleteSegmentsBefore(long sequence) {
+        List<Path> segments = segments();
+        for (int i = 0; i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= sequence; i++) {
+            try {
+                Files.deleteIfExists(segments.get(i));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not delete event log segment " + segments.get(i), e);
+            }
+        }
+    }
+
+    /**
+     * Forces everything appended so far to disk
+     */
+    public synchronized void force() {
+        segment.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        segment.force();
+        channel.close();
+    }
+
+    private void startSegment(long firstSequence) throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        position = 0;
+        nextSequence = firstSequence;
+    }
+
+    private void reopen(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Keep the size the segment was created with, even if the setting changed since
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        nextSequence = firstSequence(file);
+        position = 0;
+        while (position + BookingEvent.SIZE <= segment.capacity()) {
+            BookingEvent event = BookingEvent.readFrom(segment, position);
+            if (event == null || event.sequence() != nextSequence) {
+                break;
+            }
+            position += BookingEvent.SIZE;
+            nextSequence++;
+        }
+        // Clear a torn record so a later scan cannot mistake its remains for an event
+        for (int offset = position; offset < Math.min(position + BookingEvent.SIZE, segment.capacity()); offset++) {
+            segment.put(offset, (byte) 0);
+        }
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
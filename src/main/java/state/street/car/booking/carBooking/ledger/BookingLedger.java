@@ -0,0 +1,383 @@
+package state.street.car.booking.carBooking.ledger;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import state.street.car.booking.carBooking.datasource.ShardRouter;
+import state.street.car.booking.carBooking.entity.Booking;
+import state.street.car.booking.carBooking.service.DatabaseRestoredEvent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Records every booking change as an event in the append-only log and keeps the in-memory
+ * views current. Events are appended just before the booking transaction commits, while its
+ * row locks are still held, so events for one booking are in commit order; a transaction that
+ * still rolls back after that gets compensating events. Startup loads the newest snapshot and
+ * replays the events after it. Does nothing unless carbooking.ledger.enabled is set.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookingLedger {
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final int SNAPSHOTS_KEPT = 2;
+    private static final String ALL_BOOKINGS = "SELECT id, car_id, user_id, booking_date, duration FROM bookings";
+
+    private final LedgerProperties ledgerProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+
+    private final LedgerView view = new LedgerView();
+    private BookingEventLog eventLog;
+    private volatile boolean ready;
+    private volatile long snapshotSequence;
+
+    @PostConstruct
+    public void open() {
+        if (ledgerProperties.isEnabled()) {
+            eventLog = BookingEventLog.open(directory(), ledgerProperties.getSegmentSizeBytes(),
+                    ledgerProperties.isForceOnAppend());
+        }
+    }
+
+    /**
+     * Rebuilds the views once the schema exists and startup data has been loaded
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        if (eventLog == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        Path snapshot = latestSnapshot();
+        if (snapshot == null && eventLog.lastSequence() == 0) {
+            // A log started against an existing database begins with a snapshot of its bookings
+            view.reset(scanDatabase(), 0);
+            writeSnapshot();
+            log.info("Ledger started from {} existing booking(s)", view.size());
+        } else {
+            if (snapshot != null) {
+                try (InputStream in = Files.newInputStream(snapshot)) {
+                    view.readSnapshot(in);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not read ledger snapshot " + snapshot, e);
+                }
+                snapshotSequence = view.lastSequence();
+            }
+            long[] replayed = new long[1];
+            eventLog.replay(view.lastSequence() + 1, event -> {
+                view.apply(event);
+                replayed[0]++;
+            });
+            log.info("Ledger recovered {} booking(s) from {} and {} event(s) in {} ms", view.size(),
+                    snapshot == null ? "the log" : snapshot.getFileName(), replayed[0],
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+        ready = true;
+    }
+
+    /**
+     * Resets the views to the restored bookings table
+     */
+    @EventListener(DatabaseRestoredEvent.class)
+    public void restored() {
+        if (eventLog != null) {
+            verify(true);
+        }
+    }
+
+    public boolean isEnabled() {
+        return eventLog != null;
+    }
+
+    public LedgerView getView() {
+        return view;
+    }
+
+    public void created(Booking booking) {
+        record(BookingEvent.Type.CREATED, booking);
+    }
+
+    public void updated(Booking booking) {
+        record(BookingEvent.Type.UPDATED, booking);
+    }
+
+    public void cancelled(Booking booking) {
+        record(BookingEvent.Type.CANCELLED, booking);
+    }
+
+    public void expired(Booking booking) {
+        record(BookingEvent.Type.EXPIRED, booking);
+    }
+
+    /**
+     * Events from {@code fromSequence} on, at most {@code limit} of them
+     */
+    public List<BookingEvent> events(long fromSequence, int limit) {
+        if (eventLog == null) {
+            return List.of();
+        }
+        List<BookingEvent> events = new ArrayList<>();
+        eventLog.replay(fromSequence, event -> {
+            if (events.size() < limit) {
+                events.add(event);
+            }
+        });
+        return events;
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", isEnabled());
+        if (eventLog != null) {
+            status.put("ready", ready);
+            status.put("lastSequence", eventLog.lastSequence());
+            status.put("snapshotSequence", snapshotSequence);
+            status.put("bookings", view.size());
+            status.put("segments", eventLog.segments().size());
+            status.put("snapshots", snapshots().size());
+        }
+        return status;
+    }
+
+    /**
+     * Writes the views to a new snapshot file, so startup only replays events after it
+     */
+    public synchronized Map<String, Object> snapshot() {
+        requireEnabled();
+        Path file = writeSnapshot();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("name", file.getFileName().toString());
+        result.put("sequence", snapshotSequence);
+        result.put("bookings", view.size());
+        return result;
+    }
+
+    /**
+     * Snapshots once enough events have been appended since the last one
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void snapshotIfDue() {
+        if (ready && eventLog.lastSequence() - snapshotSequence >= ledgerProperties.getSnapshotEveryEvents()) {
+            snapshot();
+        }
+    }
+
+    /**
+     * Compares the views with the bookings table and reports differences. With repair the
+     * views are reset to the table and snapshotted, e.g. after a restore or bulk load that
+     * went around the ledger.
+     */
+    public Map<String, Object> verify(boolean repair) {
+        requireEnabled();
+        Map<Long, LedgerView.Entry> expected = new HashMap<>();
+        scanDatabase().forEach(entry -> expected.put(entry.bookingId(), entry));
+        Map<Long, LedgerView.Entry> actual = view.bookings();
+
+        List<String> mismatches = new ArrayList<>();
+        expected.forEach((id, entry) -> {
+            LedgerView.Entry recorded = actual.get(id);
+            if (!Objects.equals(entry, recorded)) {
+                mismatches.add("booking " + id + ": " + recorded + " != " + entry);
+            }
+        });
+        actual.keySet().stream()
+                .filter(id -> !expected.containsKey(id))
+                .forEach(id -> mismatches.add("booking " + id + ": " + actual.get(id) + " != missing"));
+
+        if (!mismatches.isEmpty()) {
+            log.warn("Ledger views differ from bookings for {} booking(s){}", mismatches.size(), repair ? ", repaired" : "");
+            if (repair) {
+                synchronized (this) {
+                    view.reset(new ArrayList<>(expected.values()), eventLog.lastSequence());
+                    writeSnapshot();
+                }
+            }
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("bookings", expected.size());
+        result.put("mismatches", mismatches.size());
+        result.put("repaired", repair && !mismatches.isEmpty());
+        result.put("examples", mismatches.subList(0, Math.min(20, mismatches.size())));
+        return result;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (eventLog == null) {
+            return;
+        }
+        if (ready && eventLog.lastSequence() > snapshotSequence) {
+            writeSnapshot();
+        }
+        eventLog.close();
+    }
+
+    private void record(BookingEvent.Type type, Booking booking) {
+        if (eventLog == null) {
+            return;
+        }
+        // Captured now: the entity may change again before the transaction commits. The log keeps whole seconds.
+        PendingEvent pending = new PendingEvent(type, booking.getId(), booking.getCar().getId(),
+                booking.getUser().getId(), booking.getBookingDate().truncatedTo(ChronoUnit.SECONDS),
+                booking.getDuration());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(pending.type(), pending.bookingId(), pending.carId(), pending.userId(),
+                    pending.bookingDate(), pending.duration());
+            return;
+        }
+        TransactionEvents events = (TransactionEvents) TransactionSynchronizationManager.getResource(this);
+        if (events == null) {
+            events = new TransactionEvents();
+            TransactionSynchronizationManager.bindResource(this, events);
+            TransactionSynchronizationManager.registerSynchronization(events);
+        }
+        events.pending.add(pending);
+    }
+
+    /**
+     * Appends and applies in one step, so a snapshot never sees a sequence without its event
+     */
+    private synchronized LedgerView.Entry append(BookingEvent.Type type, long bookingId, long carId, long userId,
+                                                 LocalDateTime bookingDate, int duration) {
+        LedgerView.Entry previous = view.get(bookingId);
+        view.apply(eventLog.append(type, bookingId, carId, userId, bookingDate, duration));
+        return previous;
+    }
+
+    private Path writeSnapshot() {
+        Path directory = directory();
+        try {
+            Path temp = Files.createTempFile(directory, SNAPSHOT_PREFIX, ".tmp");
+            long sequence;
+            synchronized (this) {
+                eventLog.force();
+                sequence = view.lastSequence();
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    view.writeSnapshot(out);
+                }
+            }
+            Path file = directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, sequence, SNAPSHOT_SUFFIX));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            snapshotSequence = sequence;
+
+            List<Path> snapshots = snapshots();
+            for (int i = 0; i < snapshots.size() - SNAPSHOTS_KEPT; i++) {
+                Files.deleteIfExists(snapshots.get(i));
+            }
+            log.info("Ledger snapshot {} written with {} booking(s)", file.getFileName(), view.size());
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write ledger snapshot to " + directory, e);
+        }
+    }
+
+    private Path latestSnapshot() {
+        List<Path> snapshots = snapshots();
+        return snapshots.isEmpty() ? null : snapshots.get(snapshots.size() - 1);
+    }
+
+    private List<Path> snapshots() {
+        try (Stream<Path> files = Files.list(directory())) {
+            return files.filter(file -> file.getFileName().toString().startsWith(SNAPSHOT_PREFIX)
+                            && file.getFileName().toString().endsWith(SNAPSHOT_SUFFIX))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list ledger snapshots", e);
+        }
+    }
+
+    /**
+     * Every live booking on every shard, with the second precision the log stores
+     */
+    private List<LedgerView.Entry> scanDatabase() {
+        List<LedgerView.Entry> entries = new ArrayList<>();
+        shardRouter.fanOut(true, shard -> jdbcTemplate.query(ALL_BOOKINGS, (rs, rowNum) -> new LedgerView.Entry(
+                rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                rs.getTimestamp(4).toLocalDateTime().truncatedTo(ChronoUnit.SECONDS), rs.getInt(5))))
+                .forEach(entries::addAll);
+        return entries;
+    }
+
+    private Path directory() {
+        return Paths.get(ledgerProperties.getDirectory());
+    }
+
+    private void requireEnabled() {
+        if (eventLog == null) {
+            throw new IllegalStateException("The booking ledger is not enabled");
+        }
+    }
+
+    private record PendingEvent(BookingEvent.Type type, long bookingId, long carId, long userId,
+                                LocalDateTime bookingDate, int duration) {
+    }
+
+    /**
+     * The events of one transaction and the view entries they replaced, for compensation
+     */
+    private class TransactionEvents implements TransactionSynchronization {
+
+        private final List<PendingEvent> pending = new ArrayList<>();
+        private final List<LedgerView.Entry> replaced = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            for (PendingEvent event : pending) {
+                replaced.add(append(event.type(), event.bookingId(), event.carId(), event.userId(),
+                        event.bookingDate(), event.duration()));
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(BookingLedger.this);
+            if (status != STATUS_ROLLED_BACK) {
+                if (status == STATUS_UNKNOWN && !replaced.isEmpty()) {
+                    log.warn("Outcome of a booking transaction is unknown; run the ledger verify");
+                }
+                return;
+            }
+            // Undo in reverse order whatever was appended before the commit failed
+            for (int i = replaced.size() - 1; i >= 0; i--) {
+                PendingEvent event = pending.get(i);
+                LedgerView.Entry previous = replaced.get(i);
+                if (previous == null) {
+                    append(BookingEvent.Type.CANCELLED, event.bookingId(), event.carId(), event.userId(),
+                            event.bookingDate(), event.duration());
+                } else {
+                    append(BookingEvent.Type.UPDATED, previous.bookingId(), previous.carId(), previous.userId(),
+                            previous.bookingDate(), previous.duration());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package state.street.car.booking.carBooking.ledger;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "carbooking.ledger")
+public class LedgerProperties {
+
+    /**
+     * Record every booking change in the append-only event log and keep the in-memory views
+     */
+    private boolean enabled = false;
+
+    /**
+     * Holds the log segments and snapshots; must outlive the database it describes
+     */
+    private String directory = "./data/ledger";
+
+    /**
+     * Size of each memory-mapped segment file; rounded down to whole events
+     */
+    private long segmentSizeBytes = 64L * 1024 * 1024;
+
+    /**
+     * Events after the last snapshot that trigger the next one
+     */
+    private long snapshotEveryEvents = 100_000;
+
+    /**
+     * Force each append to disk before the booking commits, instead of leaving it to the OS
+     */
+    private boolean forceOnAppend = false;
+}
@@ -0,0 +1,253 @@
+package state.street.car.booking.carBooking.ledger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory state of the live bookings, derived only from booking events: every booking by
+ * id, each car's bookings ordered by start for availability checks, and each user's bookings.
+ */
+public class LedgerView {
+
+    public record Entry(long bookingId, long carId, long userId, LocalDateTime bookingDate, int duration) {
+
+        public LocalDateTime endDate() {
+            return bookingDate.plusDays(duration);
+        }
+    }
+
+    private static final int SNAPSHOT_MAGIC = 0x4C454447; // "LEDG"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final Comparator<Entry> BY_START = Comparator.comparing(Entry::bookingDate)
+            .thenComparingLong(Entry::bookingId);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> bookings = new HashMap<>();
+    private final Map<Long, NavigableSet<Entry>> byCar = new HashMap<>();
+    private final Map<Long, Set<Long>> byUser = new HashMap<>();
+    private long lastSequence;
+    private int longestDuration;
+
+    public void apply(BookingEvent event) {
+        lock.writeLock().lock();
+        try {
+            remove(event.bookingId());
+            if (event.type() == BookingEvent.Type.CREATED || event.type() == BookingEvent.Type.UPDATED) {
+                add(new Entry(event.bookingId(), event.carId(), event.userId(), event.bookingDate(), event.duration()));
+            }
+            lastSequence = Math.max(lastSequence, event.sequence());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Entry get(long bookingId) {
+        lock.readLock().lock();
+        try {
+            return bookings.get(bookingId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Same rule as the database conflict check: touching bookings count as overlapping
+     */
+    public boolean isCarAvailable(long carId, LocalDateTime startDate, int duration) {
+        return isCarAvailable(carId, startDate, duration, 0);
+    }
+
+    /**
+     * Availability ignoring one booking, e.g. the one being moved
+     */
+    public boolean isCarAvailable(long carId, LocalDateTime startDate, int duration, long ignoredBookingId) {
+        LocalDateTime endDate = startDate.plusDays(duration);
+        lock.readLock().lock();
+        try {
+            NavigableSet<Entry> carBookings = byCar.get(carId);
+            if (carBookings == null) {
+                return true;
+            }
+            // Only bookings starting at most one longest booking before the window can reach into it
+            Entry upper = new Entry(Long.MAX_VALUE, carId, 0, endDate, 0);
+            Entry lower = new Entry(Long.MIN_VALUE, carId, 0, startDate.minusDays(longestDuration), 0);
+            for (Entry entry : carBookings.subSet(lower, true, upper, true)) {
+                if (entry.bookingId() != ignoredBookingId && !entry.endDate().isBefore(startDate)) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether any booking of the car shares time with [start, end); touching does not count, as
+     * for hourly bookings
+     */
+    public boolean overlaps(long carId, LocalDateTime start, LocalDateTime end) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<Entry> carBookings = byCar.get(carId);
+            if (carBookings == null) {
+                return false;
+            }
+            Entry upper = new Entry(Long.MIN_VALUE, carId, 0, end, 0);
+            Entry lower = new Entry(Long.MIN_VALUE, carId, 0, start.minusDays(longestDuration), 0);
+            for (Entry entry : carBookings.subSet(lower, true, upper, false)) {
+                if (entry.endDate().isAfter(start)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Entry> bookingsForCar(long carId) {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(byCar.getOrDefault(carId, new TreeSet<>(BY_START)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Entry> bookingsForUser(long userId) {
+        lock.readLock().lock();
+        try {
+            List<Entry> result = new ArrayList<>();
+            for (Long bookingId : byUser.getOrDefault(userId, Set.of())) {
+                result.add(bookings.get(bookingId));
+            }
+            result.sort(BY_START);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<Long, Entry> bookings() {
+        lock.readLock().lock();
+        try {
+            return new HashMap<>(bookings);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return bookings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long lastSequence() {
+        lock.readLock().lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the state with the given bookings, e.g. to adopt an existing database that has no log yet
+     */
+    public void reset(List<Entry> entries, long sequence) {
+        lock.writeLock().lock();
+        try {
+            bookings.clear();
+            byCar.clear();
+            byUser.clear();
+            longestDuration = 0;
+            entries.forEach(this::add);
+            lastSequence = sequence;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void writeSnapshot(OutputStream target) throws IOException {
+        lock.readLock().lock();
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target, 1 << 16));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(lastSequence);
+            out.writeInt(bookings.size());
+            for (Entry entry : bookings.values()) {
+                out.writeLong(entry.bookingId());
+                out.writeLong(entry.carId());
+                out.writeLong(entry.userId());
+                out.writeLong(entry.bookingDate().toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(entry.duration());
+            }
+            out.flush();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void readSnapshot(InputStream source) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(source, 1 << 16));
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Not a ledger snapshot");
+        }
+        long sequence = in.readLong();
+        int count = in.readInt();
+        List<Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(new Entry(in.readLong(), in.readLong(), in.readLong(),
+                    LocalDateTime.ofEpochSecond(in.readLong(), 0, ZoneOffset.UTC), in.readInt()));
+        }
+        reset(entries, sequence);
+    }
+
+    private void add(Entry entry) {
+        bookings.put(entry.bookingId(), entry);
+        byCar.computeIfAbsent(entry.carId(), k -> new TreeSet<>(BY_START)).add(entry);
+        byUser.computeIfAbsent(entry.userId(), k -> new HashSet<>()).add(entry.bookingId());
+        longestDuration = Math.max(longestDuration, entry.duration());
+    }
+
+    private void remove(long bookingId) {
+        Entry existing = bookings.remove(bookingId);
+        if (existing == null) {
+            return;
+        }
+        NavigableSet<Entry> carBookings = byCar.get(existing.carId());
+        carBookings.remove(existing);
+        if (carBookings.isEmpty()) {
+            byCar.remove(existing.carId());
+        }
+        Set<Long> userBookings = byUser.get(existing.userId());
+        userBookings.remove(bookingId);
+        if (userBookings.isEmpty()) {
+            byUser.remove(existing.userId());
+        }
+    }
+}
@@ -0,0 +1,585 @@
+package state.street.car.booking.carBooking.ledger;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import state.street.car.booking.carBooking.cluster.ChangeFeed;
+import state.street.car.booking.carBooking.datasource.ShardRouter;
+import state.street.car.booking.carBooking.dto.BookingDTO;
+import state.street.car.booking.carBooking.dto.BookingRequest;
+import state.street.car.booking.carBooking.entity.Booking;
+import state.street.car.booking.carBooking.entity.Car;
+import state.street.car.booking.carBooking.entity.User;
+import state.street.car.booking.carBooking.exception.BookingConflictException;
+import state.street.car.booking.carBooking.exception.ResourceNotFoundException;
+import state.street.car.booking.carBooking.hourly.HourSlotIndex;
+import state.street.car.booking.carBooking.metrics.BookingMetrics;
+import state.street.car.booking.carBooking.outbox.OutboxWriter;
+import state.street.car.booking.carBooking.repository.CarRepository;
+import state.street.car.booking.carBooking.repository.UserRepository;
+import state.street.car.booking.carBooking.service.DataVersionTracker;
+import state.street.car.booking.carBooking.service.UtilisationService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Optional write-behind path for new bookings. A booking is accepted once it passes the
+ * conflict check against an in-memory view of every live booking and its record is in the
+ * write-ahead log. The log is forced to disk for all waiting bookings at once every few
+ * milliseconds (group commit), and a background flusher inserts durable bookings into the
+ * database in batches. Startup inserts whatever the log holds beyond the last flush
+ * checkpoint, so no acknowledged booking is lost in a crash.
+ * <p>
+ * Booking ids handed out here are even and the table identity is set to hand out odd ones, so
+ * bookings inserted directly, such as recurring series or waitlist assignments, never take an
+ * id still waiting in the log. Updates, cancellations and the cleanup wait for pending bookings
+ * to reach the database first, failing after drain-timeout-millis. A car with bookings in the
+ * view cannot be deleted, and once deleted takes no more. A booking the database still refuses
+ * on its own while it answers other statements is logged and dropped, so it cannot hold up the
+ * bookings behind it. Not available with sharding.
+ */
+@Component
+@Slf4j
+public class WriteBehindBookingWriter {
+
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String INSERT_BOOKING =
+            "INSERT INTO bookings (id, car_id, user_id, booking_date, duration, created_at, allow_reassignment) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final WriteBehindProperties properties;
+    private final CarRepository carRepository;
+    private final UserRepository userRepository;
+    private final UtilisationService utilisationService;
+    private final BookingLedger bookingLedger;
+    private final DataVersionTracker dataVersionTracker;
+    private final BookingMetrics bookingMetrics;
+    private final ShardRouter shardRouter;
+    private final OutboxWriter outboxWriter;
+    private final ChangeFeed changeFeed;
+    private final HourSlotIndex hourSlotIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final LedgerView view = new LedgerView();
+    private final Object acceptLock = new Object();
+    private final Object progress = new Object();
+    private final Queue<BookingEvent> unflushed = new ConcurrentLinkedQueue<>();
+    private final List<BookingEvent> failedBatch = new ArrayList<>();
+    private final Set<Long> deletedCars = ConcurrentHashMap.newKeySet();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private BookingEventLog wal;
+    private ScheduledExecutorService executor;
+    private long nextBookingId;
+    private volatile boolean ready;
+    private volatile RuntimeException walFailure;
+    private volatile long durableSequence;
+    private volatile long checkpointSequence;
+
+    public WriteBehindBookingWriter(WriteBehindProperties properties,
+                                    CarRepository carRepository,
+                                    UserRepository userRepository,
+                                    UtilisationService utilisationService,
+                                    BookingLedger bookingLedger,
+                                    DataVersionTracker dataVersionTracker,
+                                    BookingMetrics bookingMetrics,
+                                    ShardRouter shardRouter,
+                                    OutboxWriter outboxWriter,
+                                    ChangeFeed changeFeed,
+                                    HourSlotIndex hourSlotIndex,
+                                    JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.carRepository = carRepository;
+        this.userRepository = userRepository;
+        this.utilisationService = utilisationService;
+        this.bookingLedger = bookingLedger;
+        this.dataVersionTracker = dataVersionTracker;
+        this.bookingMetrics = bookingMetrics;
+        this.shardRouter = shardRouter;
+        this.outboxWriter = outboxWriter;
+        this.changeFeed = changeFeed;
+        this.hourSlotIndex = hourSlotIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Recovers the log into the database, then starts accepting. Bookings created before
+     * this point went through the normal path and are picked up by the scan.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (shardRouter.shardCount() > 1) {
+            throw new IllegalStateException("Write-behind bookings cannot be combined with sharding");
+        }
+        wal = BookingEventLog.open(directory(), properties.getSegmentSizeBytes(), false);
+        checkpointSequence = readCheckpoint();
+        durableSequence = wal.lastSequence();
+
+        List<BookingEvent> tail = new ArrayList<>();
+        wal.replay(checkpointSequence + 1, tail::add);
+        // Archived ids count too: the archive keeps the id of the booking it copies
+        Long maxId = jdbcTemplate.queryForObject(
+                "SELECT GREATEST(COALESCE((SELECT MAX(id) FROM bookings), 0), COALESCE((SELECT MAX(id) FROM booking_archive), 0))",
+                Long.class);
+        long highest = Math.max(maxId, tail.isEmpty() ? 0 : tail.get(tail.size() - 1).bookingId());
+        nextBookingId = highest + 2 - highest % 2;
+        jdbcTemplate.execute("ALTER TABLE bookings ALTER COLUMN id RESTART WITH " + (highest + 1 + highest % 2)
+                + " SET INCREMENT BY 2");
+
+        for (int from = 0; from < tail.size(); from += properties.getFlushBatchSize()) {
+            insert(tail.subList(from, Math.min(tail.size(), from + properties.getFlushBatchSize())));
+        }
+        writeCheckpoint(wal.lastSequence());
+        if (!tail.isEmpty()) {
+            log.info("Write-behind recovered {} booking(s) from the write-ahead log", tail.size());
+        }
+        view.reset(jdbcTemplate.query("SELECT id, car_id, user_id, booking_date, duration FROM bookings",
+                (rs, rowNum) -> new LedgerView.Entry(rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                        rs.getTimestamp(4).toLocalDateTime(), rs.getInt(5))), 0);
+
+        executor = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::groupCommit, properties.getGroupCommitMillis(),
+                properties.getGroupCommitMillis(), TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(this::flush, properties.getFlushIntervalMillis(),
+                properties.getFlushIntervalMillis(), TimeUnit.MILLISECONDS);
+        ready = true;
+        log.info("Write-behind bookings enabled with {} live booking(s), next id {}", view.size(), nextBookingId);
+    }
+
+    public boolean isEnabled() {
+        return ready;
+    }
+
+    /**
+     * Checks and records the booking, returning once its log record is on disk
+     */
+    public BookingDTO createBooking(BookingRequest request, String username, boolean allowReassignment) {
+        if (walFailure != null) {
+            throw new IllegalStateException("The write-ahead log is unavailable", walFailure);
+        }
+        Car car = carRepository.findById(request.getCarId())
+                .orElseThrow(() -> new ResourceNotFoundException("Car not found with id: " + request.getCarId()));
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
+        // The log keeps whole seconds
+        LocalDateTime bookingDate = request.getBookingDate().truncatedTo(ChronoUnit.SECONDS);
+
+        BookingEvent event;
+        synchronized (acceptLock) {
+            if (!ready) {
+                throw new IllegalStateException("Write-behind bookings are shutting down");
+            }
+            if (deletedCars.contains(car.getId())) {
+                throw new ResourceNotFoundException("Car not found with id: " + car.getId());
+            }
+            if (!view.isCarAvailable(car.getId(), bookingDate, request.getDuration())
+                    || hourSlotIndex.overlapsHourly(car.getId(), bookingDate, bookingDate.plusDays(request.getDuration()))) {
+                bookingMetrics.recordConflict(car.getType());
+                throw new BookingConflictException("Car is not available for the requested period.");
+            }
+            event = wal.append(BookingEvent.Type.CREATED, nextBookingId, car.getId(), user.getId(),
+                    bookingDate, request.getDuration(), allowReassignment);
+            nextBookingId += 2;
+            view.apply(event);
+            unflushed.add(event);
+        }
+        awaitDurable(event.sequence());
+        return new BookingDTO(event.bookingId(), car.getId(), user.getId(), car.getRegistrationNumber(),
+                user.getUsername(), event.bookingDate(), event.duration(), event.recordedAt());
+    }
+
+    /**
+     * Waits until every booking accepted so far is in the database, failing after drain-timeout-millis
+     */
+    public void drain() {
+        if (!ready) {
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getDrainTimeoutMillis());
+        long target = wal.lastSequence();
+        awaitDurable(target);
+        if (checkpointSequence < target) {
+            executor.execute(this::flush);
+        }
+        synchronized (progress) {
+            while (checkpointSequence < target) {
+                if (System.nanoTime() - deadline > 0) {
+                    throw new IllegalStateException("Write-behind bookings did not reach the database within "
+                            + properties.getDrainTimeoutMillis() + " ms");
+                }
+                awaitProgress();
+            }
+        }
+    }
+
+    /**
+     * Refuses the deletion of a car that still has bookings in the view, which may not be in the
+     * database yet, and stops new bookings on it until the current transaction rolls back
+     */
+    public void carDeleted(Long carId, LocalDateTime now) {
+        if (!ready) {
+            return;
+        }
+        synchronized (acceptLock) {
+            boolean pending = unflushed.stream().anyMatch(event -> event.carId() == carId);
+            synchronized (this) {
+                pending |= failedBatch.stream().anyMatch(event -> event.carId() == carId);
+            }
+            if (pending || view.bookingsForCar(carId).stream().anyMatch(entry -> entry.endDate().isAfter(now))) {
+                throw new IllegalStateException("Cannot delete car with active bookings. Please cancel all bookings first.");
+            }
+            deletedCars.add(carId);
+        }
+        afterCompletion(committed -> {
+            if (!committed) {
+                deletedCars.remove(carId);
+            }
+        });
+    }
+
+    /**
+     * Whether a day booking accepted so far, flushed or not, shares any time with [start, end).
+     * Checked under the lock bookings are accepted under, so once an hourly booking has reserved
+     * its hours in the HourSlotIndex a day booking is either found here or sees the reservation.
+     */
+    public boolean overlapsDayBooking(Long carId, LocalDateTime start, LocalDateTime end) {
+        if (!ready) {
+            return false;
+        }
+        synchronized (acceptLock) {
+            return view.overlaps(carId, start, end);
+        }
+    }
+
+    /**
+     * Moves a booking in the view, or adds one written outside the log, as part of the current
+     * transaction, failing if the period overlaps another accepted booking. Undone if the
+     * transaction rolls back.
+     */
+    public void reserve(Booking booking) {
+        if (!ready) {
+            return;
+        }
+        LedgerView.Entry previous;
+        synchronized (acceptLock) {
+            if (!view.isCarAvailable(booking.getCar().getId(), booking.getBookingDate(), booking.getDuration(),
+                    booking.getId())) {
+                bookingMetrics.recordConflict(booking.getCar().getType());
+                throw new BookingConflictException("Car is not available for the requested period.");
+            }
+            previous = view.get(booking.getId());
+            view.apply(new BookingEvent(0, BookingEvent.Type.UPDATED, LocalDateTime.now(), booking.getId(),
+                    booking.getCar().getId(), booking.getUser().getId(), booking.getBookingDate(), booking.getDuration()));
+        }
+        afterCompletion(committed -> {
+            if (committed) {
+                return;
+            }
+            synchronized (acceptLock) {
+                if (previous != null) {
+                    view.apply(new BookingEvent(0, BookingEvent.Type.UPDATED, LocalDateTime.now(), previous.bookingId(),
+                            previous.carId(), previous.userId(), previous.bookingDate(), previous.duration()));
+                } else {
+                    // A booking being created in the transaction
+                    view.apply(new BookingEvent(0, BookingEvent.Type.CANCELLED, LocalDateTime.now(), booking.getId(),
+                            booking.getCar().getId(), booking.getUser().getId(), booking.getBookingDate(), booking.getDuration()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Frees a deleted booking's period once the current transaction commits
+     */
+    public void released(Long bookingId) {
+        if (!ready) {
+            return;
+        }
+        afterCompletion(committed -> {
+            if (committed) {
+                synchronized (acceptLock) {
+                    view.apply(new BookingEvent(0, BookingEvent.Type.CANCELLED, LocalDateTime.now(), bookingId,
+                            0, 0, LocalDateTime.now(), 0));
+                }
+            }
+        });
+    }
+
+    public Map<String, Object> status() {
+        return Map.of("enabled", ready,
+                "pending", unflushed.size() + failedBatch.size(),
+                "rejected", rejected.get(),
+                "lastSequence", ready ? wal.lastSequence() : 0,
+                "checkpointSequence", checkpointSequence);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (!ready) {
+            return;
+        }
+        synchronized (acceptLock) {
+            ready = false;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Whatever was accepted before the cut-off is made durable and inserted
+        groupCommit();
+        flush();
+        wal.close();
+    }
+
+    /**
+     * Forces everything appended since the last run and wakes the bookings waiting on it
+     */
+    private void groupCommit() {
+        try {
+            long sequence = wal.lastSequence();
+            if (sequence == durableSequence) {
+                return;
+            }
+            wal.force();
+            synchronized (progress) {
+                durableSequence = sequence;
+                progress.notifyAll();
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not force the write-ahead log; no further bookings are accepted", e);
+            walFailure = e;
+            synchronized (progress) {
+                progress.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Inserts durable bookings in batches, then advances the checkpoint past them
+     */
+    private synchronized void flush() {
+        try {
+            long durable;
+            synchronized (progress) {
+                durable = durableSequence;
+            }
+            while (true) {
+                if (failedBatch.isEmpty()) {
+                    while (failedBatch.size() < properties.getFlushBatchSize() && unflushed.peek() != null
+                            && unflushed.peek().sequence() <= durable) {
+                        failedBatch.add(unflushed.poll());
+                    }
+                }
+                if (failedBatch.isEmpty()) {
+                    break;
+                }
+                try {
+                    insert(failedBatch);
+                } catch (RuntimeException e) {
+                    if (!insertOneByOne(failedBatch)) {
+                        throw e;
+                    }
+                }
+                long sequence = failedBatch.get(failedBatch.size() - 1).sequence();
+                failedBatch.clear();
+                writeCheckpoint(sequence);
+            }
+        } catch (RuntimeException e) {
+            // The batch stays in failedBatch and is retried on the next run
+            log.error("Could not flush write-behind bookings", e);
+        }
+    }
+
+    /**
+     * Inserts the bookings of a failed batch one at a time, dropping each the database refuses
+     * while it still answers; false, leaving the batch to be retried, if it stops answering
+     */
+    private boolean insertOneByOne(List<BookingEvent> events) {
+        for (BookingEvent event : events) {
+            try {
+                insert(List.of(event));
+            } catch (RuntimeException e) {
+                try {
+                    jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+                } catch (RuntimeException unavailable) {
+                    return false;
+                }
+                log.error("Dropping write-behind booking {} (car {}, user {}, {} for {} day(s)) that the database refuses",
+                        event.bookingId(), event.carId(), event.userId(), event.bookingDate(), event.duration(), e);
+                rejected.incrementAndGet();
+                synchronized (acceptLock) {
+                    view.apply(new BookingEvent(0, BookingEvent.Type.CANCELLED, LocalDateTime.now(), event.bookingId(),
+                            event.carId(), event.userId(), event.bookingDate(), event.duration()));
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Inserts the bookings the database does not have yet, with utilisation, ledger and outbox
+     * updates. A booking already there was flushed before a crash cut off the checkpoint; a
+     * different booking under its id means ids were handed out twice, and the flush stops.
+     */
+    private void insert(List<BookingEvent> events) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, LedgerView.Entry> existing = new HashMap<>();
+            jdbcTemplate.query("SELECT id, car_id, user_id, booking_date, duration FROM bookings WHERE id BETWEEN ? AND ?",
+                    rs -> {
+                        existing.put(rs.getLong(1), new LedgerView.Entry(rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                                rs.getTimestamp(4).toLocalDateTime(), rs.getInt(5)));
+                    },
+                    events.get(0).bookingId(), events.get(events.size() - 1).bookingId());
+            List<BookingEvent> missing = new ArrayList<>();
+            for (BookingEvent event : events) {
+                LedgerView.Entry stored = existing.get(event.bookingId());
+                if (stored == null) {
+                    missing.add(event);
+                } else if (stored.carId() != event.carId() || stored.userId() != event.userId()
+                        || !stored.bookingDate().equals(event.bookingDate()) || stored.duration() != event.duration()) {
+                    throw new IllegalStateException("Booking id " + event.bookingId()
+                            + " from the write-ahead log is taken by a different booking in the database");
+                }
+            }
+            jdbcTemplate.batchUpdate(INSERT_BOOKING, missing, missing.size(), (ps, event) -> {
+                ps.setLong(1, event.bookingId());
+                ps.setLong(2, event.carId());
+                ps.setLong(3, event.userId());
+                ps.setTimestamp(4, Timestamp.valueOf(event.bookingDate()));
+                ps.setInt(5, event.duration());
+                ps.setTimestamp(6, Timestamp.valueOf(event.recordedAt()));
+                ps.setObject(7, event.allowReassignment() ? Boolean.TRUE : null);
+            });
+            for (BookingEvent event : missing) {
+                Car car = carRepository.findById(event.carId())
+                        .orElseThrow(() -> new ResourceNotFoundException("Car not found with id: " + event.carId()));
+                Booking booking = new Booking(car, userRepository.getReferenceById(event.userId()),
+                        event.bookingDate(), event.duration());
+                booking.setId(event.bookingId());
+                booking.setCreatedAt(event.recordedAt());
+                booking.setAllowReassignment(event.allowReassignment() ? Boolean.TRUE : null);
+                utilisationService.bookingAdded(car.getType(), event.bookingDate(), event.duration());
+                bookingLedger.created(booking);
+                outboxWriter.bookingCreated(booking);
+                changeFeed.bookingChanged(booking.getId());
+                hourSlotIndex.dayBookingSaved(booking);
+            }
+            if (!missing.isEmpty()) {
+                dataVersionTracker.bookingsChanged();
+            }
+        });
+    }
+
+    private void awaitDurable(long sequence) {
+        synchronized (progress) {
+            while (durableSequence < sequence) {
+                if (walFailure != null) {
+                    throw new IllegalStateException("The booking could not be made durable", walFailure);
+                }
+                awaitProgress();
+            }
+        }
+    }
+
+    private void awaitProgress() {
+        try {
+            progress.wait(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the write-ahead log", e);
+        }
+    }
+
+    private long readCheckpoint() {
+        Path file = directory().resolve(CHECKPOINT_FILE);
+        try {
+            return Files.exists(file) ? Long.parseLong(Files.readString(file).trim()) : 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the write-behind checkpoint", e);
+        }
+    }
+
+    /**
+     * Records durably that every event up to {@code sequence} is in the database
+     */
+    private void writeCheckpoint(long sequence) {
+        Path directory = directory();
+        try {
+            Path temp = Files.createTempFile(directory, CHECKPOINT_FILE, ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(Long.toString(sequence).getBytes(StandardCharsets.US_ASCII)));
+                channel.force(true);
+            }
+            Files.move(temp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the write-behind checkpoint", e);
+        }
+        wal.deleteSegmentsBefore(sequence + 1);
+        synchronized (progress) {
+            checkpointSequence = sequence;
+            progress.notifyAll();
+        }
+    }
+
+    private void afterCompletion(Consumer<Boolean> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    private Path directory() {
+        return Paths.get(properties.getDirectory());
+    }
+}
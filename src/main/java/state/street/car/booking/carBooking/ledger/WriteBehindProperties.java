@@ -0,0 +1,44 @@
+package state.street.car.booking.carBooking.ledger;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "carbooking.write-behind")
+public class WriteBehindProperties {
+
+    /**
+     * Accept new bookings against the in-memory view and the write-ahead log, inserting them later
+     */
+    private boolean enabled = false;
+
+    /**
+     * Holds the write-ahead log segments and the flush checkpoint
+     */
+    private String directory = "./data/wal";
+
+    /**
+     * Size of each memory-mapped log segment; rounded down to whole records
+     */
+    private long segmentSizeBytes = 16L * 1024 * 1024;
+
+    /**
+     * How often the log is forced to disk for every booking waiting on it
+     */
+    private long groupCommitMillis = 2;
+
+    /**
+     * How often durable bookings are inserted into the database
+     */
+    private long flushIntervalMillis = 50;
+
+    /**
+     * Most bookings inserted in one transaction
+     */
+    private int flushBatchSize = 500;
+
+    /**
+     * How long an update, cancellation or cleanup waits for pending bookings to reach the database
+     */
+    private long drainTimeoutMillis = 10_000;
+}
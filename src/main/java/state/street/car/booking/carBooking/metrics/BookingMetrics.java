@@ -0,0 +1,73 @@
+package state.street.car.booking.carBooking.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import state.street.car.booking.carBooking.datasource.ShardRouter;
+import state.street.car.booking.carBooking.enums.CarType;
+import state.street.car.booking.carBooking.repository.BookingRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Booking domain metrics. All meters are registered at startup; recording methods only
+ * touch pre-built meters so they are safe to call on the request path.
+ */
+@Component
+public class BookingMetrics {
+
+    private final Map<CarType, Counter> conflictCounters = new EnumMap<>(CarType.class);
+    private final Timer cleanupTimer;
+    private final DistributionSummary cleanupDeleted;
+    private final Timer outboxLag;
+
+    public BookingMetrics(MeterRegistry registry, BookingRepository bookingRepository, ShardRouter shardRouter) {
+        for (CarType type : CarType.values()) {
+            conflictCounters.put(type, Counter.builder("carbooking.booking.conflicts")
+                    .description("Booking requests rejected because the car was already booked")
+                    .tag("car.type", type.name())
+                    .register(registry));
+        }
+
+        // Evaluated when the registry is scraped, never on the request path
+        Gauge.builder("carbooking.bookings.active", () -> shardRouter.fanOut(true,
+                                shard -> bookingRepository.countActiveBookings(LocalDateTime.now())).stream()
+                        .mapToLong(Long::longValue)
+                        .sum())
+                .description("Bookings that have not yet ended")
+                .register(registry);
+
+        cleanupTimer = Timer.builder("carbooking.cleanup.duration")
+                .description("Duration of each expired booking cleanup run")
+                .register(registry);
+        cleanupDeleted = DistributionSummary.builder("carbooking.cleanup.deleted")
+                .description("Expired bookings deleted per cleanup run")
+                .baseUnit("bookings")
+                .register(registry);
+
+        outboxLag = Timer.builder("carbooking.outbox.lag")
+                .description("Time from an outbox event being written to its delivery to every sink")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+    }
+
+    public void recordConflict(CarType type) {
+        conflictCounters.get(type).increment();
+    }
+
+    public void recordCleanup(long durationNanos, int deletedCount) {
+        cleanupTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+        cleanupDeleted.record(deletedCount);
+    }
+
+    public void recordOutboxLag(Duration lag) {
+        outboxLag.record(lag);
+    }
+}
@@ -0,0 +1,58 @@
+package state.street.car.booking.carBooking.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every public method of the given service classes. Timers are registered up front,
+ * so the request path only does a map lookup and a primitive record call.
+ */
+public class ServiceMetricsInterceptor implements MethodInterceptor {
+
+    public static final String TIMER_NAME = "carbooking.service";
+
+    private final Map<Method, Timer> timers;
+
+    public ServiceMetricsInterceptor(MeterRegistry registry, Class<?>... serviceClasses) {
+        Map<Method, Timer> byMethod = new HashMap<>();
+        for (Class<?> serviceClass : serviceClasses) {
+            for (Method method : serviceClass.getDeclaredMethods()) {
+                if (Modifier.isPublic(method.getModifiers()) && !method.isSynthetic()) {
+                    byMethod.put(method, Timer.builder(TIMER_NAME)
+                            .description("Service method latency")
+                            .tag("class", serviceClass.getSimpleName())
+                            .tag("method", method.getName())
+                            .publishPercentileHistogram()
+                            .register(registry));
+                }
+            }
+        }
+        this.timers = Map.copyOf(byMethod);
+    }
+
+    public boolean isTimed(Method method) {
+        return timers.containsKey(method);
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Timer timer = timers.get(invocation.getMethod());
+        if (timer == null) {
+            return invocation.proceed();
+        }
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package state.street.car.booking.carBooking.metrics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "carbooking.sql-monitor")
+public class SqlMonitorProperties {
+
+    /**
+     * Count statements and DB time per HTTP request and report them in response headers
+     */
+    private boolean enabled = true;
+
+    /**
+     * Reduce every statement to its shape to find repeats (likely N+1 queries); off by default
+     * since it runs regular expressions over each statement
+     */
+    private boolean detectRepeats = false;
+
+    /**
+     * A request is flagged as a likely N+1 when one statement shape runs more often than this
+     */
+    private int repeatThreshold = 10;
+
+    /**
+     * Log flagged requests together with the controller method that served them
+     */
+    private boolean logOffenders = false;
+}
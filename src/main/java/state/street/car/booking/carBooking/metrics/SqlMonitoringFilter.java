@@ -0,0 +1,212 @@
+package state.street.car.booking.carBooking.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Binds a {@link SqlRequestStats} to each request, adds its statement count and DB time as
+ * response headers and logs requests where one statement shape repeated past the configured
+ * threshold. Runs ahead of the security chain so user lookups are counted too.
+ * <p>
+ * The body is not buffered: the headers are set just before its first byte is written or the
+ * response is otherwise committed, or at the end for bodiless 204 and 304 responses. Serializers
+ * write through their own buffer, so lazy loads made while rendering a body of up to that size
+ * are counted; the N+1 log runs after the request and counts everything.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+@Slf4j
+public class SqlMonitoringFilter extends OncePerRequestFilter {
+
+    public static final String SERVER_TIMING = "Server-Timing";
+    public static final String STATEMENT_COUNT = "X-Sql-Statement-Count";
+    public static final String REPEATED_STATEMENT = "X-Sql-Repeated-Statement";
+
+    private final SqlMonitorProperties properties;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlRequestStats stats = SqlRequestStats.begin(properties.isDetectRepeats());
+        HeadersBeforeCommit wrapped = new HeadersBeforeCommit(response, stats);
+        try {
+            filterChain.doFilter(request, wrapped);
+        } finally {
+            wrapped.beforeCommit();
+            SqlRequestStats.end();
+            if (properties.isLogOffenders() && stats.isRepeatSuspect(properties.getRepeatThreshold())) {
+                log.warn("Possible N+1 in {} {} handled by {}: {} statements ({} ms), repeated {} times: {}",
+                        request.getMethod(),
+                        request.getRequestURI(),
+                        request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE),
+                        stats.getStatementCount(),
+                        stats.getDbNanos() / 1_000_000,
+                        stats.getMaxRepeatCount(),
+                        stats.getMaxRepeatShape());
+            }
+        }
+    }
+
+    private void addHeaders(HttpServletResponse response, SqlRequestStats stats) {
+        response.setHeader(SERVER_TIMING, String.format(Locale.ROOT, "db;dur=%.3f;desc=\"%d statements\"",
+                stats.getDbNanos() / 1_000_000.0, stats.getStatementCount()));
+        response.setHeader(STATEMENT_COUNT, Integer.toString(stats.getStatementCount()));
+        if (stats.isRepeatSuspect(properties.getRepeatThreshold())) {
+            response.setHeader(REPEATED_STATEMENT, Integer.toString(stats.getMaxRepeatCount()));
+        }
+    }
+
+    /**
+     * Adds the headers the first time anything could commit the response, then passes every
+     * call straight through
+     */
+    private final class HeadersBeforeCommit extends HttpServletResponseWrapper {
+
+        private final SqlRequestStats stats;
+        private boolean added;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        HeadersBeforeCommit(HttpServletResponse response, SqlRequestStats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        void beforeCommit() {
+            if (!added) {
+                added = true;
+                if (!isCommitted()) {
+                    addHeaders((HttpServletResponse) getResponse(), stats);
+                }
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream target = super.getOutputStream();
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        beforeCommit();
+                        target.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        beforeCommit();
+                        target.write(b, off, len);
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        beforeCommit();
+                        target.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        beforeCommit();
+                        target.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return target.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener listener) {
+                        target.setWriteListener(listener);
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new FilterWriter(super.getWriter()) {
+                    @Override
+                    public void write(int c) throws IOException {
+                        beforeCommit();
+                        super.write(c);
+                    }
+
+                    @Override
+                    public void write(char[] cbuf, int off, int len) throws IOException {
+                        beforeCommit();
+                        super.write(cbuf, off, len);
+                    }
+
+                    @Override
+                    public void write(String str, int off, int len) throws IOException {
+                        beforeCommit();
+                        super.write(str, off, len);
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        beforeCommit();
+                        super.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        beforeCommit();
+                        super.close();
+                    }
+                });
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            beforeCommit();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            beforeCommit();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            beforeCommit();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            beforeCommit();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package state.street.car.booking.carBooking.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * SQL statements executed while serving one HTTP request, bound to the request thread
+ * by {@link SqlMonitoringFilter} and fed by the Hibernate statement inspector and
+ * session listener.
+ */
+public class SqlRequestStats {
+
+    private static final ThreadLocal<SqlRequestStats> CURRENT = new ThreadLocal<>();
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+
+    private final boolean detectRepeats;
+    private final Map<String, Integer> countsByShape = new HashMap<>();
+    private int statementCount;
+    private long dbNanos;
+    private int maxRepeatCount;
+    private String maxRepeatShape;
+
+    private SqlRequestStats(boolean detectRepeats) {
+        this.detectRepeats = detectRepeats;
+    }
+
+    /**
+     * @param detectRepeats also reduce each statement to its shape and count repeats, which costs
+     *                      a pair of regular expressions per statement
+     */
+    public static SqlRequestStats begin(boolean detectRepeats) {
+        SqlRequestStats stats = new SqlRequestStats(detectRepeats);
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static SqlRequestStats current() {
+        return CURRENT.get();
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    void recordStatement(String sql) {
+        statementCount++;
+        if (!detectRepeats) {
+            return;
+        }
+        String shape = shapeOf(sql);
+        int count = countsByShape.merge(shape, 1, Integer::sum);
+        if (count > maxRepeatCount) {
+            maxRepeatCount = count;
+            maxRepeatShape = shape;
+        }
+    }
+
+    void addDbTime(long nanos) {
+        dbNanos += nanos;
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public long getDbNanos() {
+        return dbNanos;
+    }
+
+    /**
+     * Highest number of times a single statement shape ran during the request
+     */
+    public int getMaxRepeatCount() {
+        return maxRepeatCount;
+    }
+
+    public String getMaxRepeatShape() {
+        return maxRepeatShape;
+    }
+
+    public boolean isRepeatSuspect(int threshold) {
+        return maxRepeatCount > threshold;
+    }
+
+    /**
+     * Collapses whitespace and bind-parameter lists so statements that differ only in
+     * formatting or IN-list length count as the same shape
+     */
+    static String shapeOf(String sql) {
+        String shape = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        return IN_LIST.matcher(shape).replaceAll("(?)");
+    }
+}
@@ -0,0 +1,40 @@
+package state.street.car.booking.carBooking.metrics;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Accumulates JDBC execution time into the current request's stats. Hibernate creates
+ * one instance per session, and a session is confined to one thread.
+ */
+public class SqlTimingSessionListener implements SessionEventListener {
+
+    private long executeStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        addDbTime(executeStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        addDbTime(batchStart);
+    }
+
+    private static void addDbTime(long start) {
+        SqlRequestStats stats = SqlRequestStats.current();
+        if (stats != null && start != 0) {
+            stats.addDbTime(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package state.street.car.booking.carBooking.outbox;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import state.street.car.booking.carBooking.entity.OutboxEvent;
+
+import java.time.LocalDateTime;
+
+/**
+ * A change as handed to the sinks. Delivery is at least once, so consumers should skip keys
+ * they have already seen; ids are only unique within a shard.
+ */
+public record ChangeEvent(int shard, long id, OutboxEvent.Type type, long aggregateId,
+                          @JsonRawValue String payload, LocalDateTime occurredAt) {
+
+    public static ChangeEvent of(int shard, OutboxEvent event) {
+        return new ChangeEvent(shard, event.getId(), event.getType(), event.getAggregateId(), event.getPayload(),
+                event.getOccurredAt());
+    }
+
+    public String key() {
+        return shard + ":" + id;
+    }
+}
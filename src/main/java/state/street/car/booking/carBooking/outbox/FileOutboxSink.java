@@ -0,0 +1,61 @@
+package state.street.car.booking.carBooking.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends events to a local file, one JSON object per line, and forces each batch to disk
+ * before the relay deletes it from the outbox
+ */
+@Component
+@ConditionalOnProperty(prefix = "carbooking.outbox", name = "file-sink-path")
+public class FileOutboxSink implements OutboxSink {
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+
+    public FileOutboxSink(OutboxProperties properties, ObjectMapper objectMapper) {
+        this.file = Paths.get(properties.getFileSinkPath());
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void deliver(List<ChangeEvent> events) {
+        StringBuilder lines = new StringBuilder();
+        try {
+            for (ChangeEvent event : events) {
+                lines.append(objectMapper.writeValueAsString(event)).append('\n');
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialise outbox events", e);
+        }
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append outbox events to " + file, e);
+        }
+    }
+}
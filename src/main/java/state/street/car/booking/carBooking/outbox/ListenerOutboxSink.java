@@ -0,0 +1,23 @@
+package state.street.car.booking.carBooking.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Publishes each event in-process, so any {@code @EventListener} taking a {@link ChangeEvent}
+ * receives it on the relay thread. A listener that throws fails the batch.
+ */
+@Component
+@RequiredArgsConstructor
+public class ListenerOutboxSink implements OutboxSink {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void deliver(List<ChangeEvent> events) {
+        events.forEach(eventPublisher::publishEvent);
+    }
+}
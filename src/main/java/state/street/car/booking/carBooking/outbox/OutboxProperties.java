@@ -0,0 +1,29 @@
+package state.street.car.booking.carBooking.outbox;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "carbooking.outbox")
+public class OutboxProperties {
+
+    /**
+     * Write an outbox row for every booking and car change and run the relay
+     */
+    private boolean enabled = false;
+
+    /**
+     * How often the relay looks for undelivered events; commits also wake it straight away
+     */
+    private long pollIntervalMillis = 500;
+
+    /**
+     * Most events handed to the sinks, and deleted, in one transaction per shard
+     */
+    private int batchSize = 200;
+
+    /**
+     * Appends every delivered event as a JSON line to this file; unset to leave the file sink out
+     */
+    private String fileSinkPath;
+}
@@ -0,0 +1,183 @@
+package state.street.car.booking.carBooking.outbox;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import state.street.car.booking.carBooking.datasource.ShardRouter;
+import state.street.car.booking.carBooking.entity.OutboxEvent;
+import state.street.car.booking.carBooking.metrics.BookingMetrics;
+import state.street.car.booking.carBooking.repository.OutboxEventRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the outbox of every shard in batches: each batch is handed to every sink in id order
+ * and deleted in the same transaction that read it, so a crash or a failing sink means the batch
+ * is delivered again (at least once), never lost. Changes to one booking or car are serialised
+ * by their row locks, so their events reach the sinks in commit order.
+ * <p>
+ * Runs every poll interval and straight after any transaction that wrote an event.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxProperties properties;
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OutboxSink> sinks;
+    private final ShardRouter shardRouter;
+    private final BookingMetrics bookingMetrics;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+    private final AtomicLong delivered = new AtomicLong();
+    private volatile ScheduledExecutorService executor;
+
+    public OutboxRelay(OutboxProperties properties,
+                       OutboxEventRepository outboxEventRepository,
+                       List<OutboxSink> sinks,
+                       ShardRouter shardRouter,
+                       BookingMetrics bookingMetrics,
+                       PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.outboxEventRepository = outboxEventRepository;
+        this.sinks = sinks;
+        this.shardRouter = shardRouter;
+        this.bookingMetrics = bookingMetrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Starts once seeding is done; events written before that wait for the first run
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::relayQuietly, 0, properties.getPollIntervalMillis(), TimeUnit.MILLISECONDS);
+        log.info("Outbox relay started with {} sink(s)", sinks.size());
+    }
+
+    /**
+     * Runs the relay as soon as the current transaction commits
+     */
+    public void wakeUpAfterCommit() {
+        if (executor == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            wakeUp();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                wakeUp();
+            }
+        });
+    }
+
+    /**
+     * Delivers batches until every shard's outbox is empty; returns the number of events delivered
+     */
+    public synchronized int relay() {
+        int total = 0;
+        while (true) {
+            List<Integer> counts = transactionTemplate.execute(status -> shardRouter.fanOut(false, this::deliverBatch));
+            total += counts.stream().mapToInt(Integer::intValue).sum();
+            if (counts.stream().allMatch(count -> count < properties.getBatchSize())) {
+                return total;
+            }
+        }
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", properties.isEnabled());
+        status.put("sinks", sinks.stream().map(sink -> sink.getClass().getSimpleName()).toList());
+        status.put("delivered", delivered.get());
+        status.put("pending", shardRouter.fanOut(true, shard -> outboxEventRepository.count()).stream()
+                .mapToLong(Long::longValue)
+                .sum());
+        return status;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Whatever is left stays in the outbox for the next start
+        relayQuietly();
+    }
+
+    private int deliverBatch(int shard) {
+        List<OutboxEvent> batch = outboxEventRepository.findOldest(PageRequest.of(0, properties.getBatchSize()));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<ChangeEvent> events = batch.stream().map(event -> ChangeEvent.of(shard, event)).toList();
+        for (OutboxSink sink : sinks) {
+            sink.deliver(events);
+        }
+        outboxEventRepository.deleteAllByIdInBatch(batch.stream().map(OutboxEvent::getId).toList());
+
+        LocalDateTime now = LocalDateTime.now();
+        for (OutboxEvent event : batch) {
+            bookingMetrics.recordOutboxLag(Duration.between(event.getOccurredAt(), now));
+        }
+        delivered.addAndGet(batch.size());
+        return batch.size();
+    }
+
+    private void wakeUp() {
+        if (wakeUpPending.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> {
+                    wakeUpPending.set(false);
+                    relayQuietly();
+                });
+            } catch (RuntimeException e) {
+                // Shutting down; the final run in stop() picks the event up
+                wakeUpPending.set(false);
+            }
+        }
+    }
+
+    private void relayQuietly() {
+        try {
+            relay();
+        } catch (RuntimeException e) {
+            // The failed batch is still in the outbox and is retried on the next run
+            log.error("Could not relay outbox events", e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package state.street.car.booking.carBooking.outbox;
+
+import java.util.List;
+
+/**
+ * Destination for outbox events. Every sink bean receives every batch, in write order per
+ * shard. A sink that throws leaves the batch in the outbox, so it is offered again to all
+ * sinks on the next relay run.
+ */
+public interface OutboxSink {
+
+    void deliver(List<ChangeEvent> events);
+}
@@ -0,0 +1,126 @@
+package state.street.car.booking.carBooking.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Component;
+import state.street.car.booking.carBooking.entity.Booking;
+import state.street.car.booking.carBooking.entity.Car;
+import state.street.car.booking.carBooking.entity.HourlyBooking;
+import state.street.car.booking.carBooking.entity.OutboxEvent;
+import state.street.car.booking.carBooking.repository.OutboxEventRepository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Adds an outbox row for a booking, hourly booking or car change to the caller's transaction, so the event
+ * exists exactly when the change commits. Does nothing unless carbooking.outbox.enabled is set.
+ */
+@Component
+public class OutboxWriter {
+
+    private final OutboxProperties properties;
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxRelay outboxRelay;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public OutboxWriter(OutboxProperties properties, OutboxEventRepository outboxEventRepository,
+                        OutboxRelay outboxRelay, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxRelay = outboxRelay;
+        this.objectMapper = objectMapper;
+    }
+
+    public void bookingCreated(Booking booking) {
+        record(OutboxEvent.Type.BOOKING_CREATED, booking.getId(), bookingPayload(booking));
+    }
+
+    public void bookingUpdated(Booking booking) {
+        record(OutboxEvent.Type.BOOKING_UPDATED, booking.getId(), bookingPayload(booking));
+    }
+
+    public void bookingCancelled(Booking booking) {
+        record(OutboxEvent.Type.BOOKING_CANCELLED, booking.getId(), bookingPayload(booking));
+    }
+
+    public void bookingExpired(Booking booking) {
+        record(OutboxEvent.Type.BOOKING_EXPIRED, booking.getId(), bookingPayload(booking));
+    }
+
+    public void hourlyBookingCreated(HourlyBooking booking) {
+        record(OutboxEvent.Type.HOURLY_BOOKING_CREATED, booking.getId(), hourlyBookingPayload(booking));
+    }
+
+    public void hourlyBookingCancelled(HourlyBooking booking) {
+        record(OutboxEvent.Type.HOURLY_BOOKING_CANCELLED, booking.getId(), hourlyBookingPayload(booking));
+    }
+
+    public void hourlyBookingExpired(HourlyBooking booking) {
+        record(OutboxEvent.Type.HOURLY_BOOKING_EXPIRED, booking.getId(), hourlyBookingPayload(booking));
+    }
+
+    public void carCreated(Car car) {
+        record(OutboxEvent.Type.CAR_CREATED, car.getId(), carPayload(car));
+    }
+
+    public void carUpdated(Car car) {
+        record(OutboxEvent.Type.CAR_UPDATED, car.getId(), carPayload(car));
+    }
+
+    public void carDeleted(Long carId) {
+        record(OutboxEvent.Type.CAR_DELETED, carId, Map.of("carId", carId));
+    }
+
+    private void record(OutboxEvent.Type type, Long aggregateId, Map<String, Object> payload) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialise outbox payload for " + type, e);
+        }
+        // Pending updates and deletes take their row locks first, so a later change to the
+        // same row cannot get a lower outbox id than this one
+        entityManager.flush();
+        outboxEventRepository.save(new OutboxEvent(type, aggregateId, json));
+        outboxRelay.wakeUpAfterCommit();
+    }
+
+    private static Map<String, Object> bookingPayload(Booking booking) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("bookingId", booking.getId());
+        payload.put("carId", booking.getCar().getId());
+        payload.put("userId", booking.getUser().getId());
+        payload.put("bookingDate", booking.getBookingDate());
+        payload.put("duration", booking.getDuration());
+        return payload;
+    }
+
+    private static Map<String, Object> hourlyBookingPayload(HourlyBooking booking) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("hourlyBookingId", booking.getId());
+        payload.put("carId", booking.getCar().getId());
+        payload.put("userId", booking.getUser().getId());
+        payload.put("startTime", booking.getStartTime());
+        payload.put("hours", booking.getHours());
+        return payload;
+    }
+
+    private static Map<String, Object> carPayload(Car car) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("carId", car.getId());
+        payload.put("registrationNumber", car.getRegistrationNumber());
+        payload.put("type", car.getType());
+        payload.put("costPerDay", car.getCostPerDay());
+        payload.put("capacity", car.getCapacity());
+        return payload;
+    }
+}
@@ -0,0 +1,66 @@
+package state.street.car.booking.carBooking.recurring;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Finds which occurrences of a series collide with a car's existing bookings in one merge pass:
+ * both sides are in start order, so each existing booking is passed at most once and no
+ * occurrence is looked up on its own. O(occurrences + bookings).
+ */
+public final class OccurrenceConflicts {
+
+    /**
+     * A period the car is already taken. Day bookings also conflict with periods that merely
+     * touch them, as in the single booking check; hourly bookings only with overlapping ones.
+     */
+    public record Busy(LocalDateTime start, LocalDateTime end, boolean touchingConflicts) {
+    }
+
+    public record Result(int conflicting, LocalDateTime firstConflict) {
+
+        public boolean isEmpty() {
+            return conflicting == 0;
+        }
+    }
+
+    private OccurrenceConflicts() {
+    }
+
+    /**
+     * @param busy the car's bookings around the series, ordered by start
+     */
+    public static Result find(RecurrenceRule rule, List<Busy> busy) {
+        Iterator<LocalDateTime> starts = rule.starts();
+        int next = 0;
+        int conflicting = 0;
+        LocalDateTime first = null;
+        while (starts.hasNext()) {
+            LocalDateTime start = starts.next();
+            LocalDateTime end = start.plusDays(rule.duration());
+            // Bookings ending before this occurrence end before every later one too
+            while (next < busy.size() && endsBefore(busy.get(next), start)) {
+                next++;
+            }
+            for (int candidate = next; candidate < busy.size() && !startsAfter(busy.get(candidate), end); candidate++) {
+                if (!endsBefore(busy.get(candidate), start)) {
+                    conflicting++;
+                    if (first == null) {
+                        first = start;
+                    }
+                    break;
+                }
+            }
+        }
+        return new Result(conflicting, first);
+    }
+
+    private static boolean endsBefore(Busy busy, LocalDateTime start) {
+        return busy.touchingConflicts() ? busy.end().isBefore(start) : !busy.end().isAfter(start);
+    }
+
+    private static boolean startsAfter(Busy busy, LocalDateTime end) {
+        return busy.touchingConflicts() ? busy.start().isAfter(end) : !busy.start().isBefore(end);
+    }
+}
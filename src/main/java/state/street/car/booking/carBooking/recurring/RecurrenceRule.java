@@ -0,0 +1,85 @@
+package state.street.car.booking.carBooking.recurring;
+
+import state.street.car.booking.carBooking.entity.BookingSeries;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * When a series' occurrences start. Occurrences are computed from the rule on demand rather
+ * than stored or listed up front.
+ */
+public record RecurrenceRule(BookingSeries.Frequency frequency, int interval, LocalDateTime firstDate,
+                             int duration, int occurrences) {
+
+    /**
+     * The rule for a count, or for as many occurrences as start on or before until
+     */
+    public static RecurrenceRule of(BookingSeries.Frequency frequency, int interval, LocalDateTime firstDate,
+                                    int duration, Integer count, LocalDateTime until) {
+        if (frequency == null || interval < 1 || duration < 1) {
+            throw new IllegalArgumentException("A recurring booking needs a frequency, an interval and a duration of at least 1");
+        }
+        if ((count == null) == (until == null)) {
+            throw new IllegalArgumentException("A recurring booking ends after a count or on an until date, not both");
+        }
+        long stepDays = stepDays(frequency, interval);
+        // Touching day bookings conflict, so each occurrence must end before the next starts
+        if (duration >= stepDays) {
+            throw new IllegalArgumentException("Occurrences of " + duration + " days cannot repeat every " + stepDays
+                    + " days; each must end before the next starts");
+        }
+        long resolved = count != null
+                ? count
+                : until.isBefore(firstDate) ? 0 : ChronoUnit.DAYS.between(firstDate, until) / stepDays + 1;
+        if (resolved < 1) {
+            throw new IllegalArgumentException("A recurring booking needs at least one occurrence");
+        }
+        return new RecurrenceRule(frequency, interval, firstDate, duration, (int) Math.min(resolved, Integer.MAX_VALUE));
+    }
+
+    public static RecurrenceRule of(BookingSeries series) {
+        return new RecurrenceRule(series.getFrequency(), series.getInterval(), series.getFirstDate(),
+                series.getDuration(), series.getOccurrences());
+    }
+
+    public long stepDays() {
+        return stepDays(frequency, interval);
+    }
+
+    public LocalDateTime start(int occurrence) {
+        return firstDate.plusDays(occurrence * stepDays());
+    }
+
+    public LocalDateTime lastEnd() {
+        return start(occurrences - 1).plusDays(duration);
+    }
+
+    /**
+     * Start dates in order, generated as they are read
+     */
+    public Iterator<LocalDateTime> starts() {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < occurrences;
+            }
+
+            @Override
+            public LocalDateTime next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return start(next++);
+            }
+        };
+    }
+
+    private static long stepDays(BookingSeries.Frequency frequency, int interval) {
+        return (long) interval * (frequency == BookingSeries.Frequency.WEEKLY ? 7 : 1);
+    }
+}
@@ -0,0 +1,14 @@
+package state.street.car.booking.carBooking.recurring;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "carbooking.recurring")
+public class RecurringBookingProperties {
+
+    /**
+     * Most occurrences one recurring booking may have
+     */
+    private int maxOccurrences = 366;
+}
@@ -0,0 +1,9 @@
+package state.street.car.booking.carBooking.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import state.street.car.booking.carBooking.entity.ArchivedBooking;
+
+@Repository
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBooking, Long> {
+}
@@ -4,13 +4,26 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import state.street.car.booking.carBooking.allocation.BookedInterval;
+import state.street.car.booking.carBooking.allocation.RepackableBooking;
+import state.street.car.booking.carBooking.dto.BookingDTO;
 import state.street.car.booking.carBooking.entity.Booking;
+import state.street.car.booking.carBooking.enums.CarType;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
+
+    /**
+     * Constructor projection joining car and user, so read paths get DTOs in a single
+     * select without loading managed entities or touching the lazy associations.
+     */
+    String BOOKING_DTO_SELECT = "SELECT new state.street.car.booking.carBooking.dto.BookingDTO(" +
+            "b.id, c.id, u.id, c.registrationNumber, u.username, b.bookingDate, b.duration, b.createdAt) " +
+            "FROM Booking b JOIN b.car c JOIN b.user u ";
+
     List<Booking> findByUserId(Long userId);
 
     List<Booking> findByCarId(Long carId);
@@ -22,17 +35,84 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
                                          @Param("startDate") LocalDateTime startDate,
                                          @Param("endDate") LocalDateTime endDate);
 
+    /**
+     * As findConflictingBookings, in start order, for merging with a series' occurrences
+     */
+    @Query("SELECT b FROM Booking b WHERE b.car.id = :carId AND " +
+           "(b.bookingDate <= :endDate AND " +
+           "FUNCTION('DATEADD', DAY, b.duration, b.bookingDate) >= :startDate) " +
+           "ORDER BY b.bookingDate ASC")
+    List<Booking> findConflictingBookingsInOrder(@Param("carId") Long carId,
+                                                 @Param("startDate") LocalDateTime startDate,
+                                                 @Param("endDate") LocalDateTime endDate);
+
+    List<Booking> findBySeriesIdOrderByBookingDateAsc(Long seriesId);
+
+    /**
+     * Bookings of cars of the type touching [startDate, endDate], reduced to car and period
+     */
+    @Query("SELECT new state.street.car.booking.carBooking.allocation.BookedInterval(b.id, c.id, b.bookingDate, b.duration) " +
+           "FROM Booking b JOIN b.car c WHERE c.type = :type AND " +
+           "(b.bookingDate <= :endDate AND " +
+           "FUNCTION('DATEADD', DAY, b.duration, b.bookingDate) >= :startDate)")
+    List<BookedInterval> findIntervalsByCarType(@Param("type") CarType type,
+                                                @Param("startDate") LocalDateTime startDate,
+                                                @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Bookings of cars of the type that have not ended, for the re-packing job
+     */
+    @Query("SELECT new state.street.car.booking.carBooking.allocation.RepackableBooking(" +
+           "b.id, b.user.id, c.id, b.bookingDate, b.duration, b.seriesId, b.allowReassignment) " +
+           "FROM Booking b JOIN b.car c WHERE c.type = :type AND " +
+           "FUNCTION('DATEADD', DAY, b.duration, b.bookingDate) >= :currentTime")
+    List<RepackableBooking> findRepackableByCarType(@Param("type") CarType type,
+                                                    @Param("currentTime") LocalDateTime currentTime);
+
+    /**
+     * Day bookings sharing any time with [startDate, endDate); unlike findConflictingBookings,
+     * a booking ending exactly at startDate does not count
+     */
+    @Query("SELECT COUNT(b) FROM Booking b WHERE b.car.id = :carId AND " +
+           "b.bookingDate < :endDate AND " +
+           "FUNCTION('DATEADD', DAY, b.duration, b.bookingDate) > :startDate")
+    long countOverlapping(@Param("carId") Long carId,
+                          @Param("startDate") LocalDateTime startDate,
+                          @Param("endDate") LocalDateTime endDate);
+
     @Query("SELECT b FROM Booking b WHERE b.car.id = :carId AND " +
            "FUNCTION('DATEADD', DAY, b.duration, b.bookingDate) >= :currentTime " +
            "ORDER BY b.bookingDate ASC")
     List<Booking> findActiveBookingsForCar(@Param("carId") Long carId,
                                           @Param("currentTime") LocalDateTime currentTime);
 
+    @Query("SELECT COUNT(b) FROM Booking b WHERE " +
+           "FUNCTION('DATEADD', DAY, b.duration, b.bookingDate) >= :currentTime")
+    long countActiveBookings(@Param("currentTime") LocalDateTime currentTime);
+
     @Query("SELECT b FROM Booking b WHERE " +
            "(b.bookingDate <= :endDate AND " +
            "FUNCTION('DATEADD', DAY, b.duration, b.bookingDate) >= :startDate) " +
            "ORDER BY b.bookingDate ASC")
     List<Booking> findBookingsByDateRange(@Param("startDate") LocalDateTime startDate,
                                           @Param("endDate") LocalDateTime endDate);
-}
 
+    @Query(BOOKING_DTO_SELECT)
+    List<BookingDTO> findAllBookingDTOs();
+
+    @Query(BOOKING_DTO_SELECT + "WHERE u.id = :userId")
+    List<BookingDTO> findBookingDTOsByUserId(@Param("userId") Long userId);
+
+    @Query(BOOKING_DTO_SELECT + "WHERE c.id = :carId")
+    List<BookingDTO> findBookingDTOsByCarId(@Param("carId") Long carId);
+
+    @Query(BOOKING_DTO_SELECT + "WHERE b.seriesId = :seriesId ORDER BY b.bookingDate ASC")
+    List<BookingDTO> findBookingDTOsBySeriesId(@Param("seriesId") Long seriesId);
+
+    @Query(BOOKING_DTO_SELECT + "WHERE " +
+           "(b.bookingDate <= :endDate AND " +
+           "FUNCTION('DATEADD', DAY, b.duration, b.bookingDate) >= :startDate) " +
+           "ORDER BY b.bookingDate ASC")
+    List<BookingDTO> findBookingDTOsByDateRange(@Param("startDate") LocalDateTime startDate,
+                                                @Param("endDate") LocalDateTime endDate);
+}
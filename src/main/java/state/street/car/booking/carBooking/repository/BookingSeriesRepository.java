@@ -0,0 +1,18 @@
+package state.street.car.booking.carBooking.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import state.street.car.booking.carBooking.entity.BookingSeries;
+
+@Repository
+public interface BookingSeriesRepository extends JpaRepository<BookingSeries, Long> {
+
+    /**
+     * Series whose occurrences have all been cancelled or cleaned up
+     */
+    @Modifying
+    @Query("DELETE FROM BookingSeries s WHERE NOT EXISTS (SELECT 1 FROM Booking b WHERE b.seriesId = s.id)")
+    int deleteWithoutBookings();
+}
@@ -1,7 +1,9 @@
 package state.street.car.booking.carBooking.repository;
 
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import state.street.car.booking.carBooking.entity.Car;
@@ -9,22 +11,47 @@ import state.street.car.booking.carBooking.enums.CarType;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
 
 @Repository
 public interface CarRepository extends JpaRepository<Car, Long> {
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Car> findAll();
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<Car> findByType(CarType type);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    Optional<Car> findByRegistrationNumber(String registrationNumber);
+
+    /**
+     * Fleet size per type as [CarType, Long] rows
+     */
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("SELECT c.type, COUNT(c) FROM Car c GROUP BY c.type")
+    List<Object[]> countByType();
     
+    /**
+     * Cars with no day booking touching [startDate, endDate] and no hour booking sharing time with it
+     */
     @Query("SELECT c FROM Car c WHERE c.id NOT IN " +
            "(SELECT b.car.id FROM Booking b WHERE " +
            "(b.bookingDate <= :endDate AND " +
-           "FUNCTION('DATEADD', DAY, b.duration, b.bookingDate) >= :startDate))")
+           "FUNCTION('DATEADD', DAY, b.duration, b.bookingDate) >= :startDate)) " +
+           "AND c.id NOT IN (SELECT h.car.id FROM HourlyBooking h WHERE " +
+           "h.startTime < :endDate AND h.endTime > :startDate)")
     List<Car> findAvailableCars(@Param("startDate") LocalDateTime startDate, 
                                 @Param("endDate") LocalDateTime endDate);
     
     @Query("SELECT c FROM Car c WHERE c.type = :type AND c.id NOT IN " +
            "(SELECT b.car.id FROM Booking b WHERE " +
            "(b.bookingDate <= :endDate AND " +
-           "FUNCTION('DATEADD', DAY, b.duration, b.bookingDate) >= :startDate))")
+           "FUNCTION('DATEADD', DAY, b.duration, b.bookingDate) >= :startDate)) " +
+           "AND c.id NOT IN (SELECT h.car.id FROM HourlyBooking h WHERE " +
+           "h.startTime < :endDate AND h.endTime > :startDate)")
     List<Car> findAvailableCarsByType(@Param("type") CarType type,
                                       @Param("startDate") LocalDateTime startDate, 
                                       @Param("endDate") LocalDateTime endDate);
@@ -0,0 +1,34 @@
+package state.street.car.booking.carBooking.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import state.street.car.booking.carBooking.entity.DailyUtilisation;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyUtilisationRepository extends JpaRepository<DailyUtilisation, DailyUtilisation.Key> {
+
+    List<DailyUtilisation> findByUsageDateBetweenOrderByUsageDate(LocalDate from, LocalDate to);
+
+    List<DailyUtilisation> findByUsageDateGreaterThanEqual(LocalDate from);
+
+    /**
+     * Booked car-days per type and day recomputed from the bookings table, for days on or after {@code from}
+     */
+    @Query(value = "SELECT DATEADD('DAY', r.x, CAST(b.booking_date AS DATE)) AS usage_date, c.type AS car_type, COUNT(*) AS booked " +
+            "FROM bookings b JOIN cars c ON c.id = b.car_id " +
+            "JOIN SYSTEM_RANGE(0, (SELECT COALESCE(MAX(duration), 1) - 1 FROM bookings)) r ON r.x < b.duration " +
+            "WHERE DATEADD('DAY', r.x, CAST(b.booking_date AS DATE)) >= :from " +
+            "GROUP BY usage_date, car_type",
+            nativeQuery = true)
+    List<Object[]> computeBookedCarDaysFrom(@Param("from") LocalDate from);
+
+    @Modifying
+    @Query("DELETE FROM DailyUtilisation u WHERE u.usageDate < :before")
+    int deleteOlderThan(@Param("before") LocalDate before);
+}
@@ -0,0 +1,50 @@
+package state.street.car.booking.carBooking.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import state.street.car.booking.carBooking.allocation.BusyPeriod;
+import state.street.car.booking.carBooking.dto.HourlyBookingDTO;
+import state.street.car.booking.carBooking.entity.HourlyBooking;
+import state.street.car.booking.carBooking.enums.CarType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface HourlyBookingRepository extends JpaRepository<HourlyBooking, Long> {
+
+    String HOURLY_BOOKING_DTO_SELECT = "SELECT new state.street.car.booking.carBooking.dto.HourlyBookingDTO(" +
+            "h.id, c.id, u.id, c.registrationNumber, u.username, h.startTime, h.hours, h.endTime, h.createdAt) " +
+            "FROM HourlyBooking h JOIN h.car c JOIN h.user u ";
+
+    /**
+     * Hour bookings sharing any time with [startTime, endTime); back-to-back ones do not overlap
+     */
+    @Query("SELECT COUNT(h) FROM HourlyBooking h WHERE h.car.id = :carId AND " +
+           "h.startTime < :endTime AND h.endTime > :startTime")
+    long countOverlapping(@Param("carId") Long carId,
+                          @Param("startTime") LocalDateTime startTime,
+                          @Param("endTime") LocalDateTime endTime);
+
+    @Query("SELECT h FROM HourlyBooking h WHERE h.car.id = :carId AND " +
+           "h.startTime < :endTime AND h.endTime > :startTime ORDER BY h.startTime ASC")
+    List<HourlyBooking> findOverlappingInOrder(@Param("carId") Long carId,
+                                               @Param("startTime") LocalDateTime startTime,
+                                               @Param("endTime") LocalDateTime endTime);
+
+    @Query("SELECT new state.street.car.booking.carBooking.allocation.BusyPeriod(c.id, h.startTime, h.endTime) " +
+           "FROM HourlyBooking h JOIN h.car c WHERE c.type = :type AND h.endTime > :currentTime")
+    List<BusyPeriod> findBusyPeriodsByCarType(@Param("type") CarType type,
+                                              @Param("currentTime") LocalDateTime currentTime);
+
+    @Query(HOURLY_BOOKING_DTO_SELECT + "WHERE u.id = :userId ORDER BY h.startTime ASC")
+    List<HourlyBookingDTO> findHourlyBookingDTOsByUserId(@Param("userId") Long userId);
+
+    @Query(HOURLY_BOOKING_DTO_SELECT + "WHERE h.id = :id")
+    List<HourlyBookingDTO> findHourlyBookingDTOById(@Param("id") Long id);
+
+    @Query("SELECT h FROM HourlyBooking h WHERE h.endTime < :currentTime")
+    List<HourlyBooking> findEndedBefore(@Param("currentTime") LocalDateTime currentTime);
+}
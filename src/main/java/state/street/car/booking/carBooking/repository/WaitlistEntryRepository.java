@@ -0,0 +1,40 @@
+package state.street.car.booking.carBooking.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import state.street.car.booking.carBooking.entity.WaitlistEntry;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    List<WaitlistEntry> findByStatus(WaitlistEntry.Status status);
+
+    @Query("SELECT e FROM WaitlistEntry e JOIN FETCH e.user u WHERE u.id = :userId ORDER BY e.requestedAt ASC")
+    List<WaitlistEntry> findByUserIdWithUser(@Param("userId") Long userId);
+
+    /**
+     * Moves an entry between statuses only if it is still in the expected one, so two nodes
+     * cannot both assign it
+     */
+    @Modifying
+    @Query("UPDATE WaitlistEntry e SET e.status = :to WHERE e.id = :id AND e.status = :from")
+    int transition(@Param("id") Long id,
+                   @Param("from") WaitlistEntry.Status from,
+                   @Param("to") WaitlistEntry.Status to);
+
+    @Modifying
+    @Query("UPDATE WaitlistEntry e SET e.bookingId = :bookingId WHERE e.id = :id")
+    int recordBooking(@Param("id") Long id, @Param("bookingId") Long bookingId);
+
+    @Modifying
+    @Query("UPDATE WaitlistEntry e SET e.status = :expired WHERE e.status = :waiting AND e.bookingDate < :currentTime")
+    int expireStartedBefore(@Param("currentTime") LocalDateTime currentTime,
+                            @Param("waiting") WaitlistEntry.Status waiting,
+                            @Param("expired") WaitlistEntry.Status expired);
+}
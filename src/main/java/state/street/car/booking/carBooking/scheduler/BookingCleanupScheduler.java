@@ -4,69 +4,135 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+import state.street.car.booking.carBooking.cluster.ChangeFeed;
+import state.street.car.booking.carBooking.cluster.Lease;
+import state.street.car.booking.carBooking.cluster.LeaseManager;
+import state.street.car.booking.carBooking.datasource.ShardRouter;
+import state.street.car.booking.carBooking.entity.ArchivedBooking;
 import state.street.car.booking.carBooking.entity.Booking;
+import state.street.car.booking.carBooking.entity.HourlyBooking;
+import state.street.car.booking.carBooking.exception.LeaseUnavailableException;
+import state.street.car.booking.carBooking.ledger.BookingLedger;
+import state.street.car.booking.carBooking.ledger.WriteBehindBookingWriter;
+import state.street.car.booking.carBooking.metrics.BookingMetrics;
+import state.street.car.booking.carBooking.outbox.OutboxWriter;
+import state.street.car.booking.carBooking.repository.ArchivedBookingRepository;
 import state.street.car.booking.carBooking.repository.BookingRepository;
+import state.street.car.booking.carBooking.repository.BookingSeriesRepository;
+import state.street.car.booking.carBooking.repository.HourlyBookingRepository;
+import state.street.car.booking.carBooking.service.DataVersionTracker;
+import state.street.car.booking.carBooking.service.UtilisationService;
+import state.street.car.booking.carBooking.service.WaitlistService;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.List;
 
 /**
  * Scheduled task to automatically clean up expired bookings.
- * Runs daily at 2 AM to delete bookings where booking_date + duration < current_time
+ * Runs daily at 2 AM to delete bookings where booking_date + duration < current_time.
+ * Deleted bookings are copied to the archive first so history reports still include them.
+ * With sharding every shard is cleaned in parallel. Each deletion is recorded in the booking ledger
+ * and the outbox. Ended hourly bookings are deleted in bulk without archiving. With several nodes
+ * a database lease lets only one of them clean up at a time. Only ended bookings are removed, so
+ * no waiting request can use what they free; waitlist requests whose start has passed expire.
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class BookingCleanupScheduler {
-    
+
+    private static final String CLEANUP_LEASE = "booking-cleanup";
+
     private final BookingRepository bookingRepository;
+    private final HourlyBookingRepository hourlyBookingRepository;
+    private final BookingSeriesRepository bookingSeriesRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final DataVersionTracker dataVersionTracker;
+    private final BookingMetrics bookingMetrics;
+    private final UtilisationService utilisationService;
+    private final ShardRouter shardRouter;
+    private final BookingLedger bookingLedger;
+    private final WriteBehindBookingWriter writeBehindBookingWriter;
+    private final OutboxWriter outboxWriter;
+    private final ChangeFeed changeFeed;
+    private final LeaseManager leaseManager;
+    private final TransactionOperations transactionOperations;
+    private final WaitlistService waitlistService;
 
     @Scheduled(cron = "0 0 2 * * *")
-    @Transactional
     public void cleanupExpiredBookings() {
-        log.info("Starting scheduled cleanup of expired bookings...");
-
-        LocalDateTime now = LocalDateTime.now();
-        List<Booking> allBookings = bookingRepository.findAll();
-
-        int deletedCount = 0;
-        for (Booking booking : allBookings) {
-            LocalDateTime bookingEndDate = booking.getBookingEndDate();
-
-            if (bookingEndDate.isBefore(now)) {
-                extracted(booking, bookingEndDate);
-                bookingRepository.delete(booking);
-                deletedCount++;
-            }
-        }
-
-        log.info("Completed cleanup. Deleted {} expired booking(s)", deletedCount);
+        // One run per day across the cluster; another node takes over if this one dies mid-run
+        leaseManager.runOnce(CLEANUP_LEASE, LocalDate.now().toString(), lease -> {
+            log.info("Starting scheduled cleanup of expired bookings...");
+            int deletedCount = cleanup(lease);
+            log.info("Completed cleanup. Deleted {} expired booking(s)", deletedCount);
+        });
     }
 
     /**
      * Manual cleanup method that can be called on-demand
      * Useful for testing or manual triggers
      */
-    @Transactional
     public int cleanupExpiredBookingsManually() {
         log.info("Manual cleanup of expired bookings triggered...");
 
+        int deletedCount = leaseManager.runExclusively(CLEANUP_LEASE, this::cleanup)
+                .orElseThrow(() -> new LeaseUnavailableException("The booking cleanup is already running on another node"));
+
+        log.info("Manual cleanup completed. Deleted {} expired booking(s)", deletedCount);
+        return deletedCount;
+    }
+
+    private int cleanup(Lease lease) {
+        long start = System.nanoTime();
         LocalDateTime now = LocalDateTime.now();
-        List<Booking> allBookings = bookingRepository.findAll();
+        writeBehindBookingWriter.drain();
+        int deletedCount = transactionOperations.execute(status -> {
+            // Each shard commits in its own transaction, so the fence is checked before any of them
+            // and its lock on the lease row, held until this transaction ends, keeps another node
+            // from taking the lease over while they commit
+            leaseManager.checkFence(lease);
+            int deleted = shardRouter.fanOut(false, shard -> cleanupShard(now)).stream()
+                    .mapToInt(Integer::intValue)
+                    .sum();
+            if (deleted > 0) {
+                dataVersionTracker.bookingsChanged();
+            }
+            return deleted;
+        });
 
+        bookingMetrics.recordCleanup(System.nanoTime() - start, deletedCount);
+        // Expired bookings keep counting in past utilisation; only totals beyond retention go
+        utilisationService.pruneExpired();
+        waitlistService.expireStarted(now);
+        return deletedCount;
+    }
+
+    private int cleanupShard(LocalDateTime now) {
         int deletedCount = 0;
-        for (Booking booking : allBookings) {
+        for (Booking booking : bookingRepository.findAll()) {
             LocalDateTime bookingEndDate = booking.getBookingEndDate();
 
             if (bookingEndDate.isBefore(now)) {
                 extracted(booking, bookingEndDate);
+                archivedBookingRepository.save(ArchivedBooking.of(booking, now));
                 bookingRepository.delete(booking);
+                bookingLedger.expired(booking);
+                outboxWriter.bookingExpired(booking);
+                changeFeed.bookingChanged(booking.getId());
+                writeBehindBookingWriter.released(booking.getId());
                 deletedCount++;
             }
         }
-
-        log.info("Manual cleanup completed. Deleted {} expired booking(s)", deletedCount);
+        // Series whose last occurrence has gone
+        bookingSeriesRepository.deleteWithoutBookings();
+        for (HourlyBooking booking : hourlyBookingRepository.findEndedBefore(now)) {
+            hourlyBookingRepository.delete(booking);
+            outboxWriter.hourlyBookingExpired(booking);
+            changeFeed.hourlyBookingChanged(booking.getId());
+            deletedCount++;
+        }
         return deletedCount;
     }
 
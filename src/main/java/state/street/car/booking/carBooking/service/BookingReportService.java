@@ -0,0 +1,202 @@
+package state.street.car.booking.carBooking.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import state.street.car.booking.carBooking.config.ReportingProperties;
+import state.street.car.booking.carBooking.datasource.ShardRouter;
+import state.street.car.booking.carBooking.dto.BookingReportRowDTO;
+import state.street.car.booking.carBooking.enums.CarType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Revenue, booking counts and lead times per month and CarType over live and archived
+ * bookings. The requested range is split recursively, by booking date or by car shard, into
+ * slices that are aggregated in the database concurrently on a dedicated fork/join pool;
+ * the partial results are then merged.
+ * <p>
+ * Revenue is priced at the car's current daily rate for live bookings and at the rate copied
+ * on archiving for archived ones.
+ */
+@Service
+@Slf4j
+public class BookingReportService {
+
+    public enum Split {
+        DATE,
+        CAR
+    }
+
+    private static final String SLICE_SQL =
+            "SELECT YEAR(s.booking_date), MONTH(s.booking_date), s.car_type, COUNT(*), " +
+            "SUM(s.cost_per_day * s.duration), SUM(DATEDIFF('MINUTE', s.created_at, s.booking_date)) FROM (" +
+            "SELECT b.booking_date, b.duration, b.created_at, c.type AS car_type, c.cost_per_day " +
+            "FROM bookings b JOIN cars c ON c.id = b.car_id WHERE %1$s " +
+            "UNION ALL " +
+            "SELECT a.booking_date, a.duration, a.created_at, a.car_type, a.cost_per_day " +
+            "FROM booking_archive a WHERE %2$s) s " +
+            "GROUP BY YEAR(s.booking_date), MONTH(s.booking_date), s.car_type";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReportingProperties reportingProperties;
+    private final ShardRouter shardRouter;
+    private final ForkJoinPool pool;
+
+    public BookingReportService(JdbcTemplate jdbcTemplate, ReportingProperties reportingProperties, ShardRouter shardRouter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reportingProperties = reportingProperties;
+        this.shardRouter = shardRouter;
+        this.pool = new ForkJoinPool(reportingProperties.getParallelism());
+    }
+
+    public List<BookingReportRowDTO> generate(LocalDate from, LocalDate to, Split split) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        long start = System.nanoTime();
+        LocalDateTime rangeStart = from.atStartOfDay();
+        LocalDateTime rangeEnd = to.plusDays(1).atStartOfDay();
+        SliceTask root = split == Split.CAR
+                ? new SliceTask(rangeStart, rangeEnd, 0, reportingProperties.getCarShards(), true)
+                : new SliceTask(rangeStart, rangeEnd, 0, 0, false);
+        Partial result = pool.invoke(root);
+
+        List<BookingReportRowDTO> rows = new ArrayList<>(result.totals.size());
+        result.totals.forEach((key, totals) -> rows.add(new BookingReportRowDTO(key.month(), key.carType(), totals[0],
+                BigDecimal.valueOf(totals[1], 2),
+                BigDecimal.valueOf(totals[2]).divide(BigDecimal.valueOf(totals[0] * 60), 2, RoundingMode.HALF_UP))));
+        rows.sort(Comparator.comparing(BookingReportRowDTO::getMonth).thenComparing(BookingReportRowDTO::getCarType));
+
+        log.info("Booking report {} to {} split by {}: {} slice(s), {} row(s) in {} ms", from, to, split,
+                result.slices, rows.size(), (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+
+    public String toCsv(List<BookingReportRowDTO> rows) {
+        StringBuilder csv = new StringBuilder("month,car_type,bookings,revenue,average_lead_time_hours\n");
+        for (BookingReportRowDTO row : rows) {
+            csv.append(row.getMonth()).append(',')
+                    .append(row.getCarType()).append(',')
+                    .append(row.getBookings()).append(',')
+                    .append(row.getRevenue().toPlainString()).append(',')
+                    .append(row.getAverageLeadTimeHours().toPlainString()).append('\n');
+        }
+        return csv.toString();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private Partial aggregateSlice(LocalDateTime start, LocalDateTime end, int shardFrom, int shardTo, boolean byCar) {
+        String bookingFilter = "b.booking_date >= ? AND b.booking_date < ?";
+        String archiveFilter = "a.booking_date >= ? AND a.booking_date < ?";
+        List<Object> args = new ArrayList<>(List.of(Timestamp.valueOf(start), Timestamp.valueOf(end)));
+        if (byCar) {
+            bookingFilter += " AND MOD(b.car_id, ?) >= ? AND MOD(b.car_id, ?) < ?";
+            archiveFilter += " AND MOD(a.car_id, ?) >= ? AND MOD(a.car_id, ?) < ?";
+            int shards = reportingProperties.getCarShards();
+            args.addAll(List.of(shards, shardFrom, shards, shardTo));
+        }
+        List<Object> allArgs = new ArrayList<>(args);
+        allArgs.addAll(args);
+
+        String sql = String.format(SLICE_SQL, bookingFilter, archiveFilter);
+
+        // The slice covers every booking shard
+        Partial partial = new Partial();
+        for (Partial shardPartial : shardRouter.fanOut(true, shard -> {
+            Partial result = new Partial();
+            jdbcTemplate.query(sql, rs -> {
+                Key key = new Key(YearMonth.of(rs.getInt(1), rs.getInt(2)), CarType.valueOf(rs.getString(3)));
+                long[] totals = result.totals.computeIfAbsent(key, k -> new long[3]);
+                totals[0] += rs.getLong(4);
+                totals[1] += TariffTable.toMinorUnits(rs.getBigDecimal(5));
+                totals[2] += rs.getLong(6);
+            }, allArgs.toArray());
+            return result;
+        })) {
+            partial.mergeTotals(shardPartial);
+        }
+        return partial;
+    }
+
+    private record Key(YearMonth month, CarType carType) {
+    }
+
+    /**
+     * Per month and type: bookings, revenue in minor units, summed lead time in minutes
+     */
+    private static final class Partial {
+        private final Map<Key, long[]> totals = new HashMap<>();
+        private int slices = 1;
+
+        private Partial merge(Partial other) {
+            mergeTotals(other);
+            slices += other.slices;
+            return this;
+        }
+
+        private void mergeTotals(Partial other) {
+            other.totals.forEach((key, values) -> {
+                long[] totals = this.totals.computeIfAbsent(key, k -> new long[3]);
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += values[i];
+                }
+            });
+        }
+    }
+
+    private final class SliceTask extends RecursiveTask<Partial> {
+
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final int shardFrom;
+        private final int shardTo;
+        private final boolean byCar;
+
+        private SliceTask(LocalDateTime start, LocalDateTime end, int shardFrom, int shardTo, boolean byCar) {
+            this.start = start;
+            this.end = end;
+            this.shardFrom = shardFrom;
+            this.shardTo = shardTo;
+            this.byCar = byCar;
+        }
+
+        @Override
+        protected Partial compute() {
+            SliceTask left;
+            SliceTask right;
+            if (byCar && shardTo - shardFrom > 1) {
+                int middle = (shardFrom + shardTo) >>> 1;
+                left = new SliceTask(start, end, shardFrom, middle, true);
+                right = new SliceTask(start, end, middle, shardTo, true);
+            } else if (!byCar && ChronoUnit.DAYS.between(start, end) > reportingProperties.getSliceDays()) {
+                LocalDateTime middle = start.plusDays(ChronoUnit.DAYS.between(start, end) / 2);
+                left = new SliceTask(start, middle, 0, 0, false);
+                right = new SliceTask(middle, end, 0, 0, false);
+            } else {
+                return aggregateSlice(start, end, shardFrom, shardTo, byCar);
+            }
+            left.fork();
+            Partial result = right.compute();
+            return result.merge(left.join());
+        }
+    }
+}
@@ -2,19 +2,31 @@ package state.street.car.booking.carBooking.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+import state.street.car.booking.carBooking.cluster.ChangeFeed;
+import state.street.car.booking.carBooking.datasource.ShardRouter;
 import state.street.car.booking.carBooking.dto.BookingDTO;
 import state.street.car.booking.carBooking.dto.BookingRequest;
 import state.street.car.booking.carBooking.entity.Booking;
 import state.street.car.booking.carBooking.entity.Car;
 import state.street.car.booking.carBooking.entity.User;
+import state.street.car.booking.carBooking.enums.CarType;
 import state.street.car.booking.carBooking.exception.BookingConflictException;
 import state.street.car.booking.carBooking.exception.ResourceNotFoundException;
+import state.street.car.booking.carBooking.hourly.HourSlotIndex;
+import state.street.car.booking.carBooking.ledger.BookingLedger;
+import state.street.car.booking.carBooking.ledger.WriteBehindBookingWriter;
+import state.street.car.booking.carBooking.metrics.BookingMetrics;
+import state.street.car.booking.carBooking.outbox.OutboxWriter;
 import state.street.car.booking.carBooking.repository.BookingRepository;
 import state.street.car.booking.carBooking.repository.CarRepository;
+import state.street.car.booking.carBooking.repository.HourlyBookingRepository;
 import state.street.car.booking.carBooking.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -26,46 +38,82 @@ public class BookingService {
     private final BookingRepository bookingRepository;
     private final CarRepository carRepository;
     private final UserRepository userRepository;
+    private final DataVersionTracker dataVersionTracker;
+    private final BookingMetrics bookingMetrics;
+    private final UtilisationService utilisationService;
+    private final ShardRouter shardRouter;
+    private final BookingLedger bookingLedger;
+    private final WriteBehindBookingWriter writeBehindBookingWriter;
+    private final TransactionOperations transactionOperations;
+    private final OutboxWriter outboxWriter;
+    private final ChangeFeed changeFeed;
+    private final HourSlotIndex hourSlotIndex;
+    private final HourlyBookingRepository hourlyBookingRepository;
+    private final WaitlistService waitlistService;
     
+    @Transactional(readOnly = true)
     public List<BookingDTO> getAllBookings() {
-        return bookingRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return shardRouter.fanOutAndMerge(shard -> bookingRepository.findAllBookingDTOs(),
+                Comparator.comparing(BookingDTO::getId));
     }
 
+    @Transactional(readOnly = true)
     public List<BookingDTO> getBookingsByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
-        return bookingRepository.findBookingsByDateRange(startDate, endDate).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return shardRouter.fanOutAndMerge(shard -> bookingRepository.findBookingDTOsByDateRange(startDate, endDate),
+                Comparator.comparing(BookingDTO::getBookingDate));
     }
     
+    @Transactional(readOnly = true)
     public BookingDTO getBookingById(Long id) {
+        shardRouter.bindToBooking(id);
         Booking booking = bookingRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Booking not found with id: " + id));
         return convertToDTO(booking);
     }
     
+    @Transactional(readOnly = true)
     public List<BookingDTO> getBookingsByUserId(Long userId) {
-        return bookingRepository.findByUserId(userId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return shardRouter.fanOutAndMerge(shard -> bookingRepository.findBookingDTOsByUserId(userId),
+                Comparator.comparing(BookingDTO::getId));
     }
 
+    @Transactional(readOnly = true)
     public List<BookingDTO> getBookingsByUsername(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
-        return bookingRepository.findByUserId(user.getId()).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return shardRouter.fanOutAndMerge(shard -> bookingRepository.findBookingDTOsByUserId(user.getId()),
+                Comparator.comparing(BookingDTO::getId));
     }
     
+    @Transactional(readOnly = true)
     public List<BookingDTO> getBookingsByCarId(Long carId) {
-        return bookingRepository.findByCarId(carId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        shardRouter.bindToCar(carId);
+        return bookingRepository.findBookingDTOsByCarId(carId);
     }
     
+    /**
+     * With write-behind enabled the booking is accepted without a database transaction, so
+     * none is opened here unless the caller already has one
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public BookingDTO createBooking(BookingRequest request, String username) {
+        return createBooking(request, username, false);
+    }
+
+    /**
+     * As createBooking, letting the re-packing job move the booking from the start when
+     * allowReassignment is set
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public BookingDTO createBooking(BookingRequest request, String username, boolean allowReassignment) {
+        if (writeBehindBookingWriter.isEnabled()) {
+            return writeBehindBookingWriter.createBooking(request, username, allowReassignment);
+        }
+        return transactionOperations.execute(status -> createBookingInTransaction(request, username, allowReassignment));
+    }
+
+    private BookingDTO createBookingInTransaction(BookingRequest request, String username, boolean allowReassignment) {
+        shardRouter.bindToCar(request.getCarId());
         Car car = carRepository.findById(request.getCarId())
                 .orElseThrow(() -> new ResourceNotFoundException("Car not found with id: " + request.getCarId()));
 
@@ -80,21 +128,50 @@ public class BookingService {
         );
         
         if (!conflictingBookings.isEmpty()) {
+            bookingMetrics.recordConflict(car.getType());
             throw new BookingConflictException(
                     "Car is not available for the requested period. " +
                     "There are " + conflictingBookings.size() + " conflicting booking(s)."
             );
         }
+        rejectHourlyOverlap(car, request.getBookingDate(), endDate);
 
         Booking booking = new Booking(car, user, request.getBookingDate(), request.getDuration());
+        if (allowReassignment) {
+            booking.setAllowReassignment(true);
+        }
         Booking savedBooking = bookingRepository.save(booking);
+        hourSlotIndex.dayBookingSaved(savedBooking);
+        utilisationService.bookingAdded(car.getType(), savedBooking.getBookingDate(), savedBooking.getDuration());
+        bookingLedger.created(savedBooking);
+        outboxWriter.bookingCreated(savedBooking);
+        changeFeed.bookingChanged(savedBooking.getId());
+        dataVersionTracker.bookingsChanged();
         
         return convertToDTO(savedBooking);
     }
     
+    /**
+     * Waits for write-behind bookings to reach the database before opening the transaction, so
+     * the wait does not hold a connection the flusher needs
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public BookingDTO updateBooking(Long id, BookingRequest request) {
+        writeBehindBookingWriter.drain();
+        return transactionOperations.execute(status -> updateBookingInTransaction(id, request));
+    }
+
+    private BookingDTO updateBookingInTransaction(Long id, BookingRequest request) {
+        shardRouter.bindToBooking(id);
+        if (shardRouter.shardForCar(request.getCarId()) != shardRouter.shardForBooking(id)) {
+            throw new IllegalArgumentException("The booking cannot move to a car on another shard; cancel it and book again");
+        }
         Booking booking = bookingRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Booking not found with id: " + id));
+        Car previousCar = booking.getCar();
+        CarType previousType = previousCar.getType();
+        LocalDateTime previousDate = booking.getBookingDate();
+        int previousDuration = booking.getDuration();
 
         if (!booking.getCar().getId().equals(request.getCarId())) {
             Car newCar = carRepository.findById(request.getCarId())
@@ -112,20 +189,38 @@ public class BookingService {
          .collect(Collectors.toList());
         
         if (!conflictingBookings.isEmpty()) {
+            bookingMetrics.recordConflict(booking.getCar().getType());
             throw new BookingConflictException(
                     "Car is not available for the requested period. " +
                     "There are " + conflictingBookings.size() + " conflicting booking(s)."
             );
         }
+        rejectHourlyOverlap(booking.getCar(), request.getBookingDate(), endDate);
         
         booking.setBookingDate(request.getBookingDate());
         booking.setDuration(request.getDuration());
+        writeBehindBookingWriter.reserve(booking);
         
         Booking updatedBooking = bookingRepository.save(booking);
+        hourSlotIndex.dayBookingSaved(updatedBooking);
+        utilisationService.bookingRemoved(previousType, previousDate, previousDuration);
+        utilisationService.bookingAdded(updatedBooking.getCar().getType(), updatedBooking.getBookingDate(), updatedBooking.getDuration());
+        bookingLedger.updated(updatedBooking);
+        outboxWriter.bookingUpdated(updatedBooking);
+        changeFeed.bookingChanged(id);
+        waitlistService.capacityFreed(previousCar, previousDate, previousDate.plusDays(previousDuration));
+        dataVersionTracker.bookingsChanged();
         return convertToDTO(updatedBooking);
     }
     
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void deleteBooking(Long id, String username) {
+        writeBehindBookingWriter.drain();
+        transactionOperations.executeWithoutResult(status -> deleteBookingInTransaction(id, username));
+    }
+
+    private void deleteBookingInTransaction(Long id, String username) {
+        shardRouter.bindToBooking(id);
         Booking booking = bookingRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Booking not found with id: " + id));
 
@@ -141,9 +236,49 @@ public class BookingService {
         }
 
         bookingRepository.deleteById(id);
+        hourSlotIndex.dayBookingRemoved(id);
+        utilisationService.bookingRemoved(booking.getCar().getType(), booking.getBookingDate(), booking.getDuration());
+        bookingLedger.cancelled(booking);
+        outboxWriter.bookingCancelled(booking);
+        changeFeed.bookingChanged(id);
+        writeBehindBookingWriter.released(id);
+        waitlistService.capacityFreed(booking.getCar(), booking.getBookingDate(), booking.getBookingEndDate());
+        dataVersionTracker.bookingsChanged();
     }
     
+    /**
+     * Lets the re-packing job move the booking to another car of the same type, or stops it
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void setAllowReassignment(Long id, boolean allowed, String username) {
+        writeBehindBookingWriter.drain();
+        transactionOperations.executeWithoutResult(status -> setAllowReassignmentInTransaction(id, allowed, username));
+    }
+
+    private void setAllowReassignmentInTransaction(Long id, boolean allowed, String username) {
+        shardRouter.bindToBooking(id);
+        Booking booking = bookingRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Booking not found with id: " + id));
+
+        User requestingUser = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
+
+        boolean isOwner = booking.getUser().getId().equals(requestingUser.getId());
+        boolean isAdmin = requestingUser.getRoles().stream()
+                .anyMatch(role -> role.getName().equals("ROLE_ADMIN"));
+
+        if (!isOwner && !isAdmin) {
+            throw new IllegalStateException("You can only change your own bookings");
+        }
+        if (allowed && booking.getSeriesId() != null) {
+            throw new IllegalArgumentException("Occurrences of a recurring booking stay on the series' car");
+        }
+        booking.setAllowReassignment(allowed);
+    }
+
+    @Transactional(readOnly = true)
     public boolean isCarAvailable(Long carId, LocalDateTime startDate, Integer duration) {
+        shardRouter.bindToCar(carId);
         LocalDateTime endDate = startDate.plusDays(duration);
         List<Booking> conflictingBookings = bookingRepository.findConflictingBookings(
                 carId,
@@ -153,6 +288,21 @@ public class BookingService {
         return conflictingBookings.isEmpty();
     }
     
+    /**
+     * Day bookings may not cover hours already booked by the hour. The index answers for this
+     * node; the database for hour bookings made elsewhere that the change feed has not brought yet.
+     */
+    private void rejectHourlyOverlap(Car car, LocalDateTime startDate, LocalDateTime endDate) {
+        if (!hourSlotIndex.isEnabled()) {
+            return;
+        }
+        if (hourSlotIndex.overlapsHourly(car.getId(), startDate, endDate)
+                || hourlyBookingRepository.countOverlapping(car.getId(), startDate, endDate) > 0) {
+            bookingMetrics.recordConflict(car.getType());
+            throw new BookingConflictException("Car is booked by the hour during the requested period.");
+        }
+    }
+
     private BookingDTO convertToDTO(Booking booking) {
         return new BookingDTO(
                 booking.getId(),
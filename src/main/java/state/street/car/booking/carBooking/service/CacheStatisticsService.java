@@ -0,0 +1,81 @@
+package state.street.car.booking.carBooking.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-region statistics for the Hibernate second-level and query caches.
+ * Hit/miss/put counts come from Hibernate and are left out unless carbooking.cache.statistics-enabled
+ * turns Hibernate statistics on; evictions come from the JCache statistics MBeans.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CacheStatisticsService {
+
+    private static final List<String> DOMAIN_REGIONS = List.of("car", "role", "user-roles");
+    private static final String QUERY_REGION = "default-query-results-region";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public Map<String, Map<String, Object>> getRegionStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        boolean enabled = statistics.isStatisticsEnabled();
+
+        Map<String, Map<String, Object>> regions = new LinkedHashMap<>();
+        for (String region : DOMAIN_REGIONS) {
+            regions.put(region, toMap(region, enabled ? statistics.getDomainDataRegionStatistics(region) : null));
+        }
+        regions.put(QUERY_REGION, toMap(QUERY_REGION, enabled ? statistics.getQueryRegionStatistics(QUERY_REGION) : null));
+        return regions;
+    }
+
+    /**
+     * Drops every cached entity, collection and query result, e.g. after data is changed outside Hibernate
+     */
+    public void evictAll() {
+        entityManagerFactory.getCache().evictAll();
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+    }
+
+    private Map<String, Object> toMap(String region, CacheRegionStatistics regionStatistics) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        if (regionStatistics != null) {
+            stats.put("hits", regionStatistics.getHitCount());
+            stats.put("misses", regionStatistics.getMissCount());
+            stats.put("puts", regionStatistics.getPutCount());
+            stats.put("elementsInMemory", regionStatistics.getElementCountInMemory());
+        }
+        stats.put("evictions", readEvictions(region));
+        return stats;
+    }
+
+    private long readEvictions(String region) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            Set<ObjectName> names = server.queryNames(
+                    new ObjectName("javax.cache:type=CacheStatistics,Cache=" + region + ",*"), null);
+            long evictions = 0;
+            for (ObjectName name : names) {
+                evictions += (Long) server.getAttribute(name, "CacheEvictions");
+            }
+            return evictions;
+        } catch (Exception e) {
+            log.debug("Could not read JCache eviction statistics for region {}", region, e);
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package state.street.car.booking.carBooking.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import state.street.car.booking.carBooking.allocation.AllocationProperties;
+import state.street.car.booking.carBooking.allocation.FleetCalendar;
+import state.street.car.booking.carBooking.datasource.ShardRouter;
+import state.street.car.booking.carBooking.dto.BookingDTO;
+import state.street.car.booking.carBooking.dto.BookingRequest;
+import state.street.car.booking.carBooking.dto.CarDTO;
+import state.street.car.booking.carBooking.dto.TypeBookingDTO;
+import state.street.car.booking.carBooking.dto.TypeBookingRequest;
+import state.street.car.booking.carBooking.enums.CarType;
+import state.street.car.booking.carBooking.exception.BookingConflictException;
+import state.street.car.booking.carBooking.ledger.WriteBehindBookingWriter;
+import state.street.car.booking.carBooking.metrics.BookingMetrics;
+import state.street.car.booking.carBooking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Books any car of a type. The cars' bookings around the requested period are loaded into a
+ * FleetCalendar and the car whose free gap holds the period most tightly is booked, keeping
+ * long gaps for long rentals. If another request takes that car first, the next tightest is
+ * tried; cars with equal gaps are tried in random order, so concurrent requests spread out.
+ * The car was not the user's choice, so the re-packing job may move the booking to another car
+ * of the type later.
+ */
+@Service
+@RequiredArgsConstructor
+public class CarAllocationService {
+
+    private final BookingService bookingService;
+    private final CarService carService;
+    private final BookingRepository bookingRepository;
+    private final ShardRouter shardRouter;
+    private final BookingMetrics bookingMetrics;
+    private final WriteBehindBookingWriter writeBehindBookingWriter;
+    private final AllocationProperties properties;
+
+    public TypeBookingDTO createBookingForType(TypeBookingRequest request, String username) {
+        if (request.getCarType() == null || request.getBookingDate() == null) {
+            throw new IllegalArgumentException("Give the car type and booking date");
+        }
+        if (request.getDuration() == null || request.getDuration() < 1) {
+            throw new IllegalArgumentException("Bookings last at least one day");
+        }
+        LocalDateTime start = request.getBookingDate();
+        LocalDateTime end = start.plusDays(request.getDuration());
+        // Bookings accepted write-behind are not in the database yet
+        writeBehindBookingWriter.drain();
+        FleetCalendar calendar = load(request.getCarType(), start.minusDays(properties.getWindowDays()),
+                end.plusDays(properties.getWindowDays()));
+        FleetCalendar.Fragmentation before = calendar.fragmentation();
+
+        for (Long carId : calendar.bestFit(start, end)) {
+            BookingDTO booking;
+            try {
+                booking = bookingService.createBooking(new BookingRequest(carId, start, request.getDuration()), username, true);
+            } catch (BookingConflictException e) {
+                // Taken since the calendar was read, or booked by the hour
+                continue;
+            }
+            calendar.add(carId, start, end);
+            return new TypeBookingDTO(booking, before, calendar.fragmentation());
+        }
+        bookingMetrics.recordConflict(request.getCarType());
+        throw new BookingConflictException("No " + request.getCarType() + " is available for the requested period.");
+    }
+
+    /**
+     * How the free time of the type's cars over [from, to) is split into gaps
+     */
+    public FleetCalendar.Fragmentation fragmentation(CarType type, LocalDateTime from, LocalDateTime to) {
+        writeBehindBookingWriter.drain();
+        return load(type, from, to).fragmentation();
+    }
+
+    private FleetCalendar load(CarType type, LocalDateTime from, LocalDateTime to) {
+        FleetCalendar calendar = new FleetCalendar(from, to,
+                carService.getCarsByTypeSimple(type).stream().map(CarDTO::getId).toList());
+        // Each shard holds the bookings of its own cars only
+        shardRouter.fanOut(true, shard -> bookingRepository.findIntervalsByCarType(type, from, to))
+                .forEach(bookings -> bookings.forEach(calendar::add));
+        return calendar;
+    }
+}
@@ -0,0 +1,159 @@
+package state.street.car.booking.carBooking.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import state.street.car.booking.carBooking.enums.CarType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caches the simple car list responses (all cars and one per CarType) as ready-to-send
+ * UTF-8 JSON bytes plus a gzip copy. Entries are stamped with the car version they were
+ * built from, so any committed car mutation in CarService invalidates them.
+ */
+@Component
+@RequiredArgsConstructor
+public class CarListResponseCache {
+
+    private static final int ALL_CARS_SLOT = CarType.values().length;
+
+    private final CarService carService;
+    private final ObjectMapper objectMapper;
+    private final DataVersionTracker dataVersionTracker;
+
+    private final AtomicReferenceArray<Entry> slots = new AtomicReferenceArray<>(CarType.values().length + 1);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bytesServedFromCache = new LongAdder();
+    private final LongAdder bytesEncoded = new LongAdder();
+
+    /**
+     * Returns the encoded response for the given type, or for all cars when type is null
+     */
+    public Entry get(CarType type) {
+        int slot = slot(type);
+        // Read the version before loading so a concurrent mutation leaves this entry stale
+        long version = dataVersionTracker.getCarVersion();
+        Entry entry = cached(slot, version);
+        return entry != null ? entry : load(type, slot, version);
+    }
+
+    /**
+     * Returns the body to send for the given type in the chosen encoding, counting it as
+     * served from the cache only when the entry was already there
+     */
+    public byte[] body(CarType type, boolean gzip) {
+        int slot = slot(type);
+        long version = dataVersionTracker.getCarVersion();
+        Entry entry = cached(slot, version);
+        if (entry == null) {
+            entry = load(type, slot, version);
+            return gzip ? entry.gzip() : entry.json();
+        }
+        byte[] body = gzip ? entry.gzip() : entry.json();
+        bytesServedFromCache.add(body.length);
+        return body;
+    }
+
+    /**
+     * Whether an Accept-Encoding header allows gzip: listed as gzip or x-gzip, or covered by
+     * "*" when not listed, with a q-value above zero
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            double quality = quality(parts);
+            if (name.equalsIgnoreCase("gzip") || name.equalsIgnoreCase("x-gzip")) {
+                gzipQuality = gzipQuality == null ? quality : Math.max(gzipQuality, quality);
+            } else if (name.equals("*")) {
+                anyQuality = quality;
+            }
+        }
+        Double effective = gzipQuality != null ? gzipQuality : anyQuality;
+        return effective != null && effective > 0;
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("bytesServedFromCache", bytesServedFromCache.sum());
+        stats.put("bytesEncoded", bytesEncoded.sum());
+        return stats;
+    }
+
+    private static int slot(CarType type) {
+        return type == null ? ALL_CARS_SLOT : type.ordinal();
+    }
+
+    private Entry cached(int slot, long version) {
+        Entry entry = slots.get(slot);
+        if (entry != null && entry.version() == version) {
+            hits.increment();
+            return entry;
+        }
+        return null;
+    }
+
+    private Entry load(CarType type, int slot, long version) {
+        misses.increment();
+        Entry entry = encode(type, version);
+        slots.set(slot, entry);
+        return entry;
+    }
+
+    private Entry encode(CarType type, long version) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(
+                    type == null ? carService.getAllCarsSimple() : carService.getCarsByTypeSimple(type));
+            byte[] gzip = gzip(json);
+            bytesEncoded.add(json.length + gzip.length);
+            return new Entry(version, json, gzip);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode car list", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public record Entry(long version, byte[] json, byte[] gzip) {
+    }
+}
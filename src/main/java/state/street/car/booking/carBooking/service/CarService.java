@@ -3,17 +3,23 @@ package state.street.car.booking.carBooking.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import state.street.car.booking.carBooking.cluster.ChangeFeed;
+import state.street.car.booking.carBooking.datasource.ShardRouter;
 import state.street.car.booking.carBooking.dto.CarDTO;
 import state.street.car.booking.carBooking.entity.Booking;
 import state.street.car.booking.carBooking.entity.Car;
 import state.street.car.booking.carBooking.enums.CarType;
 import state.street.car.booking.carBooking.exception.ResourceNotFoundException;
+import state.street.car.booking.carBooking.ledger.WriteBehindBookingWriter;
+import state.street.car.booking.carBooking.outbox.OutboxWriter;
 import state.street.car.booking.carBooking.repository.BookingRepository;
 import state.street.car.booking.carBooking.repository.CarRepository;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,32 +29,38 @@ public class CarService {
 
     private final CarRepository carRepository;
     private final BookingRepository bookingRepository;
+    private final DataVersionTracker dataVersionTracker;
+    private final ShardRouter shardRouter;
+    private final OutboxWriter outboxWriter;
+    private final ChangeFeed changeFeed;
+    private final WriteBehindBookingWriter writeBehindBookingWriter;
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
     
+    @Transactional(readOnly = true)
     public List<CarDTO> getAllCars() {
-        return carRepository.findAll().stream()
-                .map(this::convertToDTOWithBookingInfo)
-                .collect(Collectors.toList());
+        return shardRouter.mapOnCarShards(carRepository.findAll(), Car::getId, this::convertToDTOWithBookingInfo);
     }
 
+    @Transactional(readOnly = true)
     public List<CarDTO> getAllCarsSimple() {
         return carRepository.findAll().stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<CarDTO> getCarsByType(CarType type) {
-        return carRepository.findByType(type).stream()
-                .map(this::convertToDTOWithBookingInfo)
-                .collect(Collectors.toList());
+        return shardRouter.mapOnCarShards(carRepository.findByType(type), Car::getId, this::convertToDTOWithBookingInfo);
     }
 
+    @Transactional(readOnly = true)
     public List<CarDTO> getCarsByTypeSimple(CarType type) {
         return carRepository.findByType(type).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
     
+    @Transactional(readOnly = true)
     public CarDTO getCarById(Long id) {
         Car car = carRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Car not found with id: " + id));
@@ -63,6 +75,10 @@ public class CarService {
                 carDTO.getCapacity()
         );
         Car savedCar = carRepository.save(car);
+        outboxWriter.carCreated(savedCar);
+        changeFeed.carChanged(savedCar.getId());
+        dataVersionTracker.carsChanged();
+        shardRouter.carsChanged();
         return convertToDTO(savedCar);
     }
     
@@ -76,6 +92,10 @@ public class CarService {
         car.setCapacity(carDTO.getCapacity());
         
         Car updatedCar = carRepository.save(car);
+        outboxWriter.carUpdated(updatedCar);
+        changeFeed.carChanged(id);
+        dataVersionTracker.carsChanged();
+        shardRouter.carsChanged();
         return convertToDTO(updatedCar);
     }
     
@@ -84,50 +104,65 @@ public class CarService {
             throw new ResourceNotFoundException("Car not found with id: " + id);
         }
 
-        List<Booking> activeBookings = bookingRepository.findActiveBookingsForCar(id, LocalDateTime.now());
-        if (!activeBookings.isEmpty()) {
+        boolean hasActiveBookings = shardRouter.onShard(shardRouter.shardForCar(id), true,
+                () -> !bookingRepository.findActiveBookingsForCar(id, LocalDateTime.now()).isEmpty());
+        if (hasActiveBookings) {
             throw new IllegalStateException("Cannot delete car with active bookings. Please cancel all bookings first.");
         }
+        // Bookings accepted by write-behind may not have reached the database yet
+        writeBehindBookingWriter.carDeleted(id, LocalDateTime.now());
 
         carRepository.deleteById(id);
+        outboxWriter.carDeleted(id);
+        changeFeed.carChanged(id);
+        dataVersionTracker.carsChanged();
+        shardRouter.carsChanged();
     }
     
+    @Transactional(readOnly = true)
     public List<CarDTO> getAvailableCars(LocalDateTime startDate, Integer duration) {
         LocalDateTime endDate = startDate.plusDays(duration);
-        return carRepository.findAvailableCars(startDate, endDate).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return availableOnOwnShard(shard -> carRepository.findAvailableCars(startDate, endDate));
     }
     
+    @Transactional(readOnly = true)
     public List<CarDTO> getAvailableCarsByType(CarType type, LocalDateTime startDate, Integer duration) {
         LocalDateTime endDate = startDate.plusDays(duration);
-        return carRepository.findAvailableCarsByType(type, startDate, endDate).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return availableOnOwnShard(shard -> carRepository.findAvailableCarsByType(type, startDate, endDate));
     }
 
+    /**
+     * Every shard knows all cars but only its own bookings, so a car's availability is
+     * decided by the shard that owns it
+     */
+    private List<CarDTO> availableOnOwnShard(IntFunction<List<Car>> query) {
+        return shardRouter.fanOutAndMerge(shard -> query.apply(shard).stream()
+                        .filter(car -> shardRouter.shardForCar(car.getId()) == shard)
+                        .map(this::convertToDTO)
+                        .collect(Collectors.toList()),
+                Comparator.comparing(CarDTO::getId));
+    }
+
+    @Transactional(readOnly = true)
     public List<CarDTO> getAllCarsWithBookingInfo() {
-        return carRepository.findAll().stream()
-                .map(this::convertToDTOWithBookingInfo)
-                .collect(Collectors.toList());
+        return shardRouter.mapOnCarShards(carRepository.findAll(), Car::getId, this::convertToDTOWithBookingInfo);
     }
 
+    @Transactional(readOnly = true)
     public List<CarDTO> getCarsByTypeWithBookingInfo(CarType type) {
-        return carRepository.findByType(type).stream()
-                .map(this::convertToDTOWithBookingInfo)
-                .collect(Collectors.toList());
+        return shardRouter.mapOnCarShards(carRepository.findByType(type), Car::getId, this::convertToDTOWithBookingInfo);
     }
 
+    @Transactional(readOnly = true)
     public List<CarDTO> getAllCarsForPeriod(LocalDateTime startDate, Integer duration) {
-        return carRepository.findAll().stream()
-                .map(car -> convertToDTOWithBookingInfoForPeriod(car, startDate, duration))
-                .collect(Collectors.toList());
+        return shardRouter.mapOnCarShards(carRepository.findAll(), Car::getId,
+                car -> convertToDTOWithBookingInfoForPeriod(car, startDate, duration));
     }
 
+    @Transactional(readOnly = true)
     public List<CarDTO> getCarsByTypeForPeriod(CarType type, LocalDateTime startDate, Integer duration) {
-        return carRepository.findByType(type).stream()
-                .map(car -> convertToDTOWithBookingInfoForPeriod(car, startDate, duration))
-                .collect(Collectors.toList());
+        return shardRouter.mapOnCarShards(carRepository.findByType(type), Car::getId,
+                car -> convertToDTOWithBookingInfoForPeriod(car, startDate, duration));
     }
 
     private CarDTO convertToDTO(Car car) {
@@ -0,0 +1,81 @@
+package state.street.car.booking.carBooking.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonically increasing version counters for the car fleet and the booking ledger.
+ * Counters are bumped after the writing transaction commits, so a version is never
+ * observed before the data it describes. Used to derive strong ETags for list endpoints.
+ */
+@Component
+public class DataVersionTracker {
+
+    // Distinguishes ETags issued by different process lifetimes, since counters restart at zero
+    private final long epoch = System.currentTimeMillis();
+
+    private final AtomicLong carVersion = new AtomicLong();
+    private final AtomicLong bookingVersion = new AtomicLong();
+
+    public void carsChanged() {
+        afterCommit(carVersion::incrementAndGet);
+    }
+
+    public void bookingsChanged() {
+        afterCommit(bookingVersion::incrementAndGet);
+    }
+
+    public long getCarVersion() {
+        return carVersion.get();
+    }
+
+    public long getBookingVersion() {
+        return bookingVersion.get();
+    }
+
+    /**
+     * ETag for responses built from car data only
+     */
+    public String carsETag() {
+        return "\"" + epoch + "-c" + carVersion.get() + "\"";
+    }
+
+    /**
+     * ETag for car data sent in a content coding, distinct from the identity representation's
+     */
+    public String carsETag(String contentCoding) {
+        return "\"" + epoch + "-c" + carVersion.get() + "-" + contentCoding + "\"";
+    }
+
+    /**
+     * ETag for responses combining cars and bookings (availability, booking lists)
+     */
+    public String carsAndBookingsETag() {
+        return "\"" + epoch + "-c" + carVersion.get() + "-b" + bookingVersion.get() + "\"";
+    }
+
+    /**
+     * ETag for a per-user booking list; the owner is folded in so one client never
+     * revalidates against another user's representation of the same URL.
+     */
+    public String userBookingsETag(String username) {
+        return "\"" + epoch + "-c" + carVersion.get() + "-b" + bookingVersion.get()
+                + "-u" + Integer.toHexString(username.hashCode()) + "\"";
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
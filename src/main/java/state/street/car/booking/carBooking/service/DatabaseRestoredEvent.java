@@ -0,0 +1,8 @@
+package state.street.car.booking.carBooking.service;
+
+/**
+ * Published once a snapshot has replaced every table, so components holding state loaded from
+ * the old tables can load it again
+ */
+public record DatabaseRestoredEvent(String snapshot) {
+}
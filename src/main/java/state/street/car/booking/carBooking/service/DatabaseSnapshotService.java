@@ -0,0 +1,189 @@
+package state.street.car.booking.carBooking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import state.street.car.booking.carBooking.config.PersistenceProperties;
+import state.street.car.booking.carBooking.datasource.ShardRouter;
+import state.street.car.booking.carBooking.exception.ResourceNotFoundException;
+import state.street.car.booking.carBooking.ledger.WriteBehindBookingWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Compressed SQL dumps of the whole database via H2's SCRIPT / RUNSCRIPT.
+ * SCRIPT runs as a single statement, so the dump is a consistent snapshot even while bookings
+ * are being written. Restoring replaces every table and is meant for maintenance windows: it
+ * puts H2 in exclusive mode once no other session has a transaction open, so requests and
+ * schedulers wait until the restored tables are in place rather than writing into the old ones.
+ * Afterwards a DatabaseRestoredEvent has the in-memory indexes, views and cursors reloaded.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DatabaseSnapshotService {
+
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-\\d{8}-\\d{6}-\\d{3}\\.zip");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PersistenceProperties persistenceProperties;
+    private final CacheStatisticsService cacheStatisticsService;
+    private final DataVersionTracker dataVersionTracker;
+    private final WriteBehindBookingWriter writeBehindBookingWriter;
+    private final ShardRouter shardRouter;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public Map<String, Object> createSnapshot() {
+        Path file = snapshotDir().resolve("snapshot-" + LocalDateTime.now().format(NAME_FORMAT) + ".zip");
+        try {
+            Files.createDirectories(file.getParent());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        long start = System.nanoTime();
+        jdbcTemplate.execute("SCRIPT TO '" + sqlPath(file) + "' COMPRESSION ZIP");
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Wrote snapshot {} in {} ms", file.getFileName(), millis);
+
+        Map<String, Object> snapshot = describe(file);
+        snapshot.put("durationMs", millis);
+        return snapshot;
+    }
+
+    public List<Map<String, Object>> listSnapshots() {
+        Path dir = snapshotDir();
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Map<String, Object>> snapshots = new ArrayList<>();
+            files.filter(file -> SNAPSHOT_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted()
+                    .forEach(file -> snapshots.add(describe(file)));
+            return snapshots;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Map<String, Object> restoreSnapshot(String name) {
+        if (!SNAPSHOT_NAME.matcher(name).matches() || !Files.isRegularFile(snapshotDir().resolve(name))) {
+            throw new ResourceNotFoundException("Snapshot not found: " + name);
+        }
+        Path file = snapshotDir().resolve(name);
+        long millis = restore(file);
+
+        Map<String, Object> snapshot = describe(file);
+        snapshot.put("durationMs", millis);
+        return snapshot;
+    }
+
+    /**
+     * Replaces the whole database with the given dump and returns how long it took in milliseconds
+     */
+    public long restore(Path file) {
+        // Accepted bookings live in memory and the write-ahead log, beyond the reach of the lock
+        if (writeBehindBookingWriter.isEnabled()) {
+            throw new IllegalArgumentException("Snapshots cannot be restored while bookings are written behind");
+        }
+        // The dump covers shard 0 only and would reset its booking ids to steps of one
+        if (shardRouter.shardCount() > 1) {
+            throw new IllegalArgumentException("Snapshots cannot be restored while bookings are sharded");
+        }
+        long start = System.nanoTime();
+        // Exclusive mode belongs to one session, so every step runs on the same connection
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                lockOutOtherSessions(statement);
+                try {
+                    statement.execute("DROP ALL OBJECTS");
+                    statement.execute("RUNSCRIPT FROM '" + sqlPath(file.toAbsolutePath()) + "' COMPRESSION ZIP");
+                } finally {
+                    statement.execute("SET EXCLUSIVE 0");
+                }
+            }
+            return null;
+        });
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        // Everything cached was read from the replaced tables
+        cacheStatisticsService.evictAll();
+        dataVersionTracker.carsChanged();
+        dataVersionTracker.bookingsChanged();
+        eventPublisher.publishEvent(new DatabaseRestoredEvent(file.getFileName().toString()));
+        log.info("Restored snapshot {} in {} ms", file.getFileName(), millis);
+        return millis;
+    }
+
+    /**
+     * Enters exclusive mode, which pauses every other session's next statement, once none of them
+     * holds uncommitted changes; a transaction caught halfway is let through to finish first
+     */
+    private void lockOutOtherSessions(Statement statement) throws SQLException {
+        long deadline = System.currentTimeMillis() + persistenceProperties.getRestoreLockTimeoutMillis();
+        while (true) {
+            statement.execute("SET EXCLUSIVE 1");
+            boolean clear = false;
+            try (ResultSet open = statement.executeQuery(
+                    "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SESSIONS WHERE CONTAINS_UNCOMMITTED AND SESSION_ID <> SESSION_ID()")) {
+                open.next();
+                clear = open.getInt(1) == 0;
+            } finally {
+                if (!clear) {
+                    statement.execute("SET EXCLUSIVE 0");
+                }
+            }
+            if (clear) {
+                return;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Other sessions kept transactions open; the snapshot was not restored");
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting to restore the snapshot", e);
+            }
+        }
+    }
+
+    private Path snapshotDir() {
+        return Paths.get(persistenceProperties.getSnapshotDir()).toAbsolutePath().normalize();
+    }
+
+    private Map<String, Object> describe(Path file) {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("name", file.getFileName().toString());
+        try {
+            snapshot.put("sizeBytes", Files.size(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return snapshot;
+    }
+
+    private static String sqlPath(Path file) {
+        return file.toString().replace("'", "''");
+    }
+}
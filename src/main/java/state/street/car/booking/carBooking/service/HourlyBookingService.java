@@ -0,0 +1,160 @@
+package state.street.car.booking.carBooking.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import state.street.car.booking.carBooking.cluster.ChangeFeed;
+import state.street.car.booking.carBooking.datasource.ShardRouter;
+import state.street.car.booking.carBooking.dto.CarDTO;
+import state.street.car.booking.carBooking.dto.HourlyBookingDTO;
+import state.street.car.booking.carBooking.dto.HourlyBookingRequest;
+import state.street.car.booking.carBooking.entity.Car;
+import state.street.car.booking.carBooking.entity.HourlyBooking;
+import state.street.car.booking.carBooking.entity.User;
+import state.street.car.booking.carBooking.enums.CarType;
+import state.street.car.booking.carBooking.exception.BookingConflictException;
+import state.street.car.booking.carBooking.exception.ResourceNotFoundException;
+import state.street.car.booking.carBooking.hourly.HourSlotIndex;
+import state.street.car.booking.carBooking.hourly.HourlyBookingProperties;
+import state.street.car.booking.carBooking.ledger.WriteBehindBookingWriter;
+import state.street.car.booking.carBooking.metrics.BookingMetrics;
+import state.street.car.booking.carBooking.outbox.OutboxWriter;
+import state.street.car.booking.carBooking.repository.BookingRepository;
+import state.street.car.booking.carBooking.repository.CarRepository;
+import state.street.car.booking.carBooking.repository.HourlyBookingRepository;
+import state.street.car.booking.carBooking.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Bookings by the hour. Conflicts are found in the in-memory HourSlotIndex, which also holds the
+ * day bookings, and confirmed against the database on the car's shard before writing, so a
+ * booking made on another node that the change feed has not delivered yet is still caught.
+ * Changes go to the outbox; utilisation, the booking ledger and the archive count whole days
+ * and are reconciled against the bookings table, so they hold day bookings only.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class HourlyBookingService {
+
+    private final HourlyBookingRepository hourlyBookingRepository;
+    private final BookingRepository bookingRepository;
+    private final CarRepository carRepository;
+    private final UserRepository userRepository;
+    private final CarService carService;
+    private final HourSlotIndex hourSlotIndex;
+    private final HourlyBookingProperties properties;
+    private final ShardRouter shardRouter;
+    private final BookingMetrics bookingMetrics;
+    private final DataVersionTracker dataVersionTracker;
+    private final ChangeFeed changeFeed;
+    private final WriteBehindBookingWriter writeBehindBookingWriter;
+    private final WaitlistService waitlistService;
+    private final OutboxWriter outboxWriter;
+
+    public HourlyBookingDTO createHourlyBooking(HourlyBookingRequest request, String username) {
+        validate(request.getStartTime(), request.getHours());
+        shardRouter.bindToCar(request.getCarId());
+        Car car = carRepository.findById(request.getCarId())
+                .orElseThrow(() -> new ResourceNotFoundException("Car not found with id: " + request.getCarId()));
+
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
+
+        LocalDateTime endTime = request.getStartTime().plusHours(request.getHours());
+        HourSlotIndex.Reservation reservation = hourSlotIndex.reserve(car.getId(), request.getStartTime(), endTime);
+        // Day bookings accepted write-behind reach the index and the database only when flushed;
+        // one accepted after the reservation sees it instead
+        if (reservation == null
+                || writeBehindBookingWriter.overlapsDayBooking(car.getId(), request.getStartTime(), endTime)
+                || hourlyBookingRepository.countOverlapping(car.getId(), request.getStartTime(), endTime) > 0
+                || bookingRepository.countOverlapping(car.getId(), request.getStartTime(), endTime) > 0) {
+            bookingMetrics.recordConflict(car.getType());
+            throw new BookingConflictException("Car is not available for the requested hours.");
+        }
+
+        HourlyBooking saved = hourlyBookingRepository.save(new HourlyBooking(car, user, request.getStartTime(), request.getHours()));
+        reservation.confirm(saved.getId());
+        outboxWriter.hourlyBookingCreated(saved);
+        changeFeed.hourlyBookingChanged(saved.getId());
+        dataVersionTracker.bookingsChanged();
+        return convertToDTO(saved);
+    }
+
+    @Transactional(readOnly = true)
+    public List<HourlyBookingDTO> getHourlyBookingsByUsername(String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
+        return shardRouter.fanOutAndMerge(shard -> hourlyBookingRepository.findHourlyBookingDTOsByUserId(user.getId()),
+                Comparator.comparing(HourlyBookingDTO::getStartTime));
+    }
+
+    public void deleteHourlyBooking(Long id, String username) {
+        shardRouter.bindToBooking(id);
+        HourlyBooking booking = hourlyBookingRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Hourly booking not found with id: " + id));
+
+        User requestingUser = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
+
+        boolean isOwner = booking.getUser().getId().equals(requestingUser.getId());
+        boolean isAdmin = requestingUser.getRoles().stream()
+                .anyMatch(role -> role.getName().equals("ROLE_ADMIN"));
+
+        if (!isOwner && !isAdmin) {
+            throw new IllegalStateException("You can only cancel your own bookings");
+        }
+
+        hourlyBookingRepository.deleteById(id);
+        hourSlotIndex.hourlyBookingRemoved(id);
+        outboxWriter.hourlyBookingCancelled(booking);
+        changeFeed.hourlyBookingChanged(id);
+        waitlistService.capacityFreed(booking.getCar(), booking.getStartTime(), booking.getEndTime());
+        dataVersionTracker.bookingsChanged();
+    }
+
+    /**
+     * Cars of the type with every hour of [startTime, startTime + hours) free, from memory
+     */
+    @Transactional(readOnly = true)
+    public List<CarDTO> getAvailableCars(CarType type, LocalDateTime startTime, int hours) {
+        validate(startTime, hours);
+        LocalDateTime endTime = startTime.plusHours(hours);
+        return carService.getCarsByTypeSimple(type).stream()
+                .filter(car -> hourSlotIndex.isFree(car.getId(), startTime, endTime))
+                .toList();
+    }
+
+    private void validate(LocalDateTime startTime, int hours) {
+        if (!properties.isEnabled()) {
+            throw new IllegalArgumentException("Hourly bookings are not enabled");
+        }
+        if (startTime.getMinute() != 0 || startTime.getSecond() != 0 || startTime.getNano() != 0) {
+            throw new IllegalArgumentException("Hourly bookings start on the hour");
+        }
+        if (hours < properties.getMinimumHours() || hours > properties.getMaximumHours()) {
+            throw new IllegalArgumentException("Hourly bookings last between " + properties.getMinimumHours()
+                    + " and " + properties.getMaximumHours() + " hours");
+        }
+        if (hours % properties.getStepHours() != 0) {
+            throw new IllegalArgumentException("Hourly bookings last a multiple of " + properties.getStepHours() + " hours");
+        }
+    }
+
+    private HourlyBookingDTO convertToDTO(HourlyBooking booking) {
+        return new HourlyBookingDTO(
+                booking.getId(),
+                booking.getCar().getId(),
+                booking.getUser().getId(),
+                booking.getCar().getRegistrationNumber(),
+                booking.getUser().getUsername(),
+                booking.getStartTime(),
+                booking.getHours(),
+                booking.getEndTime(),
+                booking.getCreatedAt()
+        );
+    }
+}
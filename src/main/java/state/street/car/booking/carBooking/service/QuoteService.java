@@ -0,0 +1,134 @@
+package state.street.car.booking.carBooking.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import state.street.car.booking.carBooking.config.PricingProperties;
+import state.street.car.booking.carBooking.dto.QuoteDTO;
+import state.street.car.booking.carBooking.dto.QuoteRequest;
+import state.street.car.booking.carBooking.entity.Car;
+import state.street.car.booking.carBooking.enums.CarType;
+import state.street.car.booking.carBooking.exception.ResourceNotFoundException;
+import state.street.car.booking.carBooking.repository.CarRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prices many cars over many periods in one call. Tariffs are compiled once into
+ * {@link TariffTable}s and daily rates are held in minor units, so the per-quote work is
+ * long arithmetic; BigDecimal only appears when building the response.
+ */
+@Service
+@RequiredArgsConstructor
+public class QuoteService {
+
+    static final int MAX_QUOTES = 10_000;
+    static final int MAX_DURATION = 365;
+
+    private final CarRepository carRepository;
+    private final PricingProperties pricingProperties;
+    private final DataVersionTracker dataVersionTracker;
+
+    private volatile Map<CarType, TariffTable> tariffTables;
+    private volatile RateCard rateCard;
+
+    @Transactional(readOnly = true)
+    public List<QuoteDTO> quote(QuoteRequest request) {
+        List<QuoteRequest.Period> periods = request.getPeriods();
+        if (periods == null || periods.isEmpty()) {
+            throw new IllegalArgumentException("At least one period is required");
+        }
+        for (QuoteRequest.Period period : periods) {
+            if (period.getStartDate() == null || period.getDuration() == null
+                    || period.getDuration() < 1 || period.getDuration() > MAX_DURATION) {
+                throw new IllegalArgumentException("Each period needs a start date and a duration of 1 to " + MAX_DURATION + " days");
+            }
+        }
+
+        List<CarRate> cars = selectCars(request.getCarIds());
+        if ((long) cars.size() * periods.size() > MAX_QUOTES) {
+            throw new IllegalArgumentException("At most " + MAX_QUOTES + " car/period combinations per request");
+        }
+
+        Map<CarType, TariffTable> tables = tariffTables();
+        List<QuoteDTO> quotes = new ArrayList<>(cars.size() * periods.size());
+        for (CarRate car : cars) {
+            TariffTable table = tables.get(car.type());
+            for (QuoteRequest.Period period : periods) {
+                int days = period.getDuration();
+                long subtotal = table.subtotal(car.dailyRate(), period.getStartDate().toLocalDate(), days);
+                int discountBps = table.discountBps(days);
+                long discount = TariffTable.discountAmount(subtotal, discountBps);
+
+                quotes.add(new QuoteDTO(car.id(), car.registrationNumber(), car.type(), period.getStartDate(), days,
+                        TariffTable.fromMinorUnits(car.dailyRate()),
+                        TariffTable.fromMinorUnits(subtotal),
+                        BigDecimal.valueOf(discountBps, 2),
+                        TariffTable.fromMinorUnits(discount),
+                        TariffTable.fromMinorUnits(subtotal - discount)));
+            }
+        }
+        return quotes;
+    }
+
+    private List<CarRate> selectCars(List<Long> carIds) {
+        Map<Long, CarRate> rates = rateCard().rates();
+        if (carIds == null || carIds.isEmpty()) {
+            return new ArrayList<>(rates.values());
+        }
+        List<CarRate> cars = new ArrayList<>(carIds.size());
+        for (Long carId : carIds) {
+            CarRate rate = rates.get(carId);
+            if (rate == null) {
+                throw new ResourceNotFoundException("Car not found with id: " + carId);
+            }
+            cars.add(rate);
+        }
+        return cars;
+    }
+
+    private Map<CarType, TariffTable> tariffTables() {
+        Map<CarType, TariffTable> tables = tariffTables;
+        if (tables == null) {
+            tables = new EnumMap<>(CarType.class);
+            for (CarType type : CarType.values()) {
+                PricingProperties.Tariff tariff = pricingProperties.getTariffs().get(type);
+                tables.put(type, tariff == null ? TariffTable.plain() : TariffTable.compile(tariff));
+            }
+            tariffTables = tables;
+        }
+        return tables;
+    }
+
+    /**
+     * Daily rates of all cars, rebuilt whenever a car is created, updated or deleted
+     */
+    private RateCard rateCard() {
+        // Read the version before loading so a concurrent mutation leaves this card stale
+        long version = dataVersionTracker.getCarVersion();
+        RateCard card = rateCard;
+        if (card != null && card.version() == version) {
+            return card;
+        }
+
+        Map<Long, CarRate> rates = new LinkedHashMap<>();
+        for (Car car : carRepository.findAll()) {
+            rates.put(car.getId(), new CarRate(car.getId(), car.getRegistrationNumber(), car.getType(),
+                    TariffTable.toMinorUnits(car.getCostPerDay())));
+        }
+        card = new RateCard(version, rates);
+        rateCard = card;
+        return card;
+    }
+
+    private record RateCard(long version, Map<Long, CarRate> rates) {
+    }
+
+    private record CarRate(Long id, String registrationNumber, CarType type, long dailyRate) {
+    }
+}
@@ -0,0 +1,223 @@
+package state.street.car.booking.carBooking.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+import state.street.car.booking.carBooking.cluster.ChangeFeed;
+import state.street.car.booking.carBooking.datasource.ShardRouter;
+import state.street.car.booking.carBooking.dto.BookingDTO;
+import state.street.car.booking.carBooking.dto.BookingSeriesDTO;
+import state.street.car.booking.carBooking.dto.RecurringBookingRequest;
+import state.street.car.booking.carBooking.entity.Booking;
+import state.street.car.booking.carBooking.entity.BookingSeries;
+import state.street.car.booking.carBooking.entity.Car;
+import state.street.car.booking.carBooking.entity.User;
+import state.street.car.booking.carBooking.exception.BookingConflictException;
+import state.street.car.booking.carBooking.exception.ResourceNotFoundException;
+import state.street.car.booking.carBooking.hourly.HourSlotIndex;
+import state.street.car.booking.carBooking.ledger.BookingLedger;
+import state.street.car.booking.carBooking.ledger.WriteBehindBookingWriter;
+import state.street.car.booking.carBooking.metrics.BookingMetrics;
+import state.street.car.booking.carBooking.outbox.OutboxWriter;
+import state.street.car.booking.carBooking.recurring.OccurrenceConflicts;
+import state.street.car.booking.carBooking.recurring.RecurrenceRule;
+import state.street.car.booking.carBooking.recurring.RecurringBookingProperties;
+import state.street.car.booking.carBooking.repository.BookingRepository;
+import state.street.car.booking.carBooking.repository.BookingSeriesRepository;
+import state.street.car.booking.carBooking.repository.CarRepository;
+import state.street.car.booking.carBooking.repository.HourlyBookingRepository;
+import state.street.car.booking.carBooking.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Recurring bookings: one request books every occurrence of a daily or weekly rule, all or
+ * nothing. The whole series is checked with a single range query over the car's bookings,
+ * merged in order against the occurrences as they are generated.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class RecurringBookingService {
+
+    private final BookingSeriesRepository bookingSeriesRepository;
+    private final BookingRepository bookingRepository;
+    private final HourlyBookingRepository hourlyBookingRepository;
+    private final CarRepository carRepository;
+    private final UserRepository userRepository;
+    private final RecurringBookingProperties properties;
+    private final ShardRouter shardRouter;
+    private final BookingMetrics bookingMetrics;
+    private final UtilisationService utilisationService;
+    private final BookingLedger bookingLedger;
+    private final WriteBehindBookingWriter writeBehindBookingWriter;
+    private final OutboxWriter outboxWriter;
+    private final ChangeFeed changeFeed;
+    private final HourSlotIndex hourSlotIndex;
+    private final DataVersionTracker dataVersionTracker;
+    private final WaitlistService waitlistService;
+    private final TransactionOperations transactionOperations;
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public BookingSeriesDTO createSeries(RecurringBookingRequest request, String username) {
+        RecurrenceRule rule = RecurrenceRule.of(request.getFrequency(),
+                request.getInterval() == null ? 1 : request.getInterval(), request.getBookingDate(),
+                request.getDuration() == null ? 0 : request.getDuration(), request.getCount(), request.getUntil());
+        if (rule.occurrences() > properties.getMaxOccurrences()) {
+            throw new IllegalArgumentException("A recurring booking can have at most "
+                    + properties.getMaxOccurrences() + " occurrences");
+        }
+        // Waited for outside the transaction, which would hold a connection the flusher needs
+        writeBehindBookingWriter.drain();
+        return transactionOperations.execute(status -> createSeriesInTransaction(request, rule, username));
+    }
+
+    private BookingSeriesDTO createSeriesInTransaction(RecurringBookingRequest request, RecurrenceRule rule, String username) {
+        shardRouter.bindToCar(request.getCarId());
+        Car car = carRepository.findById(request.getCarId())
+                .orElseThrow(() -> new ResourceNotFoundException("Car not found with id: " + request.getCarId()));
+
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
+
+        OccurrenceConflicts.Result conflicts = OccurrenceConflicts.find(rule, busyPeriods(car.getId(), rule));
+        if (!conflicts.isEmpty()) {
+            bookingMetrics.recordConflict(car.getType());
+            throw new BookingConflictException(conflicts.conflicting() + " of the " + rule.occurrences()
+                    + " occurrences conflict with existing bookings, the first on " + conflicts.firstConflict() + ".");
+        }
+
+        BookingSeries series = bookingSeriesRepository.save(new BookingSeries(car, user, rule.frequency(),
+                rule.interval(), rule.firstDate(), rule.duration(), rule.occurrences()));
+        List<Booking> occurrences = new ArrayList<>(rule.occurrences());
+        rule.starts().forEachRemaining(start -> {
+            Booking occurrence = new Booking(car, user, start, rule.duration());
+            occurrence.setSeriesId(series.getId());
+            occurrences.add(occurrence);
+        });
+        List<BookingDTO> saved = new ArrayList<>(occurrences.size());
+        for (Booking booking : bookingRepository.saveAll(occurrences)) {
+            writeBehindBookingWriter.reserve(booking);
+            hourSlotIndex.dayBookingSaved(booking);
+            utilisationService.bookingAdded(car.getType(), booking.getBookingDate(), booking.getDuration());
+            bookingLedger.created(booking);
+            outboxWriter.bookingCreated(booking);
+            changeFeed.bookingChanged(booking.getId());
+            saved.add(convertToDTO(booking));
+        }
+        dataVersionTracker.bookingsChanged();
+        return convertToDTO(series, saved);
+    }
+
+    @Transactional(readOnly = true)
+    public BookingSeriesDTO getSeries(Long id) {
+        shardRouter.bindToBooking(id);
+        BookingSeries series = bookingSeriesRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Booking series not found with id: " + id));
+        return convertToDTO(series, bookingRepository.findBookingDTOsBySeriesId(id));
+    }
+
+    /**
+     * Cancels every occurrence that has not started yet; returns how many were cancelled
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public int cancelSeries(Long id, String username) {
+        writeBehindBookingWriter.drain();
+        return transactionOperations.execute(status -> cancelSeriesInTransaction(id, username));
+    }
+
+    private int cancelSeriesInTransaction(Long id, String username) {
+        shardRouter.bindToBooking(id);
+        BookingSeries series = bookingSeriesRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Booking series not found with id: " + id));
+
+        User requestingUser = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
+
+        boolean isOwner = series.getUser().getId().equals(requestingUser.getId());
+        boolean isAdmin = requestingUser.getRoles().stream()
+                .anyMatch(role -> role.getName().equals("ROLE_ADMIN"));
+
+        if (!isOwner && !isAdmin) {
+            throw new IllegalStateException("You can only cancel your own bookings");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> remaining = bookingRepository.findBySeriesIdOrderByBookingDateAsc(id);
+        List<Booking> cancelled = remaining.stream()
+                .filter(booking -> booking.getBookingDate().isAfter(now))
+                .toList();
+        bookingRepository.deleteAllInBatch(cancelled);
+        for (Booking booking : cancelled) {
+            hourSlotIndex.dayBookingRemoved(booking.getId());
+            utilisationService.bookingRemoved(booking.getCar().getType(), booking.getBookingDate(), booking.getDuration());
+            bookingLedger.cancelled(booking);
+            outboxWriter.bookingCancelled(booking);
+            changeFeed.bookingChanged(booking.getId());
+            writeBehindBookingWriter.released(booking.getId());
+            waitlistService.capacityFreed(booking.getCar(), booking.getBookingDate(), booking.getBookingEndDate());
+        }
+        if (cancelled.size() == remaining.size()) {
+            bookingSeriesRepository.delete(series);
+        }
+        if (!cancelled.isEmpty()) {
+            dataVersionTracker.bookingsChanged();
+        }
+        return cancelled.size();
+    }
+
+    /**
+     * The car's day bookings, and with hourly bookings enabled its hour bookings, over the span
+     * of the series, in start order
+     */
+    private List<OccurrenceConflicts.Busy> busyPeriods(Long carId, RecurrenceRule rule) {
+        List<OccurrenceConflicts.Busy> busy = new ArrayList<>();
+        for (Booking booking : bookingRepository.findConflictingBookingsInOrder(carId, rule.firstDate(), rule.lastEnd())) {
+            busy.add(new OccurrenceConflicts.Busy(booking.getBookingDate(), booking.getBookingEndDate(), true));
+        }
+        if (hourSlotIndex.isEnabled()) {
+            hourlyBookingRepository.findOverlappingInOrder(carId, rule.firstDate(), rule.lastEnd())
+                    .forEach(hourly -> busy.add(new OccurrenceConflicts.Busy(hourly.getStartTime(), hourly.getEndTime(), false)));
+            // Two sorted runs
+            busy.sort(Comparator.comparing(OccurrenceConflicts.Busy::start));
+        }
+        return busy;
+    }
+
+    private BookingSeriesDTO convertToDTO(BookingSeries series, List<BookingDTO> bookings) {
+        RecurrenceRule rule = RecurrenceRule.of(series);
+        return new BookingSeriesDTO(
+                series.getId(),
+                series.getCar().getId(),
+                series.getUser().getId(),
+                series.getCar().getRegistrationNumber(),
+                series.getUser().getUsername(),
+                series.getFrequency(),
+                series.getInterval(),
+                series.getFirstDate(),
+                series.getDuration(),
+                series.getOccurrences(),
+                rule.lastEnd(),
+                series.getCreatedAt(),
+                bookings
+        );
+    }
+
+    private BookingDTO convertToDTO(Booking booking) {
+        return new BookingDTO(
+                booking.getId(),
+                booking.getCar().getId(),
+                booking.getUser().getId(),
+                booking.getCar().getRegistrationNumber(),
+                booking.getUser().getUsername(),
+                booking.getBookingDate(),
+                booking.getDuration(),
+                booking.getCreatedAt()
+        );
+    }
+}
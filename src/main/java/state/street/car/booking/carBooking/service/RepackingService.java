@@ -0,0 +1,268 @@
+package state.street.car.booking.carBooking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+import state.street.car.booking.carBooking.allocation.BusyPeriod;
+import state.street.car.booking.carBooking.allocation.FleetCalendar;
+import state.street.car.booking.carBooking.allocation.FleetRepacker;
+import state.street.car.booking.carBooking.allocation.RepackableBooking;
+import state.street.car.booking.carBooking.allocation.RepackingProperties;
+import state.street.car.booking.carBooking.cluster.ChangeFeed;
+import state.street.car.booking.carBooking.datasource.ShardRouter;
+import state.street.car.booking.carBooking.dto.RepackingReportDTO;
+import state.street.car.booking.carBooking.dto.TypeRepackingDTO;
+import state.street.car.booking.carBooking.entity.Booking;
+import state.street.car.booking.carBooking.entity.Car;
+import state.street.car.booking.carBooking.enums.CarType;
+import state.street.car.booking.carBooking.exception.BookingConflictException;
+import state.street.car.booking.carBooking.hourly.HourSlotIndex;
+import state.street.car.booking.carBooking.ledger.BookingLedger;
+import state.street.car.booking.carBooking.ledger.WriteBehindBookingWriter;
+import state.street.car.booking.carBooking.outbox.OutboxWriter;
+import state.street.car.booking.carBooking.repository.BookingRepository;
+import state.street.car.booking.carBooking.repository.CarRepository;
+import state.street.car.booking.carBooking.repository.HourlyBookingRepository;
+import state.street.car.booking.carBooking.repository.UserRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Offline defragmentation of the fleet calendar. For each car type, the bookings that allow it
+ * and have not started are moved between the type's cars by FleetRepacker so free time comes in
+ * long stretches. Bookings stay on their car's shard, so each shard is planned on its own.
+ * <p>
+ * A dry run reports the moves and the fragmentation before and after, with a token for the plan.
+ * Applying recomputes the plan and refuses if its token differs, then changes the cars in JDBC
+ * batches in one transaction. Each update also checks that nothing has taken the booking's new
+ * car since the plan was made, so a booking made in between is never overlapped. Shards commit
+ * separately, so a conflict on one could not undo the moves on another; with sharding only dry
+ * runs are available.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RepackingService {
+
+    // Bookings the same plan moves are left out of the overlap check: the plan places them clear of
+    // each other, and a swap would otherwise see its partner still on the car
+    private static final String MOVE_BOOKING = "UPDATE bookings b SET car_id = ? "
+            + "WHERE b.id = ? AND b.car_id = ? AND b.booking_date = ? AND b.duration = ? "
+            + "AND NOT EXISTS (SELECT 1 FROM bookings o WHERE o.car_id = ? AND o.id <> b.id "
+            + "AND NOT ARRAY_CONTAINS(?, o.id) "
+            + "AND o.booking_date <= DATEADD(DAY, b.duration, b.booking_date) "
+            + "AND DATEADD(DAY, o.duration, o.booking_date) >= b.booking_date) "
+            + "AND NOT EXISTS (SELECT 1 FROM hourly_bookings h WHERE h.car_id = ? "
+            + "AND h.start_time < DATEADD(DAY, b.duration, b.booking_date) AND h.end_time > b.booking_date)";
+
+    private final BookingRepository bookingRepository;
+    private final HourlyBookingRepository hourlyBookingRepository;
+    private final CarRepository carRepository;
+    private final UserRepository userRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionOperations transactionOperations;
+    private final JdbcTemplate jdbcTemplate;
+    private final BookingLedger bookingLedger;
+    private final OutboxWriter outboxWriter;
+    private final ChangeFeed changeFeed;
+    private final HourSlotIndex hourSlotIndex;
+    private final WriteBehindBookingWriter writeBehindBookingWriter;
+    private final WaitlistService waitlistService;
+    private final DataVersionTracker dataVersionTracker;
+    private final RepackingProperties properties;
+
+    private record ShardPlan(int shard, List<RepackableBooking> bookings, List<BusyPeriod> busy,
+                             FleetRepacker.Plan plan) {
+    }
+
+    private record TypePlan(CarType type, List<Car> cars, List<ShardPlan> shards) {
+
+        boolean complete() {
+            return shards.stream().allMatch(shard -> shard.plan().complete());
+        }
+
+        List<FleetRepacker.Move> moves() {
+            return shards.stream().flatMap(shard -> shard.plan().moves().stream()).toList();
+        }
+    }
+
+    /**
+     * Plans the re-packing of one car type, or of every type, without changing anything
+     */
+    public RepackingReportDTO dryRun(CarType type) {
+        long start = System.nanoTime();
+        List<TypePlan> plans = plan(type, LocalDateTime.now());
+        return report(plans, false, start);
+    }
+
+    /**
+     * Plans again and applies the plan if it is the one the dry run with this token reported
+     */
+    public RepackingReportDTO apply(CarType type, String token) {
+        if (writeBehindBookingWriter.isEnabled()) {
+            throw new IllegalArgumentException("Re-packing cannot be applied while bookings are written behind");
+        }
+        if (shardRouter.shardCount() > 1) {
+            throw new IllegalArgumentException("Re-packing cannot be applied while bookings are sharded");
+        }
+        long start = System.nanoTime();
+        List<TypePlan> plans = plan(type, LocalDateTime.now());
+        if (!token(plans).equals(token)) {
+            throw new BookingConflictException("The bookings have changed since the dry run; run it again.");
+        }
+
+        int moved = transactionOperations.execute(status -> {
+            int count = 0;
+            for (TypePlan plan : plans) {
+                count += applyShard(plan, plan.shards().get(0));
+            }
+            return count;
+        });
+        log.info("Re-packing moved {} booking(s) to other cars", moved);
+        return report(plans, true, start);
+    }
+
+    private List<TypePlan> plan(CarType type, LocalDateTime now) {
+        List<CarType> types = type == null ? Arrays.asList(CarType.values()) : List.of(type);
+        List<TypePlan> plans = new ArrayList<>(types.size());
+        for (CarType carType : types) {
+            List<Car> cars = carRepository.findByType(carType);
+            plans.add(new TypePlan(carType, cars, shardRouter.fanOut(true, shard -> planShard(shard, carType, cars, now))));
+        }
+        return plans;
+    }
+
+    private ShardPlan planShard(int shard, CarType type, List<Car> cars, LocalDateTime now) {
+        List<Long> carIds = cars.stream()
+                .map(Car::getId)
+                .filter(carId -> shardRouter.shardForCar(carId) == shard)
+                .toList();
+        List<RepackableBooking> bookings = bookingRepository.findRepackableByCarType(type, now);
+        List<BusyPeriod> busy = hourlyBookingRepository.findBusyPeriodsByCarType(type, now);
+
+        List<FleetRepacker.Item> fixed = new ArrayList<>();
+        List<FleetRepacker.Item> movable = new ArrayList<>();
+        for (RepackableBooking booking : bookings) {
+            FleetRepacker.Item item = new FleetRepacker.Item(booking.bookingId(), booking.carId(),
+                    seconds(booking.start()), seconds(booking.end()));
+            (booking.isMovable(now) ? movable : fixed).add(item);
+        }
+        // Hour bookings share no ids with day bookings and never move
+        for (BusyPeriod period : busy) {
+            fixed.add(new FleetRepacker.Item(-1, period.carId(), seconds(period.start()), seconds(period.end())));
+        }
+        return new ShardPlan(shard, bookings, busy, FleetRepacker.plan(carIds, fixed, movable));
+    }
+
+    private int applyShard(TypePlan plan, ShardPlan shardPlan) {
+        List<FleetRepacker.Move> moves = shardPlan.plan().moves();
+        if (moves.isEmpty()) {
+            return 0;
+        }
+        Map<Long, Car> cars = plan.cars().stream().collect(Collectors.toMap(Car::getId, Function.identity()));
+        Map<Long, RepackableBooking> bookings = shardPlan.bookings().stream()
+                .collect(Collectors.toMap(RepackableBooking::bookingId, Function.identity()));
+        Long[] movedIds = moves.stream().map(FleetRepacker.Move::bookingId).toArray(Long[]::new);
+
+        for (int from = 0; from < moves.size(); from += properties.getBatchSize()) {
+            List<FleetRepacker.Move> batch = moves.subList(from, Math.min(moves.size(), from + properties.getBatchSize()));
+            int[][] counts = jdbcTemplate.batchUpdate(MOVE_BOOKING, batch, batch.size(), (ps, move) -> {
+                RepackableBooking booking = bookings.get(move.bookingId());
+                ps.setLong(1, move.toCarId());
+                ps.setLong(2, move.bookingId());
+                ps.setLong(3, move.fromCarId());
+                ps.setTimestamp(4, Timestamp.valueOf(booking.start()));
+                ps.setInt(5, booking.duration());
+                ps.setLong(6, move.toCarId());
+                ps.setObject(7, movedIds);
+                ps.setLong(8, move.toCarId());
+            });
+            // A booking cancelled or changed since planning, or one that has taken its new car in
+            // the meantime, rolls every batch back
+            if (Arrays.stream(counts).flatMapToInt(Arrays::stream).anyMatch(count -> count == 0)) {
+                throw new BookingConflictException("The bookings have changed since the dry run; run it again.");
+            }
+        }
+
+        for (FleetRepacker.Move move : moves) {
+            RepackableBooking booking = bookings.get(move.bookingId());
+            Booking moved = new Booking(cars.get(move.toCarId()), userRepository.getReferenceById(booking.userId()),
+                    booking.start(), booking.duration());
+            moved.setId(booking.bookingId());
+            hourSlotIndex.dayBookingSaved(moved);
+            bookingLedger.updated(moved);
+            outboxWriter.bookingUpdated(moved);
+            changeFeed.bookingChanged(moved.getId());
+            waitlistService.capacityFreed(cars.get(move.fromCarId()), booking.start(), booking.end());
+        }
+        dataVersionTracker.bookingsChanged();
+        return moves.size();
+    }
+
+    private RepackingReportDTO report(List<TypePlan> plans, boolean applied, long startNanos) {
+        LocalDateTime now = LocalDateTime.now();
+        List<TypeRepackingDTO> types = new ArrayList<>(plans.size());
+        for (TypePlan plan : plans) {
+            List<FleetRepacker.Move> moves = plan.moves();
+            Map<Long, Long> movedTo = new HashMap<>();
+            moves.forEach(move -> movedTo.put(move.bookingId(), move.toCarId()));
+
+            LocalDateTime horizon = now.plusDays(1);
+            for (ShardPlan shard : plan.shards()) {
+                for (RepackableBooking booking : shard.bookings()) {
+                    horizon = booking.end().isAfter(horizon) ? booking.end() : horizon;
+                }
+            }
+            List<Long> carIds = plan.cars().stream().map(Car::getId).toList();
+            FleetCalendar before = new FleetCalendar(now, horizon, carIds);
+            FleetCalendar after = new FleetCalendar(now, horizon, carIds);
+            int bookings = 0;
+            int movable = 0;
+            for (ShardPlan shard : plan.shards()) {
+                for (RepackableBooking booking : shard.bookings()) {
+                    before.add(booking.carId(), booking.start(), booking.end());
+                    after.add(movedTo.getOrDefault(booking.bookingId(), booking.carId()), booking.start(), booking.end());
+                    bookings++;
+                    movable += booking.isMovable(now) ? 1 : 0;
+                }
+                for (BusyPeriod period : shard.busy()) {
+                    before.add(period.carId(), period.start(), period.end());
+                    after.add(period.carId(), period.start(), period.end());
+                }
+            }
+            types.add(new TypeRepackingDTO(plan.type(), carIds.size(), bookings, movable, moves.size(), plan.complete(),
+                    before.fragmentation(), after.fragmentation(),
+                    moves.subList(0, Math.min(moves.size(), properties.getReportedMoves()))));
+        }
+        return new RepackingReportDTO(applied, token(plans), (System.nanoTime() - startNanos) / 1_000_000, types);
+    }
+
+    /**
+     * Stands for the moves of a plan: the same moves give the same token
+     */
+    private static String token(List<TypePlan> plans) {
+        long hash = 17;
+        for (TypePlan plan : plans) {
+            hash = hash * 31 + plan.type().ordinal();
+            for (FleetRepacker.Move move : plan.moves()) {
+                hash = (hash * 31 + move.bookingId()) * 31 + move.toCarId();
+            }
+        }
+        return Long.toHexString(hash);
+    }
+
+    private static long seconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+}
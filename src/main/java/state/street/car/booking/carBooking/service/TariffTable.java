@@ -0,0 +1,139 @@
+package state.street.car.booking.carBooking.service;
+
+import state.street.car.booking.carBooking.config.PricingProperties;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.MonthDay;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * One CarType's tariff compiled to fixed point: multipliers and discounts in basis points and
+ * a per-calendar-day factor table, so pricing a rental is a loop of long additions.
+ */
+final class TariffTable {
+
+    static final int BPS = 10_000;
+
+    private static final long FACTOR_SCALE = (long) BPS * BPS;
+    private static final DateTimeFormatter MONTH_DAY = DateTimeFormatter.ofPattern("MM-dd");
+
+    // Indexed by month * 32 + dayOfMonth; day factor = season bps * weekday/weekend bps
+    private final long[] weekdayFactors = new long[13 * 32];
+    private final long[] weekendFactors = new long[13 * 32];
+
+    // Sorted by minDays descending
+    private final int[] discountMinDays;
+    private final int[] discountBps;
+
+    private TariffTable(int weekendBps, int[] seasonBps, int[] discountMinDays, int[] discountBps) {
+        for (int i = 0; i < seasonBps.length; i++) {
+            weekdayFactors[i] = (long) seasonBps[i] * BPS;
+            weekendFactors[i] = (long) seasonBps[i] * weekendBps;
+        }
+        this.discountMinDays = discountMinDays;
+        this.discountBps = discountBps;
+    }
+
+    static TariffTable plain() {
+        return compile(new PricingProperties.Tariff());
+    }
+
+    static TariffTable compile(PricingProperties.Tariff tariff) {
+        int[] seasonBps = new int[13 * 32];
+        Arrays.fill(seasonBps, BPS);
+        for (PricingProperties.Season season : tariff.getSeasons()) {
+            MonthDay from = MonthDay.parse(season.getFrom(), MONTH_DAY);
+            MonthDay to = MonthDay.parse(season.getTo(), MONTH_DAY);
+            int bps = toBps(season.getMultiplier());
+            // Walk a leap year so 29 February is covered
+            for (LocalDate day = LocalDate.of(2024, 1, 1); day.getYear() == 2024; day = day.plusDays(1)) {
+                MonthDay monthDay = MonthDay.from(day);
+                boolean inSeason = from.isAfter(to)
+                        ? !monthDay.isBefore(from) || !monthDay.isAfter(to)
+                        : !monthDay.isBefore(from) && !monthDay.isAfter(to);
+                if (inSeason) {
+                    seasonBps[index(day.getMonthValue(), day.getDayOfMonth())] = bps;
+                }
+            }
+        }
+
+        List<PricingProperties.Discount> discounts = tariff.getDiscounts().stream()
+                .sorted(Comparator.comparingInt(PricingProperties.Discount::getMinDays).reversed())
+                .toList();
+        int[] minDays = new int[discounts.size()];
+        int[] bps = new int[discounts.size()];
+        for (int i = 0; i < discounts.size(); i++) {
+            minDays[i] = discounts.get(i).getMinDays();
+            bps[i] = discounts.get(i).getPercent().movePointRight(2).setScale(0, RoundingMode.HALF_UP).intValueExact();
+        }
+        return new TariffTable(toBps(tariff.getWeekendMultiplier()), seasonBps, minDays, bps);
+    }
+
+    /**
+     * Price of {@code days} consecutive days from {@code start} before discount, in minor units
+     */
+    long subtotal(long dailyRate, LocalDate start, int days) {
+        int year = start.getYear();
+        int month = start.getMonthValue();
+        int day = start.getDayOfMonth();
+        int monthLength = start.lengthOfMonth();
+        int dayOfWeek = start.getDayOfWeek().getValue();
+
+        long factors = 0;
+        for (int i = 0; i < days; i++) {
+            int index = index(month, day);
+            factors += dayOfWeek >= 6 ? weekendFactors[index] : weekdayFactors[index];
+
+            dayOfWeek = dayOfWeek == 7 ? 1 : dayOfWeek + 1;
+            if (++day > monthLength) {
+                day = 1;
+                if (++month > 12) {
+                    month = 1;
+                    year++;
+                }
+                monthLength = Month.of(month).length(Year.isLeap(year));
+            }
+        }
+        return divideHalfUp(Math.multiplyExact(dailyRate, factors), FACTOR_SCALE);
+    }
+
+    int discountBps(int days) {
+        for (int i = 0; i < discountMinDays.length; i++) {
+            if (days >= discountMinDays[i]) {
+                return discountBps[i];
+            }
+        }
+        return 0;
+    }
+
+    static long discountAmount(long subtotal, int discountBps) {
+        return divideHalfUp(subtotal * discountBps, BPS);
+    }
+
+    static long toMinorUnits(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    static BigDecimal fromMinorUnits(long amount) {
+        return BigDecimal.valueOf(amount, 2);
+    }
+
+    private static int toBps(BigDecimal multiplier) {
+        return multiplier.movePointRight(4).setScale(0, RoundingMode.HALF_UP).intValueExact();
+    }
+
+    private static int index(int month, int day) {
+        return month * 32 + day;
+    }
+
+    private static long divideHalfUp(long value, long divisor) {
+        return (value + divisor / 2) / divisor;
+    }
+}
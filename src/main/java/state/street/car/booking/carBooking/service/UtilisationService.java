@@ -0,0 +1,241 @@
+package state.street.car.booking.carBooking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import state.street.car.booking.carBooking.config.AnalyticsProperties;
+import state.street.car.booking.carBooking.datasource.ShardRouter;
+import state.street.car.booking.carBooking.dto.UtilisationDTO;
+import state.street.car.booking.carBooking.entity.DailyUtilisation;
+import state.street.car.booking.carBooking.enums.CarType;
+import state.street.car.booking.carBooking.repository.CarRepository;
+import state.street.car.booking.carBooking.repository.DailyUtilisationRepository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Fleet utilisation per CarType and day, kept as running totals that booking writes adjust
+ * in the same transaction. Reading a range touches one row per day and type, however many
+ * bookings there are.
+ */
+@Service
+@Slf4j
+public class UtilisationService {
+
+    public enum Granularity {
+        DAY,
+        WEEK
+    }
+
+    // One statement creates the missing days and adds to the existing ones
+    private static final String ADJUST_DAYS = "MERGE INTO daily_utilisation u USING (" +
+            "SELECT DATEADD('DAY', r.x, CAST(? AS DATE)) AS usage_date FROM SYSTEM_RANGE(0, CAST(? AS INT) - 1) r) d " +
+            "ON (u.car_type = ? AND u.usage_date = d.usage_date) " +
+            "WHEN MATCHED THEN UPDATE SET booked_car_days = u.booked_car_days + ? " +
+            "WHEN NOT MATCHED THEN INSERT (usage_date, car_type, booked_car_days) VALUES (d.usage_date, ?, ?)";
+
+    private final DailyUtilisationRepository dailyUtilisationRepository;
+    private final CarRepository carRepository;
+    private final AnalyticsProperties analyticsProperties;
+    private final ShardRouter shardRouter;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public UtilisationService(DailyUtilisationRepository dailyUtilisationRepository,
+                              CarRepository carRepository,
+                              AnalyticsProperties analyticsProperties,
+                              ShardRouter shardRouter,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager) {
+        this.dailyUtilisationRepository = dailyUtilisationRepository;
+        this.carRepository = carRepository;
+        this.analyticsProperties = analyticsProperties;
+        this.shardRouter = shardRouter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Transactional
+    public void bookingAdded(CarType type, LocalDateTime bookingDate, int duration) {
+        adjust(type, bookingDate.toLocalDate(), duration, 1);
+    }
+
+    @Transactional
+    public void bookingRemoved(CarType type, LocalDateTime bookingDate, int duration) {
+        adjust(type, bookingDate.toLocalDate(), duration, -1);
+    }
+
+    /**
+     * Runs on the booking transaction's connection, so a booking write holds one pooled
+     * connection. Plain JDBC rather than a repository query: a failed statement then leaves the
+     * transaction usable instead of marking it rollback-only.
+     */
+    private void adjust(CarType type, LocalDate start, int days, int delta) {
+        try {
+            mergeDays(type, start, days, delta);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent booking inserted one of the days first; H2 undid only this statement,
+            // and every day it was missing exists now
+            mergeDays(type, start, days, delta);
+        }
+    }
+
+    private void mergeDays(CarType type, LocalDate start, int days, int delta) {
+        jdbcTemplate.update(ADJUST_DAYS, Date.valueOf(start), days, type.name(), delta, type.name(), delta);
+    }
+
+    @Transactional(readOnly = true)
+    public List<UtilisationDTO> getUtilisation(LocalDate from, LocalDate to, Granularity granularity) {
+        if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) >= analyticsProperties.getMaxRangeDays()) {
+            throw new IllegalArgumentException("Range must be 1 to " + analyticsProperties.getMaxRangeDays() + " days");
+        }
+        Map<CarType, Long> fleet = fleetSizes();
+
+        // period start -> type -> [booked car-days, days in period]
+        Map<LocalDate, Map<CarType, long[]>> periods = new TreeMap<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            Map<CarType, long[]> byType = periods.computeIfAbsent(periodStart(day, granularity), k -> new EnumMap<>(CarType.class));
+            for (CarType type : CarType.values()) {
+                byType.computeIfAbsent(type, k -> new long[2])[1]++;
+            }
+        }
+        // With sharding each shard holds totals for its own cars; they add up
+        for (DailyUtilisation row : shardRouter.fanOutAndMerge(
+                shard -> dailyUtilisationRepository.findByUsageDateBetweenOrderByUsageDate(from, to),
+                Comparator.comparing(DailyUtilisation::getUsageDate))) {
+            periods.get(periodStart(row.getUsageDate(), granularity)).get(row.getCarType())[0] += row.getBookedCarDays();
+        }
+
+        List<UtilisationDTO> result = new ArrayList<>();
+        periods.forEach((start, byType) -> byType.forEach((type, counts) -> {
+            long available = fleet.getOrDefault(type, 0L) * counts[1];
+            BigDecimal percent = available == 0 ? BigDecimal.ZERO
+                    : BigDecimal.valueOf(counts[0] * 100).divide(BigDecimal.valueOf(available), 2, RoundingMode.HALF_UP);
+            result.add(new UtilisationDTO(start, type, counts[0], available, percent));
+        }));
+        return result;
+    }
+
+    /**
+     * Recomputes today's and future days from the bookings table and compares them with the
+     * running totals. Earlier days cannot be checked: their bookings may already be cleaned up.
+     */
+    @Transactional
+    public Map<String, Object> verify(boolean repair) {
+        LocalDate today = LocalDate.now();
+        List<String> mismatches = new ArrayList<>();
+        shardRouter.fanOut(!repair, shard -> verifyShard(today, repair)).forEach(mismatches::addAll);
+
+        if (!mismatches.isEmpty()) {
+            log.warn("Utilisation totals differ from bookings on {} day(s){}", mismatches.size(), repair ? ", repaired" : "");
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("from", today);
+        result.put("mismatches", mismatches.size());
+        result.put("repaired", repair && !mismatches.isEmpty());
+        result.put("examples", mismatches.subList(0, Math.min(20, mismatches.size())));
+        return result;
+    }
+
+    private List<String> verifyShard(LocalDate today, boolean repair) {
+        Map<DailyUtilisation.Key, Integer> expected = new HashMap<>();
+        for (Object[] row : dailyUtilisationRepository.computeBookedCarDaysFrom(today)) {
+            expected.put(new DailyUtilisation.Key(toLocalDate(row[0]), CarType.valueOf(row[1].toString())),
+                    ((Number) row[2]).intValue());
+        }
+
+        List<String> mismatches = new ArrayList<>();
+        for (DailyUtilisation row : dailyUtilisationRepository.findByUsageDateGreaterThanEqual(today)) {
+            DailyUtilisation.Key key = new DailyUtilisation.Key(row.getUsageDate(), row.getCarType());
+            int actual = expected.getOrDefault(key, 0);
+            expected.remove(key);
+            if (row.getBookedCarDays() != actual) {
+                mismatches.add(key.getUsageDate() + " " + key.getCarType() + ": " + row.getBookedCarDays() + " != " + actual);
+                if (repair) {
+                    row.setBookedCarDays(actual);
+                }
+            }
+        }
+        // Days with bookings but no running total at all
+        expected.forEach((key, actual) -> {
+            mismatches.add(key.getUsageDate() + " " + key.getCarType() + ": missing != " + actual);
+            if (repair) {
+                dailyUtilisationRepository.save(new DailyUtilisation(key.getUsageDate(), key.getCarType(), actual));
+            }
+        });
+        return mismatches;
+    }
+
+    /**
+     * Nightly check after the booking cleanup, repairing any drift
+     */
+    @Scheduled(cron = "0 30 2 * * *")
+    public void scheduledVerify() {
+        // Called on this instance, not through the proxy, so the transaction is opened here
+        transactionTemplate.executeWithoutResult(status -> verify(true));
+    }
+
+    /**
+     * Rebuilds every running total from the bookings table, e.g. after a bulk load behind JPA
+     */
+    @Transactional
+    public void rebuild() {
+        shardRouter.fanOut(false, shard -> {
+            dailyUtilisationRepository.deleteAllInBatch();
+            LocalDate earliest = LocalDate.of(1970, 1, 1);
+            for (Object[] row : dailyUtilisationRepository.computeBookedCarDaysFrom(earliest)) {
+                dailyUtilisationRepository.save(new DailyUtilisation(toLocalDate(row[0]), CarType.valueOf(row[1].toString()),
+                        ((Number) row[2]).intValue()));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Drops totals older than the retention window; called by the expired-booking cleanup
+     */
+    @Transactional
+    public int pruneExpired() {
+        LocalDate before = LocalDate.now().minusDays(analyticsProperties.getRetentionDays());
+        return shardRouter.fanOut(false, shard -> dailyUtilisationRepository.deleteOlderThan(before)).stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+    }
+
+    private Map<CarType, Long> fleetSizes() {
+        Map<CarType, Long> fleet = new EnumMap<>(CarType.class);
+        for (Object[] row : carRepository.countByType()) {
+            fleet.put((CarType) row[0], (Long) row[1]);
+        }
+        return fleet;
+    }
+
+    private static LocalDate periodStart(LocalDate day, Granularity granularity) {
+        return granularity == Granularity.WEEK ? day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)) : day;
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof Date date ? date.toLocalDate() : (LocalDate) value;
+    }
+}
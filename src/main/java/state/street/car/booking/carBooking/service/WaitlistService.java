@@ -0,0 +1,386 @@
+package state.street.car.booking.carBooking.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import state.street.car.booking.carBooking.cluster.ChangeFeed;
+import state.street.car.booking.carBooking.datasource.ShardRouter;
+import state.street.car.booking.carBooking.dto.CarDTO;
+import state.street.car.booking.carBooking.dto.WaitlistEntryDTO;
+import state.street.car.booking.carBooking.dto.WaitlistRequest;
+import state.street.car.booking.carBooking.entity.Booking;
+import state.street.car.booking.carBooking.entity.Car;
+import state.street.car.booking.carBooking.entity.User;
+import state.street.car.booking.carBooking.entity.WaitlistEntry;
+import state.street.car.booking.carBooking.enums.CarType;
+import state.street.car.booking.carBooking.exception.BookingConflictException;
+import state.street.car.booking.carBooking.exception.ResourceNotFoundException;
+import state.street.car.booking.carBooking.hourly.HourSlotIndex;
+import state.street.car.booking.carBooking.ledger.BookingLedger;
+import state.street.car.booking.carBooking.ledger.WriteBehindBookingWriter;
+import state.street.car.booking.carBooking.outbox.OutboxWriter;
+import state.street.car.booking.carBooking.repository.BookingRepository;
+import state.street.car.booking.carBooking.repository.CarRepository;
+import state.street.car.booking.carBooking.repository.HourlyBookingRepository;
+import state.street.car.booking.carBooking.repository.UserRepository;
+import state.street.car.booking.carBooking.repository.WaitlistEntryRepository;
+import state.street.car.booking.carBooking.waitlist.WaitlistIndex;
+import state.street.car.booking.carBooking.waitlist.WaitlistProperties;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waitlist for periods that are already booked. Users queue for any car of a type or for one
+ * car; when a cancellation or a changed booking frees a period, the waiting requests it could
+ * serve are taken from the in-memory WaitlistIndex, oldest first, and booked if the car is now
+ * free. The table is only read at startup and on the periodic refresh.
+ * <p>
+ * Entries live on shard 0. An entry is claimed with a conditional status update before it is
+ * booked, so two nodes cannot both book it; assignments on one node run one at a time on a
+ * single background thread.
+ */
+@Service
+@Slf4j
+public class WaitlistService {
+
+    private final WaitlistProperties properties;
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final BookingRepository bookingRepository;
+    private final HourlyBookingRepository hourlyBookingRepository;
+    private final CarRepository carRepository;
+    private final UserRepository userRepository;
+    private final CarService carService;
+    private final ShardRouter shardRouter;
+    private final UtilisationService utilisationService;
+    private final BookingLedger bookingLedger;
+    private final WriteBehindBookingWriter writeBehindBookingWriter;
+    private final OutboxWriter outboxWriter;
+    private final ChangeFeed changeFeed;
+    private final HourSlotIndex hourSlotIndex;
+    private final DataVersionTracker dataVersionTracker;
+    private final TransactionTemplate transactionTemplate;
+
+    private final WaitlistIndex index = new WaitlistIndex();
+    private volatile ExecutorService executor;
+
+    public WaitlistService(WaitlistProperties properties,
+                           WaitlistEntryRepository waitlistEntryRepository,
+                           BookingRepository bookingRepository,
+                           HourlyBookingRepository hourlyBookingRepository,
+                           CarRepository carRepository,
+                           UserRepository userRepository,
+                           CarService carService,
+                           ShardRouter shardRouter,
+                           UtilisationService utilisationService,
+                           BookingLedger bookingLedger,
+                           WriteBehindBookingWriter writeBehindBookingWriter,
+                           OutboxWriter outboxWriter,
+                           ChangeFeed changeFeed,
+                           HourSlotIndex hourSlotIndex,
+                           DataVersionTracker dataVersionTracker,
+                           PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.waitlistEntryRepository = waitlistEntryRepository;
+        this.bookingRepository = bookingRepository;
+        this.hourlyBookingRepository = hourlyBookingRepository;
+        this.carRepository = carRepository;
+        this.userRepository = userRepository;
+        this.carService = carService;
+        this.shardRouter = shardRouter;
+        this.utilisationService = utilisationService;
+        this.bookingLedger = bookingLedger;
+        this.writeBehindBookingWriter = writeBehindBookingWriter;
+        this.outboxWriter = outboxWriter;
+        this.changeFeed = changeFeed;
+        this.hourSlotIndex = hourSlotIndex;
+        this.dataVersionTracker = dataVersionTracker;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "waitlist");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresh();
+        log.info("Waitlist started with {} waiting request(s)", index.size());
+    }
+
+    /**
+     * Queues the request and books it straight away if a car is free already
+     */
+    public WaitlistEntryDTO join(WaitlistRequest request, String username) {
+        if (executor == null) {
+            throw new IllegalArgumentException("The waitlist is not enabled");
+        }
+        if ((request.getCarType() == null) == (request.getCarId() == null)) {
+            throw new IllegalArgumentException("Give either a car type or a car to wait for");
+        }
+        if (request.getBookingDate() == null || !request.getBookingDate().isAfter(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Waitlist requests must start in the future");
+        }
+        if (request.getDuration() == null || request.getDuration() < 1) {
+            throw new IllegalArgumentException("Waitlist requests last at least one day");
+        }
+        WaitlistEntry entry = transactionTemplate.execute(status -> {
+            User user = userRepository.findByUsername(username)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
+            CarType type = request.getCarType();
+            if (request.getCarId() != null) {
+                type = carRepository.findById(request.getCarId())
+                        .orElseThrow(() -> new ResourceNotFoundException("Car not found with id: " + request.getCarId()))
+                        .getType();
+            }
+            return waitlistEntryRepository.save(new WaitlistEntry(user, type, request.getCarId(),
+                    request.getBookingDate(), request.getDuration()));
+        });
+
+        WaitlistIndex.Waiting waiting = toWaiting(entry);
+        index.add(waiting);
+        Long bookingId = await(executor.submit(() -> assignNow(waiting)));
+        if (bookingId != null) {
+            entry.setStatus(WaitlistEntry.Status.ASSIGNED);
+            entry.setBookingId(bookingId);
+        }
+        return convertToDTO(entry, username);
+    }
+
+    public List<WaitlistEntryDTO> getMyEntries(String username) {
+        return transactionTemplate.execute(status -> {
+            User user = userRepository.findByUsername(username)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
+            return waitlistEntryRepository.findByUserIdWithUser(user.getId()).stream()
+                    .map(entry -> convertToDTO(entry, username))
+                    .toList();
+        });
+    }
+
+    public void leave(Long id, String username) {
+        transactionTemplate.executeWithoutResult(status -> {
+            WaitlistEntry entry = waitlistEntryRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Waitlist entry not found with id: " + id));
+
+            User requestingUser = userRepository.findByUsername(username)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
+
+            boolean isOwner = entry.getUser().getId().equals(requestingUser.getId());
+            boolean isAdmin = requestingUser.getRoles().stream()
+                    .anyMatch(role -> role.getName().equals("ROLE_ADMIN"));
+
+            if (!isOwner && !isAdmin) {
+                throw new IllegalStateException("You can only cancel your own bookings");
+            }
+            // A booking already made for the entry stays
+            waitlistEntryRepository.delete(entry);
+        });
+        index.remove(id);
+    }
+
+    /**
+     * The car was released for [start, end); waiting requests are matched against it once the
+     * current transaction commits
+     */
+    public void capacityFreed(Car car, LocalDateTime start, LocalDateTime end) {
+        ExecutorService current = executor;
+        if (current == null) {
+            return;
+        }
+        CarType type = car.getType();
+        Long carId = car.getId();
+        Runnable assign = () -> current.execute(() -> assignFreed(type, carId, start, end));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    assign.run();
+                }
+            });
+        } else {
+            assign.run();
+        }
+    }
+
+    /**
+     * Requests that can no longer be served because their start has passed; returns how many
+     */
+    public int expireStarted(LocalDateTime now) {
+        if (executor == null) {
+            return 0;
+        }
+        index.startedBefore(now).forEach(waiting -> index.remove(waiting.id()));
+        return transactionTemplate.execute(status -> waitlistEntryRepository.expireStartedBefore(now,
+                WaitlistEntry.Status.WAITING, WaitlistEntry.Status.EXPIRED));
+    }
+
+    /**
+     * Reloads the queues, picking up requests joined, left or booked on other nodes
+     */
+    @Scheduled(fixedDelayString = "${carbooking.waitlist.refresh-interval-millis:30000}")
+    @EventListener(DatabaseRestoredEvent.class)
+    public void refresh() {
+        if (executor == null) {
+            return;
+        }
+        List<WaitlistIndex.Waiting> waiting = transactionTemplate.execute(status ->
+                waitlistEntryRepository.findByStatus(WaitlistEntry.Status.WAITING).stream()
+                        .map(this::toWaiting)
+                        .toList());
+        index.replaceAll(waiting);
+    }
+
+    /**
+     * Waits until assignments queued so far have run
+     */
+    public void awaitAssignments() {
+        if (executor != null) {
+            await(executor.submit(() -> null));
+        }
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", properties.isEnabled());
+        status.put("waiting", index.size());
+        return status;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Long assignNow(WaitlistIndex.Waiting waiting) {
+        if (waiting.carId() != null) {
+            return tryBook(waiting, waiting.carId());
+        }
+        for (CarDTO car : carService.getAvailableCarsByType(waiting.type(), waiting.start(), waiting.duration())) {
+            Long bookingId = tryBook(waiting, car.getId());
+            if (bookingId != null) {
+                return bookingId;
+            }
+        }
+        return null;
+    }
+
+    private void assignFreed(CarType type, Long carId, LocalDateTime start, LocalDateTime end) {
+        try {
+            for (WaitlistIndex.Waiting waiting : index.candidates(type, carId, start, end)) {
+                tryBook(waiting, carId);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Waitlist assignment for car {} failed: {}", carId, e.getMessage());
+        }
+    }
+
+    /**
+     * Claims the entry on shard 0 and books the car on its own shard. With one shard both happen
+     * in one transaction; with several, a crash between the two commits leaves the booking made
+     * and the entry still waiting.
+     */
+    private Long tryBook(WaitlistIndex.Waiting waiting, Long carId) {
+        try {
+            Long bookingId = transactionTemplate.execute(status -> {
+                if (waitlistEntryRepository.transition(waiting.id(), WaitlistEntry.Status.WAITING,
+                        WaitlistEntry.Status.ASSIGNED) == 0) {
+                    return null;
+                }
+                Long booked = shardRouter.onShard(shardRouter.shardForCar(carId), false, () -> book(waiting, carId));
+                waitlistEntryRepository.recordBooking(waiting.id(), booked);
+                return booked;
+            });
+            // Booked here or gone elsewhere
+            index.remove(waiting.id());
+            return bookingId;
+        } catch (BookingConflictException | ResourceNotFoundException e) {
+            return null;
+        }
+    }
+
+    private Long book(WaitlistIndex.Waiting waiting, Long carId) {
+        shardRouter.bindToCar(carId);
+        Car car = carRepository.findById(carId)
+                .orElseThrow(() -> new ResourceNotFoundException("Car not found with id: " + carId));
+        User user = userRepository.findById(waiting.userId())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + waiting.userId()));
+
+        if (!bookingRepository.findConflictingBookings(carId, waiting.start(), waiting.end()).isEmpty()
+                || hourSlotIndex.isEnabled()
+                && hourlyBookingRepository.countOverlapping(carId, waiting.start(), waiting.end()) > 0) {
+            throw new BookingConflictException("Car is not available for the requested period.");
+        }
+
+        // Its id cannot be one handed out write-behind, and the view rejects the period if a
+        // booking accepted there but not yet flushed overlaps it
+        Booking booking = bookingRepository.save(new Booking(car, user, waiting.start(), waiting.duration()));
+        writeBehindBookingWriter.reserve(booking);
+        hourSlotIndex.dayBookingSaved(booking);
+        utilisationService.bookingAdded(car.getType(), booking.getBookingDate(), booking.getDuration());
+        bookingLedger.created(booking);
+        outboxWriter.bookingCreated(booking);
+        changeFeed.bookingChanged(booking.getId());
+        dataVersionTracker.bookingsChanged();
+        log.info("Waitlist entry {} booked as booking {} on car {}", waiting.id(), booking.getId(), carId);
+        return booking.getId();
+    }
+
+    private WaitlistIndex.Waiting toWaiting(WaitlistEntry entry) {
+        return new WaitlistIndex.Waiting(entry.getId(), entry.getUser().getId(), entry.getCarType(), entry.getCarId(),
+                entry.getBookingDate(), entry.getDuration(), entry.getRequestedAt());
+    }
+
+    private WaitlistEntryDTO convertToDTO(WaitlistEntry entry, String username) {
+        return new WaitlistEntryDTO(
+                entry.getId(),
+                username,
+                entry.getCarType(),
+                entry.getCarId(),
+                entry.getBookingDate(),
+                entry.getDuration(),
+                entry.getRequestedAt(),
+                entry.getStatus(),
+                entry.getBookingId()
+        );
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the waitlist", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
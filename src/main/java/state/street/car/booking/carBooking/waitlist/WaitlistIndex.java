@@ -0,0 +1,127 @@
+package state.street.car.booking.carBooking.waitlist;
+
+import state.street.car.booking.carBooking.enums.CarType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * The waiting requests in memory: one queue per car type and one per car asked for by name.
+ * Each queue is ordered by start date and knows its longest request, so the requests a freed
+ * period could serve are found with one range lookup instead of a scan; they are then handed
+ * out in request order.
+ */
+public class WaitlistIndex {
+
+    public record Waiting(long id, long userId, CarType type, Long carId, LocalDateTime start, int duration,
+                          LocalDateTime requestedAt) {
+
+        public LocalDateTime end() {
+            return start.plusDays(duration);
+        }
+    }
+
+    static final Comparator<Waiting> BY_REQUEST = Comparator.comparing(Waiting::requestedAt)
+            .thenComparingLong(Waiting::id);
+
+    private final Map<CarType, Queue> byType = new EnumMap<>(CarType.class);
+    private final Map<Long, Queue> byCar = new HashMap<>();
+    private final Map<Long, Waiting> byId = new HashMap<>();
+
+    public synchronized void add(Waiting waiting) {
+        remove(waiting.id());
+        byId.put(waiting.id(), waiting);
+        queueFor(waiting).add(waiting);
+    }
+
+    public synchronized boolean remove(long id) {
+        Waiting removed = byId.remove(id);
+        if (removed == null) {
+            return false;
+        }
+        queueFor(removed).remove(removed);
+        return true;
+    }
+
+    /**
+     * Requests a car of the type, or this car itself, that overlap or touch [start, end), oldest first
+     */
+    public synchronized List<Waiting> candidates(CarType type, Long carId, LocalDateTime start, LocalDateTime end) {
+        List<Waiting> found = new ArrayList<>();
+        Queue forType = byType.get(type);
+        if (forType != null) {
+            forType.overlapping(start, end, found);
+        }
+        Queue forCar = byCar.get(carId);
+        if (forCar != null) {
+            forCar.overlapping(start, end, found);
+        }
+        found.sort(BY_REQUEST);
+        return found;
+    }
+
+    public synchronized List<Waiting> startedBefore(LocalDateTime time) {
+        return byId.values().stream().filter(waiting -> waiting.start().isBefore(time)).toList();
+    }
+
+    public synchronized void replaceAll(Collection<Waiting> waiting) {
+        byType.clear();
+        byCar.clear();
+        byId.clear();
+        waiting.forEach(this::add);
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    private Queue queueFor(Waiting waiting) {
+        return waiting.carId() != null
+                ? byCar.computeIfAbsent(waiting.carId(), ignored -> new Queue())
+                : byType.computeIfAbsent(waiting.type(), ignored -> new Queue());
+    }
+
+    private static final class Queue {
+
+        private static final Comparator<Waiting> BY_START = Comparator.comparing(Waiting::start)
+                .thenComparingLong(Waiting::id);
+
+        private final NavigableSet<Waiting> byStart = new TreeSet<>(BY_START);
+        // Never shrinks; an over-long look-back only costs a few extra comparisons
+        private int longest;
+
+        void add(Waiting waiting) {
+            byStart.add(waiting);
+            longest = Math.max(longest, waiting.duration());
+        }
+
+        void remove(Waiting waiting) {
+            byStart.remove(waiting);
+        }
+
+        /**
+         * Touching counts, as in the booking conflict check: the freed booking blocked those too
+         */
+        void overlapping(LocalDateTime start, LocalDateTime end, List<Waiting> into) {
+            Waiting from = bound(start.minusDays(longest), Long.MIN_VALUE);
+            Waiting to = bound(end, Long.MAX_VALUE);
+            for (Waiting waiting : byStart.subSet(from, true, to, true)) {
+                if (!waiting.end().isBefore(start)) {
+                    into.add(waiting);
+                }
+            }
+        }
+
+        private static Waiting bound(LocalDateTime start, long id) {
+            return new Waiting(id, 0, null, null, start, 0, start);
+        }
+    }
+}
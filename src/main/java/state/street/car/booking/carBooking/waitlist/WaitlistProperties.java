@@ -0,0 +1,19 @@
+package state.street.car.booking.carBooking.waitlist;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "carbooking.waitlist")
+public class WaitlistProperties {
+
+    /**
+     * Let users queue for a car type or a car and book them automatically when a period frees up
+     */
+    private boolean enabled = false;
+
+    /**
+     * How often the in-memory queues are reloaded, picking up entries joined on other nodes
+     */
+    private long refreshIntervalMillis = 30_000;
+}
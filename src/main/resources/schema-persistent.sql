@@ -0,0 +1,169 @@
+-- Schema for the file-backed 'persistent' profile, which validates instead of generating DDL.
+-- Must stay in line with the JPA entities; Hibernate fails startup on any mismatch.
+
+CREATE TABLE IF NOT EXISTS roles (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    name VARCHAR(255) NOT NULL UNIQUE,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    email VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    username VARCHAR(255) NOT NULL UNIQUE,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS user_roles (
+    role_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    PRIMARY KEY (role_id, user_id),
+    CONSTRAINT fk_user_roles_role FOREIGN KEY (role_id) REFERENCES roles,
+    CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES users
+);
+
+CREATE TABLE IF NOT EXISTS cars (
+    capacity INTEGER NOT NULL,
+    cost_per_day NUMERIC(38,2) NOT NULL,
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    registration_number VARCHAR(255) NOT NULL UNIQUE,
+    type ENUM ('SEDAN','SUV','VAN') NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- A recurring booking's rule; its occurrences are bookings pointing back with series_id
+CREATE TABLE IF NOT EXISTS booking_series (
+    duration INTEGER NOT NULL,
+    occurrences INTEGER NOT NULL,
+    repeat_interval INTEGER NOT NULL,
+    car_id BIGINT NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    first_date TIMESTAMP(6) NOT NULL,
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    user_id BIGINT NOT NULL,
+    frequency ENUM ('DAILY','WEEKLY') NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_booking_series_car FOREIGN KEY (car_id) REFERENCES cars,
+    CONSTRAINT fk_booking_series_user FOREIGN KEY (user_id) REFERENCES users
+);
+
+CREATE TABLE IF NOT EXISTS bookings (
+    allow_reassignment BOOLEAN,
+    duration INTEGER NOT NULL,
+    booking_date TIMESTAMP(6) NOT NULL,
+    car_id BIGINT NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    series_id BIGINT,
+    user_id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_bookings_car FOREIGN KEY (car_id) REFERENCES cars,
+    CONSTRAINT fk_bookings_user FOREIGN KEY (user_id) REFERENCES users
+);
+
+-- Conflict checks and availability searches filter by car and start date
+CREATE INDEX IF NOT EXISTS idx_bookings_car_date ON bookings (car_id, booking_date);
+
+-- Database files created before recurring bookings lack the column
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS series_id BIGINT;
+CREATE INDEX IF NOT EXISTS idx_bookings_series ON bookings (series_id);
+
+-- Nor do those created before the re-packing job
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS allow_reassignment BOOLEAN;
+
+CREATE TABLE IF NOT EXISTS hourly_bookings (
+    hours INTEGER NOT NULL,
+    car_id BIGINT NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    end_time TIMESTAMP(6) NOT NULL,
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    start_time TIMESTAMP(6) NOT NULL,
+    user_id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_hourly_bookings_car FOREIGN KEY (car_id) REFERENCES cars,
+    CONSTRAINT fk_hourly_bookings_user FOREIGN KEY (user_id) REFERENCES users
+);
+
+CREATE INDEX IF NOT EXISTS idx_hourly_bookings_car_start ON hourly_bookings (car_id, start_time);
+
+CREATE TABLE IF NOT EXISTS daily_utilisation (
+    booked_car_days INTEGER NOT NULL,
+    usage_date DATE NOT NULL,
+    car_type ENUM ('SEDAN','SUV','VAN') NOT NULL,
+    PRIMARY KEY (car_type, usage_date)
+);
+
+-- Expired bookings moved out by the cleanup, with the car details (daily rate included) as of archiving
+CREATE TABLE IF NOT EXISTS booking_archive (
+    duration INTEGER NOT NULL,
+    archived_at TIMESTAMP(6) NOT NULL,
+    booking_date TIMESTAMP(6) NOT NULL,
+    car_id BIGINT NOT NULL,
+    cost_per_day NUMERIC(38,2) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    car_registration_number VARCHAR(255) NOT NULL,
+    car_type ENUM ('SEDAN','SUV','VAN') NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_booking_archive_date ON booking_archive (booking_date);
+
+-- Requests queued for a car type or one car; kept on shard 0
+CREATE TABLE IF NOT EXISTS waitlist_entries (
+    duration INTEGER NOT NULL,
+    booking_date TIMESTAMP(6) NOT NULL,
+    booking_id BIGINT,
+    car_id BIGINT,
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    requested_at TIMESTAMP(6) NOT NULL,
+    user_id BIGINT NOT NULL,
+    car_type ENUM ('SEDAN','SUV','VAN') NOT NULL,
+    status ENUM ('WAITING','ASSIGNED','EXPIRED') NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_waitlist_entries_user FOREIGN KEY (user_id) REFERENCES users
+);
+
+CREATE INDEX IF NOT EXISTS idx_waitlist_entries_status ON waitlist_entries (status);
+
+-- Booking and car changes waiting for the outbox relay; rows are deleted once delivered
+CREATE TABLE IF NOT EXISTS outbox_events (
+    aggregate_id BIGINT NOT NULL,
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    occurred_at TIMESTAMP(6) NOT NULL,
+    payload VARCHAR(1000) NOT NULL,
+    type ENUM ('BOOKING_CREATED','BOOKING_UPDATED','BOOKING_CANCELLED','BOOKING_EXPIRED','CAR_CREATED','CAR_UPDATED','CAR_DELETED',
+        'HOURLY_BOOKING_CREATED','HOURLY_BOOKING_CANCELLED','HOURLY_BOOKING_EXPIRED') NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- Database files created before hourly bookings reached the outbox
+ALTER TABLE outbox_events ALTER COLUMN type ENUM ('BOOKING_CREATED','BOOKING_UPDATED','BOOKING_CANCELLED','BOOKING_EXPIRED',
+    'CAR_CREATED','CAR_UPDATED','CAR_DELETED','HOURLY_BOOKING_CREATED','HOURLY_BOOKING_CANCELLED','HOURLY_BOOKING_EXPIRED') NOT NULL;
+
+-- Scheduler leases; fencing_token grows with every acquisition
+CREATE TABLE IF NOT EXISTS scheduler_leases (
+    expires_at TIMESTAMP(6) NOT NULL,
+    fencing_token BIGINT NOT NULL,
+    completed_run VARCHAR(255),
+    name VARCHAR(255) NOT NULL,
+    owner VARCHAR(255),
+    PRIMARY KEY (name)
+);
+
+-- Cache coherence feed: the keys each commit changed, ordered by id
+CREATE TABLE IF NOT EXISTS change_log (
+    changed_at TIMESTAMP(6) NOT NULL,
+    entity_key BIGINT NOT NULL,
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    entity_type ENUM ('CAR','BOOKING','HOURLY_BOOKING') NOT NULL,
+    node_id VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- Database files created while the feed kept a version counter per entity type
+DROP INDEX IF EXISTS idx_change_log_version;
+ALTER TABLE change_log DROP COLUMN IF EXISTS version;
+DROP TABLE IF EXISTS change_versions;
@@ -0,0 +1,42 @@
+package state.street.car.booking.carBooking.allocation;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FleetCalendarTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2030, 5, 1, 0, 0);
+    private static final LocalDateTime TO = FROM.plusDays(30);
+
+    @Test
+    void testBestFitOrdersFreeCarsByTheGapAroundThePeriod() {
+        FleetCalendar calendar = new FleetCalendar(FROM, TO, List.of(1L, 2L, 3L, 4L));
+        calendar.add(1L, FROM.plusDays(2), FROM.plusDays(4));
+        calendar.add(1L, FROM.plusDays(10), FROM.plusDays(12));
+        calendar.add(2L, FROM.plusDays(12), FROM.plusDays(13));
+        // Touches the period
+        calendar.add(3L, FROM.plusDays(8), FROM.plusDays(9));
+
+        assertEquals(List.of(1L, 2L, 4L), calendar.bestFit(FROM.plusDays(6), FROM.plusDays(8)));
+        assertEquals(List.of(1L, 3L, 2L, 4L), calendar.bestFit(FROM.plusDays(5), FROM.plusDays(6)));
+    }
+
+    @Test
+    void testFragmentationIsTheFreeTimeOutsideEachCarsLongestGap() {
+        FleetCalendar calendar = new FleetCalendar(FROM, TO, List.of(1L, 2L));
+        assertEquals(new FleetCalendar.Fragmentation(2, 2, 60, 0), calendar.fragmentation());
+
+        calendar.add(1L, FROM.plusDays(10), FROM.plusDays(20));
+        calendar.add(2L, FROM.minusDays(1), FROM.plusDays(5));
+        calendar.add(2L, FROM.plusDays(25), TO.plusDays(3));
+
+        FleetCalendar.Fragmentation fragmentation = calendar.fragmentation();
+        assertEquals(3, fragmentation.gaps());
+        assertEquals(40, fragmentation.freeDays(), 1e-9);
+        assertEquals(1 - 30.0 / 40, fragmentation.fragmentation(), 1e-9);
+    }
+}
@@ -0,0 +1,57 @@
+package state.street.car.booking.carBooking.allocation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FleetRepackerTest {
+
+    private static final long DAY = 86_400;
+
+    @Test
+    void testBookingsSpreadOverCarsArePackedOntoOne() {
+        FleetRepacker.Plan plan = FleetRepacker.plan(List.of(1L, 2L, 3L), List.of(), List.of(
+                item(10, 1, 0, 2),
+                item(11, 2, 3, 5),
+                item(12, 3, 6, 8)));
+
+        assertTrue(plan.complete());
+        assertEquals(List.of(new FleetRepacker.Move(11, 2, 1), new FleetRepacker.Move(12, 3, 1)), plan.moves());
+    }
+
+    @Test
+    void testFixedBookingsKeepTheirCarAndBlockMoves() {
+        FleetRepacker.Plan plan = FleetRepacker.plan(List.of(1L, 2L, 3L),
+                List.of(item(20, 1, 4, 10)),
+                List.of(item(10, 1, 0, 2), item(11, 2, 3, 5), item(12, 3, 11, 12)));
+
+        // 11 would overlap the fixed booking on car 1, so it stays; 12 fits on car 1 after it
+        assertEquals(List.of(new FleetRepacker.Move(12, 3, 1)), plan.moves());
+    }
+
+    @Test
+    void testTouchingBookingsAreNotPutOnTheSameCar() {
+        FleetRepacker.Plan plan = FleetRepacker.plan(List.of(1L, 2L), List.of(), List.of(
+                item(10, 1, 0, 2),
+                item(11, 2, 2, 4)));
+
+        assertEquals(List.of(), plan.moves());
+    }
+
+    @Test
+    void testNothingMovesWhenNoCarIsLeftForABooking() {
+        // Packing 11 next to 10 leaves 12 only car 2, where the fixed booking is in the way
+        FleetRepacker.Plan plan = FleetRepacker.plan(List.of(1L, 2L),
+                List.of(item(20, 2, 10, 12)),
+                List.of(item(10, 1, 0, 1), item(11, 2, 2, 4), item(12, 1, 3, 11)));
+
+        assertFalse(plan.complete());
+        assertEquals(List.of(), plan.moves());
+    }
+
+    private static FleetRepacker.Item item(long id, long carId, long startDay, long endDay) {
+        return new FleetRepacker.Item(id, carId, startDay * DAY, endDay * DAY);
+    }
+}
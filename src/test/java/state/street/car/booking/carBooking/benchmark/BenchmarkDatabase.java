@@ -0,0 +1,118 @@
+package state.street.car.booking.carBooking.benchmark;
+
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import state.street.car.booking.carBooking.CarBookingApplication;
+import state.street.car.booking.carBooking.enums.CarType;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Boots the application against a private in-memory H2 and bulk-loads bookings for benchmarks.
+ */
+final class BenchmarkDatabase {
+
+    static final int BOOKINGS_PER_CAR = 1000;
+    static final int BOOKING_DAYS = 3;
+    static final int SLOT_DAYS = BOOKING_DAYS + 1;
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private BenchmarkDatabase() {
+    }
+
+    static ConfigurableApplicationContext start(String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID(),
+                "--spring.jpa.show-sql=false",
+                "--carbooking.sql-monitor.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.security=WARN"));
+        args.addAll(List.of(extraArgs));
+        return new SpringApplicationBuilder(CarBookingApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .bannerMode(Banner.Mode.OFF)
+                // Command-line arguments, so they win over application.properties
+                .run(args.toArray(String[]::new));
+    }
+
+    /**
+     * Inserts {@code count} non-overlapping bookings, 3 days each with a one day gap, spread over
+     * enough cars that each car holds at most {@value #BOOKINGS_PER_CAR}. Returns the car ids used.
+     */
+    static List<Long> seedBookings(ConfigurableApplicationContext context, int count, LocalDateTime firstStart) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+
+        int carsNeeded = carsNeeded(count);
+        int existingCars = jdbc.queryForObject("SELECT COUNT(*) FROM cars", Integer.class);
+        int extraCars = Math.max(0, carsNeeded - existingCars);
+        CarType[] types = CarType.values();
+        jdbc.batchUpdate("INSERT INTO cars (registration_number, type, cost_per_day, capacity) VALUES (?, ?, ?, ?)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setString(1, "BENCH-" + (existingCars + i));
+                        ps.setString(2, types[i % types.length].name());
+                        ps.setBigDecimal(3, new BigDecimal("60.00"));
+                        ps.setInt(4, 5);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return extraCars;
+                    }
+                });
+
+        List<Long> carIds = jdbc.queryForList("SELECT id FROM cars ORDER BY id", Long.class).subList(0, carsNeeded);
+        Long userId = jdbc.queryForObject("SELECT id FROM users WHERE username = 'john'", Long.class);
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+
+        for (int offset = 0; offset < count; offset += BATCH_SIZE) {
+            int from = offset;
+            int size = Math.min(BATCH_SIZE, count - offset);
+            jdbc.batchUpdate("INSERT INTO bookings (car_id, user_id, booking_date, duration, created_at) VALUES (?, ?, ?, ?, ?)",
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            int n = from + i;
+                            ps.setLong(1, carIds.get(n % carsNeeded));
+                            ps.setLong(2, userId);
+                            ps.setTimestamp(3, Timestamp.valueOf(firstStart.plusDays((long) (n / carsNeeded) * SLOT_DAYS)));
+                            ps.setInt(4, BOOKING_DAYS);
+                            ps.setTimestamp(5, createdAt);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return size;
+                        }
+                    });
+        }
+        return carIds;
+    }
+
+    /**
+     * Inserts {@code count} bookings laid out as by {@link #seedBookings}, starting far enough back
+     * that every one of them has already ended
+     */
+    static List<Long> seedExpiredBookings(ConfigurableApplicationContext context, int count) {
+        long slotsPerCar = (count + carsNeeded(count) - 1) / carsNeeded(count);
+        return seedBookings(context, count, LocalDateTime.now().minusDays(slotsPerCar * SLOT_DAYS + 1));
+    }
+
+    private static int carsNeeded(int count) {
+        return Math.max(1, (count + BOOKINGS_PER_CAR - 1) / BOOKINGS_PER_CAR);
+    }
+}
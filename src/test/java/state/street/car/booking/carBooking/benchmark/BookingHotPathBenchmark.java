@@ -0,0 +1,94 @@
+package state.street.car.booking.carBooking.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import state.street.car.booking.carBooking.dto.BookingDTO;
+import state.street.car.booking.carBooking.dto.BookingRequest;
+import state.street.car.booking.carBooking.dto.CarDTO;
+import state.street.car.booking.carBooking.exception.BookingConflictException;
+import state.street.car.booking.carBooking.service.BookingService;
+import state.street.car.booking.carBooking.service.CarService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request-path hot spots: conflict checking, availability search and booking DTO mapping.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingHotPathBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int bookings;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private CarService carService;
+
+    private BookingRequest conflictingRequest;
+    private Long probeCarId;
+    private Long probeBookingId;
+    private LocalDateTime freeStart;
+    private LocalDateTime searchStart;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDatabase.start();
+        bookingService = context.getBean(BookingService.class);
+        carService = context.getBean(CarService.class);
+
+        LocalDateTime firstStart = LocalDateTime.now().minusDays(
+                (long) BenchmarkDatabase.BOOKINGS_PER_CAR * BenchmarkDatabase.SLOT_DAYS / 2);
+        List<Long> carIds = BenchmarkDatabase.seedBookings(context, bookings, firstStart);
+
+        probeCarId = carIds.get(0);
+        probeBookingId = context.getBean(JdbcTemplate.class).queryForObject(
+                "SELECT MIN(id) FROM bookings WHERE car_id = ?", Long.class, probeCarId);
+        searchStart = LocalDateTime.now().plusDays(1);
+        // Starts one day into an existing booking of the probe car, so it always conflicts
+        conflictingRequest = new BookingRequest(probeCarId, firstStart.plusDays(1), 1);
+        // Beyond the last seeded booking of any car
+        freeStart = firstStart.plusDays((long) BenchmarkDatabase.BOOKINGS_PER_CAR * BenchmarkDatabase.SLOT_DAYS + 10);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object createBookingConflictCheck() {
+        try {
+            return bookingService.createBooking(conflictingRequest, "john");
+        } catch (BookingConflictException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public boolean isCarAvailable() {
+        return bookingService.isCarAvailable(probeCarId, freeStart, 3);
+    }
+
+    @Benchmark
+    public List<CarDTO> getAllCarsForPeriod() {
+        return carService.getAllCarsForPeriod(searchStart, 3);
+    }
+
+    @Benchmark
+    public BookingDTO getBookingById() {
+        return bookingService.getBookingById(probeBookingId);
+    }
+
+    @Benchmark
+    public List<BookingDTO> getBookingsByCarId() {
+        return bookingService.getBookingsByCarId(probeCarId);
+    }
+}
@@ -0,0 +1,51 @@
+package state.street.car.booking.carBooking.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import state.street.car.booking.carBooking.scheduler.BookingCleanupScheduler;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One cleanup pass removing {@value #EXPIRED_PER_RUN} expired bookings from a ledger of
+ * {@code bookings} live ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CleanupBenchmark {
+
+    private static final int EXPIRED_PER_RUN = 1000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int bookings;
+
+    private ConfigurableApplicationContext context;
+    private BookingCleanupScheduler cleanupScheduler;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDatabase.start();
+        cleanupScheduler = context.getBean(BookingCleanupScheduler.class);
+        BenchmarkDatabase.seedBookings(context, bookings, LocalDateTime.now().plusDays(1));
+    }
+
+    @Setup(Level.Iteration)
+    public void addExpiredBookings() {
+        BenchmarkDatabase.seedExpiredBookings(context, EXPIRED_PER_RUN);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int cleanupExpiredBookings() {
+        return cleanupScheduler.cleanupExpiredBookingsManually();
+    }
+}
@@ -0,0 +1,98 @@
+package state.street.car.booking.carBooking.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+import state.street.car.booking.carBooking.ledger.BookingEvent;
+import state.street.car.booking.carBooking.ledger.BookingEventLog;
+import state.street.car.booking.carBooking.ledger.LedgerView;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ways to rebuild the in-memory booking views at startup: replaying the whole event log,
+ * loading a snapshot, or scanning the bookings table as the ledger does without either.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LedgerReplayBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int bookings;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private Path directory;
+    private BookingEventLog eventLog;
+    private byte[] snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkDatabase.start();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        BenchmarkDatabase.seedBookings(context, bookings, LocalDateTime.now().plusDays(1));
+
+        // One created event per booking, as if the log had been on from the start
+        directory = Files.createTempDirectory("ledger-bench");
+        eventLog = BookingEventLog.open(directory, 64L * 1024 * 1024, false);
+        LedgerView view = new LedgerView();
+        for (LedgerView.Entry entry : scanDatabase()) {
+            view.apply(eventLog.append(BookingEvent.Type.CREATED, entry.bookingId(), entry.carId(), entry.userId(),
+                    entry.bookingDate(), entry.duration()));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        view.writeSnapshot(out);
+        snapshot = out.toByteArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        eventLog.close();
+        FileSystemUtils.deleteRecursively(directory);
+        context.close();
+    }
+
+    @Benchmark
+    public int replayEventLog() {
+        LedgerView view = new LedgerView();
+        eventLog.replay(1, view::apply);
+        return view.size();
+    }
+
+    @Benchmark
+    public int loadSnapshot() throws IOException {
+        LedgerView view = new LedgerView();
+        view.readSnapshot(new ByteArrayInputStream(snapshot));
+        return view.size();
+    }
+
+    @Benchmark
+    public int scanBookingsTable() {
+        LedgerView view = new LedgerView();
+        view.reset(scanDatabase(), 0);
+        return view.size();
+    }
+
+    private List<LedgerView.Entry> scanDatabase() {
+        List<LedgerView.Entry> entries = new ArrayList<>(bookings);
+        jdbcTemplate.query("SELECT id, car_id, user_id, booking_date, duration FROM bookings", rs -> {
+            entries.add(new LedgerView.Entry(rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                    rs.getTimestamp(4).toLocalDateTime().truncatedTo(ChronoUnit.SECONDS), rs.getInt(5)));
+        });
+        return entries;
+    }
+}
@@ -0,0 +1,131 @@
+package state.street.car.booking.carBooking.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import state.street.car.booking.carBooking.config.PricingProperties;
+import state.street.car.booking.carBooking.dto.CarDTO;
+import state.street.car.booking.carBooking.dto.QuoteDTO;
+import state.street.car.booking.carBooking.dto.QuoteRequest;
+import state.street.car.booking.carBooking.service.CarService;
+import state.street.car.booking.carBooking.service.QuoteService;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.MonthDay;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed-point QuoteService against a straightforward BigDecimal pricer over the same tariffs,
+ * for every seeded car and {@code periods} random periods of 1 to 30 days.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuoteBenchmark {
+
+    private static final DateTimeFormatter MONTH_DAY = DateTimeFormatter.ofPattern("MM-dd");
+
+    @Param({"10", "100"})
+    public int periods;
+
+    private ConfigurableApplicationContext context;
+    private QuoteService quoteService;
+    private PricingProperties pricingProperties;
+    private List<CarDTO> cars;
+    private QuoteRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDatabase.start();
+        quoteService = context.getBean(QuoteService.class);
+        pricingProperties = context.getBean(PricingProperties.class);
+        cars = context.getBean(CarService.class).getAllCarsSimple();
+
+        SplittableRandom random = new SplittableRandom(42);
+        List<QuoteRequest.Period> requested = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        for (int i = 0; i < periods; i++) {
+            requested.add(new QuoteRequest.Period(start.plusDays(random.nextInt(365)), 1 + random.nextInt(30)));
+        }
+        request = new QuoteRequest(List.of(), requested);
+
+        List<QuoteDTO> expected = fixedPoint();
+        List<BigDecimal> actual = bigDecimal();
+        for (int i = 0; i < expected.size(); i++) {
+            if (expected.get(i).getTotal().compareTo(actual.get(i)) != 0) {
+                throw new IllegalStateException("Pricers disagree at quote " + i + ": " + expected.get(i) + " vs " + actual.get(i));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<QuoteDTO> fixedPoint() {
+        return quoteService.quote(request);
+    }
+
+    @Benchmark
+    public List<BigDecimal> bigDecimal() {
+        List<BigDecimal> totals = new ArrayList<>(cars.size() * request.getPeriods().size());
+        for (CarDTO car : cars) {
+            PricingProperties.Tariff tariff = pricingProperties.getTariffs().get(car.getType());
+            for (QuoteRequest.Period period : request.getPeriods()) {
+                totals.add(naiveTotal(car.getCostPerDay(), tariff, period.getStartDate().toLocalDate(), period.getDuration()));
+            }
+        }
+        return totals;
+    }
+
+    private static BigDecimal naiveTotal(BigDecimal costPerDay, PricingProperties.Tariff tariff, LocalDate start, int days) {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (int i = 0; i < days; i++) {
+            LocalDate day = start.plusDays(i);
+            BigDecimal rate = costPerDay;
+            if (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                rate = rate.multiply(tariff.getWeekendMultiplier());
+            }
+            BigDecimal seasonMultiplier = BigDecimal.ONE;
+            for (PricingProperties.Season season : tariff.getSeasons()) {
+                if (inSeason(MonthDay.from(day), season)) {
+                    seasonMultiplier = season.getMultiplier();
+                }
+            }
+            subtotal = subtotal.add(rate.multiply(seasonMultiplier));
+        }
+        subtotal = subtotal.setScale(2, RoundingMode.HALF_UP);
+
+        PricingProperties.Discount best = null;
+        for (PricingProperties.Discount discount : tariff.getDiscounts()) {
+            if (days >= discount.getMinDays() && (best == null || discount.getMinDays() > best.getMinDays())) {
+                best = discount;
+            }
+        }
+        if (best == null) {
+            return subtotal;
+        }
+        BigDecimal discount = subtotal.multiply(best.getPercent()).divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+        return subtotal.subtract(discount);
+    }
+
+    private static boolean inSeason(MonthDay day, PricingProperties.Season season) {
+        MonthDay from = MonthDay.parse(season.getFrom(), MONTH_DAY);
+        MonthDay to = MonthDay.parse(season.getTo(), MONTH_DAY);
+        return from.isAfter(to)
+                ? !day.isBefore(from) || !day.isAfter(to)
+                : !day.isBefore(from) && !day.isAfter(to);
+    }
+}
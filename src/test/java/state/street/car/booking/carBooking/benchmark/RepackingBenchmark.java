@@ -0,0 +1,68 @@
+package state.street.car.booking.carBooking.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import state.street.car.booking.carBooking.allocation.FleetRepacker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FleetRepacker planning one car type: {@code bookings} future bookings of 1 to 14 days spread
+ * over {@code cars} cars across a year, a tenth of them fixed. Only the plan is measured; the
+ * fleet is generated once per trial the way a first-fit booker would have filled it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepackingBenchmark {
+
+    private static final long DAY = 86_400;
+
+    @Param({"2000"})
+    public int cars;
+
+    @Param({"100000"})
+    public int bookings;
+
+    private List<Long> carIds;
+    private List<FleetRepacker.Item> fixed;
+    private List<FleetRepacker.Item> movable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        carIds = new ArrayList<>(cars);
+        long[] freeFrom = new long[cars];
+        for (int car = 0; car < cars; car++) {
+            carIds.add((long) car + 1);
+            freeFrom[car] = Long.MIN_VALUE;
+        }
+        fixed = new ArrayList<>();
+        movable = new ArrayList<>();
+        for (int id = 1; id <= bookings; id++) {
+            long start = random.nextLong(365) * DAY + random.nextLong(DAY);
+            long end = start + (1 + random.nextInt(14)) * DAY;
+            // A random free car, as clients picking from the availability list would
+            int car = random.nextInt(cars);
+            for (int tried = 0; tried < cars && !(freeFrom[car] < start); tried++) {
+                car = (car + 1) % cars;
+            }
+            if (!(freeFrom[car] < start)) {
+                continue;
+            }
+            freeFrom[car] = Math.max(freeFrom[car], end);
+            FleetRepacker.Item item = new FleetRepacker.Item(id, car + 1, start, end);
+            (random.nextInt(10) == 0 ? fixed : movable).add(item);
+        }
+    }
+
+    @Benchmark
+    public FleetRepacker.Plan plan() {
+        return FleetRepacker.plan(carIds, fixed, movable);
+    }
+}
@@ -0,0 +1,69 @@
+package state.street.car.booking.carBooking.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+import state.street.car.booking.carBooking.dto.BookingDTO;
+import state.street.car.booking.carBooking.dto.BookingRequest;
+import state.street.car.booking.carBooking.entity.Car;
+import state.street.car.booking.carBooking.repository.CarRepository;
+import state.street.car.booking.carBooking.service.BookingService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Booking creation under concurrent load, one database transaction per booking against
+ * write-behind with a group-committed write-ahead log. Every call books a free period on one
+ * of the seeded cars.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class WriteBehindBenchmark {
+
+    @Param({"false", "true"})
+    public boolean writeBehind;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private Path walDirectory;
+    private List<Long> carIds;
+    private LocalDateTime firstStart;
+    private final AtomicLong nextSlot = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        walDirectory = Files.createTempDirectory("write-behind-bench");
+        context = BenchmarkDatabase.start(
+                "--carbooking.write-behind.enabled=" + writeBehind,
+                "--carbooking.write-behind.directory=" + walDirectory);
+        bookingService = context.getBean(BookingService.class);
+        // No bulk seeding: nothing may insert bookings behind the write-behind writer's back
+        carIds = context.getBean(CarRepository.class).findAll().stream().map(Car::getId).toList();
+        firstStart = LocalDateTime.now().plusDays(1).withNano(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(walDirectory);
+    }
+
+    @Benchmark
+    public BookingDTO createBooking() {
+        long slot = nextSlot.getAndIncrement();
+        Long carId = carIds.get((int) (slot % carIds.size()));
+        LocalDateTime start = firstStart.plusDays(slot / carIds.size() * BenchmarkDatabase.SLOT_DAYS);
+        return bookingService.createBooking(new BookingRequest(carId, start, BenchmarkDatabase.BOOKING_DAYS), "john");
+    }
+}
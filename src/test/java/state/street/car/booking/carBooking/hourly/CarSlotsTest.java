@@ -0,0 +1,98 @@
+package state.street.car.booking.carBooking.hourly;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarSlotsTest {
+
+    // Hour 0 of a day well past the epoch, so ranges cross day and page boundaries
+    private static final long DAY = 20_000L * 24;
+
+    @Test
+    void testBackToBackIntervalsDoNotOverlap() {
+        CarSlots slots = new CarSlots();
+        assertTrue(slots.tryAdd(hourly(1, DAY + 9, DAY + 11)));
+
+        assertTrue(slots.tryAdd(hourly(2, DAY + 11, DAY + 12)));
+        assertTrue(slots.tryAdd(hourly(3, DAY + 7, DAY + 9)));
+        assertFalse(slots.tryAdd(hourly(4, DAY + 10, DAY + 13)));
+        assertFalse(slots.isFree(DAY + 8, DAY + 10));
+        assertTrue(slots.isFree(DAY + 12, DAY + 24));
+        assertEquals(3, slots.size());
+    }
+
+    @Test
+    void testLongRangesSkipFreeDaysAndFindBusyOnes() {
+        CarSlots slots = new CarSlots();
+        // A single hour 200 days out, in a later page than the range start
+        slots.add(hourly(1, DAY + 200 * 24 + 5, DAY + 200 * 24 + 6));
+
+        assertTrue(slots.isFree(DAY + 3, DAY + 200 * 24 + 5));
+        assertFalse(slots.isFree(DAY + 3, DAY + 300 * 24));
+        assertFalse(slots.isFree(DAY + 200 * 24 + 5, DAY + 200 * 24 + 6));
+        assertTrue(slots.isFree(DAY + 200 * 24 + 6, DAY + 400 * 24 + 23));
+    }
+
+    @Test
+    void testRemovalFreesOnlyTheRemovedHours() {
+        CarSlots slots = new CarSlots();
+        slots.add(day(1, DAY, DAY + 48));
+        // Legacy overlap: both keep their hours until each is removed
+        slots.add(hourly(2, DAY + 47, DAY + 50));
+
+        assertTrue(slots.remove(new HourSlotIndex.Key(HourSlotIndex.Kind.DAY, 1)));
+        assertTrue(slots.isFree(DAY, DAY + 47));
+        assertFalse(slots.isFree(DAY + 47, DAY + 48));
+        assertFalse(slots.remove(new HourSlotIndex.Key(HourSlotIndex.Kind.DAY, 1)));
+
+        slots.remove(new HourSlotIndex.Key(HourSlotIndex.Kind.HOURLY, 2));
+        assertTrue(slots.isFree(DAY, DAY + 72));
+        assertEquals(0, slots.size());
+    }
+
+    @Test
+    void testOverlapsHourlyIgnoresDayBookingsAndTouchingHours() {
+        CarSlots slots = new CarSlots();
+        slots.add(day(1, DAY, DAY + 24));
+        slots.add(hourly(2, DAY + 30, DAY + 32));
+
+        assertFalse(slots.overlapsHourly(DAY * 3600, (DAY + 24) * 3600));
+        assertFalse(slots.overlapsHourly((DAY + 32) * 3600, (DAY + 48) * 3600));
+        assertTrue(slots.overlapsHourly((DAY + 31) * 3600 + 1800, (DAY + 48) * 3600));
+    }
+
+    @Test
+    void testOverlapsHourlyCountsReservationsBeingWritten() {
+        CarSlots slots = new CarSlots();
+        slots.add(new HourSlotIndex.Interval(new HourSlotIndex.Key(HourSlotIndex.Kind.PENDING, 1), DAY + 30, DAY + 32));
+
+        assertTrue(slots.overlapsHourly(DAY * 3600, (DAY + 48) * 3600));
+        assertFalse(slots.overlapsHourly((DAY + 32) * 3600, (DAY + 48) * 3600));
+    }
+
+    @Test
+    void testPruneDropsIntervalsThatHaveEnded() {
+        CarSlots slots = new CarSlots();
+        slots.add(hourly(1, DAY, DAY + 2));
+        slots.add(hourly(2, DAY + 3, DAY + 5));
+        slots.add(day(3, DAY + 4, DAY + 28));
+
+        List<HourSlotIndex.Key> pruned = slots.pruneEndedBefore(DAY + 5);
+
+        assertEquals(List.of(new HourSlotIndex.Key(HourSlotIndex.Kind.HOURLY, 1),
+                new HourSlotIndex.Key(HourSlotIndex.Kind.HOURLY, 2)), pruned);
+        assertEquals(1, slots.size());
+        assertFalse(slots.isFree(DAY + 5, DAY + 6));
+    }
+
+    private static HourSlotIndex.Interval hourly(long id, long start, long end) {
+        return new HourSlotIndex.Interval(new HourSlotIndex.Key(HourSlotIndex.Kind.HOURLY, id), start, end);
+    }
+
+    private static HourSlotIndex.Interval day(long id, long start, long end) {
+        return new HourSlotIndex.Interval(new HourSlotIndex.Key(HourSlotIndex.Kind.DAY, id), start, end);
+    }
+}
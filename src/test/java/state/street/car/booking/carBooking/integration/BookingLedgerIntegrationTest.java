@@ -0,0 +1,175 @@
+package state.street.car.booking.carBooking.integration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import state.street.car.booking.carBooking.datasource.ShardRouter;
+import state.street.car.booking.carBooking.dto.BookingDTO;
+import state.street.car.booking.carBooking.dto.BookingRequest;
+import state.street.car.booking.carBooking.ledger.BookingEvent;
+import state.street.car.booking.carBooking.ledger.BookingLedger;
+import state.street.car.booking.carBooking.ledger.LedgerProperties;
+import state.street.car.booking.carBooking.ledger.LedgerView;
+import state.street.car.booking.carBooking.repository.CarRepository;
+import state.street.car.booking.carBooking.service.BookingService;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Not @Transactional: events are appended when the booking transaction commits.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ledger",
+        "carbooking.ledger.enabled=true",
+        "carbooking.ledger.segment-size-bytes=4096"
+})
+@AutoConfigureMockMvc
+class BookingLedgerIntegrationTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2034, 5, 8, 9, 30);
+
+    @TempDir
+    static Path ledgerDir;
+
+    @DynamicPropertySource
+    static void ledgerDirectory(DynamicPropertyRegistry registry) {
+        registry.add("carbooking.ledger.directory", ledgerDir::toString);
+    }
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingLedger bookingLedger;
+
+    @Autowired
+    private LedgerProperties ledgerProperties;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @AfterEach
+    void tearDown() {
+        bookingService.getAllBookings().forEach(booking -> bookingService.deleteBooking(booking.getId(), "admin"));
+    }
+
+    @Test
+    void testBookingChangesAreRecordedAndApplied() {
+        Long sedanId = carRepository.findByRegistrationNumber("SED-001").orElseThrow().getId();
+        Long suvId = carRepository.findByRegistrationNumber("SUV-001").orElseThrow().getId();
+        long before = bookingLedger.getView().lastSequence();
+
+        BookingDTO booking = bookingService.createBooking(new BookingRequest(sedanId, START, 3), "john");
+        bookingService.updateBooking(booking.getId(), new BookingRequest(suvId, START.plusDays(1), 2));
+        BookingDTO other = bookingService.createBooking(new BookingRequest(sedanId, START, 1), "jane");
+        bookingService.deleteBooking(other.getId(), "jane");
+
+        List<BookingEvent> events = bookingLedger.events(before + 1, 10);
+        assertEquals(List.of(BookingEvent.Type.CREATED, BookingEvent.Type.UPDATED,
+                        BookingEvent.Type.CREATED, BookingEvent.Type.CANCELLED),
+                events.stream().map(BookingEvent::type).toList());
+        assertEquals(suvId, events.get(1).carId());
+        assertEquals(START.plusDays(1), events.get(1).bookingDate());
+
+        LedgerView view = bookingLedger.getView();
+        assertEquals(1, view.bookingsForUser(booking.getUserId()).size());
+        assertTrue(view.isCarAvailable(sedanId, START, 3));
+        assertFalse(view.isCarAvailable(suvId, START, 1));
+        assertEquals(bookingService.isCarAvailable(suvId, START, 1), view.isCarAvailable(suvId, START, 1));
+        assertEquals(0, bookingLedger.verify(false).get("mismatches"));
+    }
+
+    @Test
+    void testFailedBookingLeavesNoEvent() {
+        Long sedanId = carRepository.findByRegistrationNumber("SED-001").orElseThrow().getId();
+        bookingService.createBooking(new BookingRequest(sedanId, START, 3), "john");
+        long sequence = bookingLedger.getView().lastSequence();
+
+        assertThrows(RuntimeException.class,
+                () -> bookingService.createBooking(new BookingRequest(sedanId, START.plusDays(1), 1), "jane"));
+
+        assertEquals(sequence, bookingLedger.getView().lastSequence());
+    }
+
+    @Test
+    void testRestartRecoversTheViewsFromSnapshotAndTail() {
+        Long sedanId = carRepository.findByRegistrationNumber("SED-001").orElseThrow().getId();
+        for (int i = 0; i < 40; i++) {
+            bookingService.createBooking(new BookingRequest(sedanId, START.plusDays(5L * i), 2), "john");
+        }
+        bookingLedger.snapshot();
+        // The tail spans several 4 KB segments
+        for (int i = 40; i < 200; i++) {
+            bookingService.createBooking(new BookingRequest(sedanId, START.plusDays(5L * i), 2), "jane");
+        }
+
+        BookingLedger restarted = new BookingLedger(ledgerProperties, jdbcTemplate, shardRouter);
+        restarted.open();
+        restarted.recover();
+
+        assertEquals(bookingLedger.getView().bookings(), restarted.getView().bookings());
+        assertEquals(bookingLedger.getView().lastSequence(), restarted.getView().lastSequence());
+        assertEquals(160, restarted.getView().bookingsForCar(sedanId).stream()
+                .filter(entry -> !entry.bookingDate().isBefore(START.plusDays(200))).count());
+    }
+
+    @Test
+    void testVerifyRepairsBookingsWrittenAroundTheLedger() throws Exception {
+        Long sedanId = carRepository.findByRegistrationNumber("SED-001").orElseThrow().getId();
+        Long userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = 'john'", Long.class);
+        jdbcTemplate.update("INSERT INTO bookings (car_id, user_id, booking_date, duration, created_at) VALUES (?, ?, ?, 2, ?)",
+                sedanId, userId, START, LocalDateTime.now());
+
+        Map<String, Object> result = bookingLedger.verify(true);
+        assertEquals(1, result.get("mismatches"));
+        assertEquals(true, result.get("repaired"));
+        assertFalse(bookingLedger.getView().isCarAvailable(sedanId, START, 1));
+        assertEquals(0, bookingLedger.verify(false).get("mismatches"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ROLE_ADMIN"})
+    void testAdminEndpoints() throws Exception {
+        mockMvc.perform(get("/api/admin/ledger"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.enabled").value(true))
+                .andExpect(jsonPath("$.ready").value(true));
+
+        mockMvc.perform(post("/api/admin/ledger/snapshots"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.name").exists());
+
+        mockMvc.perform(post("/api/admin/ledger/verify"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.mismatches").value(0));
+
+        mockMvc.perform(get("/api/admin/ledger/events").param("from", "1").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isArray());
+    }
+}
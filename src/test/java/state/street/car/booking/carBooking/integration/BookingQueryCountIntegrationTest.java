@@ -0,0 +1,131 @@
+package state.street.car.booking.carBooking.integration;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import state.street.car.booking.carBooking.dto.BookingDTO;
+import state.street.car.booking.carBooking.entity.Booking;
+import state.street.car.booking.carBooking.entity.Car;
+import state.street.car.booking.carBooking.entity.Role;
+import state.street.car.booking.carBooking.entity.User;
+import state.street.car.booking.carBooking.enums.CarType;
+import state.street.car.booking.carBooking.repository.BookingRepository;
+import state.street.car.booking.carBooking.repository.CarRepository;
+import state.street.car.booking.carBooking.repository.RoleRepository;
+import state.street.car.booking.carBooking.repository.UserRepository;
+import state.street.car.booking.carBooking.service.BookingService;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies the booking read paths issue a constant number of statements regardless of
+ * how many bookings, cars and users are involved.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class BookingQueryCountIntegrationTest {
+
+    private static final int BOOKINGS = 12;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User firstUser;
+    private Car firstCar;
+
+    @BeforeEach
+    void setUp() {
+        Role userRole = roleRepository.findByName("ROLE_USER").orElseThrow();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            User user = new User("querycount" + i, "password", "querycount" + i + "@test.com");
+            user.setRoles(Set.of(userRole));
+            users.add(userRepository.save(user));
+        }
+
+        LocalDateTime start = LocalDateTime.now().plusDays(50);
+        for (int i = 0; i < BOOKINGS; i++) {
+            Car car = carRepository.save(new Car("QC-" + i, CarType.SEDAN, new BigDecimal("50.00"), 4));
+            if (i == 0) {
+                firstCar = car;
+            }
+            bookingRepository.save(new Booking(car, users.get(i % users.size()), start.plusDays(i), 2));
+        }
+        firstUser = users.get(0);
+
+        // Start from an empty persistence context so lazy associations would have to be fetched
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testGetAllBookings_SingleStatement() {
+        List<BookingDTO> bookings = bookingService.getAllBookings();
+
+        assertTrue(bookings.size() >= BOOKINGS);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void testGetBookingsByDateRange_SingleStatement() {
+        LocalDateTime from = LocalDateTime.now().plusDays(49);
+        List<BookingDTO> bookings = bookingService.getBookingsByDateRange(from, from.plusDays(BOOKINGS + 5));
+
+        assertEquals(BOOKINGS, bookings.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void testGetBookingsByUserId_SingleStatement() {
+        List<BookingDTO> bookings = bookingService.getBookingsByUserId(firstUser.getId());
+
+        assertEquals(BOOKINGS / 3, bookings.size());
+        assertTrue(bookings.stream().allMatch(b -> b.getUsername().equals(firstUser.getUsername())));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testGetBookingsByCarId_SingleStatement() {
+        List<BookingDTO> bookings = bookingService.getBookingsByCarId(firstCar.getId());
+
+        assertEquals(1, bookings.size());
+        assertEquals("QC-0", bookings.get(0).getCarRegistrationNumber());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,147 @@
+package state.street.car.booking.carBooking.integration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import state.street.car.booking.carBooking.dto.BookingReportRowDTO;
+import state.street.car.booking.carBooking.entity.ArchivedBooking;
+import state.street.car.booking.carBooking.entity.Booking;
+import state.street.car.booking.carBooking.entity.Car;
+import state.street.car.booking.carBooking.entity.User;
+import state.street.car.booking.carBooking.enums.CarType;
+import state.street.car.booking.carBooking.repository.ArchivedBookingRepository;
+import state.street.car.booking.carBooking.repository.BookingRepository;
+import state.street.car.booking.carBooking.repository.CarRepository;
+import state.street.car.booking.carBooking.repository.UserRepository;
+import state.street.car.booking.carBooking.service.BookingReportService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Not transactional: the report slices run on pool threads with their own connections,
+ * so the test data is committed and removed again after each test.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class BookingReportIntegrationTest {
+
+    @Autowired
+    private BookingReportService bookingReportService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ArchivedBookingRepository archivedBookingRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private final List<Long> bookingIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        User john = userRepository.findByUsername("john").orElseThrow();
+        book(car("SED-001"), john, LocalDateTime.of(2033, 1, 10, 10, 0), 3, 24);
+        book(car("SUV-001"), john, LocalDateTime.of(2033, 1, 20, 10, 0), 2, 48);
+        book(car("SED-002"), john, LocalDateTime.of(2033, 2, 15, 9, 0), 2, 36);
+
+        Car van = car("VAN-001");
+        LocalDateTime vanDate = LocalDateTime.of(2033, 1, 5, 8, 0);
+        archivedBookingRepository.save(new ArchivedBooking(-1L, van.getId(), van.getRegistrationNumber(), CarType.VAN,
+                new BigDecimal("80.00"), john.getId(), vanDate, 1, vanDate.minusHours(12), LocalDateTime.now()));
+        // Archived at an older price than the car has today
+        Car sedan = car("SED-003");
+        LocalDateTime sedanDate = LocalDateTime.of(2033, 2, 3, 8, 0);
+        archivedBookingRepository.save(new ArchivedBooking(-2L, sedan.getId(), sedan.getRegistrationNumber(), CarType.SEDAN,
+                new BigDecimal("60.00"), john.getId(), sedanDate, 4, sedanDate, LocalDateTime.now()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingRepository.deleteAllById(bookingIds);
+        archivedBookingRepository.deleteAllById(List.of(-1L, -2L));
+    }
+
+    @Test
+    void testReportCombinesLiveAndArchivedBookingsPerMonthAndType() {
+        List<BookingReportRowDTO> rows = bookingReportService.generate(LocalDate.of(2033, 1, 1), LocalDate.of(2033, 12, 31),
+                BookingReportService.Split.DATE);
+
+        assertEquals(List.of(
+                row(2033, 1, CarType.SEDAN, 1, "150.00", "24.00"),
+                row(2033, 1, CarType.SUV, 1, "140.00", "48.00"),
+                row(2033, 1, CarType.VAN, 1, "80.00", "12.00"),
+                row(2033, 2, CarType.SEDAN, 2, "350.00", "18.00")), rows);
+    }
+
+    @Test
+    void testCarShardSplitMatchesDateSplit() {
+        LocalDate from = LocalDate.of(2032, 12, 1);
+        LocalDate to = LocalDate.of(2033, 3, 31);
+
+        assertEquals(bookingReportService.generate(from, to, BookingReportService.Split.DATE),
+                bookingReportService.generate(from, to, BookingReportService.Split.CAR));
+        assertEquals(1, bookingReportService.generate(LocalDate.of(2033, 2, 1), LocalDate.of(2033, 2, 10),
+                BookingReportService.Split.CAR).size());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ROLE_ADMIN"})
+    void testDownloadReportAsCsv() throws Exception {
+        mockMvc.perform(get("/api/admin/reports/bookings")
+                        .param("from", "2033-01-01")
+                        .param("to", "2033-02-28")
+                        .param("split", "CAR"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string("Content-Disposition",
+                        containsString("attachment; filename=\"booking-report-2033-01-01-2033-02-28.csv\"")))
+                .andExpect(content().string(containsString("month,car_type,bookings,revenue,average_lead_time_hours\n")))
+                .andExpect(content().string(containsString("2033-02,SEDAN,2,350.00,18.00\n")));
+    }
+
+    @Test
+    @WithMockUser(username = "john", authorities = {"ROLE_USER"})
+    void testReportRequiresAdmin() throws Exception {
+        mockMvc.perform(get("/api/admin/reports/bookings")
+                        .param("from", "2033-01-01")
+                        .param("to", "2033-02-28"))
+                .andExpect(status().isForbidden());
+    }
+
+    private Car car(String registrationNumber) {
+        return carRepository.findByRegistrationNumber(registrationNumber).orElseThrow();
+    }
+
+    private void book(Car car, User user, LocalDateTime bookingDate, int duration, int leadTimeHours) {
+        Booking booking = new Booking(car, user, bookingDate, duration);
+        booking.setCreatedAt(bookingDate.minusHours(leadTimeHours));
+        bookingIds.add(bookingRepository.save(booking).getId());
+    }
+
+    private static BookingReportRowDTO row(int year, int month, CarType type, long bookings, String revenue, String leadTime) {
+        return new BookingReportRowDTO(YearMonth.of(year, month), type, bookings, new BigDecimal(revenue), new BigDecimal(leadTime));
+    }
+}
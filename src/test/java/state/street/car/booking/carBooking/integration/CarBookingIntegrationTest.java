@@ -12,6 +12,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 import state.street.car.booking.carBooking.dto.BookingRequest;
 import state.street.car.booking.carBooking.dto.CarDTO;
+import state.street.car.booking.carBooking.dto.QuoteRequest;
 import state.street.car.booking.carBooking.entity.Booking;
 import state.street.car.booking.carBooking.entity.Car;
 import state.street.car.booking.carBooking.entity.Role;
@@ -24,6 +25,7 @@ import state.street.car.booking.carBooking.repository.UserRepository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Set;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -490,5 +492,31 @@ class CarBookingIntegrationTest {
                 .andExpect(jsonPath("$").isArray())
                 .andExpect(jsonPath("$[0].type").value("SEDAN"));
     }
-}
 
+    @Test
+    @WithMockUser(username = "integrationuser", authorities = {"ROLE_USER"})
+    void testQuoteAllCarsForSeveralPeriods() throws Exception {
+        QuoteRequest request = new QuoteRequest(null, List.of(
+                new QuoteRequest.Period(LocalDateTime.now().plusDays(5), 2),
+                new QuoteRequest.Period(LocalDateTime.now().plusDays(30), 10)));
+
+        mockMvc.perform(post("/api/quotes")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isArray())
+                .andExpect(jsonPath("$[0].total").isNumber())
+                .andExpect(jsonPath("$[1].duration").value(10));
+    }
+
+    @Test
+    @WithMockUser(username = "integrationuser", authorities = {"ROLE_USER"})
+    void testQuoteRejectsInvalidDuration() throws Exception {
+        QuoteRequest request = new QuoteRequest(null, List.of(new QuoteRequest.Period(LocalDateTime.now(), 0)));
+
+        mockMvc.perform(post("/api/quotes")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,209 @@
+package state.street.car.booking.carBooking.integration;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import state.street.car.booking.carBooking.cluster.ChangeFeedPoller;
+import state.street.car.booking.carBooking.dto.BookingDTO;
+import state.street.car.booking.carBooking.dto.BookingRequest;
+import state.street.car.booking.carBooking.dto.CarDTO;
+import state.street.car.booking.carBooking.entity.Car;
+import state.street.car.booking.carBooking.entity.ChangeLogEntry;
+import state.street.car.booking.carBooking.repository.CarRepository;
+import state.street.car.booking.carBooking.service.BookingService;
+import state.street.car.booking.carBooking.service.CarService;
+import state.street.car.booking.carBooking.service.DataVersionTracker;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Three nodes on one database, each with its own second-level cache and change feed poller.
+ * Node 2's poller is driven by hand so the retention and commit-order tests control exactly what it sees.
+ */
+@Slf4j
+class ClusterCoherenceIntegrationTest {
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    private static final long GAP_TIMEOUT_MILLIS = 300;
+
+    private static ClusterNodes cluster;
+    private static JdbcTemplate jdbc;
+
+    @BeforeAll
+    static void startCluster() {
+        cluster = ClusterNodes.start(3, "--carbooking.coherence.enabled=true",
+                "--carbooking.coherence.poll-interval-millis=" + POLL_INTERVAL_MILLIS,
+                "--carbooking.coherence.gap-timeout-millis=" + GAP_TIMEOUT_MILLIS);
+        jdbc = cluster.bean(0, JdbcTemplate.class);
+        cluster.bean(2, ChangeFeedPoller.class).stop();
+    }
+
+    @AfterAll
+    static void stopCluster() {
+        cluster.close();
+    }
+
+    @Test
+    void testCarUpdateIsEvictedOnOtherNodesWithinAPollInterval() throws Exception {
+        Long changedId = carId("SED-001");
+        Long untouchedId = carId("SUV-001");
+        CarService remote = cluster.bean(1, CarService.class);
+        CarRepository remoteRepository = cluster.bean(1, CarRepository.class);
+        // Let node 1 finish applying earlier tests' changes, and give up on any pruned before it
+        // saw them, before warming its cache
+        Thread.sleep(GAP_TIMEOUT_MILLIS + POLL_INTERVAL_MILLIS);
+        cluster.bean(1, ChangeFeedPoller.class).poll();
+        assertEquals(0, new BigDecimal("50.00").compareTo(remote.getCarById(changedId).getCostPerDay()));
+        remote.getCarById(untouchedId);
+        assertTrue(remoteRepository.findByRegistrationNumber("COH-001").isEmpty());
+        assertTrue(isCached(1, changedId));
+        long carVersion = cluster.bean(1, DataVersionTracker.class).getCarVersion();
+        long ownEvictions = keysEvicted(0);
+
+        CarDTO changed = cluster.bean(0, CarService.class).getCarById(changedId);
+        changed.setRegistrationNumber("COH-001");
+        changed.setCostPerDay(new BigDecimal("65.00"));
+        long committed = System.nanoTime();
+        cluster.bean(0, CarService.class).updateCar(changedId, changed);
+
+        await(() -> !isCached(1, changedId), "node 1 to evict the car");
+        long staleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - committed);
+        log.info("Car update evicted on node 1 after {}ms", staleMillis);
+        assertTrue(staleMillis < 10 * POLL_INTERVAL_MILLIS, "evicted after " + staleMillis + "ms");
+
+        // Only the changed key goes; cached queries over cars and the car version follow it
+        assertTrue(isCached(1, untouchedId));
+        assertEquals(0, new BigDecimal("65.00").compareTo(remote.getCarById(changedId).getCostPerDay()));
+        assertTrue(remoteRepository.findByRegistrationNumber("COH-001").isPresent());
+        assertTrue(cluster.bean(1, DataVersionTracker.class).getCarVersion() > carVersion);
+        // The writing node evicted its own change at commit and skips it in the feed
+        assertEquals(ownEvictions, keysEvicted(0));
+
+        changed.setRegistrationNumber("SED-001");
+        changed.setCostPerDay(new BigDecimal("50.00"));
+        cluster.bean(0, CarService.class).updateCar(changedId, changed);
+    }
+
+    @Test
+    void testBookingChangesMoveOtherNodesETags() throws Exception {
+        Long carId = carId("VAN-001");
+        DataVersionTracker remote = cluster.bean(1, DataVersionTracker.class);
+        String eTag = remote.carsAndBookingsETag();
+
+        BookingDTO booking = cluster.bean(0, BookingService.class)
+                .createBooking(new BookingRequest(carId, LocalDateTime.of(2036, 3, 2, 9, 0), 2), "john");
+        await(() -> !remote.carsAndBookingsETag().equals(eTag), "node 1's ETag to change");
+
+        String afterCreate = remote.carsAndBookingsETag();
+        cluster.bean(0, BookingService.class).deleteBooking(booking.getId(), "john");
+        await(() -> !remote.carsAndBookingsETag().equals(afterCreate), "node 1's ETag to change again");
+    }
+
+    @Test
+    void testNodeBehindTheRetainedChangesEvictsTheWholeType() throws Exception {
+        ChangeFeedPoller lagging = cluster.bean(2, ChangeFeedPoller.class);
+        lagging.poll();
+        Long changedId = carId("SED-002");
+        Long untouchedId = carId("SED-003");
+        cluster.bean(2, CarService.class).getCarById(changedId);
+        cluster.bean(2, CarService.class).getCarById(untouchedId);
+
+        CarDTO changed = cluster.bean(0, CarService.class).getCarById(changedId);
+        changed.setCapacity(7);
+        cluster.bean(0, CarService.class).updateCar(changedId, changed);
+        changed.setCapacity(6);
+        cluster.bean(0, CarService.class).updateCar(changedId, changed);
+        // As if node 2 had been away longer than the retention; pruning keeps the newest row
+        jdbc.update("DELETE FROM change_log WHERE id < (SELECT MAX(id) FROM change_log)");
+
+        // The newest change is applied; the pruned one is waited for, then given up on
+        assertEquals(1, lagging.poll());
+        assertTrue(isCached(2, untouchedId));
+        Thread.sleep(GAP_TIMEOUT_MILLIS + 50);
+        assertEquals(0, lagging.poll());
+        assertFalse(isCached(2, changedId));
+        assertFalse(isCached(2, untouchedId));
+        assertEquals((long) ChangeLogEntry.EntityType.values().length, lagging.status().get("typesEvicted"));
+        assertEquals(6, cluster.bean(2, CarService.class).getCarById(changedId).getCapacity());
+
+        // Caught up again: the next change is evicted by key
+        changed.setCapacity(5);
+        cluster.bean(0, CarService.class).updateCar(changedId, changed);
+        cluster.bean(2, CarService.class).getCarById(untouchedId);
+        assertEquals(1, lagging.poll());
+        assertTrue(isCached(2, untouchedId));
+    }
+
+    @Test
+    void testChangeCommittedAfterANewerOneIsStillApplied() throws Exception {
+        ChangeFeedPoller lagging = cluster.bean(2, ChangeFeedPoller.class);
+        lagging.poll();
+        Long slowId = carId("SUV-002");
+        Long fastId = carId("SUV-003");
+        cluster.bean(2, CarService.class).getCarById(slowId);
+        cluster.bean(2, CarService.class).getCarById(fastId);
+
+        try (Connection slow = jdbc.getDataSource().getConnection()) {
+            slow.setAutoCommit(false);
+            // Takes the lower id but commits after the higher one
+            appendChange(slow, slowId);
+            try (Connection fast = jdbc.getDataSource().getConnection()) {
+                appendChange(fast, fastId);
+            }
+
+            assertEquals(1, lagging.poll());
+            assertFalse(isCached(2, fastId));
+            assertTrue(isCached(2, slowId));
+
+            // Still open past the gap timeout, as a long cleanup can be: the id is looked up on its own
+            Thread.sleep(GAP_TIMEOUT_MILLIS + 50);
+            long typesEvicted = (Long) lagging.status().get("typesEvicted");
+            assertEquals(0, lagging.poll());
+            assertTrue(isCached(2, slowId));
+            assertEquals(typesEvicted, lagging.status().get("typesEvicted"));
+
+            slow.commit();
+        }
+        assertEquals(1, lagging.poll());
+        assertFalse(isCached(2, slowId));
+        assertEquals(0, lagging.poll());
+    }
+
+    private static void appendChange(Connection connection, Long carId) throws Exception {
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO change_log "
+                + "(entity_type, entity_key, node_id, changed_at) VALUES ('CAR', ?, 'elsewhere', LOCALTIMESTAMP)")) {
+            insert.setLong(1, carId);
+            insert.executeUpdate();
+        }
+    }
+
+    private static Long carId(String registrationNumber) {
+        return jdbc.queryForObject("SELECT id FROM cars WHERE registration_number = ?", Long.class, registrationNumber);
+    }
+
+    private static boolean isCached(int node, Long carId) {
+        return cluster.bean(node, EntityManagerFactory.class).getCache().contains(Car.class, carId);
+    }
+
+    private static long keysEvicted(int node) {
+        return (Long) cluster.bean(node, ChangeFeedPoller.class).status().get("keysEvicted");
+    }
+
+    private static void await(BooleanSupplier condition, String description) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for " + description);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package state.street.car.booking.carBooking.integration;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import state.street.car.booking.carBooking.cluster.Lease;
+import state.street.car.booking.carBooking.cluster.LeaseManager;
+import state.street.car.booking.carBooking.exception.LeaseUnavailableException;
+import state.street.car.booking.carBooking.scheduler.BookingCleanupScheduler;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Three nodes on one database, each with its own lease manager and cleanup scheduler.
+ */
+class ClusterLeaseIntegrationTest {
+
+    private static final String CLEANUP_LEASE = "booking-cleanup";
+
+    private static ClusterNodes cluster;
+    private static JdbcTemplate jdbc;
+
+    @BeforeAll
+    static void startCluster() {
+        cluster = ClusterNodes.start(3, "--carbooking.lease.enabled=true", "--carbooking.lease.ttl-millis=600");
+        jdbc = cluster.bean(0, JdbcTemplate.class);
+    }
+
+    @AfterAll
+    static void stopCluster() {
+        cluster.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbc.update("DELETE FROM bookings");
+        jdbc.update("DELETE FROM booking_archive");
+        jdbc.update("UPDATE scheduler_leases SET owner = NULL, completed_run = NULL, expires_at = LOCALTIMESTAMP");
+    }
+
+    @Test
+    void testOnlyOneNodeRunsTheScheduledCleanup() throws Exception {
+        insertExpiredBookings(30);
+        long tokenBefore = fencingToken();
+
+        ExecutorService nodes = Executors.newFixedThreadPool(cluster.size());
+        CountDownLatch fire = new CountDownLatch(1);
+        List<Future<?>> runs = new ArrayList<>();
+        for (int i = 0; i < cluster.size(); i++) {
+            BookingCleanupScheduler scheduler = cluster.bean(i, BookingCleanupScheduler.class);
+            runs.add(nodes.submit(() -> {
+                fire.await();
+                scheduler.cleanupExpiredBookings();
+                return null;
+            }));
+        }
+        fire.countDown();
+        for (Future<?> run : runs) {
+            run.get();
+        }
+        nodes.shutdown();
+
+        await(() -> LocalDate.now().toString().equals(completedRun()), "the run to complete");
+        assertEquals(30, count("SELECT COUNT(*) FROM booking_archive"));
+        assertEquals(0, count("SELECT COUNT(*) FROM bookings WHERE DATEADD(DAY, duration, booking_date) < LOCALTIMESTAMP"));
+        // The followers watched the lease until the run completed and never took it
+        Thread.sleep(1500);
+        assertEquals(tokenBefore + 1, fencingToken());
+    }
+
+    @Test
+    void testAnotherNodeTakesOverWhenTheLeaderDies() throws Exception {
+        insertExpiredBookings(10);
+        // Node 0 takes the lease and then stops renewing it, as if it died mid-run
+        Lease dead = cluster.bean(0, LeaseManager.class).tryAcquire(CLEANUP_LEASE).orElseThrow();
+
+        cluster.bean(1, BookingCleanupScheduler.class).cleanupExpiredBookings();
+        assertEquals(0, count("SELECT COUNT(*) FROM booking_archive"), "node 1 waits while the lease is live");
+
+        await(() -> LocalDate.now().toString().equals(completedRun()), "node 1 to take over");
+        assertEquals(10, count("SELECT COUNT(*) FROM booking_archive"));
+        assertEquals(dead.fencingToken() + 1, fencingToken());
+
+        // The old leader wakes up: its token no longer commits anything
+        LeaseManager oldLeader = cluster.bean(0, LeaseManager.class);
+        assertFalse(oldLeader.renew(dead));
+        TransactionTemplate transaction = cluster.bean(0, TransactionTemplate.class);
+        assertThrows(IllegalStateException.class,
+                () -> transaction.executeWithoutResult(status -> oldLeader.checkFence(dead)));
+    }
+
+    @Test
+    void testManualCleanupRespectsTheLease() {
+        insertExpiredBookings(5);
+        LeaseManager leader = cluster.bean(0, LeaseManager.class);
+        Lease held = leader.tryAcquire(CLEANUP_LEASE).orElseThrow();
+        try {
+            assertThrows(LeaseUnavailableException.class,
+                    () -> cluster.bean(2, BookingCleanupScheduler.class).cleanupExpiredBookingsManually());
+            assertEquals(0, count("SELECT COUNT(*) FROM booking_archive"));
+        } finally {
+            leader.release(held, null);
+        }
+
+        assertEquals(5, cluster.bean(2, BookingCleanupScheduler.class).cleanupExpiredBookingsManually());
+    }
+
+    private static void insertExpiredBookings(int count) {
+        Long carId = jdbc.queryForObject("SELECT id FROM cars WHERE registration_number = 'SED-003'", Long.class);
+        Long userId = jdbc.queryForObject("SELECT id FROM users WHERE username = 'john'", Long.class);
+        LocalDateTime start = LocalDateTime.now().minusDays(10L * count);
+        for (int i = 0; i < count; i++) {
+            jdbc.update("INSERT INTO bookings (car_id, user_id, booking_date, duration, created_at) VALUES (?, ?, ?, 1, ?)",
+                    carId, userId, Timestamp.valueOf(start.plusDays(i * 3L)), Timestamp.valueOf(start));
+        }
+    }
+
+    private static long fencingToken() {
+        return jdbc.queryForObject("SELECT COALESCE(MAX(fencing_token), 0) FROM scheduler_leases WHERE name = ?", Long.class, CLEANUP_LEASE);
+    }
+
+    private static String completedRun() {
+        return jdbc.queryForObject("SELECT completed_run FROM scheduler_leases WHERE name = ?", String.class, CLEANUP_LEASE);
+    }
+
+    private static int count(String sql) {
+        return jdbc.queryForObject(sql, Integer.class);
+    }
+
+    private static void await(BooleanSupplier condition, String description) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for " + description);
+            Thread.sleep(20);
+        }
+    }
+}
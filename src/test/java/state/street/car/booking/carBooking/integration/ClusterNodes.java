@@ -0,0 +1,86 @@
+package state.street.car.booking.carBooking.integration;
+
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import state.street.car.booking.carBooking.CarBookingApplication;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Several application contexts sharing one in-memory H2 database, standing in for the nodes of a
+ * cluster. The first node creates the schema and seeds it; the others only connect. Each node gets
+ * its own second-level cache manager, as separate JVMs would, so closing one leaves the rest and
+ * any other test context untouched.
+ */
+final class ClusterNodes implements AutoCloseable {
+
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    private ClusterNodes() {
+    }
+
+    static ClusterNodes start(int count, String... extraArgs) {
+        String url = "jdbc:h2:mem:cluster-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        ClusterNodes cluster = new ClusterNodes();
+        for (int i = 0; i < count; i++) {
+            List<String> args = new ArrayList<>(List.of(
+                    "--spring.datasource.url=" + url,
+                    "--spring.jpa.hibernate.ddl-auto=" + (i == 0 ? "create-drop" : "none"),
+                    "--spring.jpa.show-sql=false",
+                    "--carbooking.sql-monitor.enabled=false",
+                    "--carbooking.lease.node-id=node-" + i,
+                    "--spring.jpa.properties.hibernate.javax.cache.uri=" + cacheConfigFor(i).toUri(),
+                    "--logging.level.root=WARN",
+                    "--logging.level.org.springframework.security=WARN"));
+            args.addAll(List.of(extraArgs));
+            cluster.nodes.add(new SpringApplicationBuilder(CarBookingApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .logStartupInfo(false)
+                    .bannerMode(Banner.Mode.OFF)
+                    .run(args.toArray(String[]::new)));
+        }
+        return cluster;
+    }
+
+    /**
+     * Ehcache keys cache managers by configuration URI, so every node reads its own copy
+     */
+    private static Path cacheConfigFor(int node) {
+        try (InputStream config = ClusterNodes.class.getResourceAsStream("/ehcache.xml")) {
+            Path copy = Files.createTempFile("ehcache-node-" + node + "-", ".xml");
+            copy.toFile().deleteOnExit();
+            Files.copy(config, copy, StandardCopyOption.REPLACE_EXISTING);
+            return copy;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not copy the cache configuration", e);
+        }
+    }
+
+    int size() {
+        return nodes.size();
+    }
+
+    <T> T bean(int node, Class<T> type) {
+        return nodes.get(node).getBean(type);
+    }
+
+    /**
+     * Last node first: the first one drops the schema
+     */
+    @Override
+    public void close() {
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            nodes.get(i).close();
+        }
+    }
+}
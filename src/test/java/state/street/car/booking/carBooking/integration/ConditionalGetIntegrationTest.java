@@ -0,0 +1,170 @@
+package state.street.car.booking.carBooking.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import state.street.car.booking.carBooking.dto.CarDTO;
+import state.street.car.booking.carBooking.enums.CarType;
+import state.street.car.booking.carBooking.repository.CarRepository;
+import state.street.car.booking.carBooking.service.BookingService;
+import state.street.car.booking.carBooking.service.CarService;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Not @Transactional: version counters only advance after a real commit.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConditionalGetIntegrationTest {
+
+    private static final int REPEATS = 50;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @MockitoSpyBean
+    private CarService carService;
+
+    @MockitoSpyBean
+    private BookingService bookingService;
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ROLE_ADMIN"})
+    void testRepeatedSimpleListIsServedAsNotModified() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/cars/simple"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn();
+        String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        int fullBodyBytes = first.getResponse().getContentAsByteArray().length;
+
+        int conditionalBodyBytes = 0;
+        for (int i = 0; i < REPEATS; i++) {
+            MvcResult repeat = mockMvc.perform(get("/api/cars/simple").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                    .andReturn();
+            conditionalBodyBytes += repeat.getResponse().getContentAsByteArray().length;
+        }
+
+        for (int i = 0; i < REPEATS; i++) {
+            mockMvc.perform(get("/api/cars/simple")).andExpect(status().isOk())
+                    .andExpect(content().bytes(first.getResponse().getContentAsByteArray()));
+        }
+
+        // Conditional requests never reach the service; unconditional ones are served from the byte cache
+        verify(carService, atMost(1)).getAllCarsSimple();
+        assertTrue(fullBodyBytes > 0);
+        assertEquals(0, conditionalBodyBytes);
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ROLE_ADMIN"})
+    void testEachEncodingHasItsOwnETag() throws Exception {
+        String identityETag = mockMvc.perform(get("/api/cars/simple").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String gzipETag = mockMvc.perform(get("/api/cars/simple").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertNotEquals(identityETag, gzipETag);
+        // A cached identity body must not validate a gzip request, nor the other way round
+        mockMvc.perform(get("/api/cars/simple").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, identityETag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/cars/simple").header(HttpHeaders.IF_NONE_MATCH, gzipETag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/cars/simple").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, gzipETag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ROLE_ADMIN"})
+    void testRepeatedAvailabilitySearchSkipsService() throws Exception {
+        String startDate = "2030-01-10T10:00:00";
+        String eTag = mockMvc.perform(get("/api/cars")
+                        .param("startDate", startDate)
+                        .param("duration", "3"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        for (int i = 0; i < REPEATS; i++) {
+            mockMvc.perform(get("/api/cars")
+                            .param("startDate", startDate)
+                            .param("duration", "3")
+                            .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                    .andExpect(status().isNotModified());
+        }
+
+        verify(carService, times(1)).getAllCarsForPeriod(any(), any());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ROLE_ADMIN"})
+    void testRepeatedBookingListSkipsService() throws Exception {
+        String eTag = mockMvc.perform(get("/api/bookings"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        for (int i = 0; i < REPEATS; i++) {
+            mockMvc.perform(get("/api/bookings").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                    .andExpect(status().isNotModified());
+        }
+
+        verify(bookingService, times(1)).getAllBookings();
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ROLE_ADMIN"})
+    void testCarMutationChangesETag() throws Exception {
+        String eTag = mockMvc.perform(get("/api/cars/simple"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        CarDTO newCar = new CarDTO(null, "ETAG-001", CarType.VAN, new BigDecimal("80.00"), 8);
+        mockMvc.perform(post("/api/cars")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(newCar)))
+                .andExpect(status().isCreated());
+
+        try {
+            String newETag = mockMvc.perform(get("/api/cars/simple").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[?(@.registrationNumber=='ETAG-001')]").exists())
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+            assertNotEquals(eTag, newETag);
+        } finally {
+            // Through the service, so the car version and the cached list move on for later tests
+            carRepository.findByRegistrationNumber("ETAG-001")
+                    .ifPresent(car -> carService.deleteCar(car.getId()));
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package state.street.car.booking.carBooking.integration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import state.street.car.booking.carBooking.dto.BookingDTO;
+import state.street.car.booking.carBooking.dto.BookingRequest;
+import state.street.car.booking.carBooking.dto.CarDTO;
+import state.street.car.booking.carBooking.dto.HourlyBookingDTO;
+import state.street.car.booking.carBooking.dto.HourlyBookingRequest;
+import state.street.car.booking.carBooking.enums.CarType;
+import state.street.car.booking.carBooking.exception.BookingConflictException;
+import state.street.car.booking.carBooking.hourly.HourSlotIndex;
+import state.street.car.booking.carBooking.service.BookingService;
+import state.street.car.booking.carBooking.service.CarService;
+import state.street.car.booking.carBooking.service.HourlyBookingService;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Not @Transactional: the hour slot index takes local changes when they commit.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:hourly",
+        "carbooking.hourly.enabled=true",
+        "carbooking.hourly.maximum-hours=12"
+})
+class HourlyBookingIntegrationTest {
+
+    @Autowired
+    private HourlyBookingService hourlyBookingService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private HourSlotIndex hourSlotIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testBackToBackHoursAreAllowedAndOverlapsRejected() {
+        Long carId = carId("SED-001");
+        LocalDateTime nine = LocalDateTime.of(2037, 4, 6, 9, 0);
+
+        hourlyBookingService.createHourlyBooking(new HourlyBookingRequest(carId, nine, 2), "john");
+        hourlyBookingService.createHourlyBooking(new HourlyBookingRequest(carId, nine.plusHours(2), 1), "jane");
+        hourlyBookingService.createHourlyBooking(new HourlyBookingRequest(carId, nine.minusHours(3), 3), "john");
+
+        assertThrows(BookingConflictException.class, () -> hourlyBookingService.createHourlyBooking(
+                new HourlyBookingRequest(carId, nine.plusHours(1), 3), "jane"));
+        List<HourlyBookingDTO> mine = hourlyBookingService.getHourlyBookingsByUsername("john");
+        assertEquals(List.of(nine.minusHours(3), nine), mine.stream()
+                .filter(booking -> booking.getCarId().equals(carId))
+                .map(HourlyBookingDTO::getStartTime)
+                .toList());
+    }
+
+    @Test
+    void testDayAndHourBookingsCannotOverlap() {
+        Long carId = carId("VAN-001");
+        LocalDateTime day = LocalDateTime.of(2037, 5, 10, 0, 0);
+        BookingDTO dayBooking = bookingService.createBooking(new BookingRequest(carId, day, 2), "john");
+
+        assertThrows(BookingConflictException.class, () -> hourlyBookingService.createHourlyBooking(
+                new HourlyBookingRequest(carId, day.plusHours(30), 2), "jane"));
+        // The day booking ends at midnight two days on
+        hourlyBookingService.createHourlyBooking(new HourlyBookingRequest(carId, day.plusDays(2), 4), "jane");
+
+        assertThrows(BookingConflictException.class, () -> bookingService.createBooking(
+                new BookingRequest(carId, day.plusDays(2).plusHours(2), 1), "john"));
+        assertThrows(BookingConflictException.class, () -> bookingService.updateBooking(dayBooking.getId(),
+                new BookingRequest(carId, day, 3)));
+
+        bookingService.deleteBooking(dayBooking.getId(), "john");
+        hourlyBookingService.createHourlyBooking(new HourlyBookingRequest(carId, day.plusHours(30), 2), "jane");
+    }
+
+    @Test
+    void testAvailableCarsLeavesOutCarsBookedInAnyRequestedHour() {
+        LocalDateTime start = LocalDateTime.of(2037, 6, 1, 14, 0);
+        Long booked = carId("SUV-001");
+        Long touching = carId("SUV-002");
+        hourlyBookingService.createHourlyBooking(new HourlyBookingRequest(booked, start.plusHours(2), 1), "john");
+        hourlyBookingService.createHourlyBooking(new HourlyBookingRequest(touching, start.plusHours(3), 1), "john");
+
+        List<Long> available = hourlyBookingService.getAvailableCars(CarType.SUV, start, 3).stream()
+                .map(CarDTO::getId)
+                .toList();
+
+        assertFalse(available.contains(booked));
+        assertTrue(available.contains(touching));
+        assertEquals(10 - 1, available.size());
+    }
+
+    @Test
+    void testDayAvailabilityLeavesOutCarsBookedByTheHour() {
+        LocalDateTime day = LocalDateTime.of(2037, 7, 1, 0, 0);
+        Long booked = carId("SUV-003");
+        Long endsAtStart = carId("SUV-004");
+        hourlyBookingService.createHourlyBooking(new HourlyBookingRequest(booked, day.plusHours(26), 2), "john");
+        hourlyBookingService.createHourlyBooking(new HourlyBookingRequest(endsAtStart, day.minusHours(2), 2), "john");
+
+        List<Long> available = carService.getAvailableCarsByType(CarType.SUV, day, 2).stream()
+                .map(CarDTO::getId)
+                .toList();
+
+        assertFalse(available.contains(booked));
+        assertFalse(carService.getAvailableCars(day, 2).stream().anyMatch(car -> car.getId().equals(booked)));
+        assertThrows(BookingConflictException.class,
+                () -> bookingService.createBooking(new BookingRequest(booked, day, 2), "jane"));
+        // Hours ending as the day booking starts do not overlap it
+        assertTrue(available.contains(endsAtStart));
+        bookingService.createBooking(new BookingRequest(endsAtStart, day, 2), "jane");
+    }
+
+    @Test
+    void testCancelledAndRolledBackBookingsFreeTheirHours() {
+        Long carId = carId("SED-002");
+        LocalDateTime start = LocalDateTime.of(2037, 7, 1, 10, 0);
+        HourlyBookingDTO booking = hourlyBookingService.createHourlyBooking(new HourlyBookingRequest(carId, start, 2), "john");
+        assertThrows(IllegalStateException.class, () -> hourlyBookingService.deleteHourlyBooking(booking.getId(), "jane"));
+
+        hourlyBookingService.deleteHourlyBooking(booking.getId(), "john");
+        assertTrue(hourSlotIndex.isFree(carId, start, start.plusHours(2)));
+
+        // A row the index has not seen, as if written by another node: the database check catches it
+        jdbcTemplate.update("INSERT INTO hourly_bookings (car_id, user_id, start_time, hours, end_time, created_at) "
+                        + "VALUES (?, (SELECT id FROM users WHERE username = 'jane'), ?, 1, ?, LOCALTIMESTAMP)",
+                carId, Timestamp.valueOf(start.plusHours(1)), Timestamp.valueOf(start.plusHours(2)));
+        assertThrows(BookingConflictException.class, () -> hourlyBookingService.createHourlyBooking(
+                new HourlyBookingRequest(carId, start, 2), "john"));
+        // The failed attempt's reservation went with its transaction
+        assertTrue(hourSlotIndex.isFree(carId, start, start.plusHours(1)));
+    }
+
+    @Test
+    void testRequestsOffTheHourOrOutsideTheLimitsAreRejected() {
+        Long carId = carId("SED-003");
+        LocalDateTime start = LocalDateTime.of(2037, 8, 1, 10, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> hourlyBookingService.createHourlyBooking(
+                new HourlyBookingRequest(carId, start.plusMinutes(30), 2), "john"));
+        assertThrows(IllegalArgumentException.class, () -> hourlyBookingService.createHourlyBooking(
+                new HourlyBookingRequest(carId, start, 0), "john"));
+        assertThrows(IllegalArgumentException.class, () -> hourlyBookingService.createHourlyBooking(
+                new HourlyBookingRequest(carId, start, 13), "john"));
+        assertThrows(IllegalArgumentException.class, () -> hourlyBookingService.getAvailableCars(CarType.SEDAN, start, 13));
+    }
+
+    private Long carId(String registrationNumber) {
+        return jdbcTemplate.queryForObject("SELECT id FROM cars WHERE registration_number = ?", Long.class, registrationNumber);
+    }
+}
@@ -0,0 +1,104 @@
+package state.street.car.booking.carBooking.integration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import state.street.car.booking.carBooking.dto.BookingRequest;
+import state.street.car.booking.carBooking.exception.BookingConflictException;
+import state.street.car.booking.carBooking.metrics.ServiceMetricsInterceptor;
+import state.street.car.booking.carBooking.repository.CarRepository;
+import state.street.car.booking.carBooking.scheduler.BookingCleanupScheduler;
+import state.street.car.booking.carBooking.service.BookingService;
+import state.street.car.booking.carBooking.service.CarService;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MetricsIntegrationTest {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private BookingCleanupScheduler cleanupScheduler;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void testServiceMethodsAreTimed() {
+        Timer timer = meterRegistry.get(ServiceMetricsInterceptor.TIMER_NAME)
+                .tag("class", "CarService")
+                .tag("method", "getAllCarsSimple")
+                .timer();
+        long before = timer.count();
+
+        carService.getAllCarsSimple();
+        carService.getAllCarsSimple();
+
+        assertEquals(before + 2, timer.count());
+        assertNotNull(meterRegistry.find(ServiceMetricsInterceptor.TIMER_NAME)
+                .tag("class", "BookingService").tag("method", "createBooking").timer());
+    }
+
+    @Test
+    void testConflictsAreCountedByCarType() {
+        Long carId = carRepository.findByRegistrationNumber("VAN-003").orElseThrow().getId();
+        LocalDateTime start = LocalDateTime.now().plusYears(3);
+        var booking = bookingService.createBooking(new BookingRequest(carId, start, 2), "john");
+        double before = meterRegistry.get("carbooking.booking.conflicts").tag("car.type", "VAN").counter().count();
+
+        try {
+            assertThrows(BookingConflictException.class,
+                    () -> bookingService.createBooking(new BookingRequest(carId, start.plusDays(1), 2), "jane"));
+            assertEquals(before + 1,
+                    meterRegistry.get("carbooking.booking.conflicts").tag("car.type", "VAN").counter().count());
+        } finally {
+            bookingService.deleteBooking(booking.getId(), "john");
+        }
+    }
+
+    @Test
+    void testCleanupRunsAreRecorded() {
+        long runsBefore = meterRegistry.get("carbooking.cleanup.duration").timer().count();
+
+        cleanupScheduler.cleanupExpiredBookingsManually();
+
+        assertEquals(runsBefore + 1, meterRegistry.get("carbooking.cleanup.duration").timer().count());
+        assertEquals(runsBefore + 1, meterRegistry.get("carbooking.cleanup.deleted").summary().count());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ROLE_ADMIN"})
+    void testActiveBookingsGaugeIsExposed() throws Exception {
+        mockMvc.perform(get("/actuator/metrics/carbooking.bookings.active"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value").isNumber());
+    }
+
+    @Test
+    @WithMockUser(username = "john", authorities = {"ROLE_USER"})
+    void testMetricsEndpoint_AsUser_Forbidden() throws Exception {
+        mockMvc.perform(get("/actuator/metrics"))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,267 @@
+package state.street.car.booking.carBooking.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import state.street.car.booking.carBooking.dto.BookingDTO;
+import state.street.car.booking.carBooking.dto.BookingRequest;
+import state.street.car.booking.carBooking.dto.CarDTO;
+import state.street.car.booking.carBooking.dto.HourlyBookingDTO;
+import state.street.car.booking.carBooking.dto.HourlyBookingRequest;
+import state.street.car.booking.carBooking.entity.OutboxEvent;
+import state.street.car.booking.carBooking.enums.CarType;
+import state.street.car.booking.carBooking.exception.BookingConflictException;
+import state.street.car.booking.carBooking.outbox.ChangeEvent;
+import state.street.car.booking.carBooking.outbox.OutboxRelay;
+import state.street.car.booking.carBooking.outbox.OutboxSink;
+import state.street.car.booking.carBooking.repository.CarRepository;
+import state.street.car.booking.carBooking.repository.OutboxEventRepository;
+import state.street.car.booking.carBooking.service.BookingService;
+import state.street.car.booking.carBooking.service.CarService;
+import state.street.car.booking.carBooking.service.HourlyBookingService;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Not @Transactional: outbox rows only become visible to the relay once the change commits.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox",
+        "carbooking.outbox.enabled=true",
+        "carbooking.outbox.poll-interval-millis=50",
+        "carbooking.outbox.batch-size=20",
+        "carbooking.hourly.enabled=true"
+})
+class OutboxIntegrationTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2035, 9, 1, 8, 0);
+
+    @TempDir
+    static Path sinkDir;
+
+    @DynamicPropertySource
+    static void sinkFile(DynamicPropertyRegistry registry) {
+        registry.add("carbooking.outbox.file-sink-path", () -> sinkDir.resolve("events.jsonl").toString());
+    }
+
+    @TestConfiguration
+    static class Sinks {
+
+        @Bean
+        RecordingListener recordingListener() {
+            return new RecordingListener();
+        }
+
+        @Bean
+        FlakySink flakySink() {
+            return new FlakySink();
+        }
+    }
+
+    static class RecordingListener {
+
+        final List<ChangeEvent> received = new CopyOnWriteArrayList<>();
+
+        @EventListener
+        public void on(ChangeEvent event) {
+            received.add(event);
+        }
+    }
+
+    /**
+     * Fails as many batches as it is told to, then accepts everything
+     */
+    static class FlakySink implements OutboxSink {
+
+        final AtomicInteger failuresLeft = new AtomicInteger();
+
+        @Override
+        public void deliver(List<ChangeEvent> events) {
+            if (failuresLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+                throw new IllegalStateException("Sink unavailable");
+            }
+        }
+    }
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private RecordingListener recordingListener;
+
+    @Autowired
+    private FlakySink flakySink;
+
+    @Autowired
+    private HourlyBookingService hourlyBookingService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        flakySink.failuresLeft.set(0);
+        outboxRelay.relay();
+        recordingListener.received.clear();
+    }
+
+    @Test
+    void testChangesAreDeliveredInCommitOrderToEverySink() throws Exception {
+        Long carId = carRepository.findByRegistrationNumber("SED-001").orElseThrow().getId();
+        BookingDTO booking = bookingService.createBooking(new BookingRequest(carId, START, 2), "john");
+        bookingService.updateBooking(booking.getId(), new BookingRequest(carId, START.plusDays(5), 3));
+        assertThrows(BookingConflictException.class,
+                () -> bookingService.createBooking(new BookingRequest(carId, START.plusDays(6), 1), "jane"));
+        bookingService.deleteBooking(booking.getId(), "john");
+        CarDTO car = carService.createCar(new CarDTO(null, "OUT-001", CarType.VAN, new BigDecimal("70.00"), 7));
+        carService.deleteCar(car.getId());
+
+        List<ChangeEvent> events = awaitDelivered(5);
+        assertEquals(List.of(OutboxEvent.Type.BOOKING_CREATED, OutboxEvent.Type.BOOKING_UPDATED,
+                        OutboxEvent.Type.BOOKING_CANCELLED, OutboxEvent.Type.CAR_CREATED, OutboxEvent.Type.CAR_DELETED),
+                events.stream().map(ChangeEvent::type).toList());
+        assertEquals(booking.getId(), events.get(1).aggregateId());
+        JsonNode updated = objectMapper.readTree(events.get(1).payload());
+        assertEquals(3, updated.get("duration").asInt());
+        assertEquals(START.plusDays(5), LocalDateTime.parse(updated.get("bookingDate").asText()));
+        assertEquals(0, outboxEventRepository.count());
+
+        // The file sink wrote the same events, payload embedded as JSON
+        List<String> lines = Files.readAllLines(sinkDir.resolve("events.jsonl"));
+        List<JsonNode> written = new ArrayList<>();
+        for (String line : lines) {
+            written.add(objectMapper.readTree(line));
+        }
+        Set<Long> writtenIds = written.stream().map(node -> node.get("id").asLong()).collect(Collectors.toSet());
+        events.forEach(event -> assertTrue(writtenIds.contains(event.id())));
+        JsonNode carCreated = written.stream()
+                .filter(node -> node.get("id").asLong() == events.get(3).id())
+                .findFirst().orElseThrow();
+        assertEquals("OUT-001", carCreated.get("payload").get("registrationNumber").asText());
+    }
+
+    @Test
+    void testHourlyBookingsAreDeliveredToo() throws Exception {
+        Long carId = carRepository.findByRegistrationNumber("SED-002").orElseThrow().getId();
+        HourlyBookingDTO booking = hourlyBookingService.createHourlyBooking(
+                new HourlyBookingRequest(carId, START.plusHours(1), 3), "john");
+        hourlyBookingService.deleteHourlyBooking(booking.getId(), "john");
+
+        List<ChangeEvent> events = awaitDelivered(2);
+        assertEquals(List.of(OutboxEvent.Type.HOURLY_BOOKING_CREATED, OutboxEvent.Type.HOURLY_BOOKING_CANCELLED),
+                events.stream().map(ChangeEvent::type).toList());
+        assertEquals(booking.getId(), events.get(0).aggregateId());
+        assertEquals(3, objectMapper.readTree(events.get(0).payload()).get("hours").asInt());
+    }
+
+    @Test
+    void testFailedBatchesAreRetriedUntilEverySinkTakesThem() {
+        Long carId = carRepository.findByRegistrationNumber("SUV-001").orElseThrow().getId();
+        flakySink.failuresLeft.set(3);
+        BookingDTO booking = bookingService.createBooking(new BookingRequest(carId, START, 1), "jane");
+
+        await(() -> outboxEventRepository.count() == 0, "the outbox to drain");
+        assertEquals(0, flakySink.failuresLeft.get());
+        // At least once: sinks ahead of the failing one may have seen the batch more than once
+        assertTrue(recordingListener.received.stream().anyMatch(event -> event.aggregateId() == booking.getId()));
+
+        bookingService.deleteBooking(booking.getId(), "jane");
+    }
+
+    @Test
+    void testEventLagUnderConcurrentBookings() throws Exception {
+        Long carId = carRepository.findByRegistrationNumber("VAN-001").orElseThrow().getId();
+        Timer lag = meterRegistry.get("carbooking.outbox.lag").timer();
+        long lagCountBefore = lag.count();
+
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        List<Future<BookingDTO>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            LocalDateTime start = START.plusDays(i * 3L);
+            futures.add(clients.submit(() -> bookingService.createBooking(new BookingRequest(carId, start, 1), "john")));
+        }
+        List<BookingDTO> bookings = new ArrayList<>();
+        for (Future<BookingDTO> future : futures) {
+            bookings.add(future.get());
+        }
+        clients.shutdown();
+
+        List<ChangeEvent> events = awaitDelivered(200);
+        assertEquals(bookings.stream().map(BookingDTO::getId).collect(Collectors.toSet()),
+                events.stream().map(ChangeEvent::aggregateId).collect(Collectors.toSet()));
+        // Lag is recorded once the whole batch has been handed to every sink
+        await(() -> lag.count() - lagCountBefore >= 200, "lag of every event");
+
+        StringBuilder percentiles = new StringBuilder();
+        for (ValueAtPercentile value : lag.takeSnapshot().percentileValues()) {
+            percentiles.append(String.format(" p%.0f=%.1fms", value.percentile() * 100, value.value(TimeUnit.MILLISECONDS)));
+        }
+        log.info("Outbox lag over {} events:{} max={}ms", lag.count(), percentiles,
+                String.format("%.1f", lag.max(TimeUnit.MILLISECONDS)));
+
+        bookings.forEach(booking -> bookingService.deleteBooking(booking.getId(), "john"));
+    }
+
+    private List<ChangeEvent> awaitDelivered(int count) {
+        await(() -> recordingListener.received.size() >= count, count + " delivered events");
+        return List.copyOf(recordingListener.received);
+    }
+
+    private static void await(BooleanSupplier condition, String description) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for " + description);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package state.street.car.booking.carBooking.integration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import state.street.car.booking.carBooking.cluster.ChangeFeedPoller;
+import state.street.car.booking.carBooking.config.DataSeeder;
+import state.street.car.booking.carBooking.dto.BookingRequest;
+import state.street.car.booking.carBooking.dto.HourlyBookingRequest;
+import state.street.car.booking.carBooking.entity.Car;
+import state.street.car.booking.carBooking.enums.CarType;
+import state.street.car.booking.carBooking.ledger.BookingLedger;
+import state.street.car.booking.carBooking.repository.CarRepository;
+import state.street.car.booking.carBooking.repository.RoleRepository;
+import state.street.car.booking.carBooking.service.BookingService;
+import state.street.car.booking.carBooking.service.DatabaseSnapshotService;
+import state.street.car.booking.carBooking.service.HourlyBookingService;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Boots the 'persistent' profile against a file database in a temp directory, which also
+ * checks that schema-persistent.sql passes Hibernate's schema validation. The change feed is
+ * polled by the tests only.
+ */
+@SpringBootTest(properties = {
+        "carbooking.hourly.enabled=true",
+        "carbooking.coherence.enabled=true",
+        "carbooking.coherence.poll-interval-millis=3600000"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("persistent")
+class PersistentDatabaseIntegrationTest {
+
+    @TempDir
+    static Path dataDir;
+
+    @DynamicPropertySource
+    static void persistentStore(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:h2:file:" + dataDir.resolve("carbooking") + ";DB_CLOSE_ON_EXIT=FALSE");
+        registry.add("carbooking.persistence.snapshot-dir", () -> dataDir.resolve("snapshots").toString());
+        registry.add("carbooking.ledger.directory", () -> dataDir.resolve("ledger").toString());
+    }
+
+    @Autowired
+    private DatabaseSnapshotService databaseSnapshotService;
+
+    @Autowired
+    private DataSeeder dataSeeder;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private HourlyBookingService hourlyBookingService;
+
+    @Autowired
+    private BookingLedger bookingLedger;
+
+    @Autowired
+    private ChangeFeedPoller changeFeedPoller;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testSeederSkipsExistingData() throws Exception {
+        long cars = carRepository.count();
+
+        dataSeeder.run();
+
+        assertEquals(cars, carRepository.count());
+        assertEquals(2, roleRepository.count());
+    }
+
+    @Test
+    void testRestoreRevertsToSnapshot() {
+        long cars = carRepository.count();
+        Map<String, Object> snapshot = databaseSnapshotService.createSnapshot();
+        assertTrue(Files.exists(dataDir.resolve("snapshots").resolve((String) snapshot.get("name"))));
+
+        carRepository.save(new Car("SNAP-001", CarType.VAN, new BigDecimal("99.00"), 9));
+        assertEquals(cars + 1, carRepository.count());
+
+        databaseSnapshotService.restoreSnapshot((String) snapshot.get("name"));
+
+        assertEquals(cars, carRepository.count());
+        assertTrue(carRepository.findByRegistrationNumber("SNAP-001").isEmpty());
+        // Identity columns continue after the restored rows
+        Car added = carRepository.save(new Car("SNAP-002", CarType.VAN, new BigDecimal("99.00"), 9));
+        assertNotNull(added.getId());
+        carRepository.delete(added);
+    }
+
+    @Test
+    void testRestoreReloadsWhatIsKeptInMemory() {
+        Long carId = carRepository.findByRegistrationNumber("SUV-006").orElseThrow().getId();
+        LocalDateTime nine = LocalDateTime.of(2037, 9, 1, 9, 0);
+        Map<String, Object> snapshot = databaseSnapshotService.createSnapshot();
+        hourlyBookingService.createHourlyBooking(new HourlyBookingRequest(carId, nine, 2), "john");
+        bookingService.createBooking(new BookingRequest(carId, nine.plusDays(3), 1), "john");
+        changeFeedPoller.poll();
+
+        databaseSnapshotService.restoreSnapshot((String) snapshot.get("name"));
+
+        // Neither booking is in the restored tables, so the hour slot index and the ledger forget them
+        hourlyBookingService.createHourlyBooking(new HourlyBookingRequest(carId, nine, 2), "jane");
+        assertEquals(0, bookingLedger.verify(false).get("mismatches"));
+
+        // The restored change_log hands out ids the feed had applied before; another node's change still arrives
+        changeFeedPoller.poll();
+        jdbcTemplate.update("INSERT INTO change_log (entity_type, entity_key, node_id, changed_at) "
+                + "VALUES ('CAR', ?, 'other-node', LOCALTIMESTAMP)", carId);
+        assertEquals(1, changeFeedPoller.poll());
+    }
+
+    @Test
+    void testRestoreWaitsForOpenTransactions() throws Exception {
+        int capacity = carRepository.findByRegistrationNumber("VAN-001").orElseThrow().getCapacity();
+        Map<String, Object> snapshot = databaseSnapshotService.createSnapshot();
+
+        CompletableFuture<Map<String, Object>> restore;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("UPDATE cars SET capacity = capacity + 1 WHERE registration_number = 'VAN-001'");
+            }
+            restore = CompletableFuture.supplyAsync(() -> databaseSnapshotService.restoreSnapshot((String) snapshot.get("name")));
+
+            Thread.sleep(300);
+            assertFalse(restore.isDone());
+            connection.commit();
+        }
+
+        // The update committed before the tables were replaced, so the snapshot's value wins
+        restore.get(10, TimeUnit.SECONDS);
+        assertEquals(capacity, carRepository.findByRegistrationNumber("VAN-001").orElseThrow().getCapacity());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ROLE_ADMIN"})
+    void testSnapshotEndpoints() throws Exception {
+        mockMvc.perform(post("/api/admin/snapshots"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.name").isString())
+                .andExpect(jsonPath("$.sizeBytes").isNumber());
+
+        mockMvc.perform(get("/api/admin/snapshots"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").isString());
+
+        mockMvc.perform(post("/api/admin/snapshots/{name}/restore", "snapshot-19700101-000000-000.zip"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username = "john", authorities = {"ROLE_USER"})
+    void testSnapshotEndpoints_AsUser_Forbidden() throws Exception {
+        mockMvc.perform(post("/api/admin/snapshots"))
+                .andExpect(status().isForbidden());
+    }
+}
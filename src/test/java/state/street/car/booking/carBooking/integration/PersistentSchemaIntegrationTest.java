@@ -0,0 +1,72 @@
+package state.street.car.booking.carBooking.integration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares schema-persistent.sql column by column with the schema Hibernate generates from the
+ * entities, so a new entity, column, constraint or enum constant cannot be left out of the
+ * hand-written script. Hibernate's validation alone accepts a missing enum value or a column
+ * that is nullable on one side only.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:schemacheck")
+class PersistentSchemaIntegrationTest {
+
+    // Enum values are compared as sets: Hibernate lists them alphabetically, the script by declaration
+    private static final String COLUMNS = """
+            SELECT c.TABLE_NAME, c.COLUMN_NAME, c.DATA_TYPE, c.IS_NULLABLE, c.IS_IDENTITY,
+                   c.CHARACTER_MAXIMUM_LENGTH, c.NUMERIC_PRECISION, c.NUMERIC_SCALE, c.DATETIME_PRECISION,
+                   (SELECT LISTAGG(e.VALUE_NAME, ',') WITHIN GROUP (ORDER BY e.VALUE_NAME)
+                      FROM INFORMATION_SCHEMA.ENUM_VALUES e
+                     WHERE e.OBJECT_SCHEMA = c.TABLE_SCHEMA AND e.OBJECT_NAME = c.TABLE_NAME
+                       AND e.ENUM_IDENTIFIER = c.DTD_IDENTIFIER) AS ENUM_VALUES
+              FROM INFORMATION_SCHEMA.COLUMNS c
+             WHERE c.TABLE_SCHEMA = 'PUBLIC'
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testScriptMatchesTheEntities() {
+        Set<String> generated = describe(jdbcTemplate);
+
+        SingleConnectionDataSource script = new SingleConnectionDataSource("jdbc:h2:mem:schemacheck-script", "sa", "", true);
+        try {
+            JdbcTemplate scriptJdbc = new JdbcTemplate(script);
+            scriptJdbc.execute("RUNSCRIPT FROM 'classpath:schema-persistent.sql'");
+
+            Set<String> written = describe(scriptJdbc);
+            assertEquals(difference(generated, written), difference(written, generated),
+                    "left: generated from the entities only, right: in schema-persistent.sql only");
+        } finally {
+            script.destroy();
+        }
+    }
+
+    private static Set<String> describe(JdbcTemplate jdbc) {
+        List<String> columns = jdbc.query(COLUMNS, (rs, rowNum) -> {
+            StringBuilder column = new StringBuilder();
+            for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+                column.append(i == 1 ? "" : " ").append(rs.getString(i));
+            }
+            return column.toString();
+        });
+        return new TreeSet<>(columns);
+    }
+
+    private static Set<String> difference(Set<String> from, Set<String> without) {
+        Set<String> difference = new TreeSet<>(from);
+        difference.removeAll(without);
+        return difference;
+    }
+}
@@ -0,0 +1,128 @@
+package state.street.car.booking.carBooking.integration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import state.street.car.booking.carBooking.datasource.ReadFromPrimaryFilter;
+import state.street.car.booking.carBooking.datasource.ReadWriteRoutingDataSource;
+import state.street.car.booking.carBooking.datasource.ReplicaSynchronizer;
+import state.street.car.booking.carBooking.dto.BookingDTO;
+import state.street.car.booking.carBooking.dto.BookingRequest;
+import state.street.car.booking.carBooking.dto.CarDTO;
+import state.street.car.booking.carBooking.repository.CarRepository;
+import state.street.car.booking.carBooking.service.BookingService;
+import state.street.car.booking.carBooking.service.CacheStatisticsService;
+import state.street.car.booking.carBooking.service.CarService;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Replication runs only when triggered by the test, so the replica stays stale on purpose.
+ * Not @Transactional: a surrounding read-write test transaction would pin everything to the primary.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary",
+        "carbooking.datasource.replica.enabled=true",
+        "carbooking.datasource.replica.url=jdbc:h2:mem:routing-replica",
+        "carbooking.datasource.replica.sync-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+class ReadReplicaRoutingIntegrationTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private ReplicaSynchronizer replicaSynchronizer;
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private CacheStatisticsService cacheStatisticsService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Long carId;
+    private BookingDTO booking;
+
+    @BeforeEach
+    void setUp() {
+        carId = carRepository.findByRegistrationNumber("VAN-002").orElseThrow().getId();
+        booking = bookingService.createBooking(new BookingRequest(carId, LocalDateTime.now().plusDays(200), 2), "john");
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingService.deleteBooking(booking.getId(), "john");
+        replicaSynchronizer.sync();
+    }
+
+    @Test
+    void testReadOnlyTransactionsReadTheReplica() {
+        assertTrue(bookingService.getBookingsByCarId(carId).stream().noneMatch(b -> b.getId().equals(booking.getId())));
+
+        replicaSynchronizer.sync();
+
+        assertTrue(bookingService.getBookingsByCarId(carId).stream().anyMatch(b -> b.getId().equals(booking.getId())));
+    }
+
+    @Test
+    void testCacheEntriesReadFromALaggingReplicaAreDroppedBySync() {
+        CarDTO car = carService.getCarById(carId);
+        int capacity = car.getCapacity();
+        car.setCapacity(capacity + 1);
+        carService.updateCar(carId, car);
+        try {
+            // As if the entry had expired: the next read caches the replica's old row
+            cacheStatisticsService.evictAll();
+            assertEquals(capacity, carService.getCarById(carId).getCapacity());
+
+            replicaSynchronizer.sync();
+
+            assertEquals(capacity + 1, carService.getCarById(carId).getCapacity());
+        } finally {
+            car.setCapacity(capacity);
+            carService.updateCar(carId, car);
+        }
+    }
+
+    @Test
+    void testPrimaryCanBeRequiredForReads() {
+        ReadWriteRoutingDataSource.requirePrimary();
+        try {
+            assertTrue(bookingService.getBookingsByCarId(carId).stream().anyMatch(b -> b.getId().equals(booking.getId())));
+        } finally {
+            ReadWriteRoutingDataSource.clearPrimaryRequirement();
+        }
+    }
+
+    @Test
+    @WithMockUser(username = "john", authorities = {"ROLE_USER"})
+    void testReadConsistencyHeader() throws Exception {
+        int id = booking.getId().intValue();
+
+        mockMvc.perform(get("/api/bookings/my-bookings"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", not(hasItem(id))));
+
+        mockMvc.perform(get("/api/bookings/my-bookings").header(ReadFromPrimaryFilter.HEADER, ReadFromPrimaryFilter.PRIMARY))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", hasItem(id)));
+    }
+}
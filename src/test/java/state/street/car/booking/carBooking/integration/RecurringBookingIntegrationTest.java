@@ -0,0 +1,111 @@
+package state.street.car.booking.carBooking.integration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import state.street.car.booking.carBooking.dto.BookingDTO;
+import state.street.car.booking.carBooking.dto.BookingRequest;
+import state.street.car.booking.carBooking.dto.BookingSeriesDTO;
+import state.street.car.booking.carBooking.dto.RecurringBookingRequest;
+import state.street.car.booking.carBooking.entity.BookingSeries;
+import state.street.car.booking.carBooking.exception.BookingConflictException;
+import state.street.car.booking.carBooking.exception.ResourceNotFoundException;
+import state.street.car.booking.carBooking.service.BookingService;
+import state.street.car.booking.carBooking.service.RecurringBookingService;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:recurring")
+class RecurringBookingIntegrationTest {
+
+    // A Monday
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2038, 1, 4, 8, 0);
+
+    @Autowired
+    private RecurringBookingService recurringBookingService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testWeeklySeriesBooksEveryOccurrenceAsOneRule() {
+        Long carId = carId("VAN-002");
+
+        BookingSeriesDTO series = recurringBookingService.createSeries(new RecurringBookingRequest(carId, MONDAY, 1,
+                BookingSeries.Frequency.WEEKLY, 1, 52, null), "john");
+
+        assertEquals(52, series.getBookings().size());
+        assertEquals(MONDAY.plusWeeks(51), series.getBookings().get(51).getBookingDate());
+        assertEquals(MONDAY.plusWeeks(51).plusDays(1), series.getLastEndDate());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM booking_series WHERE id = ?", Integer.class, series.getId()));
+        assertEquals(52, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bookings WHERE series_id = ?", Integer.class, series.getId()));
+
+        // Occurrences are ordinary bookings to the single booking path
+        assertThrows(BookingConflictException.class, () -> bookingService.createBooking(
+                new BookingRequest(carId, MONDAY.plusWeeks(10), 1), "jane"));
+        assertEquals(52, recurringBookingService.getSeries(series.getId()).getBookings().size());
+
+        assertEquals(52, recurringBookingService.cancelSeries(series.getId(), "john"));
+        assertThrows(ResourceNotFoundException.class, () -> recurringBookingService.getSeries(series.getId()));
+        bookingService.createBooking(new BookingRequest(carId, MONDAY.plusWeeks(10), 1), "jane");
+    }
+
+    @Test
+    void testConflictingOccurrenceRejectsTheWholeSeries() {
+        Long carId = carId("VAN-003");
+        BookingDTO existing = bookingService.createBooking(new BookingRequest(carId, MONDAY.plusWeeks(3).plusHours(4), 2), "jane");
+
+        BookingConflictException conflict = assertThrows(BookingConflictException.class, () ->
+                recurringBookingService.createSeries(new RecurringBookingRequest(carId, MONDAY, 1,
+                        BookingSeries.Frequency.WEEKLY, 1, null, MONDAY.plusWeeks(8)), "john"));
+
+        assertTrue(conflict.getMessage().startsWith("1 of the 9 occurrences"), conflict.getMessage());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bookings WHERE car_id = ?", Integer.class, carId));
+
+        bookingService.deleteBooking(existing.getId(), "jane");
+        assertEquals(9, recurringBookingService.createSeries(new RecurringBookingRequest(carId, MONDAY, 1,
+                BookingSeries.Frequency.WEEKLY, 1, null, MONDAY.plusWeeks(8)), "john").getBookings().size());
+    }
+
+    @Test
+    void testAnOccurrenceCanBeUpdatedBesideItsNeighbours() {
+        Long carId = carId("SUV-003");
+        BookingSeriesDTO series = recurringBookingService.createSeries(new RecurringBookingRequest(carId,
+                MONDAY.plusYears(2), 6, BookingSeries.Frequency.WEEKLY, 1, 3, null), "john");
+        BookingDTO middle = series.getBookings().get(1);
+
+        BookingDTO updated = bookingService.updateBooking(middle.getId(),
+                new BookingRequest(carId, middle.getBookingDate().plusHours(2), 6));
+
+        assertEquals(middle.getBookingDate().plusHours(2), updated.getBookingDate());
+        // Seven-day occurrences every week would touch, and touching bookings conflict
+        assertThrows(IllegalArgumentException.class, () -> recurringBookingService.createSeries(
+                new RecurringBookingRequest(carId, MONDAY.plusYears(3), 7, BookingSeries.Frequency.WEEKLY, 1, 3, null), "john"));
+    }
+
+    @Test
+    void testOnlyTheOwnerOrAnAdminCancelsASeries() {
+        Long carId = carId("SED-003");
+        BookingSeriesDTO series = recurringBookingService.createSeries(new RecurringBookingRequest(carId,
+                MONDAY.plusYears(1), 1, BookingSeries.Frequency.DAILY, 2, 5, null), "john");
+
+        assertThrows(IllegalStateException.class, () -> recurringBookingService.cancelSeries(series.getId(), "jane"));
+        assertEquals(5, recurringBookingService.cancelSeries(series.getId(), "admin"));
+    }
+
+    @Test
+    void testSeriesLongerThanTheLimitIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> recurringBookingService.createSeries(
+                new RecurringBookingRequest(carId("SED-001"), MONDAY, 1, BookingSeries.Frequency.DAILY, 2, 367, null), "john"));
+    }
+
+    private Long carId(String registrationNumber) {
+        return jdbcTemplate.queryForObject("SELECT id FROM cars WHERE registration_number = ?", Long.class, registrationNumber);
+    }
+}
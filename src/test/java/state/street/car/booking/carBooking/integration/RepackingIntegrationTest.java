@@ -0,0 +1,130 @@
+package state.street.car.booking.carBooking.integration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import state.street.car.booking.carBooking.allocation.RepackingProperties;
+import state.street.car.booking.carBooking.dto.BookingDTO;
+import state.street.car.booking.carBooking.dto.BookingRequest;
+import state.street.car.booking.carBooking.dto.RepackingReportDTO;
+import state.street.car.booking.carBooking.dto.TypeRepackingDTO;
+import state.street.car.booking.carBooking.enums.CarType;
+import state.street.car.booking.carBooking.exception.BookingConflictException;
+import state.street.car.booking.carBooking.service.BookingService;
+import state.street.car.booking.carBooking.service.RepackingService;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:repacking")
+class RepackingIntegrationTest {
+
+    @Autowired
+    private RepackingService repackingService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @MockitoSpyBean
+    private RepackingProperties repackingProperties;
+
+    @Test
+    void testDryRunThenApplyPacksReassignableBookingsOntoOneCar() {
+        LocalDateTime start = LocalDateTime.of(2041, 2, 1, 10, 0);
+        BookingDTO first = book("SED-001", start, 2, true);
+        BookingDTO second = book("SED-002", start.plusDays(3), 2, true);
+        BookingDTO third = book("SED-003", start.plusDays(6), 2, true);
+        BookingDTO pinned = book("SED-003", start.plusDays(3), 1, false);
+
+        RepackingReportDTO dryRun = repackingService.dryRun(CarType.SEDAN);
+        TypeRepackingDTO sedans = dryRun.getTypes().get(0);
+        assertFalse(dryRun.isApplied());
+        assertEquals(4, sedans.getBookings());
+        assertEquals(3, sedans.getMovableBookings());
+        assertEquals(2, sedans.getMoves());
+        assertTrue(sedans.isComplete());
+        assertTrue(sedans.getFragmentationAfter().fragmentation() < sedans.getFragmentationBefore().fragmentation());
+        assertEquals(carId("SED-002"), carOf(second.getId()));
+
+        assertThrows(BookingConflictException.class, () -> repackingService.apply(CarType.SEDAN, "0"));
+        RepackingReportDTO applied = repackingService.apply(CarType.SEDAN, dryRun.getToken());
+
+        assertTrue(applied.isApplied());
+        assertEquals(carId("SED-001"), carOf(first.getId()));
+        assertEquals(carId("SED-001"), carOf(second.getId()));
+        assertEquals(carId("SED-001"), carOf(third.getId()));
+        assertEquals(carId("SED-003"), carOf(pinned.getId()));
+        assertEquals(0, repackingService.dryRun(CarType.SEDAN).getTypes().get(0).getMoves());
+    }
+
+    @Test
+    void testApplyRefusesWhenABookingTakesTheTargetCarAfterPlanning() {
+        LocalDateTime start = LocalDateTime.of(2042, 3, 1, 10, 0);
+        book("SUV-001", start, 2, true);
+        BookingDTO moving = book("SUV-002", start.plusDays(3), 2, true);
+        String token = repackingService.dryRun(CarType.SUV).getToken();
+        assertEquals(1, repackingService.dryRun(CarType.SUV).getTypes().get(0).getMoves());
+
+        // Between the plan and the updates, someone else books the car the booking is about to move to
+        Long targetCarId = carId("SUV-001");
+        AtomicBoolean booked = new AtomicBoolean();
+        doAnswer(invocation -> {
+            if (booked.compareAndSet(false, true)) {
+                try (Connection connection = dataSource.getConnection();
+                     PreparedStatement insert = connection.prepareStatement(
+                             "INSERT INTO bookings (duration, booking_date, car_id, created_at, user_id) "
+                                     + "SELECT 1, ?, ?, LOCALTIMESTAMP, id FROM users WHERE username = 'jane'")) {
+                    insert.setTimestamp(1, Timestamp.valueOf(start.plusDays(4)));
+                    insert.setLong(2, targetCarId);
+                    insert.executeUpdate();
+                }
+            }
+            return invocation.callRealMethod();
+        }).when(repackingProperties).getBatchSize();
+
+        assertThrows(BookingConflictException.class, () -> repackingService.apply(CarType.SUV, token));
+        assertEquals(carId("SUV-002"), carOf(moving.getId()));
+    }
+
+    @Test
+    void testOnlyTheOwnerOrAnAdminAllowsReassignment() {
+        BookingDTO booking = bookingService.createBooking(new BookingRequest(carId("VAN-001"),
+                LocalDateTime.of(2041, 5, 1, 10, 0), 1), "john");
+
+        assertThrows(IllegalStateException.class, () -> bookingService.setAllowReassignment(booking.getId(), true, "jane"));
+        bookingService.setAllowReassignment(booking.getId(), true, "admin");
+        assertEquals(Boolean.TRUE, jdbcTemplate.queryForObject("SELECT allow_reassignment FROM bookings WHERE id = ?",
+                Boolean.class, booking.getId()));
+    }
+
+    private BookingDTO book(String registrationNumber, LocalDateTime start, int days, boolean reassignable) {
+        BookingDTO booking = bookingService.createBooking(new BookingRequest(carId(registrationNumber), start, days), "john");
+        if (reassignable) {
+            bookingService.setAllowReassignment(booking.getId(), true, "john");
+        }
+        return booking;
+    }
+
+    private Long carOf(Long bookingId) {
+        return jdbcTemplate.queryForObject("SELECT car_id FROM bookings WHERE id = ?", Long.class, bookingId);
+    }
+
+    private Long carId(String registrationNumber) {
+        return jdbcTemplate.queryForObject("SELECT id FROM cars WHERE registration_number = ?", Long.class, registrationNumber);
+    }
+}
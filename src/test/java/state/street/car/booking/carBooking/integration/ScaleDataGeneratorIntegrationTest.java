@@ -0,0 +1,60 @@
+package state.street.car.booking.carBooking.integration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the scale seed at a small size against its own database.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:scaleseed",
+        "carbooking.seed.scale.enabled=true",
+        "carbooking.seed.scale.cars=120",
+        "carbooking.seed.scale.users=2500",
+        "carbooking.seed.scale.bookings=4003",
+        "carbooking.seed.scale.threads=4",
+        "carbooking.seed.scale.batch-size=500"
+})
+class ScaleDataGeneratorIntegrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testGeneratesRequestedRowCounts() {
+        assertEquals(120, count("SELECT COUNT(*) FROM cars WHERE registration_number LIKE 'GEN-%'"));
+        assertEquals(2500, count("SELECT COUNT(*) FROM users WHERE username LIKE 'gen-user-%'"));
+        assertEquals(2500, count("SELECT COUNT(*) FROM user_roles ur JOIN users u ON u.id = ur.user_id WHERE u.username LIKE 'gen-user-%'"));
+        assertEquals(4003, count("SELECT COUNT(*) FROM bookings"));
+        assertEquals(3, count("SELECT COUNT(DISTINCT type) FROM cars WHERE registration_number LIKE 'GEN-%'"));
+        assertEquals(1, count("SELECT COUNT(*) FROM cars WHERE registration_number = 'GEN-000119'"));
+        assertEquals(1, count("SELECT COUNT(*) FROM users WHERE username = 'gen-user-0002499'"));
+    }
+
+    @Test
+    void testBookingsOfOneCarNeverConflict() {
+        // Inclusive, as in the booking conflict check: touching bookings conflict too
+        long conflicts = count("""
+                SELECT COUNT(*) FROM bookings a JOIN bookings b
+                  ON a.car_id = b.car_id AND a.id < b.id
+                 AND a.booking_date <= DATEADD('DAY', b.duration, b.booking_date)
+                 AND b.booking_date <= DATEADD('DAY', a.duration, a.booking_date)
+                """);
+
+        assertEquals(0, conflicts);
+    }
+
+    @Test
+    void testLedgerSpansPastAndFuture() {
+        assertTrue(count("SELECT COUNT(*) FROM bookings WHERE booking_date < CURRENT_TIMESTAMP") > 0);
+        assertTrue(count("SELECT COUNT(*) FROM bookings WHERE booking_date > CURRENT_TIMESTAMP") > 0);
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
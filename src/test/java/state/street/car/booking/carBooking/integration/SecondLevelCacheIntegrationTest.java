@@ -0,0 +1,122 @@
+package state.street.car.booking.carBooking.integration;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import state.street.car.booking.carBooking.dto.CarDTO;
+import state.street.car.booking.carBooking.entity.Car;
+import state.street.car.booking.carBooking.repository.CarRepository;
+import state.street.car.booking.carBooking.repository.RoleRepository;
+import state.street.car.booking.carBooking.service.CacheStatisticsService;
+import state.street.car.booking.carBooking.service.CarService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Not @Transactional: each repository call runs in its own session so repeated reads
+ * can only be answered by the second-level or query cache.
+ */
+@SpringBootTest(properties = "carbooking.cache.statistics-enabled=true")
+@AutoConfigureMockMvc
+class SecondLevelCacheIntegrationTest {
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private CacheStatisticsService cacheStatisticsService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        cacheStatisticsService.evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testCarByIdIsServedFromSecondLevelCache() {
+        Long id = carRepository.findByRegistrationNumber("SED-001").orElseThrow().getId();
+        statistics.clear();
+
+        carRepository.findById(id).orElseThrow();
+        carRepository.findById(id).orElseThrow();
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getDomainDataRegionStatistics("car").getHitCount() >= 2);
+    }
+
+    @Test
+    void testNaturalKeyLookupsUseQueryCache() {
+        roleRepository.findByName("ROLE_USER").orElseThrow();
+        carRepository.findByRegistrationNumber("VAN-001").orElseThrow();
+        long statementsAfterFirstLookup = statistics.getPrepareStatementCount();
+
+        roleRepository.findByName("ROLE_USER").orElseThrow();
+        carRepository.findByRegistrationNumber("VAN-001").orElseThrow();
+
+        assertEquals(statementsAfterFirstLookup, statistics.getPrepareStatementCount());
+        assertEquals(2, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    void testCarUpdateInvalidatesCachedLookups() {
+        Car car = carRepository.findByRegistrationNumber("SUV-010").orElseThrow();
+        carRepository.findById(car.getId()).orElseThrow();
+
+        CarDTO update = new CarDTO(car.getId(), "SUV-010-R", car.getType(), car.getCostPerDay(), car.getCapacity());
+        carService.updateCar(car.getId(), update);
+        try {
+            assertTrue(carRepository.findByRegistrationNumber("SUV-010").isEmpty());
+            assertEquals("SUV-010-R", carRepository.findByRegistrationNumber("SUV-010-R").orElseThrow().getRegistrationNumber());
+            assertEquals("SUV-010-R", carRepository.findById(car.getId()).orElseThrow().getRegistrationNumber());
+        } finally {
+            carService.updateCar(car.getId(),
+                    new CarDTO(car.getId(), "SUV-010", car.getType(), car.getCostPerDay(), car.getCapacity()));
+        }
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ROLE_ADMIN"})
+    void testCacheStatsEndpoint() throws Exception {
+        Long id = carRepository.findByRegistrationNumber("SED-002").orElseThrow().getId();
+        carRepository.findById(id).orElseThrow();
+
+        mockMvc.perform(get("/api/admin/cache-stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.car.hits").isNumber())
+                .andExpect(jsonPath("$.car.misses").isNumber())
+                .andExpect(jsonPath("$.car.evictions").isNumber())
+                .andExpect(jsonPath("$.role").exists())
+                .andExpect(jsonPath("$['default-query-results-region'].hits").isNumber());
+    }
+
+    @Test
+    @WithMockUser(username = "john", authorities = {"ROLE_USER"})
+    void testCacheStatsEndpoint_AsUser_Forbidden() throws Exception {
+        mockMvc.perform(get("/api/admin/cache-stats"))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,240 @@
+package state.street.car.booking.carBooking.integration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import state.street.car.booking.carBooking.cluster.LeaseManager;
+import state.street.car.booking.carBooking.datasource.ShardRouter;
+import state.street.car.booking.carBooking.datasource.ShardRoutingDataSource;
+import state.street.car.booking.carBooking.dto.BookingDTO;
+import state.street.car.booking.carBooking.dto.BookingRequest;
+import state.street.car.booking.carBooking.dto.CarDTO;
+import state.street.car.booking.carBooking.dto.UtilisationDTO;
+import state.street.car.booking.carBooking.enums.CarType;
+import state.street.car.booking.carBooking.exception.BookingConflictException;
+import state.street.car.booking.carBooking.repository.CarRepository;
+import state.street.car.booking.carBooking.scheduler.BookingCleanupScheduler;
+import state.street.car.booking.carBooking.service.BookingService;
+import state.street.car.booking.carBooking.service.CarService;
+import state.street.car.booking.carBooking.service.DatabaseSnapshotService;
+import state.street.car.booking.carBooking.service.RepackingService;
+import state.street.car.booking.carBooking.service.UtilisationService;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Three in-memory shards. Not @Transactional: fan-out reads run on their own threads and
+ * transactions, so test data is committed and removed from every shard afterwards.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sharding-0",
+        "carbooking.datasource.sharding.enabled=true",
+        "carbooking.datasource.sharding.urls[0]=jdbc:h2:mem:sharding-1",
+        "carbooking.datasource.sharding.urls[1]=jdbc:h2:mem:sharding-2"
+})
+class ShardingIntegrationTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2035, 3, 5, 10, 0);
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private UtilisationService utilisationService;
+
+    @Autowired
+    private BookingCleanupScheduler cleanupScheduler;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private DatabaseSnapshotService snapshotService;
+
+    @Autowired
+    private RepackingService repackingService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @MockitoSpyBean
+    private LeaseManager leaseManager;
+
+    @Autowired
+    private ShardRoutingDataSource shardRoutingDataSource;
+
+    @AfterEach
+    void tearDown() {
+        for (DataSource shard : shardRoutingDataSource.getShards()) {
+            JdbcTemplate jdbc = new JdbcTemplate(shard);
+            jdbc.update("DELETE FROM bookings");
+            jdbc.update("DELETE FROM booking_archive");
+            jdbc.update("DELETE FROM daily_utilisation");
+        }
+    }
+
+    @Test
+    void testBookingsAreStoredOnTheShardOfTheirCar() {
+        List<BookingDTO> bookings = bookSedans(START);
+
+        for (BookingDTO booking : bookings) {
+            int shard = shardRouter.shardForCar(booking.getCarId());
+            assertEquals(shard, shardRouter.shardForBooking(booking.getId()));
+            assertEquals(1, countOn(shard, "SELECT COUNT(*) FROM bookings WHERE id = " + booking.getId()));
+            assertEquals(booking.getCarId(), bookingService.getBookingById(booking.getId()).getCarId());
+        }
+        assertEquals(3, bookings.stream().map(b -> shardRouter.shardForCar(b.getCarId())).distinct().count());
+        for (int shard = 0; shard < 3; shard++) {
+            assertEquals(1, countOn(shard, "SELECT COUNT(*) FROM bookings"));
+        }
+
+        assertEquals(bookings.stream().map(BookingDTO::getId).sorted().toList(),
+                bookingService.getAllBookings().stream().map(BookingDTO::getId).toList());
+        assertEquals(3, bookingService.getBookingsByUsername("john").size());
+        assertEquals(3, bookingService.getBookingsByDateRange(START.minusDays(1), START.plusDays(1)).size());
+    }
+
+    @Test
+    void testPerCarOperationsUseTheOwningShard() {
+        Long carId = carId("SED-002");
+        BookingDTO booking = bookingService.createBooking(new BookingRequest(carId, START, 3), "john");
+
+        assertThrows(BookingConflictException.class,
+                () -> bookingService.createBooking(new BookingRequest(carId, START.plusDays(1), 2), "jane"));
+        assertFalse(bookingService.isCarAvailable(carId, START.plusDays(1), 1));
+        assertEquals(1, bookingService.getBookingsByCarId(carId).size());
+
+        Long otherShardCar = carId("SED-003");
+        assertThrows(IllegalArgumentException.class,
+                () -> bookingService.updateBooking(booking.getId(), new BookingRequest(otherShardCar, START, 3)));
+
+        bookingService.deleteBooking(booking.getId(), "john");
+        assertTrue(bookingService.isCarAvailable(carId, START.plusDays(1), 1));
+    }
+
+    @Test
+    void testFleetWideReadsMergeAllShards() {
+        List<BookingDTO> bookings = bookSedans(START);
+        List<Long> bookedCars = bookings.stream().map(BookingDTO::getCarId).toList();
+
+        List<CarDTO> available = carService.getAvailableCars(START, 1);
+        assertEquals(carRepository.count() - 3, available.size());
+        assertTrue(available.stream().noneMatch(car -> bookedCars.contains(car.getId())));
+
+        List<CarDTO> sedans = carService.getCarsByTypeForPeriod(CarType.SEDAN, START, 1);
+        assertTrue(sedans.stream().allMatch(CarDTO::getIsBooked));
+
+        // Each shard holds the total of its own sedan; the report adds them up
+        UtilisationDTO sedanDay = utilisationService.getUtilisation(START.toLocalDate(), START.toLocalDate(),
+                        UtilisationService.Granularity.DAY).stream()
+                .filter(row -> row.getCarType() == CarType.SEDAN)
+                .findFirst().orElseThrow();
+        assertEquals(3L, sedanDay.getBookedCarDays());
+        assertEquals(0, utilisationService.verify(false).get("mismatches"));
+    }
+
+    @Test
+    void testCleanupRunsOnEveryShard() {
+        LocalDateTime past = LocalDate.now().minusDays(20).atStartOfDay();
+        List<BookingDTO> expired = bookSedans(past);
+        bookSedans(START);
+
+        assertEquals(3, cleanupScheduler.cleanupExpiredBookingsManually());
+
+        for (BookingDTO booking : expired) {
+            int shard = shardRouter.shardForBooking(booking.getId());
+            assertEquals(1, countOn(shard, "SELECT COUNT(*) FROM booking_archive WHERE id = " + booking.getId()));
+        }
+        assertEquals(3, bookingService.getAllBookings().size());
+    }
+
+    @Test
+    void testCleanupWithALostLeaseDeletesNothingOnAnyShard() {
+        List<BookingDTO> expired = bookSedans(LocalDate.now().minusDays(20).atStartOfDay());
+        doThrow(new IllegalStateException("Lease taken over")).when(leaseManager).checkFence(any());
+
+        assertThrows(IllegalStateException.class, () -> cleanupScheduler.cleanupExpiredBookingsManually());
+
+        for (BookingDTO booking : expired) {
+            int shard = shardRouter.shardForBooking(booking.getId());
+            assertEquals(1, countOn(shard, "SELECT COUNT(*) FROM bookings WHERE id = " + booking.getId()));
+            assertEquals(0, countOn(shard, "SELECT COUNT(*) FROM booking_archive WHERE id = " + booking.getId()));
+        }
+    }
+
+    @Test
+    void testCarChangesReachEveryShard() {
+        CarDTO created = carService.createCar(new CarDTO(null, "SHARD-001", CarType.VAN, new BigDecimal("99.00"), 9));
+        for (int shard = 0; shard < 3; shard++) {
+            assertEquals(1, countOn(shard, "SELECT COUNT(*) FROM cars WHERE registration_number = 'SHARD-001'"));
+        }
+
+        carService.deleteCar(created.getId());
+        for (int shard = 0; shard < 3; shard++) {
+            assertEquals(0, countOn(shard, "SELECT COUNT(*) FROM cars WHERE registration_number = 'SHARD-001'"));
+        }
+    }
+
+    @Test
+    void testReferenceCopyFailsWhenAShardCannotDropACar() {
+        CarDTO first = carService.createCar(new CarDTO(null, "SHARD-002", CarType.VAN, new BigDecimal("99.00"), 9));
+        CarDTO second = carService.createCar(new CarDTO(null, "SHARD-003", CarType.VAN, new BigDecimal("99.00"), 9));
+        CarDTO orphaned = shardRouter.shardForCar(first.getId()) != 0 ? first : second;
+        CarDTO other = orphaned == first ? second : first;
+        int shard = shardRouter.shardForCar(orphaned.getId());
+        BookingDTO booking = bookingService.createBooking(new BookingRequest(orphaned.getId(), START, 2), "john");
+
+        // Removed behind the service's back while its bookings remain on the owning shard
+        new JdbcTemplate(shardRoutingDataSource.getShards().get(0)).update("DELETE FROM cars WHERE id = ?", orphaned.getId());
+        try {
+            IllegalStateException failure = assertThrows(IllegalStateException.class, () -> shardRouter.syncReferenceData());
+            assertTrue(failure.getMessage().contains("Shard " + shard));
+            assertEquals(1, countOn(shard, "SELECT COUNT(*) FROM cars WHERE id = " + orphaned.getId()));
+        } finally {
+            new JdbcTemplate(shardRoutingDataSource.getShards().get(shard)).update("DELETE FROM bookings WHERE id = ?", booking.getId());
+            carService.deleteCar(other.getId());
+        }
+        assertEquals(0, countOn(shard, "SELECT COUNT(*) FROM cars WHERE id = " + orphaned.getId()));
+    }
+
+    @Test
+    void testSnapshotRestoreIsRefused() {
+        assertThrows(IllegalArgumentException.class, () -> snapshotService.restore(Path.of("snapshot.zip")));
+    }
+
+    @Test
+    void testRepackingIsPlannedPerShardButNotApplied() {
+        String token = repackingService.dryRun(CarType.SEDAN).getToken();
+
+        assertThrows(IllegalArgumentException.class, () -> repackingService.apply(CarType.SEDAN, token));
+    }
+
+    private List<BookingDTO> bookSedans(LocalDateTime start) {
+        return List.of("SED-001", "SED-002", "SED-003").stream()
+                .map(registration -> bookingService.createBooking(new BookingRequest(carId(registration), start, 3), "john"))
+                .toList();
+    }
+
+    private Long carId(String registrationNumber) {
+        return carRepository.findByRegistrationNumber(registrationNumber).orElseThrow().getId();
+    }
+
+    private long countOn(int shard, String sql) {
+        return new JdbcTemplate(shardRoutingDataSource.getShards().get(shard)).queryForObject(sql, Long.class);
+    }
+}
@@ -0,0 +1,77 @@
+package state.street.car.booking.carBooking.integration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import state.street.car.booking.carBooking.metrics.SqlMonitoringFilter;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "carbooking.sql-monitor.detect-repeats=true",
+        "carbooking.sql-monitor.log-offenders=true",
+        "carbooking.sql-monitor.repeat-threshold=10"
+})
+@AutoConfigureMockMvc
+@ExtendWith(OutputCaptureExtension.class)
+class SqlMonitoringIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser(username = "john", authorities = {"ROLE_USER"})
+    void testPerCarAvailabilityLoopIsFlagged(CapturedOutput output) throws Exception {
+        // One conflict query per car: 16 seeded cars exceed the threshold of 10
+        MvcResult result = mockMvc.perform(get("/api/cars")
+                        .param("startDate", "2031-03-01T10:00:00")
+                        .param("duration", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(SqlMonitoringFilter.SERVER_TIMING, startsWith("db;dur=")))
+                .andExpect(header().exists(SqlMonitoringFilter.REPEATED_STATEMENT))
+                .andReturn();
+
+        int statements = Integer.parseInt(result.getResponse().getHeader(SqlMonitoringFilter.STATEMENT_COUNT));
+        int repeated = Integer.parseInt(result.getResponse().getHeader(SqlMonitoringFilter.REPEATED_STATEMENT));
+        assertTrue(repeated > 10);
+        assertTrue(statements >= repeated);
+        assertTrue(output.getOut().contains("Possible N+1 in GET /api/cars"));
+        assertTrue(output.getOut().contains("CarController#getAllCars"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ROLE_ADMIN"})
+    void testProjectionReadIsNotFlagged() throws Exception {
+        mockMvc.perform(get("/api/bookings"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(SqlMonitoringFilter.SERVER_TIMING))
+                .andExpect(header().doesNotExist(SqlMonitoringFilter.REPEATED_STATEMENT));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ROLE_ADMIN"})
+    void testNotModifiedResponseCarriesTheHeaders() throws Exception {
+        // The pre-encoded body is written straight through, with the headers set ahead of it
+        String eTag = mockMvc.perform(get("/api/cars/simple"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(SqlMonitoringFilter.SERVER_TIMING))
+                .andExpect(jsonPath("$[0].registrationNumber").exists())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/cars/simple").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().exists(SqlMonitoringFilter.SERVER_TIMING))
+                .andExpect(header().exists(SqlMonitoringFilter.STATEMENT_COUNT));
+    }
+}
@@ -0,0 +1,73 @@
+package state.street.car.booking.carBooking.integration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import state.street.car.booking.carBooking.dto.BookingRequest;
+import state.street.car.booking.carBooking.dto.TypeBookingDTO;
+import state.street.car.booking.carBooking.dto.TypeBookingRequest;
+import state.street.car.booking.carBooking.enums.CarType;
+import state.street.car.booking.carBooking.exception.BookingConflictException;
+import state.street.car.booking.carBooking.service.BookingService;
+import state.street.car.booking.carBooking.service.CarAllocationService;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:allocation")
+class TypeBookingIntegrationTest {
+
+    @Autowired
+    private CarAllocationService carAllocationService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testTheCarWithTheTightestGapIsBooked() {
+        LocalDateTime start = LocalDateTime.of(2040, 1, 10, 10, 0);
+        bookingService.createBooking(new BookingRequest(carId("SUV-003"), start.minusDays(3), 2), "john");
+        bookingService.createBooking(new BookingRequest(carId("SUV-003"), start.plusDays(3), 2), "john");
+        bookingService.createBooking(new BookingRequest(carId("SUV-005"), start.plusDays(5), 1), "jane");
+        // Too close to fit
+        bookingService.createBooking(new BookingRequest(carId("SUV-007"), start.plusDays(2), 1), "jane");
+
+        TypeBookingDTO booked = carAllocationService.createBookingForType(
+                new TypeBookingRequest(CarType.SUV, start, 2), "manager");
+
+        assertEquals(carId("SUV-003"), booked.getBooking().getCarId());
+        assertEquals("manager", booked.getBooking().getUsername());
+        assertEquals(Boolean.TRUE, jdbcTemplate.queryForObject("SELECT allow_reassignment FROM bookings WHERE id = ?",
+                Boolean.class, booked.getBooking().getId()));
+        assertEquals(booked.getFragmentationBefore().gaps() + 1, booked.getFragmentationAfter().gaps());
+        assertEquals(booked.getFragmentationBefore().freeDays() - 2, booked.getFragmentationAfter().freeDays(), 1e-9);
+        assertTrue(booked.getFragmentationAfter().fragmentation() > 0);
+    }
+
+    @Test
+    void testRequestsForTheSamePeriodGetDifferentCarsUntilNoneIsLeft() {
+        LocalDateTime start = LocalDateTime.of(2040, 3, 1, 9, 0);
+        Set<Long> cars = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            cars.add(carAllocationService.createBookingForType(new TypeBookingRequest(CarType.VAN, start, 4), "john")
+                    .getBooking().getCarId());
+        }
+
+        assertEquals(3, cars.size());
+        assertThrows(BookingConflictException.class, () -> carAllocationService.createBookingForType(
+                new TypeBookingRequest(CarType.VAN, start.plusDays(1), 1), "jane"));
+        assertThrows(IllegalArgumentException.class, () -> carAllocationService.createBookingForType(
+                new TypeBookingRequest(CarType.VAN, start, 0), "jane"));
+    }
+
+    private Long carId(String registrationNumber) {
+        return jdbcTemplate.queryForObject("SELECT id FROM cars WHERE registration_number = ?", Long.class, registrationNumber);
+    }
+}
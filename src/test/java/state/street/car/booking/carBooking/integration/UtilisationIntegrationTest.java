@@ -0,0 +1,176 @@
+package state.street.car.booking.carBooking.integration;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import state.street.car.booking.carBooking.dto.BookingDTO;
+import state.street.car.booking.carBooking.dto.BookingRequest;
+import state.street.car.booking.carBooking.dto.UtilisationDTO;
+import state.street.car.booking.carBooking.entity.DailyUtilisation;
+import state.street.car.booking.carBooking.enums.CarType;
+import state.street.car.booking.carBooking.repository.CarRepository;
+import state.street.car.booking.carBooking.repository.DailyUtilisationRepository;
+import state.street.car.booking.carBooking.service.BookingService;
+import state.street.car.booking.carBooking.service.UtilisationService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class UtilisationIntegrationTest {
+
+    // Far enough ahead that no other test books these days; a Monday
+    private static final LocalDate MONDAY = LocalDate.of(2031, 6, 2);
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private UtilisationService utilisationService;
+
+    @Autowired
+    private DailyUtilisationRepository dailyUtilisationRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long sedanId;
+    private Long vanId;
+
+    @BeforeEach
+    void setUp() {
+        sedanId = carRepository.findByRegistrationNumber("SED-001").orElseThrow().getId();
+        vanId = carRepository.findByRegistrationNumber("VAN-001").orElseThrow().getId();
+    }
+
+    @Test
+    void testBookingWritesAdjustDailyTotals() {
+        BookingDTO booking = bookingService.createBooking(new BookingRequest(sedanId, MONDAY.atTime(10, 0), 3), "john");
+        bookingService.createBooking(new BookingRequest(sedanId, MONDAY.plusDays(3).atTime(12, 0), 2), "jane");
+
+        assertEquals(List.of(1, 1, 1, 1, 1, 0), bookedDays(CarType.SEDAN, MONDAY, 6));
+
+        bookingService.updateBooking(booking.getId(), new BookingRequest(vanId, MONDAY.plusDays(1).atTime(10, 0), 1));
+        assertEquals(List.of(0, 0, 0, 1, 1, 0), bookedDays(CarType.SEDAN, MONDAY, 6));
+        assertEquals(List.of(0, 1, 0), bookedDays(CarType.VAN, MONDAY, 3));
+
+        bookingService.deleteBooking(booking.getId(), "john");
+        assertEquals(List.of(0, 0, 0), bookedDays(CarType.VAN, MONDAY, 3));
+    }
+
+    @Test
+    void testWeeklyUtilisationAgainstFleetSize() {
+        // Three SUVs are booked for the whole week; the seeded fleet has ten
+        for (String registration : List.of("SUV-001", "SUV-002", "SUV-003")) {
+            Long carId = carRepository.findByRegistrationNumber(registration).orElseThrow().getId();
+            bookingService.createBooking(new BookingRequest(carId, MONDAY.atStartOfDay(), 7), "john");
+        }
+
+        List<UtilisationDTO> weeks = utilisationService.getUtilisation(MONDAY, MONDAY.plusDays(6), UtilisationService.Granularity.WEEK);
+
+        UtilisationDTO suvWeek = weeks.stream().filter(w -> w.getCarType() == CarType.SUV).findFirst().orElseThrow();
+        assertEquals(MONDAY, suvWeek.getPeriodStart());
+        assertEquals(21L, suvWeek.getBookedCarDays());
+        assertEquals(70L, suvWeek.getAvailableCarDays());
+        assertEquals(0, suvWeek.getUtilisationPercent().compareTo(new BigDecimal("30.00")));
+    }
+
+    @Test
+    void testVerifyDetectsAndRepairsDrift() {
+        bookingService.createBooking(new BookingRequest(sedanId, MONDAY.atTime(10, 0), 2), "john");
+        utilisationService.verify(true);
+
+        DailyUtilisation row = dailyUtilisationRepository.findById(new DailyUtilisation.Key(MONDAY, CarType.SEDAN)).orElseThrow();
+        row.setBookedCarDays(5);
+        dailyUtilisationRepository.flush();
+
+        Map<String, Object> report = utilisationService.verify(true);
+        assertEquals(1, report.get("mismatches"));
+        assertEquals(List.of(1, 1), bookedDays(CarType.SEDAN, MONDAY, 2));
+        assertEquals(0, utilisationService.verify(false).get("mismatches"));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testScheduledVerifyCommitsItsRepairs() {
+        LocalDate day = MONDAY.plusWeeks(20);
+        BookingDTO booking = bookingService.createBooking(new BookingRequest(vanId, day.atTime(9, 0), 1), "john");
+        try {
+            jdbcTemplate.update("UPDATE daily_utilisation SET booked_car_days = 7 WHERE usage_date = ? AND car_type = 'VAN'", day);
+
+            utilisationService.scheduledVerify();
+
+            assertEquals(1, jdbcTemplate.queryForObject(
+                    "SELECT booked_car_days FROM daily_utilisation WHERE usage_date = ? AND car_type = 'VAN'", Integer.class, day));
+        } finally {
+            bookingService.deleteBooking(booking.getId(), "john");
+        }
+    }
+
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ROLE_ADMIN"})
+    void testUtilisationEndpoints() throws Exception {
+        mockMvc.perform(get("/api/admin/analytics/utilisation")
+                        .param("from", MONDAY.toString())
+                        .param("to", MONDAY.plusDays(13).toString())
+                        .param("granularity", "WEEK"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2 * CarType.values().length))
+                .andExpect(jsonPath("$[0].periodStart").value(MONDAY.toString()));
+
+        mockMvc.perform(get("/api/admin/analytics/utilisation")
+                        .param("from", MONDAY.toString())
+                        .param("to", MONDAY.plusYears(5).toString()))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/api/admin/analytics/utilisation/verify"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.mismatches").isNumber());
+    }
+
+    @Test
+    @WithMockUser(username = "john", authorities = {"ROLE_USER"})
+    void testUtilisationEndpoint_AsUser_Forbidden() throws Exception {
+        mockMvc.perform(get("/api/admin/analytics/utilisation")
+                        .param("from", MONDAY.toString())
+                        .param("to", MONDAY.toString()))
+                .andExpect(status().isForbidden());
+    }
+
+    private List<Integer> bookedDays(CarType type, LocalDate from, int days) {
+        // Totals change through bulk updates, so drop entities loaded by earlier reads
+        entityManager.flush();
+        entityManager.clear();
+        return from.datesUntil(from.plusDays(days))
+                .map(day -> dailyUtilisationRepository.findById(new DailyUtilisation.Key(day, type))
+                        .map(DailyUtilisation::getBookedCarDays).orElse(0))
+                .toList();
+    }
+}
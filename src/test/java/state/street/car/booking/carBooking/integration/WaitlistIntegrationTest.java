@@ -0,0 +1,118 @@
+package state.street.car.booking.carBooking.integration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import state.street.car.booking.carBooking.dto.BookingDTO;
+import state.street.car.booking.carBooking.dto.BookingRequest;
+import state.street.car.booking.carBooking.dto.WaitlistEntryDTO;
+import state.street.car.booking.carBooking.dto.WaitlistRequest;
+import state.street.car.booking.carBooking.entity.WaitlistEntry;
+import state.street.car.booking.carBooking.enums.CarType;
+import state.street.car.booking.carBooking.service.BookingService;
+import state.street.car.booking.carBooking.service.WaitlistService;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Not @Transactional: waiting requests are matched after the freeing transaction commits.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:waitlist",
+        "carbooking.waitlist.enabled=true"
+})
+class WaitlistIntegrationTest {
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testCancellationBooksTheWaitingRequestForTheType() {
+        LocalDateTime start = LocalDateTime.of(2039, 3, 1, 10, 0);
+        bookingService.createBooking(new BookingRequest(carId("VAN-001"), start, 3), "john");
+        BookingDTO freed = bookingService.createBooking(new BookingRequest(carId("VAN-002"), start.plusDays(1), 3), "jane");
+        bookingService.createBooking(new BookingRequest(carId("VAN-003"), start, 5), "admin");
+
+        WaitlistEntryDTO entry = waitlistService.join(new WaitlistRequest(CarType.VAN, null, start.plusDays(2), 2), "manager");
+        assertEquals(WaitlistEntry.Status.WAITING, entry.getStatus());
+
+        bookingService.deleteBooking(freed.getId(), "jane");
+        waitlistService.awaitAssignments();
+
+        WaitlistEntryDTO assigned = entry(entry.getId());
+        assertEquals(WaitlistEntry.Status.ASSIGNED, assigned.getStatus());
+        BookingDTO booking = bookingService.getBookingById(assigned.getBookingId());
+        assertEquals(carId("VAN-002"), booking.getCarId());
+        assertEquals("manager", booking.getUsername());
+        assertEquals(start.plusDays(2), booking.getBookingDate());
+    }
+
+    @Test
+    void testOldestRequestForTheCarIsServedFirst() {
+        Long carId = carId("SED-001");
+        LocalDateTime start = LocalDateTime.of(2039, 4, 1, 9, 0);
+        BookingDTO existing = bookingService.createBooking(new BookingRequest(carId, start, 2), "john");
+
+        WaitlistEntryDTO first = waitlistService.join(new WaitlistRequest(null, carId, start.plusDays(1), 1), "jane");
+        WaitlistEntryDTO second = waitlistService.join(new WaitlistRequest(null, carId, start, 1), "manager");
+        assertEquals(CarType.SEDAN, first.getCarType());
+
+        bookingService.deleteBooking(existing.getId(), "john");
+        waitlistService.awaitAssignments();
+
+        assertEquals(WaitlistEntry.Status.ASSIGNED, entry(first.getId()).getStatus());
+        // Touches the booking made for the first request
+        assertEquals(WaitlistEntry.Status.WAITING, entry(second.getId()).getStatus());
+    }
+
+    @Test
+    void testFreeCarIsBookedOnJoining() {
+        LocalDateTime start = LocalDateTime.of(2039, 5, 1, 8, 0);
+
+        WaitlistEntryDTO entry = waitlistService.join(new WaitlistRequest(CarType.SUV, null, start, 1), "john");
+
+        assertEquals(WaitlistEntry.Status.ASSIGNED, entry.getStatus());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bookings WHERE id = ?", Integer.class, entry.getBookingId()));
+    }
+
+    @Test
+    void testInvalidRequestsAndOtherUsersEntriesAreRejected() {
+        LocalDateTime start = LocalDateTime.of(2039, 6, 1, 8, 0);
+        Long carId = carId("SED-002");
+        bookingService.createBooking(new BookingRequest(carId, start, 1), "john");
+
+        assertThrows(IllegalArgumentException.class, () -> waitlistService.join(
+                new WaitlistRequest(CarType.SEDAN, carId, start, 1), "jane"));
+        assertThrows(IllegalArgumentException.class, () -> waitlistService.join(
+                new WaitlistRequest(CarType.SEDAN, null, LocalDateTime.now().minusDays(1), 1), "jane"));
+        assertThrows(IllegalArgumentException.class, () -> waitlistService.join(
+                new WaitlistRequest(null, carId, start, 0), "jane"));
+
+        WaitlistEntryDTO entry = waitlistService.join(new WaitlistRequest(null, carId, start, 1), "jane");
+        assertThrows(IllegalStateException.class, () -> waitlistService.leave(entry.getId(), "john"));
+        waitlistService.leave(entry.getId(), "jane");
+        assertTrue(waitlistService.getMyEntries("jane").stream().noneMatch(mine -> mine.getId().equals(entry.getId())));
+    }
+
+    private WaitlistEntryDTO entry(Long id) {
+        String username = jdbcTemplate.queryForObject("SELECT u.username FROM waitlist_entries e JOIN users u ON u.id = e.user_id "
+                + "WHERE e.id = ?", String.class, id);
+        return waitlistService.getMyEntries(username).stream()
+                .filter(entry -> entry.getId().equals(id))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private Long carId(String registrationNumber) {
+        return jdbcTemplate.queryForObject("SELECT id FROM cars WHERE registration_number = ?", Long.class, registrationNumber);
+    }
+}
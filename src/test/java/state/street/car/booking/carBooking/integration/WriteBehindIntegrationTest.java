@@ -0,0 +1,296 @@
+package state.street.car.booking.carBooking.integration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import state.street.car.booking.carBooking.cluster.ChangeFeed;
+import state.street.car.booking.carBooking.datasource.ShardRouter;
+import state.street.car.booking.carBooking.dto.BookingDTO;
+import state.street.car.booking.carBooking.dto.BookingRequest;
+import state.street.car.booking.carBooking.dto.CarDTO;
+import state.street.car.booking.carBooking.dto.HourlyBookingRequest;
+import state.street.car.booking.carBooking.dto.TypeBookingDTO;
+import state.street.car.booking.carBooking.dto.TypeBookingRequest;
+import state.street.car.booking.carBooking.dto.WaitlistEntryDTO;
+import state.street.car.booking.carBooking.dto.WaitlistRequest;
+import state.street.car.booking.carBooking.entity.WaitlistEntry;
+import state.street.car.booking.carBooking.enums.CarType;
+import state.street.car.booking.carBooking.exception.BookingConflictException;
+import state.street.car.booking.carBooking.exception.ResourceNotFoundException;
+import state.street.car.booking.carBooking.hourly.HourSlotIndex;
+import state.street.car.booking.carBooking.ledger.BookingLedger;
+import state.street.car.booking.carBooking.ledger.WriteBehindBookingWriter;
+import state.street.car.booking.carBooking.ledger.WriteBehindProperties;
+import state.street.car.booking.carBooking.metrics.BookingMetrics;
+import state.street.car.booking.carBooking.outbox.OutboxWriter;
+import state.street.car.booking.carBooking.repository.CarRepository;
+import state.street.car.booking.carBooking.repository.UserRepository;
+import state.street.car.booking.carBooking.service.BookingService;
+import state.street.car.booking.carBooking.service.CarAllocationService;
+import state.street.car.booking.carBooking.service.CarService;
+import state.street.car.booking.carBooking.service.DataVersionTracker;
+import state.street.car.booking.carBooking.service.HourlyBookingService;
+import state.street.car.booking.carBooking.service.UtilisationService;
+import state.street.car.booking.carBooking.service.WaitlistService;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The flush interval is an hour, so accepted bookings stay in the write-ahead log until a
+ * test drains them or a second writer recovers the log as it would after a crash.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:write-behind",
+        "carbooking.write-behind.enabled=true",
+        "carbooking.write-behind.flush-interval-millis=3600000",
+        "carbooking.write-behind.segment-size-bytes=4096",
+        "carbooking.hourly.enabled=true",
+        "carbooking.waitlist.enabled=true"
+})
+class WriteBehindIntegrationTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2036, 4, 1, 10, 0);
+
+    @TempDir
+    static Path walDir;
+
+    @DynamicPropertySource
+    static void walDirectory(DynamicPropertyRegistry registry) {
+        registry.add("carbooking.write-behind.directory", walDir::toString);
+    }
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private WriteBehindBookingWriter writeBehindBookingWriter;
+
+    @Autowired
+    private WriteBehindProperties writeBehindProperties;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UtilisationService utilisationService;
+
+    @Autowired
+    private BookingLedger bookingLedger;
+
+    @Autowired
+    private DataVersionTracker dataVersionTracker;
+
+    @Autowired
+    private BookingMetrics bookingMetrics;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private OutboxWriter outboxWriter;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private HourSlotIndex hourSlotIndex;
+
+    @Autowired
+    private HourlyBookingService hourlyBookingService;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private CarAllocationService carAllocationService;
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testAcknowledgedBookingsSurviveACrashBeforeTheFlush() throws Exception {
+        Long carId = carRepository.findByRegistrationNumber("SED-002").orElseThrow().getId();
+        List<BookingDTO> acknowledged = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int client = 0; client < 8; client++) {
+            int offset = client;
+            futures.add(clients.submit(() -> {
+                for (int i = 0; i < 25; i++) {
+                    long slot = (long) i * 8 + offset;
+                    acknowledged.add(bookingService.createBooking(
+                            new BookingRequest(carId, START.plusDays(slot * 4), 3), offset % 2 == 0 ? "john" : "jane"));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        clients.shutdown();
+
+        assertEquals(200, acknowledged.size());
+        assertEquals(0, bookingsInDatabase(carId), "nothing is flushed within the hour");
+        // 64 records per segment: the acknowledged bookings span segments the writer has rolled past
+        long segments;
+        try (Stream<Path> files = Files.list(walDir)) {
+            segments = files.filter(file -> file.getFileName().toString().startsWith("events-")).count();
+        }
+        assertTrue(segments >= 3, segments + " segment(s)");
+        assertThrows(BookingConflictException.class,
+                () -> bookingService.createBooking(new BookingRequest(carId, START.plusDays(1), 1), "john"));
+
+        // A fresh writer on the same directory, as after a restart, inserts what the log holds
+        WriteBehindBookingWriter restarted = new WriteBehindBookingWriter(writeBehindProperties, carRepository,
+                userRepository, utilisationService, bookingLedger, dataVersionTracker, bookingMetrics, shardRouter,
+                outboxWriter, changeFeed, hourSlotIndex, jdbcTemplate, transactionManager);
+        restarted.start();
+        restarted.stop();
+
+        assertEquals(200, bookingsInDatabase(carId));
+        for (BookingDTO booking : acknowledged) {
+            assertEquals(booking.getBookingDate(), jdbcTemplate.queryForObject(
+                    "SELECT booking_date FROM bookings WHERE id = ?", LocalDateTime.class, booking.getId()));
+        }
+    }
+
+    @Test
+    void testUpdatesAndCancellationsSeePendingBookings() {
+        Long carId = carRepository.findByRegistrationNumber("SUV-002").orElseThrow().getId();
+        BookingDTO booking = bookingService.createBooking(new BookingRequest(carId, START, 3), "john");
+
+        BookingDTO moved = bookingService.updateBooking(booking.getId(), new BookingRequest(carId, START.plusDays(10), 2));
+        assertEquals(START.plusDays(10), moved.getBookingDate());
+
+        // The old period is free again and the new one is taken
+        BookingDTO other = bookingService.createBooking(new BookingRequest(carId, START, 3), "jane");
+        assertThrows(BookingConflictException.class,
+                () -> bookingService.createBooking(new BookingRequest(carId, START.plusDays(11), 1), "jane"));
+
+        bookingService.deleteBooking(other.getId(), "jane");
+        bookingService.deleteBooking(booking.getId(), "john");
+        assertEquals(0, bookingsInDatabase(carId));
+        bookingService.createBooking(new BookingRequest(carId, START.plusDays(11), 1), "jane");
+    }
+
+    @Test
+    void testHourlyBookingSeesUnflushedDayBookings() {
+        Long carId = carRepository.findByRegistrationNumber("SUV-004").orElseThrow().getId();
+        bookingService.createBooking(new BookingRequest(carId, START, 2), "john");
+        assertEquals(0, bookingsInDatabase(carId));
+
+        assertThrows(BookingConflictException.class, () -> hourlyBookingService.createHourlyBooking(
+                new HourlyBookingRequest(carId, START.plusDays(1), 2), "jane"));
+        hourlyBookingService.createHourlyBooking(new HourlyBookingRequest(carId, START.plusDays(2), 2), "jane");
+    }
+
+    @Test
+    void testIdsFromTheNormalInsertPathDoNotCollide() {
+        Long carId = carRepository.findByRegistrationNumber("VAN-002").orElseThrow().getId();
+        BookingDTO pending = bookingService.createBooking(new BookingRequest(carId, START, 1), "john");
+
+        // Inserted straight into the table while the booking above is still only in the log
+        jdbcTemplate.update("INSERT INTO bookings (car_id, user_id, booking_date, duration, created_at) "
+                + "SELECT c.id, u.id, ?, 1, LOCALTIMESTAMP FROM cars c, users u WHERE c.id = ? AND u.username = 'jane'",
+                START.plusDays(30), carId);
+        Long insertedId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM bookings WHERE car_id = ?", Long.class, carId);
+        assertNotEquals(pending.getId(), insertedId);
+
+        writeBehindBookingWriter.drain();
+        assertEquals(2, bookingsInDatabase(carId));
+        assertEquals(START, jdbcTemplate.queryForObject(
+                "SELECT booking_date FROM bookings WHERE id = ?", LocalDateTime.class, pending.getId()));
+    }
+
+    @Test
+    void testWaitlistBookingsTakeTheirOwnIdsBesidePendingBookings() {
+        Long carId = carRepository.findByRegistrationNumber("SUV-005").orElseThrow().getId();
+        BookingDTO pending = bookingService.createBooking(new BookingRequest(carId, START, 2), "john");
+
+        WaitlistEntryDTO blocked = waitlistService.join(new WaitlistRequest(null, carId, START.plusDays(1), 1), "jane");
+        assertEquals(WaitlistEntry.Status.WAITING, blocked.getStatus());
+        WaitlistEntryDTO assigned = waitlistService.join(new WaitlistRequest(null, carId, START.plusDays(5), 1), "jane");
+        assertEquals(WaitlistEntry.Status.ASSIGNED, assigned.getStatus());
+        assertNotEquals(pending.getId(), assigned.getBookingId());
+        assertEquals(1, bookingsInDatabase(carId), "the waitlist booking went in beside the pending one");
+
+        writeBehindBookingWriter.drain();
+        assertEquals(2, bookingsInDatabase(carId));
+        waitlistService.leave(blocked.getId(), "jane");
+    }
+
+    @Test
+    void testTypeBookingIsReassignableWithoutWaitingForItsOwnFlush() {
+        TypeBookingDTO booked = carAllocationService.createBookingForType(
+                new TypeBookingRequest(CarType.VAN, START.plusYears(1), 2), "john");
+        Long bookingId = booked.getBooking().getId();
+
+        // Written behind like any other booking, with the flag in its log record
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bookings WHERE id = ?", Integer.class, bookingId));
+        writeBehindBookingWriter.drain();
+        assertEquals(Boolean.TRUE, jdbcTemplate.queryForObject(
+                "SELECT allow_reassignment FROM bookings WHERE id = ?", Boolean.class, bookingId));
+    }
+
+    @Test
+    void testCarWithAnUnflushedBookingCannotBeDeleted() {
+        Long carId = carService.createCar(new CarDTO(null, "WB-DEL-1", CarType.SEDAN, new BigDecimal("40.00"), 4)).getId();
+        BookingDTO pending = bookingService.createBooking(new BookingRequest(carId, START, 2), "john");
+        assertEquals(0, bookingsInDatabase(carId));
+
+        assertThrows(IllegalStateException.class, () -> carService.deleteCar(carId));
+        assertTrue(carRepository.existsById(carId));
+
+        bookingService.deleteBooking(pending.getId(), "john");
+        carService.deleteCar(carId);
+        assertThrows(ResourceNotFoundException.class,
+                () -> bookingService.createBooking(new BookingRequest(carId, START, 2), "john"));
+    }
+
+    @Test
+    void testABookingTheDatabaseRefusesDoesNotHoldUpTheOthers() {
+        Long goneCarId = carService.createCar(new CarDTO(null, "WB-GONE-1", CarType.SEDAN, new BigDecimal("40.00"), 4)).getId();
+        Long carId = carRepository.findByRegistrationNumber("SUV-003").orElseThrow().getId();
+        long rejected = (Long) writeBehindBookingWriter.status().get("rejected");
+        BookingDTO poisoned = bookingService.createBooking(new BookingRequest(goneCarId, START.plusYears(2), 2), "john");
+        BookingDTO healthy = bookingService.createBooking(new BookingRequest(carId, START.plusYears(2), 2), "jane");
+
+        // Removed behind the service's back, so the pending booking can never be inserted
+        jdbcTemplate.update("DELETE FROM cars WHERE id = ?", goneCarId);
+
+        writeBehindBookingWriter.drain();
+        assertEquals(rejected + 1, writeBehindBookingWriter.status().get("rejected"));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bookings WHERE id = ?", Integer.class, poisoned.getId()));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bookings WHERE id = ?", Integer.class, healthy.getId()));
+        bookingService.deleteBooking(healthy.getId(), "jane");
+    }
+
+    private int bookingsInDatabase(Long carId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bookings WHERE car_id = ?", Integer.class, carId);
+    }
+}
@@ -0,0 +1,117 @@
+package state.street.car.booking.carBooking.ledger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingEventLogTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 10, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testAppendedEventsReplayInOrderAcrossSegments() throws IOException {
+        // Four events per segment
+        try (BookingEventLog log = BookingEventLog.open(directory, 4L * BookingEvent.SIZE, false)) {
+            for (int i = 1; i <= 10; i++) {
+                BookingEvent event = log.append(BookingEvent.Type.CREATED, i, 100 + i, 7, START.plusDays(i), 3, i % 2 == 0);
+                assertEquals(i, event.sequence());
+            }
+            assertEquals(3, log.segments().size());
+
+            List<BookingEvent> events = replay(log, 1);
+            assertEquals(10, events.size());
+            assertEquals(START.plusDays(10), events.get(9).bookingDate());
+            assertEquals(110, events.get(9).carId());
+            assertEquals(BookingEvent.Type.CREATED, events.get(9).type());
+            assertTrue(events.get(9).allowReassignment());
+            assertFalse(events.get(8).allowReassignment());
+
+            assertEquals(List.of(6L, 7L, 8L, 9L, 10L), replay(log, 6).stream().map(BookingEvent::sequence).toList());
+        }
+    }
+
+    @Test
+    void testReopenContinuesAfterTheLastEvent() throws IOException {
+        try (BookingEventLog log = BookingEventLog.open(directory, 4L * BookingEvent.SIZE, false)) {
+            for (int i = 1; i <= 5; i++) {
+                log.append(BookingEvent.Type.CREATED, i, 1, 1, START, 1);
+            }
+        }
+
+        try (BookingEventLog log = BookingEventLog.open(directory, 4L * BookingEvent.SIZE, false)) {
+            assertEquals(5, log.lastSequence());
+            assertEquals(6, log.append(BookingEvent.Type.CANCELLED, 1, 1, 1, START, 1).sequence());
+            assertEquals(6, replay(log, 1).size());
+        }
+    }
+
+    @Test
+    void testTornRecordIsDiscardedOnReopen() throws IOException {
+        try (BookingEventLog log = BookingEventLog.open(directory, 16L * BookingEvent.SIZE, false)) {
+            for (int i = 1; i <= 3; i++) {
+                log.append(BookingEvent.Type.CREATED, i, 1, 1, START, 1);
+            }
+        }
+        // Half of the third event reached the disk
+        Path segment = directory.resolve(String.format("events-%020d.log", 1));
+        try (FileChannel file = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            file.write(ByteBuffer.allocate(BookingEvent.SIZE / 2), 2L * BookingEvent.SIZE + BookingEvent.SIZE / 2);
+        }
+
+        try (BookingEventLog log = BookingEventLog.open(directory, 16L * BookingEvent.SIZE, false)) {
+            assertEquals(2, log.lastSequence());
+            assertEquals(3, log.append(BookingEvent.Type.UPDATED, 2, 1, 1, START.plusDays(1), 2).sequence());
+
+            List<BookingEvent> events = replay(log, 1);
+            assertEquals(3, events.size());
+            assertEquals(BookingEvent.Type.UPDATED, events.get(2).type());
+        }
+    }
+
+    @Test
+    void testViewSnapshotRoundTripsAndChecksAvailability() throws IOException {
+        LedgerView view = new LedgerView();
+        try (BookingEventLog log = BookingEventLog.open(directory, 16L * BookingEvent.SIZE, false)) {
+            view.apply(log.append(BookingEvent.Type.CREATED, 1, 5, 7, START, 3));
+            view.apply(log.append(BookingEvent.Type.CREATED, 2, 5, 8, START.plusDays(10), 2));
+            view.apply(log.append(BookingEvent.Type.CANCELLED, 2, 5, 8, START.plusDays(10), 2));
+        }
+
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        view.writeSnapshot(snapshot);
+        LedgerView restored = new LedgerView();
+        restored.readSnapshot(new ByteArrayInputStream(snapshot.toByteArray()));
+
+        assertEquals(view.bookings(), restored.bookings());
+        assertEquals(3, restored.lastSequence());
+        assertEquals(1, restored.bookingsForUser(7).size());
+        assertTrue(restored.bookingsForUser(8).isEmpty());
+        // Touching the end of booking 1 counts as a conflict, as in the database check
+        assertFalse(restored.isCarAvailable(5, START.plusDays(3), 1));
+        assertFalse(restored.isCarAvailable(5, START.minusDays(2), 2));
+        assertTrue(restored.isCarAvailable(5, START.plusDays(4), 1));
+        assertTrue(restored.isCarAvailable(5, START.plusDays(10), 2));
+        assertTrue(restored.isCarAvailable(6, START, 3));
+    }
+
+    private static List<BookingEvent> replay(BookingEventLog log, long fromSequence) {
+        List<BookingEvent> events = new ArrayList<>();
+        log.replay(fromSequence, events::add);
+        return events;
+    }
+}
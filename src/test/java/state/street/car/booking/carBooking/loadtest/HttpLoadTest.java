@@ -0,0 +1,191 @@
+package state.street.car.booking.carBooking.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * End-to-end load through the servlet container, security filter chain, controllers and Jackson.
+ * Every client is paced to a fixed schedule and latency is measured from the intended start time,
+ * so a stalled server shows up in the percentiles instead of silently lowering the request rate.
+ * With -Dloadtest.outbox=true the outbox is on and the report adds the event lag from write to delivery.
+ * Skipped unless run with -Dloadtest.enabled=true; see {@link LoadTestSettings} for the knobs.
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.org.springframework.security=WARN",
+        "carbooking.sql-monitor.log-offenders=false",
+        "carbooking.outbox.enabled=${loadtest.outbox:false}"
+})
+@EnabledIfSystemProperty(named = "loadtest.enabled", matches = "true")
+class HttpLoadTest {
+
+    private static final String[][] USERS = {{"john", "user123"}, {"jane", "user123"}};
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<LoadTestSettings.Operation, Recorder> latencies = new EnumMap<>(LoadTestSettings.Operation.class);
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    @Test
+    void runLoad() throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        for (LoadTestSettings.Operation operation : LoadTestSettings.Operation.values()) {
+            latencies.put(operation, new Recorder(HIGHEST_TRACKABLE_NANOS, 3));
+        }
+
+        List<LoadClient> clients = new ArrayList<>();
+        for (int i = 0; i < settings.clients(); i++) {
+            LoadClient client = new LoadClient("http://localhost:" + port, objectMapper);
+            String[] user = USERS[i % USERS.length];
+            client.login(user[0], user[1]);
+            clients.add(client);
+        }
+
+        long start = System.nanoTime();
+        long measureFrom = start + settings.warmup().toNanos();
+        long end = measureFrom + settings.duration().toNanos();
+
+        ExecutorService executor = Executors.newFixedThreadPool(settings.clients());
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            for (int i = 0; i < clients.size(); i++) {
+                LoadClient client = clients.get(i);
+                // Stagger clients across one interval so requests do not arrive in bursts
+                long firstStart = start + settings.clientIntervalNanos() * i / clients.size();
+                long seed = i;
+                runs.add(executor.submit(() -> {
+                    drive(client, settings, firstStart, measureFrom, end, new SplittableRandom(seed));
+                    return null;
+                }));
+            }
+            for (Future<?> run : runs) {
+                run.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // Behind schedule the run overshoots its end, so throughput uses the real elapsed time
+        long measuredNanos = System.nanoTime() - measureFrom;
+
+        report(settings, measuredNanos);
+        assertTrue(completed.sum() > 0, "No requests completed");
+        assertEquals(0, errors.sum(), "Unexpected error responses");
+    }
+
+    private void drive(LoadClient client, LoadTestSettings settings, long firstStart, long measureFrom, long end,
+                       SplittableRandom random) throws Exception {
+        long interval = settings.clientIntervalNanos();
+        LocalDateTime horizon = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+
+        for (long intended = firstStart; intended < end; intended += interval) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            LoadTestSettings.Operation operation = settings.pick(random.nextInt(settings.mixTotal()));
+            if (operation == LoadTestSettings.Operation.DELETE_BOOKING && !client.hasOwnBookings()) {
+                operation = LoadTestSettings.Operation.CREATE_BOOKING;
+            }
+
+            String startDate = horizon.plusDays(random.nextInt(365)).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            int duration = 1 + random.nextInt(3);
+            HttpResponse<String> response = switch (operation) {
+                case LIST_CARS -> client.searchCars(startDate, duration);
+                case CREATE_BOOKING -> client.createBooking(
+                        client.carIds().get(random.nextInt(client.carIds().size())), startDate, duration);
+                case DELETE_BOOKING -> client.deleteOwnBooking();
+            };
+            long latency = System.nanoTime() - intended;
+
+            if (intended < measureFrom) {
+                continue;
+            }
+            latencies.get(operation).recordValue(Math.min(latency, HIGHEST_TRACKABLE_NANOS));
+            completed.increment();
+            if (response.statusCode() == 409) {
+                conflicts.increment();
+            } else if (response.statusCode() >= 400) {
+                errors.increment();
+                log.warn("{} returned {}: {}", operation, response.statusCode(), response.body());
+            }
+        }
+    }
+
+    private void report(LoadTestSettings settings, long measuredNanos) {
+        double seconds = measuredNanos / 1e9;
+        Histogram overall = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+
+        StringBuilder report = new StringBuilder(String.format(
+                "%nLoad test: %d clients, target %.0f req/s, %.1fs measured%n", settings.clients(), settings.ratePerSecond(),
+                seconds));
+        report.append(String.format("%-16s %10s %10s %10s %10s %10s%n", "operation", "count", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        for (Map.Entry<LoadTestSettings.Operation, Recorder> entry : latencies.entrySet()) {
+            Histogram histogram = entry.getValue().getIntervalHistogram();
+            overall.add(histogram);
+            appendRow(report, entry.getKey().name(), histogram);
+        }
+        appendRow(report, "ALL", overall);
+        report.append(String.format("Throughput: %.1f req/s, conflicts: %d, errors: %d",
+                completed.sum() / seconds, conflicts.sum(), errors.sum()));
+        Timer outboxLag = meterRegistry.find("carbooking.outbox.lag").timer();
+        if (outboxLag != null && outboxLag.count() > 0) {
+            // Includes warmup: the timer only keeps its own percentiles
+            report.append(String.format("%nOutbox lag: %d events", outboxLag.count()));
+            for (ValueAtPercentile value : outboxLag.takeSnapshot().percentileValues()) {
+                report.append(String.format(", p%.0f %.2f ms", value.percentile() * 100, value.value(TimeUnit.MILLISECONDS)));
+            }
+            report.append(String.format(", max %.2f ms", outboxLag.max(TimeUnit.MILLISECONDS)));
+        }
+        log.info(report.toString());
+    }
+
+    private static void appendRow(StringBuilder report, String name, Histogram histogram) {
+        report.append(String.format("%-16s %10d %10.2f %10.2f %10.2f %10.2f%n", name, histogram.getTotalCount(),
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue())));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
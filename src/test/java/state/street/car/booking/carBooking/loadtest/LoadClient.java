@@ -0,0 +1,110 @@
+package state.street.car.booking.carBooking.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One logged-in browser-like session: its own cookie jar, CSRF-protected form login and the
+ * bookings it has created so far, so deletes only target its own bookings.
+ */
+class LoadClient {
+
+    private static final Pattern CSRF_INPUT = Pattern.compile("name=\"_csrf\"\\s+value=\"([^\"]+)\"");
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final String baseUrl;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+
+    private final Deque<Long> ownBookings = new ArrayDeque<>();
+    private final List<Long> carIds = new ArrayList<>();
+
+    LoadClient(String baseUrl, ObjectMapper objectMapper) {
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .build();
+    }
+
+    void login(String username, String password) throws IOException, InterruptedException {
+        HttpResponse<String> loginPage = send(HttpRequest.newBuilder(uri("/login")).GET());
+        Matcher csrf = CSRF_INPUT.matcher(loginPage.body());
+        if (!csrf.find()) {
+            throw new IllegalStateException("No CSRF token on login page");
+        }
+
+        String form = "username=" + encode(username) + "&password=" + encode(password) + "&_csrf=" + encode(csrf.group(1));
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form)));
+        String location = response.headers().firstValue("Location").orElse("");
+        if (response.statusCode() != 302 || location.contains("error")) {
+            throw new IllegalStateException("Login failed for " + username + ": " + response.statusCode() + " " + location);
+        }
+
+        String tomorrow = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS).toString();
+        for (JsonNode car : objectMapper.readTree(searchCars(tomorrow, 1).body())) {
+            carIds.add(car.get("id").asLong());
+        }
+    }
+
+    List<Long> carIds() {
+        return carIds;
+    }
+
+    boolean hasOwnBookings() {
+        return !ownBookings.isEmpty();
+    }
+
+    HttpResponse<String> searchCars(String startDate, int duration) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(uri("/api/cars?startDate=" + encode(startDate) + "&duration=" + duration)).GET());
+    }
+
+    HttpResponse<String> createBooking(long carId, String bookingDate, int duration) throws IOException, InterruptedException {
+        String body = "{\"carId\":" + carId + ",\"bookingDate\":\"" + bookingDate + "\",\"duration\":" + duration + "}";
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/api/bookings"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)));
+        if (response.statusCode() == 201) {
+            ownBookings.push(objectMapper.readTree(response.body()).get("id").asLong());
+        }
+        return response;
+    }
+
+    HttpResponse<String> deleteOwnBooking() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(uri("/api/bookings/" + ownBookings.pop())).DELETE());
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return httpClient.send(request.timeout(REQUEST_TIMEOUT).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,77 @@
+package state.street.car.booking.carBooking.loadtest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Load test knobs, read from system properties so they can be passed on the Maven command line:
+ * <pre>
+ * mvn test -Dtest=HttpLoadTest -Dloadtest.enabled=true -Dloadtest.clients=64 -Dloadtest.rate=1000 \
+ *     -Dloadtest.duration=60 -Dloadtest.mix=list=70,create=20,delete=10
+ * </pre>
+ */
+record LoadTestSettings(int clients, double ratePerSecond, Duration warmup, Duration duration,
+                        Map<Operation, Integer> mix, int mixTotal) {
+
+    enum Operation {
+        LIST_CARS("list"),
+        CREATE_BOOKING("create"),
+        DELETE_BOOKING("delete");
+
+        private final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+
+        static Operation fromKey(String key) {
+            for (Operation operation : values()) {
+                if (operation.key.equals(key)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown load test operation: " + key);
+        }
+    }
+
+    static LoadTestSettings fromSystemProperties() {
+        Map<Operation, Integer> mix = parseMix(System.getProperty("loadtest.mix", "list=70,create=20,delete=10"));
+        return new LoadTestSettings(
+                Integer.getInteger("loadtest.clients", 32),
+                Double.parseDouble(System.getProperty("loadtest.rate", "400")),
+                Duration.ofSeconds(Long.getLong("loadtest.warmup", 5L)),
+                Duration.ofSeconds(Long.getLong("loadtest.duration", 30L)),
+                mix,
+                mix.values().stream().mapToInt(Integer::intValue).sum());
+    }
+
+    /**
+     * Picks an operation for a uniformly random roll in [0, mixTotal)
+     */
+    Operation pick(int roll) {
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        return Operation.LIST_CARS;
+    }
+
+    /**
+     * Interval between request starts for one client so that all clients together hit the target rate
+     */
+    long clientIntervalNanos() {
+        return (long) (clients * 1_000_000_000L / ratePerSecond);
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : value.split(",")) {
+            String[] keyAndWeight = part.trim().split("=");
+            mix.put(Operation.fromKey(keyAndWeight[0].trim()), Integer.parseInt(keyAndWeight[1].trim()));
+        }
+        return mix;
+    }
+}
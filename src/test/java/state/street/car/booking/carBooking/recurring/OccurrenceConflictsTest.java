@@ -0,0 +1,88 @@
+package state.street.car.booking.carBooking.recurring;
+
+import org.junit.jupiter.api.Test;
+import state.street.car.booking.carBooking.entity.BookingSeries;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OccurrenceConflictsTest {
+
+    // A Monday
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2036, 1, 7, 8, 0);
+
+    @Test
+    void testUntilIncludesAnOccurrenceStartingOnThatDay() {
+        RecurrenceRule rule = RecurrenceRule.of(BookingSeries.Frequency.WEEKLY, 1, MONDAY, 1, null, MONDAY.plusWeeks(51));
+
+        assertEquals(52, rule.occurrences());
+        assertEquals(MONDAY.plusWeeks(51).plusDays(1), rule.lastEnd());
+        List<LocalDateTime> starts = new ArrayList<>();
+        rule.starts().forEachRemaining(starts::add);
+        assertEquals(MONDAY.plusWeeks(1), starts.get(1));
+        assertEquals(MONDAY.plusWeeks(51), starts.get(51));
+
+        assertEquals(26, RecurrenceRule.of(BookingSeries.Frequency.WEEKLY, 2, MONDAY, 1, null,
+                MONDAY.plusWeeks(51)).occurrences());
+        assertEquals(3, RecurrenceRule.of(BookingSeries.Frequency.DAILY, 2, MONDAY, 1, 3, null).occurrences());
+    }
+
+    @Test
+    void testInvalidRulesAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> RecurrenceRule.of(BookingSeries.Frequency.WEEKLY, 1, MONDAY, 1, 4, MONDAY.plusWeeks(3)));
+        assertThrows(IllegalArgumentException.class,
+                () -> RecurrenceRule.of(BookingSeries.Frequency.WEEKLY, 1, MONDAY, 1, null, null));
+        // Occurrences would overlap or touch each other
+        assertThrows(IllegalArgumentException.class,
+                () -> RecurrenceRule.of(BookingSeries.Frequency.DAILY, 1, MONDAY, 2, 4, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> RecurrenceRule.of(BookingSeries.Frequency.DAILY, 1, MONDAY, 1, 4, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> RecurrenceRule.of(BookingSeries.Frequency.WEEKLY, 1, MONDAY, 7, 4, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> RecurrenceRule.of(BookingSeries.Frequency.WEEKLY, 1, MONDAY, 1, null, MONDAY.minusDays(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> RecurrenceRule.of(null, 1, MONDAY, 1, 4, null));
+    }
+
+    @Test
+    void testStartsAreGeneratedLazily() {
+        RecurrenceRule rule = RecurrenceRule.of(BookingSeries.Frequency.DAILY, 2, MONDAY, 1, Integer.MAX_VALUE, null);
+        Iterator<LocalDateTime> starts = rule.starts();
+
+        assertEquals(MONDAY, starts.next());
+        assertEquals(MONDAY.plusDays(2), starts.next());
+    }
+
+    @Test
+    void testConflictsAreCountedInOnePass() {
+        RecurrenceRule rule = RecurrenceRule.of(BookingSeries.Frequency.WEEKLY, 1, MONDAY, 1, 10, null);
+        List<OccurrenceConflicts.Busy> busy = List.of(
+                // Between occurrences
+                day(MONDAY.plusDays(2), 3),
+                // Ends as week 2's occurrence starts: touching day bookings conflict
+                day(MONDAY.plusWeeks(2).minusDays(2), 2),
+                // A long booking over weeks 5 and 6, with a legacy booking nested inside it
+                day(MONDAY.plusWeeks(5).minusDays(1), 9),
+                day(MONDAY.plusWeeks(5).plusDays(2), 1),
+                // Hourly bookings touching week 8's occurrence on both sides do not conflict
+                new OccurrenceConflicts.Busy(MONDAY.plusWeeks(8).minusHours(2), MONDAY.plusWeeks(8), false),
+                new OccurrenceConflicts.Busy(MONDAY.plusWeeks(8).plusDays(1), MONDAY.plusWeeks(8).plusDays(1).plusHours(3), false),
+                new OccurrenceConflicts.Busy(MONDAY.plusWeeks(9).plusHours(5), MONDAY.plusWeeks(9).plusHours(6), false));
+
+        OccurrenceConflicts.Result result = OccurrenceConflicts.find(rule, busy);
+
+        assertEquals(4, result.conflicting());
+        assertEquals(MONDAY.plusWeeks(2), result.firstConflict());
+        assertTrue(OccurrenceConflicts.find(rule, List.of(day(MONDAY.plusDays(2), 3))).isEmpty());
+    }
+
+    private static OccurrenceConflicts.Busy day(LocalDateTime start, int days) {
+        return new OccurrenceConflicts.Busy(start, start.plusDays(days), true);
+    }
+}
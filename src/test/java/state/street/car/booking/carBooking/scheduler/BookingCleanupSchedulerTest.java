@@ -5,21 +5,44 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+import state.street.car.booking.carBooking.cluster.ChangeFeed;
+import state.street.car.booking.carBooking.cluster.LeaseManager;
+import state.street.car.booking.carBooking.cluster.LeaseProperties;
+import state.street.car.booking.carBooking.datasource.ShardRouter;
+import state.street.car.booking.carBooking.datasource.ShardingProperties;
+import state.street.car.booking.carBooking.entity.ArchivedBooking;
 import state.street.car.booking.carBooking.entity.Booking;
 import state.street.car.booking.carBooking.entity.Car;
 import state.street.car.booking.carBooking.entity.User;
 import state.street.car.booking.carBooking.enums.CarType;
+import state.street.car.booking.carBooking.exception.LeaseUnavailableException;
+import state.street.car.booking.carBooking.ledger.BookingLedger;
+import state.street.car.booking.carBooking.ledger.WriteBehindBookingWriter;
+import state.street.car.booking.carBooking.metrics.BookingMetrics;
+import state.street.car.booking.carBooking.outbox.OutboxWriter;
+import state.street.car.booking.carBooking.repository.ArchivedBookingRepository;
 import state.street.car.booking.carBooking.repository.BookingRepository;
+import state.street.car.booking.carBooking.repository.BookingSeriesRepository;
+import state.street.car.booking.carBooking.repository.HourlyBookingRepository;
+import state.street.car.booking.carBooking.service.DataVersionTracker;
+import state.street.car.booking.carBooking.service.UtilisationService;
+import state.street.car.booking.carBooking.service.WaitlistService;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +51,50 @@ class BookingCleanupSchedulerTest {
     @Mock
     private BookingRepository bookingRepository;
 
+    @Mock
+    private ArchivedBookingRepository archivedBookingRepository;
+
+    @Mock
+    private DataVersionTracker dataVersionTracker;
+
+    @Mock
+    private BookingMetrics bookingMetrics;
+
+    @Mock
+    private UtilisationService utilisationService;
+
+    @Mock
+    private BookingLedger bookingLedger;
+
+    @Mock
+    private WriteBehindBookingWriter writeBehindBookingWriter;
+
+    @Mock
+    private OutboxWriter outboxWriter;
+
+    @Mock
+    private ChangeFeed changeFeed;
+
+    @Mock
+    private HourlyBookingRepository hourlyBookingRepository;
+
+    @Mock
+    private BookingSeriesRepository bookingSeriesRepository;
+
+    @Mock
+    private WaitlistService waitlistService;
+
+    // Unsharded: per-shard work runs inline against the mocks
+    @Spy
+    private ShardRouter shardRouter = new ShardRouter(new ShardingProperties(), null);
+
+    // Leases off: every run goes ahead on this node
+    @Spy
+    private LeaseManager leaseManager = new LeaseManager(new LeaseProperties(), null, null);
+
+    @Spy
+    private TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+
     @InjectMocks
     private BookingCleanupScheduler cleanupScheduler;
 
@@ -64,6 +131,8 @@ class BookingCleanupSchedulerTest {
         cleanupScheduler.cleanupExpiredBookings();
 
         verify(bookingRepository, times(1)).delete(expiredBooking);
+        verify(bookingLedger).expired(expiredBooking);
+        verify(outboxWriter).bookingExpired(expiredBooking);
     }
 
     @Test
@@ -81,6 +150,7 @@ class BookingCleanupSchedulerTest {
         cleanupScheduler.cleanupExpiredBookings();
 
         verify(bookingRepository, never()).delete(any(Booking.class));
+        verify(bookingLedger, never()).expired(any());
     }
 
     @Test
@@ -107,6 +177,9 @@ class BookingCleanupSchedulerTest {
 
         verify(bookingRepository, times(1)).delete(expiredBooking);
         verify(bookingRepository, never()).delete(activeBooking);
+        verify(archivedBookingRepository, times(1)).save(argThat(archived ->
+                archived.getId().equals(1L) && archived.getCarType() == CarType.SEDAN
+                        && archived.getCostPerDay().equals(new BigDecimal("50.00"))));
     }
 
     @Test
@@ -142,6 +215,8 @@ class BookingCleanupSchedulerTest {
 
         assertEquals(2, deletedCount);
         verify(bookingRepository, times(2)).delete(any(Booking.class));
+        verify(bookingMetrics, times(1)).recordCleanup(anyLong(), eq(2));
+        verify(utilisationService, times(1)).pruneExpired();
     }
 
     @Test
@@ -160,6 +235,16 @@ class BookingCleanupSchedulerTest {
 
         assertEquals(0, deletedCount);
         verify(bookingRepository, never()).delete(any(Booking.class));
+        verify(archivedBookingRepository, never()).save(any(ArchivedBooking.class));
+    }
+
+    @Test
+    void testManualCleanup_LeaseHeldByAnotherNode() {
+        doReturn(Optional.empty()).when(leaseManager).tryAcquire("booking-cleanup");
+
+        assertThrows(LeaseUnavailableException.class, () -> cleanupScheduler.cleanupExpiredBookingsManually());
+
+        verifyNoInteractions(bookingRepository, archivedBookingRepository, utilisationService);
     }
 
     @Test
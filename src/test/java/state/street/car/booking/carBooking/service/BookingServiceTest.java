@@ -3,9 +3,15 @@ package state.street.car.booking.carBooking.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+import state.street.car.booking.carBooking.cluster.ChangeFeed;
+import state.street.car.booking.carBooking.datasource.ShardRouter;
+import state.street.car.booking.carBooking.datasource.ShardingProperties;
 import state.street.car.booking.carBooking.dto.BookingDTO;
 import state.street.car.booking.carBooking.dto.BookingRequest;
 import state.street.car.booking.carBooking.entity.Booking;
@@ -15,8 +21,14 @@ import state.street.car.booking.carBooking.entity.User;
 import state.street.car.booking.carBooking.enums.CarType;
 import state.street.car.booking.carBooking.exception.BookingConflictException;
 import state.street.car.booking.carBooking.exception.ResourceNotFoundException;
+import state.street.car.booking.carBooking.hourly.HourSlotIndex;
+import state.street.car.booking.carBooking.ledger.BookingLedger;
+import state.street.car.booking.carBooking.ledger.WriteBehindBookingWriter;
+import state.street.car.booking.carBooking.metrics.BookingMetrics;
+import state.street.car.booking.carBooking.outbox.OutboxWriter;
 import state.street.car.booking.carBooking.repository.BookingRepository;
 import state.street.car.booking.carBooking.repository.CarRepository;
+import state.street.car.booking.carBooking.repository.HourlyBookingRepository;
 import state.street.car.booking.carBooking.repository.UserRepository;
 
 import java.math.BigDecimal;
@@ -42,6 +54,44 @@ class BookingServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private DataVersionTracker dataVersionTracker;
+
+    @Mock
+    private BookingMetrics bookingMetrics;
+
+    @Mock
+    private UtilisationService utilisationService;
+
+    @Mock
+    private BookingLedger bookingLedger;
+
+    // Disabled unless a test enables it
+    @Mock
+    private WriteBehindBookingWriter writeBehindBookingWriter;
+
+    @Mock
+    private OutboxWriter outboxWriter;
+
+    @Mock
+    private ChangeFeed changeFeed;
+
+    @Mock
+    private HourSlotIndex hourSlotIndex;
+
+    @Mock
+    private HourlyBookingRepository hourlyBookingRepository;
+
+    @Mock
+    private WaitlistService waitlistService;
+
+    @Spy
+    private TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+
+    // Unsharded: per-shard work runs inline against the mocks
+    @Spy
+    private ShardRouter shardRouter = new ShardRouter(new ShardingProperties(), null);
+
     @InjectMocks
     private BookingService bookingService;
 
@@ -80,6 +130,22 @@ class BookingServiceTest {
         assertEquals(1L, result.getCarId());
         assertEquals("testuser", result.getUsername());
         verify(bookingRepository, times(1)).save(any(Booking.class));
+        verify(utilisationService).bookingAdded(CarType.SEDAN, testBooking.getBookingDate(), 3);
+        verify(bookingLedger).created(testBooking);
+        verify(outboxWriter).bookingCreated(testBooking);
+    }
+
+    @Test
+    void testCreateBooking_WriteBehindSkipsTheDatabase() {
+        BookingDTO accepted = new BookingDTO(7L, 1L, 1L, "TEST-001", "testuser",
+                bookingRequest.getBookingDate(), 3, LocalDateTime.now());
+        when(writeBehindBookingWriter.isEnabled()).thenReturn(true);
+        when(writeBehindBookingWriter.createBooking(bookingRequest, "testuser", false)).thenReturn(accepted);
+
+        assertSame(accepted, bookingService.createBooking(bookingRequest, "testuser"));
+
+        verifyNoInteractions(bookingRepository, utilisationService);
+        verify(transactionOperations, never()).execute(any());
     }
 
     @Test
@@ -119,6 +185,8 @@ class BookingServiceTest {
         });
 
         verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingMetrics, times(1)).recordConflict(CarType.SEDAN);
+        verify(bookingLedger, never()).created(any());
     }
 
     @Test
@@ -143,23 +211,37 @@ class BookingServiceTest {
 
     @Test
     void testGetAllBookings() {
-        List<Booking> bookings = new ArrayList<>();
-        bookings.add(testBooking);
+        List<BookingDTO> bookings = new ArrayList<>();
+        bookings.add(new BookingDTO(1L, 1L, 1L, "TEST-001", "testuser",
+                testBooking.getBookingDate(), 3, testBooking.getCreatedAt()));
 
-        when(bookingRepository.findAll()).thenReturn(bookings);
+        when(bookingRepository.findAllBookingDTOs()).thenReturn(bookings);
 
         List<BookingDTO> result = bookingService.getAllBookings();
 
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(1L, result.get(0).getId());
+        verify(bookingRepository, never()).findAll();
+    }
+
+    @Test
+    void testGetBookingsByUsername_UsesProjection() {
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(bookingRepository.findBookingDTOsByUserId(1L)).thenReturn(List.of(new BookingDTO(1L, 1L, 1L, "TEST-001",
+                "testuser", testBooking.getBookingDate(), 3, testBooking.getCreatedAt())));
+
+        List<BookingDTO> result = bookingService.getBookingsByUsername("testuser");
+
+        assertEquals(1, result.size());
+        assertEquals("TEST-001", result.get(0).getCarRegistrationNumber());
+        verify(bookingRepository, never()).findByUserId(any());
     }
 
     @Test
     void testDeleteBooking_Success() {
-        Booking booking = new Booking();
+        Booking booking = new Booking(testCar, testUser, LocalDateTime.now().plusDays(1), 3);
         booking.setId(1L);
-        booking.setUser(testUser);
 
         when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
@@ -167,6 +249,14 @@ class BookingServiceTest {
         bookingService.deleteBooking(1L, "testuser");
 
         verify(bookingRepository, times(1)).deleteById(1L);
+        verify(utilisationService).bookingRemoved(CarType.SEDAN, booking.getBookingDate(), 3);
+        verify(bookingLedger).cancelled(booking);
+        verify(outboxWriter).bookingCancelled(booking);
+        verify(writeBehindBookingWriter).released(1L);
+        // Drained before the transaction opens
+        InOrder order = inOrder(writeBehindBookingWriter, transactionOperations);
+        order.verify(writeBehindBookingWriter).drain();
+        order.verify(transactionOperations).executeWithoutResult(any());
     }
 
     @Test
@@ -203,9 +293,8 @@ class BookingServiceTest {
 
     @Test
     void testDeleteBooking_UserCanDeleteOwnBooking() {
-        Booking booking = new Booking();
+        Booking booking = new Booking(testCar, testUser, LocalDateTime.now().plusDays(1), 3);
         booking.setId(1L);
-        booking.setUser(testUser);
 
         when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
@@ -225,6 +314,9 @@ class BookingServiceTest {
         Booking booking = new Booking();
         booking.setId(1L);
         booking.setUser(testUser); // Booking belongs to testUser
+        booking.setCar(testCar);
+        booking.setBookingDate(LocalDateTime.now().plusDays(1));
+        booking.setDuration(3);
 
         when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
         when(userRepository.findByUsername("admin")).thenReturn(Optional.of(adminUser));
@@ -241,9 +333,8 @@ class BookingServiceTest {
         Role userRole = new Role("ROLE_USER");
         otherUser.setRoles(Set.of(userRole));
 
-        Booking booking = new Booking();
+        Booking booking = new Booking(testCar, testUser, LocalDateTime.now().plusDays(1), 3);
         booking.setId(1L);
-        booking.setUser(testUser);
 
         when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
         when(userRepository.findByUsername("otheruser")).thenReturn(Optional.of(otherUser));
@@ -0,0 +1,119 @@
+package state.street.car.booking.carBooking.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import state.street.car.booking.carBooking.dto.CarDTO;
+import state.street.car.booking.carBooking.enums.CarType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CarListResponseCacheTest {
+
+    @Mock
+    private CarService carService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final DataVersionTracker dataVersionTracker = new DataVersionTracker();
+
+    private CarListResponseCache cache;
+
+    private CarDTO sedan;
+    private CarDTO suv;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CarListResponseCache(carService, objectMapper, dataVersionTracker);
+        sedan = new CarDTO(1L, "SED-001", CarType.SEDAN, new BigDecimal("50.00"), 4);
+        suv = new CarDTO(2L, "SUV-001", CarType.SUV, new BigDecimal("70.00"), 5);
+    }
+
+    @Test
+    void testRepeatedRequestsAreServedFromCache() throws Exception {
+        when(carService.getAllCarsSimple()).thenReturn(List.of(sedan, suv));
+
+        CarListResponseCache.Entry first = cache.get(null);
+        CarListResponseCache.Entry second = cache.get(null);
+
+        assertSame(first, second);
+        verify(carService, times(1)).getAllCarsSimple();
+        assertEquals(1L, cache.getStats().get("hits"));
+        assertEquals(1L, cache.getStats().get("misses"));
+        assertEquals(objectMapper.writeValueAsString(List.of(sedan, suv)), new String(first.json(), "UTF-8"));
+    }
+
+    @Test
+    void testGzipCopyMatchesJson() throws IOException {
+        when(carService.getAllCarsSimple()).thenReturn(List.of(sedan, suv));
+
+        CarListResponseCache.Entry entry = cache.get(null);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(entry.gzip()))) {
+            assertArrayEquals(entry.json(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void testVariantsAreCachedPerType() {
+        when(carService.getCarsByTypeSimple(CarType.SEDAN)).thenReturn(List.of(sedan));
+        when(carService.getCarsByTypeSimple(CarType.SUV)).thenReturn(List.of(suv));
+
+        CarListResponseCache.Entry sedans = cache.get(CarType.SEDAN);
+        CarListResponseCache.Entry suvs = cache.get(CarType.SUV);
+        cache.get(CarType.SEDAN);
+
+        assertNotEquals(new String(sedans.json()), new String(suvs.json()));
+        verify(carService, times(1)).getCarsByTypeSimple(CarType.SEDAN);
+        verify(carService, times(1)).getCarsByTypeSimple(CarType.SUV);
+    }
+
+    @Test
+    void testCarMutationInvalidatesEntries() {
+        when(carService.getAllCarsSimple()).thenReturn(List.of(sedan));
+
+        cache.get(null);
+        dataVersionTracker.carsChanged();
+        cache.get(null);
+
+        verify(carService, times(2)).getAllCarsSimple();
+    }
+
+    @Test
+    void testStatsReportServedAgainstEncodedBytes() {
+        when(carService.getAllCarsSimple()).thenReturn(List.of(sedan, suv));
+
+        CarListResponseCache.Entry entry = cache.get(null);
+        cache.body(CarType.SEDAN, false);
+        for (int i = 0; i < 10; i++) {
+            cache.body(null, false);
+        }
+        cache.body(null, true);
+
+        // The SEDAN miss is encoded, not served from the cache
+        assertEquals(10L * entry.json().length + entry.gzip().length, cache.getStats().get("bytesServedFromCache"));
+    }
+
+    @Test
+    void testAcceptEncodingHonoursQualityValues() {
+        assertTrue(CarListResponseCache.acceptsGzip("gzip, deflate, br"));
+        assertTrue(CarListResponseCache.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(CarListResponseCache.acceptsGzip("*"));
+        assertFalse(CarListResponseCache.acceptsGzip("gzip;q=0"));
+        assertFalse(CarListResponseCache.acceptsGzip("gzip;q=0.000, *;q=1"));
+        assertFalse(CarListResponseCache.acceptsGzip("br, *;q=0"));
+        assertFalse(CarListResponseCache.acceptsGzip("identity"));
+        assertFalse(CarListResponseCache.acceptsGzip(null));
+    }
+}
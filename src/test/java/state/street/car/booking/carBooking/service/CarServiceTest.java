@@ -5,13 +5,19 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import state.street.car.booking.carBooking.cluster.ChangeFeed;
+import state.street.car.booking.carBooking.datasource.ShardRouter;
+import state.street.car.booking.carBooking.datasource.ShardingProperties;
 import state.street.car.booking.carBooking.dto.CarDTO;
 import state.street.car.booking.carBooking.entity.Booking;
 import state.street.car.booking.carBooking.entity.Car;
 import state.street.car.booking.carBooking.entity.User;
 import state.street.car.booking.carBooking.enums.CarType;
 import state.street.car.booking.carBooking.exception.ResourceNotFoundException;
+import state.street.car.booking.carBooking.ledger.WriteBehindBookingWriter;
+import state.street.car.booking.carBooking.outbox.OutboxWriter;
 import state.street.car.booking.carBooking.repository.BookingRepository;
 import state.street.car.booking.carBooking.repository.CarRepository;
 
@@ -23,6 +29,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +41,22 @@ class CarServiceTest {
     @Mock
     private BookingRepository bookingRepository;
 
+    @Mock
+    private DataVersionTracker dataVersionTracker;
+
+    @Mock
+    private OutboxWriter outboxWriter;
+
+    @Mock
+    private ChangeFeed changeFeed;
+
+    @Mock
+    private WriteBehindBookingWriter writeBehindBookingWriter;
+
+    // Unsharded: per-shard work runs inline against the mocks
+    @Spy
+    private ShardRouter shardRouter = new ShardRouter(new ShardingProperties(), null);
+
     @InjectMocks
     private CarService carService;
 
@@ -111,6 +134,7 @@ class CarServiceTest {
         assertEquals("TEST-001", result.getRegistrationNumber());
         assertEquals(CarType.SEDAN, result.getType());
         verify(carRepository, times(1)).save(any(Car.class));
+        verify(outboxWriter).carCreated(testCar);
     }
 
     @Test
@@ -146,6 +170,20 @@ class CarServiceTest {
         carService.deleteCar(1L);
 
         verify(carRepository, times(1)).deleteById(1L);
+        verify(outboxWriter).carDeleted(1L);
+        verify(writeBehindBookingWriter).carDeleted(eq(1L), any());
+    }
+
+    @Test
+    void testDeleteCar_PendingWriteBehindBooking() {
+        when(carRepository.existsById(1L)).thenReturn(true);
+        when(bookingRepository.findActiveBookingsForCar(any(), any())).thenReturn(new ArrayList<>());
+        doThrow(new IllegalStateException("Cannot delete car with active bookings. Please cancel all bookings first."))
+                .when(writeBehindBookingWriter).carDeleted(eq(1L), any());
+
+        assertThrows(IllegalStateException.class, () -> carService.deleteCar(1L));
+
+        verify(carRepository, never()).deleteById(any());
     }
 
     @Test
@@ -0,0 +1,168 @@
+package state.street.car.booking.carBooking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import state.street.car.booking.carBooking.config.PricingProperties;
+import state.street.car.booking.carBooking.dto.QuoteDTO;
+import state.street.car.booking.carBooking.dto.QuoteRequest;
+import state.street.car.booking.carBooking.entity.Car;
+import state.street.car.booking.carBooking.enums.CarType;
+import state.street.car.booking.carBooking.exception.ResourceNotFoundException;
+import state.street.car.booking.carBooking.repository.CarRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuoteServiceTest {
+
+    @Mock
+    private CarRepository carRepository;
+
+    private final DataVersionTracker dataVersionTracker = new DataVersionTracker();
+
+    private QuoteService quoteService;
+
+    private Car sedan;
+    private Car suv;
+
+    @BeforeEach
+    void setUp() {
+        PricingProperties.Tariff sedanTariff = new PricingProperties.Tariff();
+        sedanTariff.setWeekendMultiplier(new BigDecimal("1.10"));
+        sedanTariff.setSeasons(List.of(season("07-01", "08-31", "1.20")));
+        sedanTariff.setDiscounts(List.of(discount(7, "10"), discount(28, "20")));
+
+        PricingProperties.Tariff suvTariff = new PricingProperties.Tariff();
+        suvTariff.setSeasons(List.of(season("12-20", "01-05", "1.30")));
+
+        PricingProperties properties = new PricingProperties();
+        properties.getTariffs().put(CarType.SEDAN, sedanTariff);
+        properties.getTariffs().put(CarType.SUV, suvTariff);
+
+        quoteService = new QuoteService(carRepository, properties, dataVersionTracker);
+
+        sedan = new Car("SED-001", CarType.SEDAN, new BigDecimal("50.00"), 4);
+        sedan.setId(1L);
+        suv = new Car("SUV-001", CarType.SUV, new BigDecimal("70.00"), 5);
+        suv.setId(2L);
+    }
+
+    @Test
+    void testWeekdaysAtDailyRate() {
+        when(carRepository.findAll()).thenReturn(List.of(sedan));
+
+        // Monday to Wednesday
+        QuoteDTO quote = quoteOne(1L, LocalDateTime.of(2025, 3, 3, 10, 0), 3);
+
+        assertEquals(new BigDecimal("150.00"), quote.getSubtotal());
+        assertEquals(new BigDecimal("150.00"), quote.getTotal());
+    }
+
+    @Test
+    void testWeekendMultiplier() {
+        when(carRepository.findAll()).thenReturn(List.of(sedan));
+
+        // Friday to Sunday
+        QuoteDTO quote = quoteOne(1L, LocalDateTime.of(2025, 3, 7, 10, 0), 3);
+
+        assertEquals(new BigDecimal("160.00"), quote.getTotal());
+    }
+
+    @Test
+    void testSeasonAndWeekendMultipliersCombine() {
+        when(carRepository.findAll()).thenReturn(List.of(sedan));
+
+        // Saturday in July: 50 * 1.20 * 1.10
+        QuoteDTO quote = quoteOne(1L, LocalDateTime.of(2025, 7, 5, 10, 0), 1);
+
+        assertEquals(new BigDecimal("66.00"), quote.getTotal());
+    }
+
+    @Test
+    void testSeasonSpanningNewYear() {
+        when(carRepository.findAll()).thenReturn(List.of(suv));
+
+        // 30 Dec to 7 Jan: 7 days in season, 2 days outside; the SUV tariff has no discounts
+        QuoteDTO quote = quoteOne(2L, LocalDateTime.of(2025, 12, 30, 10, 0), 9);
+
+        assertEquals(new BigDecimal("777.00"), quote.getTotal());
+    }
+
+    @Test
+    void testLongRentalDiscount() {
+        when(carRepository.findAll()).thenReturn(List.of(sedan));
+
+        // Monday to Sunday: 5 * 50 + 2 * 55 = 360, 10% off
+        QuoteDTO quote = quoteOne(1L, LocalDateTime.of(2025, 3, 3, 10, 0), 7);
+
+        assertEquals(new BigDecimal("360.00"), quote.getSubtotal());
+        assertEquals(new BigDecimal("10.00"), quote.getDiscountPercent());
+        assertEquals(new BigDecimal("36.00"), quote.getDiscount());
+        assertEquals(new BigDecimal("324.00"), quote.getTotal());
+    }
+
+    @Test
+    void testAllCarsForEveryPeriod() {
+        when(carRepository.findAll()).thenReturn(List.of(sedan, suv));
+
+        List<QuoteDTO> quotes = quoteService.quote(new QuoteRequest(null, List.of(
+                new QuoteRequest.Period(LocalDateTime.of(2025, 3, 3, 10, 0), 1),
+                new QuoteRequest.Period(LocalDateTime.of(2025, 3, 4, 10, 0), 2))));
+
+        assertEquals(4, quotes.size());
+        assertEquals(new BigDecimal("140.00"), quotes.get(3).getTotal());
+    }
+
+    @Test
+    void testRateCardIsReusedUntilCarsChange() {
+        when(carRepository.findAll()).thenReturn(List.of(sedan));
+
+        quoteOne(1L, LocalDateTime.of(2025, 3, 3, 10, 0), 1);
+        quoteOne(1L, LocalDateTime.of(2025, 3, 3, 10, 0), 1);
+        verify(carRepository, times(1)).findAll();
+
+        dataVersionTracker.carsChanged();
+        quoteOne(1L, LocalDateTime.of(2025, 3, 3, 10, 0), 1);
+        verify(carRepository, times(2)).findAll();
+    }
+
+    @Test
+    void testInvalidRequests() {
+        assertThrows(IllegalArgumentException.class, () -> quoteService.quote(new QuoteRequest(null, List.of())));
+        assertThrows(IllegalArgumentException.class, () -> quoteService.quote(new QuoteRequest(null,
+                List.of(new QuoteRequest.Period(LocalDateTime.now(), 0)))));
+
+        when(carRepository.findAll()).thenReturn(List.of(sedan));
+        assertThrows(ResourceNotFoundException.class, () -> quoteOne(99L, LocalDateTime.now(), 1));
+    }
+
+    private QuoteDTO quoteOne(Long carId, LocalDateTime start, int duration) {
+        List<QuoteDTO> quotes = quoteService.quote(new QuoteRequest(List.of(carId),
+                List.of(new QuoteRequest.Period(start, duration))));
+        assertEquals(1, quotes.size());
+        return quotes.get(0);
+    }
+
+    private static PricingProperties.Season season(String from, String to, String multiplier) {
+        PricingProperties.Season season = new PricingProperties.Season();
+        season.setFrom(from);
+        season.setTo(to);
+        season.setMultiplier(new BigDecimal(multiplier));
+        return season;
+    }
+
+    private static PricingProperties.Discount discount(int minDays, String percent) {
+        PricingProperties.Discount discount = new PricingProperties.Discount();
+        discount.setMinDays(minDays);
+        discount.setPercent(new BigDecimal(percent));
+        return discount;
+    }
+}
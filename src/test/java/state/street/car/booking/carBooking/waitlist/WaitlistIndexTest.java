@@ -0,0 +1,53 @@
+package state.street.car.booking.carBooking.waitlist;
+
+import org.junit.jupiter.api.Test;
+import state.street.car.booking.carBooking.enums.CarType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WaitlistIndexTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2030, 1, 10, 0, 0);
+
+    @Test
+    void testCandidatesOverlapTheFreedPeriodInRequestOrder() {
+        WaitlistIndex index = new WaitlistIndex();
+        index.add(waiting(1, CarType.VAN, null, DAY.minusDays(9), 2, 5));
+        index.add(waiting(2, CarType.VAN, null, DAY.minusDays(8), 10, 3));
+        index.add(waiting(3, CarType.VAN, 7L, DAY.plusDays(1), 1, 1));
+        index.add(waiting(4, CarType.SEDAN, null, DAY, 1, 0));
+        index.add(waiting(5, CarType.VAN, null, DAY.plusDays(3), 1, 2));
+        index.add(waiting(6, CarType.VAN, 8L, DAY, 1, 4));
+
+        List<Long> ids = index.candidates(CarType.VAN, 7L, DAY, DAY.plusDays(3)).stream()
+                .map(WaitlistIndex.Waiting::id)
+                .toList();
+
+        // 1 ends before the period, 4 and 6 wait for other cars; 5 touches its end
+        assertEquals(List.of(3L, 5L, 2L), ids);
+    }
+
+    @Test
+    void testRemovedAndReplacedEntriesAreNoLongerCandidates() {
+        WaitlistIndex index = new WaitlistIndex();
+        index.add(waiting(1, CarType.SUV, null, DAY, 2, 0));
+        index.add(waiting(2, CarType.SUV, null, DAY, 2, 1));
+
+        assertTrue(index.remove(1));
+        assertFalse(index.remove(1));
+        assertEquals(List.of(2L), index.candidates(CarType.SUV, 1L, DAY, DAY.plusDays(1)).stream()
+                .map(WaitlistIndex.Waiting::id)
+                .toList());
+
+        index.replaceAll(List.of(waiting(3, CarType.SUV, null, DAY.minusDays(1), 1, 0)));
+        assertEquals(1, index.size());
+        assertEquals(List.of(3L), index.startedBefore(DAY).stream().map(WaitlistIndex.Waiting::id).toList());
+    }
+
+    private static WaitlistIndex.Waiting waiting(long id, CarType type, Long carId, LocalDateTime start, int days, int minute) {
+        return new WaitlistIndex.Waiting(id, 1L, type, carId, start, days, DAY.minusYears(1).plusMinutes(minute));
+    }
+}